@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.glassfish.grizzly.utils.Charsets;
+
+/**
+ * Compares two JMH result files in the CSV format (<tt>-rf csv</tt>) and
+ * prints a Markdown report, which could be pasted into a pull request.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar -rf csv -rff baseline.csv   (on the base revision)
+ * java -jar target/benchmarks.jar -rf csv -rff current.csv    (on the change)
+ * java -cp target/benchmarks.jar org.glassfish.grizzly.benchmarks.BaselineReport \
+ *      baseline.csv current.csv [threshold-percent]
+ * </pre>
+ *
+ * A result is reported as a regression (or an improvement), if it got worse
+ * (or better) by more than the threshold (5% by default) and the difference
+ * is bigger than the sum of both score errors. The process exit code is
+ * <tt>1</tt>, if there is any regression, so the report could be used as a
+ * build gate.
+ */
+public final class BaselineReport {
+
+    private static final double DEFAULT_THRESHOLD = 5;
+
+    private final Map<String, Result> baseline;
+    private final Map<String, Result> current;
+    private final double threshold;
+
+    private int regressions;
+    private int improvements;
+
+    public BaselineReport(final Map<String, Result> baseline,
+            final Map<String, Result> current, final double threshold) {
+        this.baseline = baseline;
+        this.current = current;
+        this.threshold = threshold;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: BaselineReport <baseline.csv> <current.csv> [threshold-percent]");
+            System.exit(2);
+        }
+
+        final BaselineReport report = new BaselineReport(
+                load(args[0]), load(args[1]),
+                args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD);
+        report.print(System.out);
+
+        System.exit(report.getRegressions() > 0 ? 1 : 0);
+    }
+
+
+    // --------------------------------------------------------- Public Methods
+
+
+    /**
+     * Prints the report and updates the regressions/improvements counters.
+     */
+    public void print(final PrintStream out) {
+        regressions = 0;
+        improvements = 0;
+
+        out.println("| Benchmark | Parameters | Mode | Baseline | Current | Units | Change | |");
+        out.println("|---|---|---|---:|---:|---|---:|---|");
+
+        final List<String> missing = new ArrayList<String>();
+        for (Map.Entry<String, Result> entry : baseline.entrySet()) {
+            final Result base = entry.getValue();
+            final Result cur = current.get(entry.getKey());
+            if (cur == null) {
+                missing.add(entry.getKey());
+                continue;
+            }
+
+            // the positive change is always an improvement
+            double change = (cur.score - base.score) / base.score * 100;
+            if (!base.isThroughput()) {
+                change = -change;
+            }
+
+            String verdict = "";
+            if (Math.abs(change) > threshold && isSignificant(base, cur)) {
+                if (change < 0) {
+                    verdict = "**regression**";
+                    regressions++;
+                } else {
+                    verdict = "improvement";
+                    improvements++;
+                }
+            }
+
+            out.println(String.format(Locale.ROOT,
+                    "| %s | %s | %s | %s | %s | %s | %+.1f%% | %s |",
+                    base.name, base.params, base.mode,
+                    format(base), format(cur), cur.unit, change, verdict));
+        }
+
+        for (String key : current.keySet()) {
+            if (!baseline.containsKey(key)) {
+                final Result cur = current.get(key);
+                out.println(String.format(Locale.ROOT,
+                        "| %s | %s | %s | - | %s | %s | | new |",
+                        cur.name, cur.params, cur.mode, format(cur), cur.unit));
+            }
+        }
+
+        out.println();
+        for (String key : missing) {
+            out.println("Missing in the current results: " + key);
+        }
+        out.println(String.format(Locale.ROOT,
+                "%d regression(s), %d improvement(s), threshold %.1f%%",
+                regressions, improvements, threshold));
+    }
+
+    public int getRegressions() {
+        return regressions;
+    }
+
+    public int getImprovements() {
+        return improvements;
+    }
+
+    /**
+     * Loads the JMH CSV results, keyed by the benchmark name, its parameters
+     * and the number of threads.
+     */
+    public static Map<String, Result> load(final String fileName)
+            throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(fileName), Charsets.UTF8_CHARSET));
+        try {
+            final Map<String, Result> results = new LinkedHashMap<String, Result>();
+            final List<String> header = parseLine(reader.readLine());
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                final List<String> values = parseLine(line);
+                final StringBuilder params = new StringBuilder();
+                for (int i = 7; i < values.size() && i < header.size(); i++) {
+                    if (!values.get(i).isEmpty()) {
+                        if (params.length() > 0) {
+                            params.append(", ");
+                        }
+                        params.append(header.get(i).replace("Param: ", ""))
+                                .append('=').append(values.get(i));
+                    }
+                }
+
+                final Result result = new Result(
+                        shortName(values.get(0)), params.toString(),
+                        values.get(1), Integer.parseInt(values.get(2)),
+                        Double.parseDouble(values.get(4)),
+                        Double.parseDouble(values.get(5)), values.get(6));
+                results.put(result.key(), result);
+            }
+
+            return results;
+        } finally {
+            reader.close();
+        }
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+
+    private static boolean isSignificant(final Result base, final Result cur) {
+        if (Double.isNaN(base.error) || Double.isNaN(cur.error)) {
+            // single measurement, there is nothing to compare the difference with
+            return true;
+        }
+
+        return Math.abs(cur.score - base.score) > base.error + cur.error;
+    }
+
+    private static String format(final Result result) {
+        return Double.isNaN(result.error)
+                ? String.format(Locale.ROOT, "%.3f", result.score)
+                : String.format(Locale.ROOT, "%.3f &plusmn; %.3f",
+                        result.score, result.error);
+    }
+
+    private static String shortName(final String benchmark) {
+        // keep the class and method names only
+        final int methodIdx = benchmark.lastIndexOf('.');
+        final int classIdx = methodIdx > 0
+                ? benchmark.lastIndexOf('.', methodIdx - 1)
+                : -1;
+        return benchmark.substring(classIdx + 1);
+    }
+
+    private static List<String> parseLine(final String line) {
+        final List<String> values = new ArrayList<String>();
+        if (line == null) {
+            return values;
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    sb.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                values.add(sb.toString());
+                sb.setLength(0);
+            } else {
+                sb.append(c);
+            }
+        }
+        values.add(sb.toString());
+
+        return values;
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    /**
+     * A single JMH result.
+     */
+    public static final class Result {
+        final String name;
+        final String params;
+        final String mode;
+        final int threads;
+        final double score;
+        final double error;
+        final String unit;
+
+        Result(final String name, final String params, final String mode,
+                final int threads, final double score, final double error,
+                final String unit) {
+            this.name = name;
+            this.params = params;
+            this.mode = mode;
+            this.threads = threads;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        String key() {
+            return name + '[' + params + "]@" + threads + ':' + mode;
+        }
+
+        boolean isThroughput() {
+            return "thrpt".equals(mode);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.BuffersBuffer;
+import org.glassfish.grizzly.memory.ByteBufferArray;
+import org.glassfish.grizzly.memory.HeapMemoryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link BuffersBuffer} operations over a composite of <tt>chunks</tt>
+ * buffers of <tt>chunkSize</tt> bytes: composing, the absolute and relative
+ * access across the chunk boundaries, slicing and the gathering
+ * {@link ByteBufferArray} view used by the transport writes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuffersBufferBenchmark {
+
+    @Param({"4", "16"})
+    public int chunks;
+
+    @Param({"1000"})
+    public int chunkSize;
+
+    private HeapMemoryManager memoryManager;
+    private Buffer[] buffers;
+    private BuffersBuffer composite;
+    private byte[] dst;
+
+    @Setup
+    public void setup() {
+        memoryManager = new HeapMemoryManager();
+        buffers = new Buffer[chunks];
+        for (int i = 0; i < chunks; i++) {
+            final Buffer buffer = memoryManager.allocate(chunkSize);
+            for (int j = 0; j < chunkSize; j++) {
+                buffer.put(j, (byte) (i + j));
+            }
+            buffer.allowBufferDispose(false);
+            buffers[i] = buffer;
+        }
+
+        composite = compose();
+        dst = new byte[chunks * chunkSize];
+    }
+
+    @Benchmark
+    public Buffer append() {
+        final BuffersBuffer buffer = compose();
+        buffer.removeAll();
+        return buffer;
+    }
+
+    @Benchmark
+    public long absoluteGetInt() {
+        long sum = 0;
+        final int limit = composite.limit() - 4;
+        for (int i = 0; i < limit; i += 61) {
+            sum += composite.getInt(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public byte[] bulkGet() {
+        composite.position(0);
+        composite.get(dst);
+        return dst;
+    }
+
+    @Benchmark
+    public Buffer slice() {
+        final int limit = composite.limit();
+        return composite.slice(limit / 3, limit - limit / 3);
+    }
+
+    @Benchmark
+    public void toByteBufferArray(final Blackhole bh) {
+        composite.position(0);
+        final ByteBufferArray array = composite.toByteBufferArray();
+        bh.consume(array.size());
+        array.restore();
+        array.recycle();
+    }
+
+    private BuffersBuffer compose() {
+        final BuffersBuffer buffer = BuffersBuffer.create(memoryManager);
+        buffer.allowInternalBuffersDispose(false);
+        for (Buffer b : buffers) {
+            b.position(0);
+            buffer.append(b);
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.http.Cookie;
+import org.glassfish.grizzly.http.Cookies;
+import org.glassfish.grizzly.http.util.CookieParserUtils;
+import org.glassfish.grizzly.utils.Charsets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link CookieParserUtils} parsing of the <tt>cookies.txt</tt> corpus
+ * cookie jars.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CookieParserBenchmark {
+
+    @Param({"session", "analytics", "quoted", "large"})
+    public String jar;
+
+    @Param({"false", "true"})
+    public boolean rfc6265;
+
+    private byte[] bytes;
+    private String string;
+    private Cookies cookies;
+
+    @Setup
+    public void setup() {
+        string = Corpus.entries("cookies.txt").get(jar);
+        if (string == null) {
+            throw new IllegalArgumentException("Unknown cookie jar: " + jar);
+        }
+        bytes = string.getBytes(Charsets.ASCII_CHARSET);
+        cookies = new Cookies();
+    }
+
+    @Benchmark
+    public void parseBytes(final Blackhole bh) {
+        cookies.recycle();
+        CookieParserUtils.parseClientCookies(cookies, bytes, 0, bytes.length,
+                false, rfc6265);
+        consume(bh);
+    }
+
+    @Benchmark
+    public void parseString(final Blackhole bh) {
+        cookies.recycle();
+        CookieParserUtils.parseClientCookies(cookies, string, false, rfc6265);
+        consume(bh);
+    }
+
+    private void consume(final Blackhole bh) {
+        // the cookie names and values are materialized lazily
+        for (Cookie cookie : cookies.get()) {
+            bh.consume(cookie.getName());
+            bh.consume(cookie.getValue());
+        }
+    }
+}
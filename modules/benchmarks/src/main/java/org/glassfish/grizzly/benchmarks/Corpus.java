@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.glassfish.grizzly.utils.Charsets;
+
+/**
+ * Loads the benchmark input corpora bundled with this module.
+ *
+ * The corpora are plain text resources under
+ * <tt>org/glassfish/grizzly/benchmarks/corpus</tt>, so every run (and every
+ * revision being compared) works on exactly the same input.
+ * Empty lines and lines starting with <tt>#</tt> are ignored, except the
+ * empty lines within the HTTP request entries.
+ */
+public final class Corpus {
+
+    private static final String PREFIX = "corpus/";
+
+    private Corpus() {
+    }
+
+
+    // --------------------------------------------------------- Public Methods
+
+
+    /**
+     * @return the corpus lines of the given resource.
+     */
+    public static List<String> lines(final String name) {
+        final List<String> result = new ArrayList<String>();
+        for (String line : read(name)) {
+            if (!line.isEmpty() && line.charAt(0) != '#') {
+                result.add(line);
+            }
+        }
+
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * @return the corpus entries of the given resource, where each line has
+     *  the <tt>&lt;name&gt; &lt;value&gt;</tt> format.
+     */
+    public static Map<String, String> entries(final String name) {
+        final Map<String, String> result = new LinkedHashMap<String, String>();
+        for (String line : lines(name)) {
+            final int idx = line.indexOf(' ');
+            if (idx == -1) {
+                throw new IllegalStateException("Malformed corpus line: " + line);
+            }
+            result.put(line.substring(0, idx), line.substring(idx + 1).trim());
+        }
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * @return the HTTP/1.1 requests of the <tt>requests.txt</tt> corpus
+     *  keyed by their name, with the lines terminated by CRLF.
+     */
+    public static Map<String, byte[]> requests() {
+        final Map<String, byte[]> result = new LinkedHashMap<String, byte[]>();
+
+        String requestName = null;
+        StringBuilder sb = null;
+        for (String line : read("requests.txt")) {
+            if (line.startsWith("%%")) {
+                if (requestName != null) {
+                    result.put(requestName, toRequest(sb));
+                }
+                requestName = line.substring(2).trim();
+                sb = new StringBuilder();
+            } else if (sb != null) {
+                sb.append(line).append("\r\n");
+            }
+        }
+
+        if (requestName != null) {
+            result.put(requestName, toRequest(sb));
+        }
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * @return the request with the given name from the <tt>requests.txt</tt>
+     *  corpus.
+     */
+    public static byte[] request(final String name) {
+        final byte[] request = requests().get(name);
+        if (request == null) {
+            throw new IllegalArgumentException("Unknown request: " + name);
+        }
+
+        return request;
+    }
+
+    /**
+     * @return the header name/value pairs (the request line excluded) of the
+     *  given corpus request, with the names lower-cased as HTTP/2 requires.
+     */
+    public static List<String[]> headers(final String name) {
+        final String request = new String(request(name), Charsets.ASCII_CHARSET);
+        final String[] lines = request.split("\r\n");
+
+        final List<String[]> result = new ArrayList<String[]>();
+        for (int i = 1; i < lines.length; i++) {
+            final int idx = lines[i].indexOf(':');
+            if (idx > 0) {
+                result.add(new String[] {
+                        lines[i].substring(0, idx).trim().toLowerCase(),
+                        lines[i].substring(idx + 1).trim()});
+            }
+        }
+
+        return result;
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+
+    private static byte[] toRequest(final StringBuilder sb) {
+        // trailing empty lines of the entry are replaced by the single
+        // headers terminator
+        int end = sb.length();
+        while (end >= 4 && sb.substring(end - 4, end).equals("\r\n\r\n")) {
+            end -= 2;
+        }
+        sb.setLength(end);
+        sb.append("\r\n");
+
+        return sb.toString().getBytes(Charsets.ASCII_CHARSET);
+    }
+
+    private static List<String> read(final String name) {
+        final InputStream in = Corpus.class.getResourceAsStream(PREFIX + name);
+        if (in == null) {
+            throw new IllegalArgumentException("Unknown corpus: " + name);
+        }
+
+        try {
+            final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(in, Charsets.UTF8_CHARSET));
+            try {
+                final List<String> result = new ArrayList<String>();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    result.add(line);
+                }
+                return result;
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.attributes.Attribute;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link FilterChainContext} creation and recycling, which happens for every
+ * processed I/O event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterChainContextBenchmark {
+
+    private static final Attribute<Object> ATTRIBUTE =
+            Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute(
+            FilterChainContextBenchmark.class.getName() + ".attr");
+
+    private StandaloneConnection connection;
+    private final Object value = new Object();
+
+    @Setup
+    public void setup() {
+        connection = new StandaloneConnection();
+    }
+
+    @Benchmark
+    public Object createRecycle() {
+        final FilterChainContext ctx = FilterChainContext.create(connection);
+        ctx.setMessage(value);
+        final Object message = ctx.getMessage();
+        ctx.completeAndRecycle();
+        return message;
+    }
+
+    @Benchmark
+    public Object createWithAttributesRecycle() {
+        final FilterChainContext ctx = FilterChainContext.create(connection);
+        ATTRIBUTE.set(ctx, value);
+        final Object result = ATTRIBUTE.get(ctx);
+        ctx.completeAndRecycle();
+        return result;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http2.hpack.DecodingCallback;
+import org.glassfish.grizzly.http2.hpack.Decoder;
+import org.glassfish.grizzly.http2.hpack.Encoder;
+import org.glassfish.grizzly.memory.HeapMemoryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * HPACK {@link Encoder}/{@link Decoder} over the header sets of the
+ * <tt>requests.txt</tt> corpus requests.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HpackBenchmark {
+
+    private static final int TABLE_SIZE = 4096;
+
+    @Param({"curl", "browser", "xhr", "proxied"})
+    public String request;
+
+    private String[][] headers;
+    private Encoder encoder;
+    private Decoder decoder;
+    private Buffer output;
+    private Buffer headerBlock;
+
+    @Setup
+    public void setup() {
+        final List<String[]> list = Corpus.headers(request);
+        headers = list.toArray(new String[list.size()][]);
+
+        final HeapMemoryManager memoryManager = new HeapMemoryManager();
+        output = memoryManager.allocate(16384);
+        encoder = new Encoder(TABLE_SIZE);
+        decoder = new Decoder(TABLE_SIZE);
+
+        headerBlock = memoryManager.allocate(16384);
+        encode(new Encoder(TABLE_SIZE), headerBlock);
+        headerBlock.flip();
+    }
+
+    @Benchmark
+    public Buffer encode() {
+        output.clear();
+        encode(encoder, output);
+        return output;
+    }
+
+    @Benchmark
+    public void decode(final Blackhole bh) {
+        headerBlock.position(0);
+        decoder.decode(headerBlock, true, new DecodingCallback() {
+            @Override
+            public void onDecoded(final CharSequence name,
+                    final CharSequence value) {
+                bh.consume(name);
+                bh.consume(value);
+            }
+        });
+    }
+
+    private void encode(final Encoder encoder, final Buffer buffer) {
+        for (String[] header : headers) {
+            encoder.header(header[0], header[1]);
+            if (!encoder.encode(buffer)) {
+                throw new IllegalStateException("Header block is too large");
+            }
+        }
+    }
+}
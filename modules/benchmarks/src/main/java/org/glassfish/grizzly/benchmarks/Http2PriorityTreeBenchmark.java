@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.glassfish.grizzly.http2.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Contention of the HTTP/2 stream priority trees ({@link Node}), when
+ * several threads update the trees of different sessions concurrently.
+ *
+ * Every benchmark thread owns one tree, which corresponds to one session.
+ * The <tt>shared</tt> lock mode makes all the trees use the same lock, like
+ * the former JVM-wide tree lock did, the <tt>perTree</tt> mode gives every
+ * tree its own lock.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class Http2PriorityTreeBenchmark {
+
+    private static final ReentrantReadWriteLock SHARED_LOCK =
+            new ReentrantReadWriteLock();
+
+    @Param({"shared", "perTree"})
+    public String lockMode;
+
+    @Param({"100"})
+    public int streams;
+
+    private ReentrantReadWriteLock treeLock;
+    private TreeNode root;
+    // the ids of the live streams in their creation order
+    private int[] ids;
+    private int oldest;
+    private int nextId = 1;
+
+    @Setup
+    public void setup() {
+        treeLock = "shared".equals(lockMode)
+                ? SHARED_LOCK
+                : new ReentrantReadWriteLock();
+        root = new TreeNode(0, treeLock);
+
+        ids = new int[streams];
+        for (int i = 0; i < streams; i++) {
+            ids[i] = open(i == 0 ? 0 : ids[i / 2]);
+        }
+    }
+
+    /**
+     * Closes the oldest stream and opens a new one, which depends on one
+     * of the live streams.
+     */
+    @Benchmark
+    public Node update() {
+        final Node removed = root.removeNode(ids[oldest]);
+
+        final int parentId = ids[(oldest + streams / 2) % streams];
+        ids[oldest] = open(parentId);
+        oldest = (oldest + 1) % streams;
+
+        return removed;
+    }
+
+    /**
+     * Looks up one of the live streams.
+     */
+    @Benchmark
+    public Node find() {
+        return root.findNode(ids[(oldest + streams / 3) % streams]);
+    }
+
+    private int open(final int parentId) {
+        final int id = nextId;
+        nextId += 2;
+
+        TreeNode parent = root.findNode(parentId);
+        if (parent == null) {
+            parent = root;
+        }
+        parent.addChildNode(new TreeNode(id, treeLock));
+
+        return id;
+    }
+
+    private static final class TreeNode extends Node {
+        TreeNode(final int id, final ReentrantReadWriteLock treeLock) {
+            super(id, treeLock);
+        }
+
+        // the Node operations are protected
+
+        TreeNode findNode(final int id) {
+            return (TreeNode) find(id);
+        }
+
+        Node removeNode(final int id) {
+            return remove(id);
+        }
+
+        void addChildNode(final TreeNode node) {
+            addChild(node);
+        }
+    }
+}
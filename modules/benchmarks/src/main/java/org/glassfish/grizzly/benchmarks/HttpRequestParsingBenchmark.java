@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.http.HttpContent;
+import org.glassfish.grizzly.http.HttpHeader;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http.HttpServerFilter;
+import org.glassfish.grizzly.memory.ByteBufferWrapper;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing of the <tt>requests.txt</tt> corpus requests by the
+ * {@link HttpServerFilter} (the <tt>HttpCodecFilter</tt> header parser).
+ * The request line, headers and the per-request
+ * {@link FilterChainContext} life cycle are included in the measurement.
+ *
+ * The <tt>parser</tt> parameter selects the byte-at-a-time (<tt>bytes</tt>)
+ * or the word-at-a-time (<tt>words</tt>) header parser, see
+ * {@link HttpServerFilter#setWordAtATimeHeaderParsing(boolean)}. The
+ * <tt>direct</tt> buffer runs copy the request into the direct
+ * {@link Buffer} on every invocation, the <tt>heap</tt> ones wrap the array.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpRequestParsingBenchmark {
+
+    @Param({"minimal", "curl", "browser", "xhr", "proxied"})
+    public String request;
+
+    @Param({"bytes", "words"})
+    public String parser;
+
+    @Param({"heap", "direct"})
+    public String buffer;
+
+    private byte[] bytes;
+    private ByteBuffer directBuffer;
+    private StandaloneConnection connection;
+    private HttpServerFilter filter;
+    private MemoryManager memoryManager;
+
+    @Setup
+    public void setup() {
+        bytes = Corpus.request(request);
+        connection = new StandaloneConnection();
+        filter = new HttpServerFilter(true, 8192, null, null);
+        filter.setWordAtATimeHeaderParsing("words".equals(parser));
+        memoryManager = MemoryManager.DEFAULT_MEMORY_MANAGER;
+        if ("direct".equals(buffer)) {
+            directBuffer = ByteBuffer.allocateDirect(bytes.length);
+        }
+    }
+
+    @Benchmark
+    public void parse(final Blackhole bh) throws IOException {
+        final FilterChainContext ctx = FilterChainContext.create(connection);
+        if (directBuffer != null) {
+            directBuffer.clear();
+            directBuffer.put(bytes);
+            directBuffer.flip();
+            // the parsed buffer gets disposed, so wrap it every time
+            ctx.setMessage(new ByteBufferWrapper(directBuffer));
+        } else {
+            ctx.setMessage(Buffers.wrap(memoryManager, bytes));
+        }
+
+        filter.handleRead(ctx);
+
+        final HttpContent content = ctx.getMessage();
+        final HttpHeader header = content.getHttpHeader();
+        bh.consume(header.getHeaders().size());
+        bh.consume(header.getContentLength());
+
+        content.recycle();
+        header.recycle();
+        ctx.completeAndRecycle();
+    }
+}
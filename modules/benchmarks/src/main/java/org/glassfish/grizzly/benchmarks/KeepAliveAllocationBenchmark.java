@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.benchmarks;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Keep-alive <tt>GET</tt> requests, sent one at a time over a single
+ * connection to an in-process {@link HttpServer}, which runs the
+ * {@link HttpHandler} in the selector thread ({@link SameThreadIOStrategy}).
+ *
+ * Besides the round-trip time, every iteration prints the bytes allocated
+ * by the server threads per request, as measured by
+ * {@link com.sun.management.ThreadMXBean}, which is what
+ * <tt>HttpServerAllocationTest</tt> keeps under its threshold.
+ *
+ * The <tt>handler</tt> parameter selects the handler, which just writes the
+ * response (<tt>simple</tt>), or the one, which also reads the query
+ * parameters, cookies, locale and headers (<tt>rich</tt>).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeepAliveAllocationBenchmark {
+
+    private static final String LISTENER = "allocation";
+    private static final byte[] BODY = "hello".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] REQUEST = ("GET /hello?a=1&b=two HTTP/1.1\r\n"
+            + "Host: localhost\r\n"
+            + "User-Agent: benchmark\r\n"
+            + "Accept: */*\r\n"
+            + "Accept-Language: en-US,en;q=0.8\r\n"
+            + "Cookie: x=1; y=2\r\n"
+            + "\r\n").getBytes(StandardCharsets.US_ASCII);
+
+    @Param({"simple", "rich"})
+    public String handler;
+
+    private HttpServer server;
+    private Socket socket;
+    private OutputStream out;
+    private InputStream in;
+    private final byte[] responseBuffer = new byte[8192];
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private long startBytes;
+    private long requests;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new HttpServer();
+        final NetworkListener listener =
+                new NetworkListener(LISTENER, "127.0.0.1", 0);
+        listener.getTransport().setIOStrategy(SameThreadIOStrategy.getInstance());
+        listener.getTransport().setSelectorRunnersCount(1);
+        listener.getKeepAlive().setMaxRequestsCount(-1);
+        listener.getKeepAlive().setIdleTimeoutInSeconds(-1);
+        server.addListener(listener);
+
+        final boolean rich = "rich".equals(handler);
+        server.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response)
+                    throws Exception {
+                response.setContentType("text/plain");
+                response.setContentLength(BODY.length);
+                if (rich) {
+                    request.getParameter("a");
+                    request.getCookies();
+                    request.getLocale();
+                    request.getHeader("User-Agent");
+                    request.getRequestURI();
+                    response.setCharacterEncoding("UTF-8");
+                    response.getWriter().write("hello");
+                } else {
+                    response.getOutputStream().write(BODY);
+                }
+            }
+        }, "/hello");
+        server.start();
+
+        socket = new Socket("127.0.0.1", server.getListener(LISTENER).getPort());
+        socket.setTcpNoDelay(true);
+        out = socket.getOutputStream();
+        in = socket.getInputStream();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        socket.close();
+        server.shutdownNow();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        startBytes = serverBytes();
+        requests = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        if (requests > 0) {
+            System.out.println("server: "
+                    + (serverBytes() - startBytes) / requests + " B/request");
+        }
+    }
+
+    @Benchmark
+    public int get() throws IOException {
+        out.write(REQUEST);
+        requests++;
+        return readResponse();
+    }
+
+    /**
+     * @return the bytes allocated by the server threads so far.
+     */
+    private long serverBytes() {
+        long bytes = 0;
+        for (ThreadInfo info : threadMXBean.getThreadInfo(
+                threadMXBean.getAllThreadIds())) {
+            if (info != null && info.getThreadName().startsWith("grizzly")) {
+                bytes += threadMXBean.getThreadAllocatedBytes(info.getThreadId());
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Reads the response headers and the {@link #BODY} long payload.
+     */
+    private int readResponse() throws IOException {
+        final byte[] buffer = responseBuffer;
+        int length = 0;
+        int headersEnd = -1;
+        while (headersEnd < 0 || length < headersEnd + BODY.length) {
+            final int read = in.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                throw new EOFException();
+            }
+
+            final int from = Math.max(0, length - 3);
+            length += read;
+            for (int i = from; headersEnd < 0 && i + 3 < length; i++) {
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n'
+                        && buffer[i + 2] == '\r' && buffer[i + 3] == '\n') {
+                    headersEnd = i + 4;
+                }
+            }
+        }
+
+        return length;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.http.server.util.Mapper;
+import org.glassfish.grizzly.http.server.util.MappingData;
+import org.glassfish.grizzly.http.util.DataChunk;
+import org.glassfish.grizzly.utils.Charsets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Mapper#map(DataChunk, DataChunk, MappingData)} of the
+ * <tt>uris.txt</tt> corpus URIs against the contexts and servlet mappings
+ * of the <tt>mappings.txt</tt> corpus. Every invocation maps the next URI
+ * of the corpus, so the score is the average over the whole corpus.
+ *
+ * The <tt>router</tt> parameter compares the char-based lookups
+ * (<tt>legacy</tt>), the compiled router (<tt>compiled</tt>) and the compiled
+ * router with the route cache, which fits the whole corpus (<tt>cached</tt>).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final String HOST = "localhost";
+
+    @Param({"legacy", "compiled", "cached"})
+    public String router;
+
+    private Mapper mapper;
+    private byte[][] uris;
+    private int idx;
+
+    private final DataChunk host = DataChunk.newInstance();
+    private final DataChunk uri = DataChunk.newInstance();
+    private final MappingData mappingData = new MappingData();
+
+    @Setup
+    public void setup() {
+        mapper = new Mapper();
+        mapper.setCompiledRoutingEnabled(!"legacy".equals(router));
+        mapper.setDefaultHostName(HOST);
+        mapper.addHost(HOST, new String[0], new Object());
+
+        final Set<String> contexts = new HashSet<String>();
+        for (String line : Corpus.lines("mappings.txt")) {
+            final String[] mapping = line.split(" ");
+            final String contextPath = "/".equals(mapping[0]) ? "" : mapping[0];
+            if (contexts.add(contextPath)) {
+                mapper.addContext(HOST, contextPath, contextPath, null, null);
+            }
+            mapper.addWrapper(HOST, contextPath, mapping[1], mapping[1]);
+        }
+
+        final List<String> lines = Corpus.lines("uris.txt");
+        uris = new byte[lines.size()][];
+        for (int i = 0; i < uris.length; i++) {
+            uris[i] = lines.get(i).getBytes(Charsets.ASCII_CHARSET);
+        }
+
+        if ("cached".equals(router)) {
+            mapper.setRouteCacheSize(uris.length * 4);
+        }
+    }
+
+    @Benchmark
+    public Object map() throws Exception {
+        final byte[] bytes = uris[idx];
+        if (++idx == uris.length) {
+            idx = 0;
+        }
+
+        host.setString(HOST);
+        uri.setBytes(bytes);
+        mappingData.recycle();
+
+        mapper.map(host, uri, mappingData);
+        return mappingData.wrapper;
+    }
+}
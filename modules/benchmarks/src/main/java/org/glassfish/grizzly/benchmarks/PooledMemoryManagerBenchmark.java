@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.PooledMemoryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link PooledMemoryManager} allocate/release round trips, both
+ * uncontended and with several threads sharing the pools.
+ *
+ * The <tt>magazine</tt> parameter is the size of the thread-local magazines,
+ * <tt>0</tt> means every allocation goes to the shared pool slices.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PooledMemoryManagerBenchmark {
+
+    @Param({"256", "4096", "65536"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+    @Param({"0", "16"})
+    public int magazine;
+
+    private PooledMemoryManager memoryManager;
+
+    @Setup
+    public void setup() {
+        memoryManager = new PooledMemoryManager(
+                PooledMemoryManager.DEFAULT_BASE_BUFFER_SIZE,
+                PooledMemoryManager.DEFAULT_NUMBER_OF_POOLS,
+                PooledMemoryManager.DEFAULT_GROWTH_FACTOR,
+                Runtime.getRuntime().availableProcessors(),
+                PooledMemoryManager.DEFAULT_HEAP_USAGE_PERCENTAGE,
+                PooledMemoryManager.DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE,
+                direct,
+                magazine);
+    }
+
+    @Benchmark
+    public int allocateRelease() {
+        return allocateAndRelease();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int allocateReleaseContended() {
+        return allocateAndRelease();
+    }
+
+    @Benchmark
+    public int allocateAtLeastRelease() {
+        final Buffer buffer = memoryManager.allocateAtLeast(size);
+        final int capacity = buffer.capacity();
+        buffer.tryDispose();
+        return capacity;
+    }
+
+    private int allocateAndRelease() {
+        final Buffer buffer = memoryManager.allocate(size);
+        buffer.put(0, (byte) 1);
+        final int capacity = buffer.capacity();
+        buffer.tryDispose();
+        return capacity;
+    }
+}
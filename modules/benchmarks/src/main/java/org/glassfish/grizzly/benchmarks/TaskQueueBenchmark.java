@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.asyncqueue.AsyncWriteQueueRecord;
+import org.glassfish.grizzly.asyncqueue.TaskQueue;
+import org.glassfish.grizzly.memory.Buffers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link TaskQueue} offer/poll, accounting the queued bytes the same way
+ * the asynchronous write queue does. The <tt>spsc</tt> and <tt>mpsc</tt>
+ * groups measure the writer threads racing with the selector thread, which
+ * drains the queue.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskQueueBenchmark {
+
+    private static final int RECORDS = 1024;
+    private static final int MAX_QUEUED_BYTES = 1024 * 1024;
+
+    private TaskQueue<AsyncWriteQueueRecord> queue;
+    private AsyncWriteQueueRecord[] records;
+    private int size;
+
+    @Setup
+    public void setup() {
+        queue = TaskQueue.createTaskQueue(
+                new TaskQueue.MutableMaxQueueSize() {
+            @Override
+            public int getMaxQueueSize() {
+                return -1;
+            }
+        });
+
+        final StandaloneConnection connection = new StandaloneConnection();
+        final Buffer message = Buffers.wrap(null, new byte[128]);
+        size = message.remaining();
+
+        records = new AsyncWriteQueueRecord[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            records[i] = AsyncWriteQueueRecord.create(connection, message,
+                    null, null, null, false);
+        }
+    }
+
+    @Benchmark
+    @Group("single")
+    public AsyncWriteQueueRecord offerPoll() {
+        offer(records[0]);
+        return poll();
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public void spscOffer(final ProducerState state) {
+        offer(records[state.next()]);
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public AsyncWriteQueueRecord spscPoll() {
+        return poll();
+    }
+
+    @Benchmark
+    @Group("mpsc")
+    @GroupThreads(3)
+    public void mpscOffer(final ProducerState state) {
+        offer(records[state.next()]);
+    }
+
+    @Benchmark
+    @Group("mpsc")
+    @GroupThreads(1)
+    public AsyncWriteQueueRecord mpscPoll() {
+        return poll();
+    }
+
+    private void offer(final AsyncWriteQueueRecord record) {
+        // the producers back off, if the consumer falls behind, like the
+        // writers do, when the write queue limit is exceeded
+        if (queue.spaceInBytes() < MAX_QUEUED_BYTES) {
+            queue.reserveSpace(size);
+            queue.offer(record);
+        }
+    }
+
+    private AsyncWriteQueueRecord poll() {
+        final AsyncWriteQueueRecord record = queue.poll();
+        if (record != null) {
+            queue.releaseSpace(size);
+        }
+        return record;
+    }
+
+    /**
+     * The producer thread position in the records array.
+     */
+    @State(Scope.Thread)
+    public static class ProducerState {
+        private int idx;
+
+        int next() {
+            return idx++ & (RECORDS - 1);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks.load;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.attributes.Attribute;
+import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.filterchain.NextAction;
+import org.glassfish.grizzly.http.HttpContent;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.Method;
+import org.glassfish.grizzly.http.Note;
+import org.glassfish.grizzly.http.Protocol;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.memory.Buffers;
+
+/**
+ * The closed-loop HTTP load driver: every connection keeps the configured
+ * number of requests in flight (one for plain keep-alive, the pipeline depth
+ * for the pipelining, the number of concurrent streams for HTTP/2) and
+ * issues the next request as soon as a response is complete.
+ *
+ * The filter is placed after the {@link org.glassfish.grizzly.http.HttpClientFilter}
+ * (and the <tt>Http2ClientFilter</tt> for the HTTP/2 scenario).
+ */
+final class HttpLoadFilter extends BaseFilter {
+
+    private static final Note<Long> START_NOTE =
+            HttpRequestPacket.createNote(HttpLoadFilter.class.getName() + ".start");
+
+    private final Attribute<ConnectionState> stateAttr =
+            Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute(
+                    HttpLoadFilter.class.getName() + ".state");
+
+    private final Scenario scenario;
+    private final LoadRecorder recorder;
+    private final int window;
+    private final String host;
+    private final byte[] chunk;
+    private final int uploadSize;
+
+    HttpLoadFilter(final Scenario scenario,
+            final LoadConfiguration configuration,
+            final LoadRecorder recorder,
+            final int port) {
+        this.scenario = scenario;
+        this.recorder = recorder;
+        this.window = configuration.getWindow(scenario);
+        this.host = LoadServer.HOST + ':' + port;
+        this.uploadSize = configuration.getUploadSize();
+        this.chunk = new byte[Math.min(configuration.getChunkSize(), uploadSize)];
+        Arrays.fill(chunk, (byte) 'u');
+    }
+
+
+    // ------------------------------------------------------- Package Methods
+
+
+    /**
+     * Starts issuing the requests over the given connection.
+     */
+    void open(final Connection connection) {
+        final ConnectionState state = new ConnectionState(connection);
+        // the first HTTP/2 request is sent alone, so the connection preface
+        // and the settings are exchanged before the streams are multiplexed
+        state.window = scenario == Scenario.HTTP2 ? 1 : window;
+        stateAttr.set(connection, state);
+
+        fill(state);
+    }
+
+
+    // ----------------------------------------------------- Methods from Filter
+
+
+    @Override
+    public NextAction handleRead(final FilterChainContext ctx) throws IOException {
+        final HttpContent content = ctx.getMessage();
+        if (!content.isLast()) {
+            return ctx.getStopAction();
+        }
+
+        final HttpResponsePacket response =
+                (HttpResponsePacket) content.getHttpHeader();
+        final HttpRequestPacket request = response.getRequest();
+        final Long start = request != null ? request.getNote(START_NOTE) : null;
+        if (start == null) {
+            recorder.error();
+        } else if (response.getStatus() == 200) {
+            recorder.completed(start);
+        } else {
+            recorder.failed();
+        }
+
+        final ConnectionState state = stateAttr.get(ctx.getConnection());
+        if (state != null) {
+            synchronized (state) {
+                state.inFlight--;
+                state.window = window;
+            }
+            fill(state);
+        }
+
+        return ctx.getStopAction();
+    }
+
+    @Override
+    public NextAction handleClose(final FilterChainContext ctx) throws IOException {
+        final ConnectionState state = stateAttr.remove(ctx.getConnection());
+        if (state != null) {
+            synchronized (state) {
+                while (state.inFlight > 0) {
+                    state.inFlight--;
+                    recorder.failed();
+                }
+            }
+            recorder.error();
+        }
+
+        return ctx.getInvokeAction();
+    }
+
+    @Override
+    public void exceptionOccurred(final FilterChainContext ctx,
+            final Throwable error) {
+        recorder.error();
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+
+    /**
+     * Tops up the requests in flight to the connection window.
+     * The requests are written under the state lock, so they hit the wire
+     * in the same order they're queued by the client filter.
+     */
+    private void fill(final ConnectionState state) {
+        synchronized (state) {
+            while (state.inFlight < state.window && recorder.isRunning()) {
+                state.inFlight++;
+                send(state.connection);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void send(final Connection connection) {
+        switch (scenario) {
+            case CHUNKED_UPLOAD: {
+                final HttpRequestPacket request = HttpRequestPacket.builder()
+                        .method(Method.POST)
+                        .uri(LoadServer.UPLOAD_PATH)
+                        .protocol(Protocol.HTTP_1_1)
+                        .header(Header.Host, host)
+                        .chunked(true)
+                        .build();
+                request.setNote(START_NOTE, recorder.issued());
+
+                int remaining = uploadSize;
+                while (remaining > 0) {
+                    final int len = Math.min(remaining, chunk.length);
+                    remaining -= len;
+                    connection.write(HttpContent.builder(request)
+                            .content(Buffers.wrap(connection.getMemoryManager(),
+                                    chunk, 0, len))
+                            .last(remaining == 0)
+                            .build());
+                }
+                break;
+            }
+            case HTTP2: {
+                final HttpRequestPacket request = HttpRequestPacket.builder()
+                        .method(Method.GET)
+                        .uri(LoadServer.HELLO_PATH)
+                        .protocol(Protocol.HTTP_2_0)
+                        .host(host)
+                        .build();
+                request.setNote(START_NOTE, recorder.issued());
+
+                connection.write(HttpContent.builder(request)
+                        .content(Buffers.EMPTY_BUFFER)
+                        .last(true)
+                        .build());
+                break;
+            }
+            default: {
+                final HttpRequestPacket request = HttpRequestPacket.builder()
+                        .method(Method.GET)
+                        .uri(LoadServer.HELLO_PATH)
+                        .protocol(Protocol.HTTP_1_1)
+                        .header(Header.Host, host)
+                        .contentLength(0)
+                        .build();
+                request.setNote(START_NOTE, recorder.issued());
+
+                connection.write(request);
+            }
+        }
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    private static final class ConnectionState {
+        private final Connection connection;
+        private int inFlight;
+        private int window;
+
+        private ConnectionState(final Connection connection) {
+            this.connection = connection;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks.load;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram with the HdrHistogram bucket layout: the values are
+ * tracked with the fixed number of significant decimal digits over the whole
+ * range, using the logarithmic buckets split to the linear sub-buckets.
+ *
+ * The values (nanoseconds) could be recorded concurrently by several
+ * threads without locking. The values bigger than the highest trackable
+ * value are recorded as the highest trackable value.
+ */
+public final class LatencyHistogram {
+
+    private final long highestTrackableValue;
+    private final int significantDigits;
+
+    private final int subBucketHalfCountMagnitude;
+    private final int subBucketHalfCount;
+    private final int subBucketCount;
+    private final long subBucketMask;
+    private final int leadingZeroCountBase;
+    private final int bucketCount;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalValue = new AtomicLong();
+    private final AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * @param highestTrackableValue the highest value to be tracked
+     * @param significantDigits the number of the significant decimal digits
+     *  to be maintained, <tt>1..5</tt>
+     */
+    public LatencyHistogram(final long highestTrackableValue,
+            final int significantDigits) {
+        if (highestTrackableValue < 2) {
+            throw new IllegalArgumentException("highestTrackableValue must be >= 2");
+        }
+        if (significantDigits < 1 || significantDigits > 5) {
+            throw new IllegalArgumentException("significantDigits must be in 1..5 range");
+        }
+
+        this.highestTrackableValue = highestTrackableValue;
+        this.significantDigits = significantDigits;
+
+        final long largestValueWithSingleUnitResolution =
+                2 * (long) Math.pow(10, significantDigits);
+        final int subBucketCountMagnitude = (int) Math.ceil(
+                Math.log(largestValueWithSingleUnitResolution) / Math.log(2));
+
+        subBucketHalfCountMagnitude = Math.max(subBucketCountMagnitude, 1) - 1;
+        subBucketCount = 1 << (subBucketHalfCountMagnitude + 1);
+        subBucketHalfCount = subBucketCount / 2;
+        subBucketMask = subBucketCount - 1;
+        leadingZeroCountBase = 64 - subBucketHalfCountMagnitude - 1;
+
+        long smallestUntrackableValue = subBucketCount;
+        int buckets = 1;
+        while (smallestUntrackableValue <= highestTrackableValue) {
+            if (smallestUntrackableValue > Long.MAX_VALUE / 2) {
+                buckets++;
+                break;
+            }
+            smallestUntrackableValue <<= 1;
+            buckets++;
+        }
+        bucketCount = buckets;
+
+        counts = new AtomicLongArray((bucketCount + 1) * subBucketHalfCount);
+    }
+
+
+    // --------------------------------------------------------- Public Methods
+
+
+    /**
+     * Records the value.
+     */
+    public void recordValue(final long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+
+        final long v = Math.min(value, highestTrackableValue);
+        counts.incrementAndGet(countsIndexFor(v));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(v);
+        updateMin(v);
+        updateMax(v);
+    }
+
+    /**
+     * Adds all the values recorded by the other histogram, which has to have
+     * the same layout.
+     */
+    public void add(final LatencyHistogram other) {
+        if (other.counts.length() != counts.length()
+                || other.subBucketCount != subBucketCount) {
+            throw new IllegalArgumentException("Incompatible histogram layout");
+        }
+
+        for (int i = 0; i < counts.length(); i++) {
+            final long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalValue.addAndGet(other.totalValue.get());
+        if (other.getTotalCount() > 0) {
+            updateMin(other.minValue.get());
+            updateMax(other.maxValue.get());
+        }
+    }
+
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    public long getMinValue() {
+        return getTotalCount() == 0 ? 0 : minValue.get();
+    }
+
+    public long getMaxValue() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        final long count = getTotalCount();
+        return count == 0 ? 0 : (double) totalValue.get() / count;
+    }
+
+    /**
+     * @return the standard deviation computed from the recorded buckets.
+     */
+    public double getStdDeviation() {
+        final long count = getTotalCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        final double mean = getMean();
+        double geometricDeviationTotal = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            final long c = counts.get(i);
+            if (c != 0) {
+                final double deviation =
+                        medianEquivalentValue(valueFromIndex(i)) - mean;
+                geometricDeviationTotal += deviation * deviation * c;
+            }
+        }
+
+        return Math.sqrt(geometricDeviationTotal / count);
+    }
+
+    /**
+     * @return the highest value, which is equivalent (within the histogram
+     *  resolution) to the value at the given percentile, <tt>0..100</tt>.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final long count = getTotalCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        final double p = Math.min(Math.max(percentile, 0), 100);
+        final long countAtPercentile =
+                Math.max(1, (long) Math.ceil(p / 100 * count));
+
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+            if (total >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(valueFromIndex(i)),
+                        getMaxValue());
+            }
+        }
+
+        return getMaxValue();
+    }
+
+    /**
+     * Prints the percentile distribution in the HdrHistogram text format,
+     * <tt>ticksPerHalfDistance</tt> percentile levels for every halving of
+     * the distance to 100%.
+     *
+     * @param scale the value units per the output unit (for example
+     *  <tt>1000000</tt> to print the nanosecond values in milliseconds)
+     */
+    public void outputPercentileDistribution(final PrintStream out,
+            final int ticksPerHalfDistance, final double scale) {
+        out.println(String.format(Locale.ROOT, "%12s %14s %10s %14s%n",
+                "Value", "Percentile", "TotalCount", "1/(1-Percentile)"));
+
+        final long count = getTotalCount();
+        if (count > 0) {
+            double percentile = 0;
+            while (true) {
+                final long value = getValueAtPercentile(percentile);
+                final long countAtValue = countAtOrBelow(value);
+                final double reached = 100.0 * countAtValue / count;
+
+                if (countAtValue >= count) {
+                    out.println(String.format(Locale.ROOT,
+                            "%12.3f %1.12f %10d",
+                            value / scale, 1.0, countAtValue));
+                    break;
+                }
+
+                out.println(String.format(Locale.ROOT,
+                        "%12.3f %1.12f %10d %14.2f",
+                        value / scale, reached / 100, countAtValue,
+                        1 / (1 - reached / 100)));
+
+                // the next percentile level, the reporting ticks double for
+                // every halving of the distance to 100%
+                final double next = Math.max(percentile, reached);
+                final long ticks = ticksPerHalfDistance * (1L << (
+                        (int) (Math.log(100 / (100 - next)) / Math.log(2)) + 1));
+                percentile = next + 100.0 / ticks;
+            }
+        }
+
+        out.println(String.format(Locale.ROOT,
+                "#[Mean    = %12.3f, StdDeviation   = %12.3f]",
+                getMean() / scale, getStdDeviation() / scale));
+        out.println(String.format(Locale.ROOT,
+                "#[Max     = %12.3f, Total count    = %12d]",
+                getMaxValue() / scale, count));
+        out.println(String.format(Locale.ROOT,
+                "#[Buckets = %12d, SubBuckets     = %12d]",
+                bucketCount, subBucketCount));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "LatencyHistogram{count=%d, min=%d, max=%d, digits=%d}",
+                getTotalCount(), getMinValue(), getMaxValue(),
+                significantDigits);
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+
+    private long countAtOrBelow(final long value) {
+        final int index = countsIndexFor(Math.min(value, highestTrackableValue));
+        long total = 0;
+        for (int i = 0; i <= index; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    private int countsIndexFor(final long value) {
+        final int bucketIndex = bucketIndexOf(value);
+        final int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << subBucketHalfCountMagnitude)
+                + (subBucketIndex - subBucketHalfCount);
+    }
+
+    private int bucketIndexOf(final long value) {
+        return leadingZeroCountBase
+                - Long.numberOfLeadingZeros(value | subBucketMask);
+    }
+
+    private long valueFromIndex(final int index) {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (subBucketHalfCount - 1))
+                + subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        return ((long) subBucketIndex) << bucketIndex;
+    }
+
+    private long sizeOfEquivalentValueRange(final long value) {
+        final int bucketIndex = bucketIndexOf(value);
+        final int subBucketIndex = (int) (value >>> bucketIndex);
+        return 1L << (bucketIndex + (subBucketIndex >= subBucketCount ? 1 : 0));
+    }
+
+    private long lowestEquivalentValue(final long value) {
+        final int bucketIndex = bucketIndexOf(value);
+        final int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((long) subBucketIndex) << bucketIndex;
+    }
+
+    private long highestEquivalentValue(final long value) {
+        return lowestEquivalentValue(value)
+                + sizeOfEquivalentValueRange(value) - 1;
+    }
+
+    private long medianEquivalentValue(final long value) {
+        return lowestEquivalentValue(value)
+                + (sizeOfEquivalentValueRange(value) >> 1);
+    }
+
+    private void updateMin(final long value) {
+        long current;
+        while (value < (current = minValue.get())) {
+            if (minValue.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    private void updateMax(final long value) {
+        long current;
+        while (value > (current = maxValue.get())) {
+            if (maxValue.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks.load;
+
+/**
+ * Configuration of the {@link LoadGenerator} run.
+ *
+ * @see #builder()
+ */
+public class LoadConfiguration {
+
+    private final int connections;
+    private final int pipelineDepth;
+    private final int http2Streams;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final int responseSize;
+    private final int uploadSize;
+    private final int chunkSize;
+    private final int messageSize;
+    private final int clientSelectorRunners;
+
+
+    // ----------------------------------------------------------- Constructors
+
+
+    private LoadConfiguration(final LoadConfigurationBuilder builder) {
+        connections = builder.connections;
+        pipelineDepth = builder.pipelineDepth;
+        http2Streams = builder.http2Streams;
+        warmupSeconds = builder.warmupSeconds;
+        durationSeconds = builder.durationSeconds;
+        responseSize = builder.responseSize;
+        uploadSize = builder.uploadSize;
+        chunkSize = builder.chunkSize;
+        messageSize = builder.messageSize;
+        clientSelectorRunners = builder.clientSelectorRunners;
+    }
+
+
+    // --------------------------------------------------------- Public Methods
+
+
+    /**
+     * @return a new {@link LoadConfigurationBuilder} instance.
+     */
+    public static LoadConfigurationBuilder builder() {
+        return new LoadConfigurationBuilder();
+    }
+
+    /**
+     * @return the number of the client connections.
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * @return the maximum number of the pipelined requests per connection
+     *  in the {@link Scenario#PIPELINING} scenario.
+     */
+    public int getPipelineDepth() {
+        return pipelineDepth;
+    }
+
+    /**
+     * @return the maximum number of the concurrent streams per connection
+     *  in the {@link Scenario#HTTP2} scenario.
+     */
+    public int getHttp2Streams() {
+        return http2Streams;
+    }
+
+    /**
+     * @return the warm-up period, which isn't included into the results.
+     */
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    /**
+     * @return the measurement period.
+     */
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    /**
+     * @return the size of the server response body.
+     */
+    public int getResponseSize() {
+        return responseSize;
+    }
+
+    /**
+     * @return the size of the request body in the
+     *  {@link Scenario#CHUNKED_UPLOAD} scenario.
+     */
+    public int getUploadSize() {
+        return uploadSize;
+    }
+
+    /**
+     * @return the size of the request body chunk in the
+     *  {@link Scenario#CHUNKED_UPLOAD} scenario.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return the size of the message in the {@link Scenario#WEBSOCKET}
+     *  scenario.
+     */
+    public int getMessageSize() {
+        return messageSize;
+    }
+
+    /**
+     * @return the number of the client transport selector threads.
+     */
+    public int getClientSelectorRunners() {
+        return clientSelectorRunners;
+    }
+
+    /**
+     * @return the number of requests every connection keeps in flight in
+     *  the given scenario.
+     */
+    public int getWindow(final Scenario scenario) {
+        switch (scenario) {
+            case PIPELINING:
+                return pipelineDepth;
+            case HTTP2:
+                return http2Streams;
+            default:
+                return 1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "connections=" + connections
+                + ", pipelineDepth=" + pipelineDepth
+                + ", http2Streams=" + http2Streams
+                + ", warmup=" + warmupSeconds + "s"
+                + ", duration=" + durationSeconds + "s"
+                + ", responseSize=" + responseSize
+                + ", uploadSize=" + uploadSize
+                + ", chunkSize=" + chunkSize
+                + ", messageSize=" + messageSize;
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    public static final class LoadConfigurationBuilder {
+        private int connections = 16;
+        private int pipelineDepth = 8;
+        private int http2Streams = 32;
+        private int warmupSeconds = 3;
+        private int durationSeconds = 10;
+        private int responseSize = 128;
+        private int uploadSize = 64 * 1024;
+        private int chunkSize = 8 * 1024;
+        private int messageSize = 128;
+        private int clientSelectorRunners =
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        private LoadConfigurationBuilder() {
+        }
+
+        public LoadConfigurationBuilder connections(final int connections) {
+            this.connections = positive("connections", connections);
+            return this;
+        }
+
+        public LoadConfigurationBuilder pipelineDepth(final int pipelineDepth) {
+            this.pipelineDepth = positive("pipelineDepth", pipelineDepth);
+            return this;
+        }
+
+        public LoadConfigurationBuilder http2Streams(final int http2Streams) {
+            this.http2Streams = positive("http2Streams", http2Streams);
+            return this;
+        }
+
+        public LoadConfigurationBuilder warmupSeconds(final int warmupSeconds) {
+            if (warmupSeconds < 0) {
+                throw new IllegalArgumentException("warmupSeconds can't be negative");
+            }
+            this.warmupSeconds = warmupSeconds;
+            return this;
+        }
+
+        public LoadConfigurationBuilder durationSeconds(final int durationSeconds) {
+            this.durationSeconds = positive("durationSeconds", durationSeconds);
+            return this;
+        }
+
+        public LoadConfigurationBuilder responseSize(final int responseSize) {
+            if (responseSize < 0) {
+                throw new IllegalArgumentException("responseSize can't be negative");
+            }
+            this.responseSize = responseSize;
+            return this;
+        }
+
+        public LoadConfigurationBuilder uploadSize(final int uploadSize) {
+            this.uploadSize = positive("uploadSize", uploadSize);
+            return this;
+        }
+
+        public LoadConfigurationBuilder chunkSize(final int chunkSize) {
+            this.chunkSize = positive("chunkSize", chunkSize);
+            return this;
+        }
+
+        public LoadConfigurationBuilder messageSize(final int messageSize) {
+            this.messageSize = positive("messageSize", messageSize);
+            return this;
+        }
+
+        public LoadConfigurationBuilder clientSelectorRunners(final int clientSelectorRunners) {
+            this.clientSelectorRunners =
+                    positive("clientSelectorRunners", clientSelectorRunners);
+            return this;
+        }
+
+        public LoadConfiguration build() {
+            return new LoadConfiguration(this);
+        }
+
+        private static int positive(final String name, final int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be greater than zero");
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks.load;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.filterchain.FilterChain;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.http.HttpClientFilter;
+import org.glassfish.grizzly.http2.Http2ClientFilter;
+import org.glassfish.grizzly.http2.Http2Configuration;
+import org.glassfish.grizzly.nio.transport.TCPNIOConnectorHandler;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
+
+/**
+ * Self-contained loopback load generator, which drives an in-process
+ * {@link LoadServer} with a Grizzly {@link TCPNIOTransport} client and
+ * reports the throughput and the latency percentile distribution of every
+ * {@link Scenario}.
+ *
+ * The generator is closed-loop: each connection keeps a fixed number of
+ * requests in flight and issues the next one only when a response arrives,
+ * so the reported latencies don't include the time the requests would have
+ * waited behind a stalled server (coordinated omission). Use the numbers to
+ * compare revisions on the same machine, rather than as absolute capacity.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar org.glassfish.grizzly.benchmarks.load.LoadGenerator \
+ *     [--scenarios keepalive,pipelining,chunked,http2,websocket]
+ *     [--connections 16] [--duration 10] [--warmup 3]
+ *     [--depth 8] [--streams 32] [--size 128]
+ *     [--upload 65536] [--chunk 8192] [--message 128] [--selectors n]
+ * </pre>
+ */
+public final class LoadGenerator {
+
+    private static final long CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long DRAIN_TIMEOUT_SECONDS = 10;
+
+    private LoadGenerator() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final LoadConfiguration.LoadConfigurationBuilder builder =
+                LoadConfiguration.builder();
+        List<Scenario> scenarios = Arrays.asList(Scenario.values());
+
+        for (int i = 0; i < args.length; i++) {
+            final String option = args[i];
+            if (i + 1 == args.length) {
+                usage("Missing value of " + option);
+            }
+
+            final String value = args[++i];
+            if ("--scenarios".equals(option)) {
+                scenarios = new ArrayList<Scenario>();
+                for (String id : value.split(",")) {
+                    scenarios.add(Scenario.forId(id.trim()));
+                }
+            } else if ("--connections".equals(option)) {
+                builder.connections(Integer.parseInt(value));
+            } else if ("--duration".equals(option)) {
+                builder.durationSeconds(Integer.parseInt(value));
+            } else if ("--warmup".equals(option)) {
+                builder.warmupSeconds(Integer.parseInt(value));
+            } else if ("--depth".equals(option)) {
+                builder.pipelineDepth(Integer.parseInt(value));
+            } else if ("--streams".equals(option)) {
+                builder.http2Streams(Integer.parseInt(value));
+            } else if ("--size".equals(option)) {
+                builder.responseSize(Integer.parseInt(value));
+            } else if ("--upload".equals(option)) {
+                builder.uploadSize(Integer.parseInt(value));
+            } else if ("--chunk".equals(option)) {
+                builder.chunkSize(Integer.parseInt(value));
+            } else if ("--message".equals(option)) {
+                builder.messageSize(Integer.parseInt(value));
+            } else if ("--selectors".equals(option)) {
+                builder.clientSelectorRunners(Integer.parseInt(value));
+            } else {
+                usage("Unknown option " + option);
+            }
+        }
+
+        final LoadConfiguration configuration = builder.build();
+        boolean failed = false;
+        for (Scenario scenario : scenarios) {
+            final LoadResult result = run(scenario, configuration);
+            result.print(System.out);
+            failed |= result.getErrors() > 0;
+        }
+
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the given scenario against a fresh in-process server.
+     */
+    public static LoadResult run(final Scenario scenario,
+            final LoadConfiguration configuration)
+            throws IOException, InterruptedException {
+        final LoadServer server = new LoadServer(scenario, configuration);
+        server.start();
+
+        // the responses are processed by the client selector threads
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .setSelectorRunnersCount(configuration.getClientSelectorRunners())
+                .setIOStrategy(SameThreadIOStrategy.getInstance())
+                .setTcpNoDelay(true)
+                .build();
+        try {
+            transport.start();
+
+            final LoadRecorder recorder = new LoadRecorder();
+            if (scenario == Scenario.WEBSOCKET) {
+                final WebSocketLoadDriver driver = new WebSocketLoadDriver(
+                        configuration, recorder, server.getPort());
+                driver.connect(transport, configuration.getConnections(),
+                        CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+                start(recorder, configuration);
+                driver.start();
+            } else {
+                final HttpLoadFilter filter = new HttpLoadFilter(scenario,
+                        configuration, recorder, server.getPort());
+                final List<Connection> connections = connect(transport,
+                        createFilterChain(scenario, filter), server.getPort(),
+                        configuration.getConnections());
+
+                start(recorder, configuration);
+                for (Connection connection : connections) {
+                    filter.open(connection);
+                }
+            }
+
+            final long durationNanos =
+                    TimeUnit.SECONDS.toNanos(configuration.getDurationSeconds());
+            Thread.sleep(TimeUnit.SECONDS.toMillis(
+                    configuration.getWarmupSeconds() + configuration.getDurationSeconds()));
+            drain(recorder);
+
+            return new LoadResult(scenario, configuration, durationNanos, recorder);
+        } finally {
+            transport.shutdownNow();
+            server.stop();
+        }
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+
+    private static FilterChain createFilterChain(final Scenario scenario,
+            final HttpLoadFilter filter) {
+        final FilterChainBuilder builder = FilterChainBuilder.stateless()
+                .add(new TransportFilter())
+                .add(new HttpClientFilter());
+        if (scenario == Scenario.HTTP2) {
+            builder.add(new Http2ClientFilter(Http2Configuration.builder()
+                    .priorKnowledge(true)
+                    .build()));
+        }
+
+        return builder.add(filter).build();
+    }
+
+    private static List<Connection> connect(final TCPNIOTransport transport,
+            final FilterChain filterChain, final int port, final int count)
+            throws IOException, InterruptedException {
+        final TCPNIOConnectorHandler connectorHandler =
+                TCPNIOConnectorHandler.builder(transport)
+                        .processor(filterChain)
+                        .build();
+
+        final List<Future<Connection>> futures =
+                new ArrayList<Future<Connection>>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(connectorHandler.connect(LoadServer.HOST, port));
+        }
+
+        final List<Connection> connections = new ArrayList<Connection>(count);
+        for (Future<Connection> future : futures) {
+            try {
+                connections.add(future.get(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                throw new IOException("Can't connect to the load server", e);
+            }
+        }
+
+        return connections;
+    }
+
+    private static void start(final LoadRecorder recorder,
+            final LoadConfiguration configuration) {
+        recorder.start(
+                TimeUnit.SECONDS.toNanos(configuration.getWarmupSeconds()),
+                TimeUnit.SECONDS.toNanos(configuration.getDurationSeconds()));
+    }
+
+    /**
+     * Waits for the requests in flight, so the connections are closed
+     * quietly.
+     */
+    private static void drain(final LoadRecorder recorder)
+            throws InterruptedException {
+        final long deadline = System.nanoTime()
+                + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT_SECONDS);
+        while (recorder.getInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        recorder.stop();
+    }
+
+    private static void usage(final String message) {
+        System.err.println(message);
+        System.err.println("Usage: LoadGenerator [--scenarios "
+                + "keepalive,pipelining,chunked,http2,websocket] "
+                + "[--connections n] [--duration s] [--warmup s] [--depth n] "
+                + "[--streams n] [--size bytes] [--upload bytes] "
+                + "[--chunk bytes] [--message bytes] [--selectors n]");
+        System.exit(2);
+    }
+}
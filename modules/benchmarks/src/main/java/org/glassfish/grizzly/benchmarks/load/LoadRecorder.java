@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks.load;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the outcome of the requests (or messages) issued by the load
+ * drivers of a single run.
+ *
+ * Only the requests, which were both issued and completed within the
+ * measurement window (after the warm-up), are recorded, so the connection
+ * establishment and the JIT warm-up don't skew the distribution.
+ */
+final class LoadRecorder {
+
+    private static final long HIGHEST_TRACKABLE_LATENCY =
+            TimeUnit.MINUTES.toNanos(1);
+
+    private final LatencyHistogram histogram =
+            new LatencyHistogram(HIGHEST_TRACKABLE_LATENCY, 3);
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile long measurementStart = Long.MAX_VALUE;
+    private volatile long measurementEnd = Long.MAX_VALUE;
+    private volatile boolean stopped;
+
+
+    // ------------------------------------------------------- Package Methods
+
+
+    /**
+     * Starts the run: the warm-up, followed by the measurement window.
+     */
+    void start(final long warmupNanos, final long durationNanos) {
+        final long now = System.nanoTime();
+        measurementEnd = now + warmupNanos + durationNanos;
+        measurementStart = now + warmupNanos;
+    }
+
+    /**
+     * Stops the run before the end of the measurement window.
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return <tt>true</tt>, if new requests should be issued.
+     */
+    boolean isRunning() {
+        return !stopped && System.nanoTime() < measurementEnd;
+    }
+
+    /**
+     * @return the request start timestamp, to be passed to
+     *  {@link #completed(long)} or {@link #failed()} later.
+     */
+    long issued() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    void completed(final long startNanos) {
+        final long now = System.nanoTime();
+        inFlight.decrementAndGet();
+
+        if (startNanos >= measurementStart && now <= measurementEnd) {
+            histogram.recordValue(now - startNanos);
+            completed.incrementAndGet();
+        }
+    }
+
+    void failed() {
+        inFlight.decrementAndGet();
+        if (isRunning()) {
+            errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Counts the error, which isn't related to any issued request.
+     */
+    void error() {
+        if (isRunning()) {
+            errors.incrementAndGet();
+        }
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    long getCompleted() {
+        return completed.get();
+    }
+
+    long getErrors() {
+        return errors.get();
+    }
+}
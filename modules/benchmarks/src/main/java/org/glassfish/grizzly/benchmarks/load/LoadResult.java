@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks.load;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * The outcome of a single {@link LoadGenerator} run.
+ */
+public final class LoadResult {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final Scenario scenario;
+    private final LoadConfiguration configuration;
+    private final long durationNanos;
+    private final long completed;
+    private final long errors;
+    private final LatencyHistogram histogram;
+
+    LoadResult(final Scenario scenario,
+            final LoadConfiguration configuration,
+            final long durationNanos,
+            final LoadRecorder recorder) {
+        this.scenario = scenario;
+        this.configuration = configuration;
+        this.durationNanos = durationNanos;
+        this.completed = recorder.getCompleted();
+        this.errors = recorder.getErrors();
+        this.histogram = recorder.getHistogram();
+    }
+
+
+    // --------------------------------------------------------- Public Methods
+
+
+    public Scenario getScenario() {
+        return scenario;
+    }
+
+    /**
+     * @return the number of the requests (messages) completed within the
+     *  measurement window.
+     */
+    public long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return the number of the failed requests and connection errors.
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the latency distribution in nanoseconds.
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * @return the completed requests (messages) per second.
+     */
+    public double getThroughput() {
+        return completed * 1000000000.0 / durationNanos;
+    }
+
+    /**
+     * Prints the summary followed by the percentile distribution in
+     * milliseconds.
+     */
+    public void print(final PrintStream out) {
+        out.println("=== " + scenario.getId() + " (" + configuration + ")");
+        out.println(String.format(Locale.ROOT,
+                "requests: %d, errors: %d, throughput: %.1f req/s",
+                completed, errors, getThroughput()));
+        out.println(String.format(Locale.ROOT,
+                "latency (ms): p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f",
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue())));
+        out.println();
+        histogram.outputPercentileDistribution(out, 5, NANOS_PER_MILLI);
+        out.println();
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+
+    private static double millis(final long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+import org.glassfish.grizzly.http2.Http2AddOn;
+import org.glassfish.grizzly.http2.Http2Configuration;
+import org.glassfish.grizzly.websockets.ProtocolHandler;
+import org.glassfish.grizzly.websockets.SimpleWebSocket;
+import org.glassfish.grizzly.websockets.WebSocket;
+import org.glassfish.grizzly.websockets.WebSocketAddOn;
+import org.glassfish.grizzly.websockets.WebSocketApplication;
+import org.glassfish.grizzly.websockets.WebSocketEngine;
+import org.glassfish.grizzly.websockets.WebSocketListener;
+
+/**
+ * The in-process {@link HttpServer}, which is the target of the
+ * {@link LoadGenerator}. The server listens on an ephemeral port of the
+ * loopback interface and has only the add-ons the scenario needs.
+ */
+public class LoadServer {
+
+    public static final String HOST = "localhost";
+
+    /**
+     * Responds with the configured number of bytes.
+     */
+    public static final String HELLO_PATH = "/hello";
+
+    /**
+     * Consumes the request body and responds with its length.
+     */
+    public static final String UPLOAD_PATH = "/upload";
+
+    /**
+     * Echoes the WebSocket messages.
+     */
+    public static final String ECHO_PATH = "/echo";
+
+    private final Scenario scenario;
+    private final LoadConfiguration configuration;
+
+    private HttpServer httpServer;
+    private WebSocketApplication echoApplication;
+
+    public LoadServer(final Scenario scenario,
+            final LoadConfiguration configuration) {
+        this.scenario = scenario;
+        this.configuration = configuration;
+    }
+
+
+    // --------------------------------------------------------- Public Methods
+
+
+    public void start() throws IOException {
+        httpServer = new HttpServer();
+
+        final NetworkListener listener = new NetworkListener("load", HOST, 0);
+        // the connections are kept open for the whole run
+        listener.getKeepAlive().setMaxRequestsCount(-1);
+        listener.getKeepAlive().setIdleTimeoutInSeconds(-1);
+        httpServer.addListener(listener);
+
+        if (scenario == Scenario.HTTP2) {
+            listener.registerAddOn(new Http2AddOn(Http2Configuration.builder()
+                    .maxConcurrentStreams(configuration.getHttp2Streams())
+                    .build()));
+        } else if (scenario == Scenario.WEBSOCKET) {
+            listener.registerAddOn(new WebSocketAddOn());
+            echoApplication = new EchoApplication();
+            WebSocketEngine.getEngine().register("", ECHO_PATH, echoApplication);
+        }
+
+        final byte[] payload = new byte[configuration.getResponseSize()];
+        Arrays.fill(payload, (byte) 'a');
+
+        httpServer.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response)
+                    throws Exception {
+                response.setContentType("text/plain");
+                response.setContentLength(payload.length);
+                response.getOutputStream().write(payload);
+            }
+        }, HELLO_PATH);
+
+        httpServer.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response)
+                    throws Exception {
+                final InputStream in = request.getInputStream();
+                final byte[] buffer = new byte[8192];
+                long length = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    length += read;
+                }
+
+                response.setContentType("text/plain");
+                response.getWriter().write(Long.toString(length));
+            }
+        }, UPLOAD_PATH);
+
+        httpServer.start();
+    }
+
+    /**
+     * @return the port the server is bound to.
+     */
+    public int getPort() {
+        return httpServer.getListener("load").getPort();
+    }
+
+    public void stop() {
+        if (echoApplication != null) {
+            WebSocketEngine.getEngine().unregister(echoApplication);
+            echoApplication = null;
+        }
+
+        if (httpServer != null) {
+            httpServer.shutdownNow();
+            httpServer = null;
+        }
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    private static final class EchoApplication extends WebSocketApplication {
+        @Override
+        public WebSocket createSocket(final ProtocolHandler handler,
+                final HttpRequestPacket requestPacket,
+                final WebSocketListener... listeners) {
+            // the DefaultWebSocket would require the Servlet API
+            return new SimpleWebSocket(handler, listeners);
+        }
+
+        @Override
+        public void onMessage(final WebSocket socket, final byte[] bytes) {
+            socket.send(bytes);
+        }
+
+        @Override
+        public void onMessage(final WebSocket socket, final String text) {
+            socket.send(text);
+        }
+    }
+}
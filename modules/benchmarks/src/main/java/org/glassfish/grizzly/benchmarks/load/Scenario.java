@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks.load;
+
+/**
+ * The load scenarios supported by the {@link LoadGenerator}.
+ */
+public enum Scenario {
+    /**
+     * Sequential <tt>GET</tt> requests over persistent HTTP/1.1 connections.
+     */
+    KEEP_ALIVE("keepalive"),
+    /**
+     * Pipelined HTTP/1.1 <tt>GET</tt> requests, up to the configured
+     * pipeline depth per connection.
+     */
+    PIPELINING("pipelining"),
+    /**
+     * HTTP/1.1 <tt>POST</tt> requests with the chunked request body.
+     */
+    CHUNKED_UPLOAD("chunked"),
+    /**
+     * HTTP/2 (prior knowledge, cleartext) <tt>GET</tt> requests multiplexed
+     * over the configured number of concurrent streams per connection.
+     */
+    HTTP2("http2"),
+    /**
+     * WebSocket binary messages echoed back by the server.
+     */
+    WEBSOCKET("websocket");
+
+    private final String id;
+
+    Scenario(final String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the scenario id used on the command line.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the {@link Scenario} with the given id.
+     * @throws IllegalArgumentException if there is no such scenario
+     */
+    public static Scenario forId(final String id) {
+        for (Scenario scenario : values()) {
+            if (scenario.id.equalsIgnoreCase(id)) {
+                return scenario;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown scenario: " + id);
+    }
+}
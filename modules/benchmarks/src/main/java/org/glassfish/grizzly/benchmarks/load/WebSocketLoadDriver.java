@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.benchmarks.load;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.EmptyCompletionHandler;
+import org.glassfish.grizzly.filterchain.FilterChain;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.http.HttpClientFilter;
+import org.glassfish.grizzly.nio.transport.TCPNIOConnectorHandler;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.websockets.DataFrame;
+import org.glassfish.grizzly.websockets.HandshakeException;
+import org.glassfish.grizzly.websockets.ProtocolHandler;
+import org.glassfish.grizzly.websockets.SimpleWebSocket;
+import org.glassfish.grizzly.websockets.WebSocketClientFilter;
+import org.glassfish.grizzly.websockets.WebSocketEngine;
+import org.glassfish.grizzly.websockets.WebSocketHolder;
+
+/**
+ * The closed-loop WebSocket echo driver: every client socket keeps the
+ * configured number of binary messages in flight and sends the next message
+ * as soon as an echo is received. The server echoes the messages in order,
+ * so the send timestamps are matched to the echoes first-in, first-out.
+ */
+final class WebSocketLoadDriver {
+
+    private final LoadRecorder recorder;
+    private final int window;
+    private final byte[] message;
+    private final URI uri;
+    private final FilterChain filterChain;
+
+    private final Queue<LoadWebSocket> sockets =
+            new ConcurrentLinkedQueue<LoadWebSocket>();
+
+    WebSocketLoadDriver(final LoadConfiguration configuration,
+            final LoadRecorder recorder,
+            final int port) {
+        this.recorder = recorder;
+        this.window = configuration.getWindow(Scenario.WEBSOCKET);
+        this.message = new byte[configuration.getMessageSize()];
+        Arrays.fill(message, (byte) 'm');
+        this.uri = URI.create("ws://" + LoadServer.HOST + ':' + port
+                + LoadServer.ECHO_PATH);
+
+        filterChain = FilterChainBuilder.stateless()
+                .add(new TransportFilter())
+                .add(new HttpClientFilter())
+                .add(new WebSocketClientFilter() {
+                    @Override
+                    protected void onHandshakeFailure(final Connection connection,
+                            final HandshakeException e) {
+                        recorder.error();
+                    }
+                })
+                .build();
+    }
+
+
+    // ------------------------------------------------------- Package Methods
+
+
+    /**
+     * Opens the given number of the WebSocket connections and waits for
+     * their handshakes to complete.
+     */
+    void connect(final TCPNIOTransport transport, final int connections,
+            final long timeout, final TimeUnit unit)
+            throws IOException, InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(connections);
+
+        for (int i = 0; i < connections; i++) {
+            final LoadWebSocket socket = new LoadWebSocket(latch);
+
+            final TCPNIOConnectorHandler connectorHandler =
+                    new TCPNIOConnectorHandler(transport) {
+                @Override
+                protected void preConfigure(final Connection conn) {
+                    super.preConfigure(conn);
+                    socket.handler().setConnection(conn);
+                    final WebSocketHolder holder =
+                            WebSocketHolder.set(conn, socket.handler(), socket);
+                    holder.handshake = socket.handler().createClientHandShake(uri);
+                }
+            };
+            connectorHandler.setProcessor(filterChain);
+            connectorHandler.connect(
+                    new InetSocketAddress(uri.getHost(), uri.getPort()),
+                    new EmptyCompletionHandler<Connection>() {
+                        @Override
+                        public void failed(final Throwable throwable) {
+                            recorder.error();
+                        }
+                    });
+        }
+
+        if (!latch.await(timeout, unit)) {
+            throw new IOException("WebSocket handshakes didn't complete in "
+                    + timeout + " " + unit);
+        }
+    }
+
+    /**
+     * Starts sending the messages over the connected sockets.
+     */
+    void start() {
+        for (LoadWebSocket socket : sockets) {
+            socket.fill();
+        }
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    private final class LoadWebSocket extends SimpleWebSocket {
+        private final CountDownLatch connectLatch;
+
+        // the send timestamps of the messages in flight
+        private final long[] starts = new long[window];
+        private int head;
+        private int inFlight;
+
+        private LoadWebSocket(final CountDownLatch connectLatch) {
+            super(WebSocketEngine.DEFAULT_VERSION.createHandler(true));
+            this.connectLatch = connectLatch;
+        }
+
+        private ProtocolHandler handler() {
+            return protocolHandler;
+        }
+
+        @Override
+        public void onConnect() {
+            super.onConnect();
+            sockets.add(this);
+            connectLatch.countDown();
+        }
+
+        @Override
+        public void onMessage(final byte[] data) {
+            final long start;
+            synchronized (this) {
+                if (inFlight == 0) {
+                    recorder.error();
+                    return;
+                }
+                start = starts[head];
+                head = (head + 1) % starts.length;
+                inFlight--;
+            }
+
+            recorder.completed(start);
+            fill();
+        }
+
+        @Override
+        public void onClose(final DataFrame frame) {
+            super.onClose(frame);
+
+            synchronized (this) {
+                while (inFlight > 0) {
+                    inFlight--;
+                    recorder.failed();
+                }
+            }
+            recorder.error();
+        }
+
+        private synchronized void fill() {
+            while (inFlight < starts.length && recorder.isRunning()) {
+                starts[(head + inFlight) % starts.length] = recorder.issued();
+                inFlight++;
+                send(message);
+            }
+        }
+    }
+}
@@ -97,6 +97,11 @@ public interface Buffer extends Comparable<Buffer>, WritableMessage {
     
     /**
      * Try to dispose <tt>Buffer</tt> if it's allowed.
+     * If the <tt>Buffer</tt> has been {@link #retain() retained}, the call
+     * releases one of the references and the <tt>Buffer</tt> is disposed,
+     * when the last reference is released.
+     *
+     * @return <tt>true</tt>, if the <tt>Buffer</tt> has been disposed
      */
     boolean tryDispose();
 
@@ -104,9 +109,69 @@ public interface Buffer extends Comparable<Buffer>, WritableMessage {
      * Notify the allocator that the space for this <tt>Buffer</tt> is no
      * longer needed. All calls to methods on a <tt>Buffer</tt>
      * will fail after a call to dispose().
+     * Unlike {@link #tryDispose()}, this method disposes the <tt>Buffer</tt>
+     * regardless of the references, which have been {@link #retain() retained}.
      */
     void dispose();
-    
+
+    /**
+     * Adds a reference to this <tt>Buffer</tt>. The <tt>Buffer</tt> starts
+     * with one reference, every <tt>retain()</tt> has to be matched by
+     * a {@link #tryDispose()} (or {@link #release()}), and the
+     * <tt>Buffer</tt> is disposed, when the last reference is released, so
+     * one pooled <tt>Buffer</tt> could be handed to several writers, which
+     * dispose it once they're done.
+     *
+     * @return this <tt>Buffer</tt>
+     * @since 2.4.4
+     */
+    Buffer retain();
+
+    /**
+     * @return the number of the references to this <tt>Buffer</tt>, which
+     *  have not been released yet, <tt>1</tt> if the <tt>Buffer</tt> has
+     *  never been {@link #retain() retained}
+     * @since 2.4.4
+     */
+    int referenceCount();
+
+    /**
+     * Creates a new <code>Buffer</code>, whose content is a shared
+     * subsequence of this buffer's content like {@link #slice()} does, and
+     * which holds a reference to this <tt>Buffer</tt> until it's disposed.
+     *
+     * <p> The new buffer is allowed to be disposed, so it could be passed
+     * to a writer, which disposes it once the data is written, while this
+     * <tt>Buffer</tt> is disposed only after all its retained views have
+     * been disposed and its own reference has been released using
+     * {@link #tryDispose()}.  </p>
+     *
+     * @return  The new <code>Buffer</code>
+     * @since 2.4.4
+     */
+    Buffer retainedSlice();
+
+    /**
+     * Creates a new <code>Buffer</code>, whose content is a shared
+     * subsequence [position, limit) of this buffer's content like
+     * {@link #slice(int, int)} does, and which holds a reference to this
+     * <tt>Buffer</tt> until it's disposed, see {@link #retainedSlice()}.
+     *
+     * @return  The new <code>Buffer</code>
+     * @since 2.4.4
+     */
+    Buffer retainedSlice(int position, int limit);
+
+    /**
+     * Creates a new <code>Buffer</code>, that shares this buffer's content
+     * like {@link #duplicate()} does, and which holds a reference to this
+     * <tt>Buffer</tt> until it's disposed, see {@link #retainedSlice()}.
+     *
+     * @return  The new <code>Buffer</code>
+     * @since 2.4.4
+     */
+    Buffer retainedDuplicate();
+
     /**
      * Return the underlying buffer
      * 
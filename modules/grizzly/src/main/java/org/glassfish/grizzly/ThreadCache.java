@@ -17,6 +17,7 @@
 package org.glassfish.grizzly;
 
 import org.glassfish.grizzly.threadpool.DefaultWorkerThread;
+import org.glassfish.grizzly.threadpool.WorkerScope;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -64,6 +65,11 @@ public final class ThreadCache {
         if (currentThread instanceof DefaultWorkerThread) {
             return ((DefaultWorkerThread) currentThread).putToCache(index, o);
         } else {
+            final WorkerScope scope = WorkerScope.current();
+            if (scope != null) {
+                return scope.getObjectCache().put(index, o);
+            }
+
             ObjectCache genericCache = genericCacheAttr.get();
             if (genericCache == null) {
                 genericCache = new ObjectCache();
@@ -104,6 +110,11 @@ public final class ThreadCache {
         if (currentThread instanceof DefaultWorkerThread) {
             return ((DefaultWorkerThread) currentThread).getFromCache(index);
         } else {
+            final WorkerScope scope = WorkerScope.current();
+            if (scope != null) {
+                return scope.getObjectCache().get(index);
+            }
+
             final ObjectCache genericCache = genericCacheAttr.get();
             if (genericCache != null) {
                 return genericCache.get(index);
@@ -141,6 +152,11 @@ public final class ThreadCache {
         if (currentThread instanceof DefaultWorkerThread) {
             return ((DefaultWorkerThread) currentThread).takeFromCache(index);
         } else {
+            final WorkerScope scope = WorkerScope.current();
+            if (scope != null) {
+                return scope.getObjectCache().take(index);
+            }
+
             final ObjectCache genericCache = genericCacheAttr.get();
             if (genericCache != null) {
                 return genericCache.take(index);
@@ -135,6 +135,8 @@ public class GZipDecoder extends AbstractTransformer<Buffer, Buffer> {
         final int size = byteBufferArray.size();
 
         Buffer resultBuffer = null;
+        // the number of bytes consumed from the previous ByteBuffers
+        int consumed = 0;
 
         for (int i = 0; i < size; i++) {
             final ByteBuffer byteBuffer = byteBuffers[i];
@@ -186,8 +188,8 @@ public class GZipDecoder extends AbstractTransformer<Buffer, Buffer> {
                         byteBufferArray.restore();
                         byteBufferArray.recycle();
 
-                        buffer.position(
-                                buffer.position() + remaining - remainder);
+                        buffer.position(buffer.position() + consumed
+                                + remaining - remainder);
 
                         state.setDecodeStatus(DecodeStatus.TRAILER);
                         return resultBuffer;
@@ -195,13 +197,13 @@ public class GZipDecoder extends AbstractTransformer<Buffer, Buffer> {
                 }
             } while (lastInflated > 0);
 
-            final int remaining = byteBuffer.remaining();
+            consumed += byteBuffer.remaining();
+        }
 
-            byteBufferArray.restore();
-            byteBufferArray.recycle();
+        byteBufferArray.restore();
+        byteBufferArray.recycle();
 
-            buffer.position(buffer.position() + remaining);
-        }
+        buffer.position(buffer.position() + consumed);
 
         return resultBuffer;
     }
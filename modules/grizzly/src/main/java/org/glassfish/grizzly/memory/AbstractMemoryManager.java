@@ -20,6 +20,7 @@ import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.Cacheable;
 import org.glassfish.grizzly.monitoring.DefaultMonitoringConfig;
 import org.glassfish.grizzly.threadpool.DefaultWorkerThread;
+import org.glassfish.grizzly.threadpool.WorkerScope;
 
 
 /**
@@ -56,6 +57,12 @@ public abstract class AbstractMemoryManager<E extends Buffer>
 
     protected final int maxBufferSize;
 
+    /**
+     * Detects the allocated {@link Buffer}s, which haven't been disposed.
+     */
+    protected final BufferLeakDetector leakDetector =
+            new BufferLeakDetector(getClass().getName());
+
 
     // ------------------------------------------------------------ Constructors
 
@@ -110,6 +117,18 @@ public abstract class AbstractMemoryManager<E extends Buffer>
     }
 
 
+    /**
+     * @return the {@link BufferLeakDetector}, which could be used to
+     * configure and check the leak detection for the {@link Buffer}s
+     * allocated by this <code>AbstractMemoryManager</code>.
+     *
+     * @since 2.4.4
+     */
+    public BufferLeakDetector getLeakDetector() {
+        return leakDetector;
+    }
+
+
     // ------------------------------------------------------- Protected Methods
 
 
@@ -142,7 +161,9 @@ public abstract class AbstractMemoryManager<E extends Buffer>
 
 
     /**
-     * Get thread associated buffer pool.
+     * Get thread associated buffer pool, which is either the
+     * {@link DefaultWorkerThread}'s pool, or the pool of the
+     * {@link WorkerScope} bound to the current thread.
      *
      * @return thread associated buffer pool.  This method may return
      *  <code>null</code> if the current thread doesn't have a buffer pool
@@ -153,7 +174,8 @@ public abstract class AbstractMemoryManager<E extends Buffer>
         if (t instanceof DefaultWorkerThread) {
             return ((DefaultWorkerThread) t).getMemoryPool();
         } else {
-            return null;
+            final WorkerScope scope = WorkerScope.current();
+            return scope != null ? scope.getMemoryPool() : null;
         }
     }
 
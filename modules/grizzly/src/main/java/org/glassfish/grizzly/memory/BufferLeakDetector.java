@@ -0,0 +1,426 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.memory;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Grizzly;
+
+/**
+ * Detects the {@link Buffer}s, which were allocated by a {@link MemoryManager}
+ * and became unreachable without being disposed.
+ *
+ * Depending on the {@link Mode}, the detector tracks none, a sample, or all
+ * the allocated {@link Buffer}s. A tracked {@link Buffer} is watched by a
+ * phantom reference, which remembers the allocation site and the last few
+ * points, where the {@link Buffer} was accessed (converted to a
+ * {@link java.nio.ByteBuffer} for I/O, split, reallocated, or explicitly
+ * {@link #touch(Buffer, Object) touched}). The reference is cleared, when the
+ * {@link Buffer} is disposed, so if the garbage collector enqueues it, the
+ * {@link Buffer} has leaked. The leaks are checked on allocation, and
+ * reported to the log with the recorded access points.
+ *
+ * The not tracked {@link Buffer}s cost a single <tt>null</tt> check per
+ * access, so the {@link Mode#SAMPLED} mode is cheap enough to be left on
+ * in production.
+ *
+ * The default mode and sampling interval could be set using the
+ * <tt>org.glassfish.grizzly.memory.BufferLeakDetector.mode</tt> and
+ * <tt>org.glassfish.grizzly.memory.BufferLeakDetector.sampling-interval</tt>
+ * system properties.
+ *
+ * @since 2.4.4
+ */
+public final class BufferLeakDetector {
+    private static final Logger LOGGER = Grizzly.logger(BufferLeakDetector.class);
+
+    public static final String MODE_PROPERTY =
+            BufferLeakDetector.class.getName() + ".mode";
+    public static final String SAMPLING_INTERVAL_PROPERTY =
+            BufferLeakDetector.class.getName() + ".sampling-interval";
+
+    public static final int DEFAULT_SAMPLING_INTERVAL = 128;
+
+    /**
+     * The max number of the access points remembered per tracked {@link Buffer}.
+     */
+    private static final int MAX_RECORDS = 4;
+
+    /**
+     * The leak detection mode.
+     */
+    public enum Mode {
+        /**
+         * The {@link Buffer}s are not tracked.
+         */
+        OFF,
+        /**
+         * Every {@link #getSamplingInterval()}-th (on average) allocated
+         * {@link Buffer} is tracked.
+         */
+        SAMPLED,
+        /**
+         * All the allocated {@link Buffer}s are tracked.
+         */
+        PARANOID
+    }
+
+    private final String name;
+
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    // the trackers of the allocated and not disposed yet buffers
+    private final Set<Tracker> trackers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong leaksCount = new AtomicLong();
+
+    private volatile Mode mode = defaultMode();
+
+    private volatile int samplingInterval = Math.max(1,
+            Integer.getInteger(SAMPLING_INTERVAL_PROPERTY,
+                    DEFAULT_SAMPLING_INTERVAL));
+
+    /**
+     * Creates a new <tt>BufferLeakDetector</tt>.
+     *
+     * @param name the name used in the leak reports, usually the name of the
+     *  {@link MemoryManager}, which uses the detector
+     */
+    public BufferLeakDetector(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the leak detection {@link Mode}
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets the leak detection {@link Mode}. The {@link Buffer}s, which have
+     * been already allocated, remain tracked, or not tracked, as they are.
+     *
+     * @param mode the leak detection {@link Mode}
+     */
+    public void setMode(final Mode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("mode can't be null");
+        }
+
+        this.mode = mode;
+    }
+
+    /**
+     * @return the average number of the allocated {@link Buffer}s per one
+     *  tracked {@link Buffer} in the {@link Mode#SAMPLED} mode
+     */
+    public int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * Sets the average number of the allocated {@link Buffer}s per one
+     * tracked {@link Buffer} in the {@link Mode#SAMPLED} mode.
+     *
+     * @param samplingInterval the sampling interval
+     */
+    public void setSamplingInterval(final int samplingInterval) {
+        if (samplingInterval <= 0) {
+            throw new IllegalArgumentException("samplingInterval must be greater than zero");
+        }
+
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * @return the number of the leaked {@link Buffer}s detected so far
+     */
+    public long getLeaksCount() {
+        return leaksCount.get();
+    }
+
+    /**
+     * @return the number of the tracked {@link Buffer}s, which have not been
+     *  disposed yet
+     */
+    public int getTrackedCount() {
+        return trackers.size();
+    }
+
+    /**
+     * Starts tracking the allocated {@link Buffer}, if it's chosen by the
+     * current {@link Mode}, and reports the leaks detected since the
+     * previous check.
+     *
+     * @param buffer the allocated {@link Buffer}
+     * @return the passed {@link Buffer}
+     */
+    public <E extends Buffer> E track(final E buffer) {
+        final Mode m = mode;
+        if (m == Mode.OFF) {
+            return buffer;
+        }
+
+        reportLeaks();
+
+        if (m == Mode.PARANOID
+                || ThreadLocalRandom.current().nextInt(samplingInterval) == 0) {
+            attach(buffer, new Tracker(this, buffer, null));
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Moves the tracking from the reallocated {@link Buffer} to the
+     * {@link Buffer}, which replaced it, so the former could be dropped
+     * without being disposed.
+     *
+     * @param oldBuffer the reallocated {@link Buffer}
+     * @param newBuffer the {@link Buffer} returned by the reallocation
+     * @return the new {@link Buffer}
+     */
+    public <E extends Buffer> E retrack(final Buffer oldBuffer,
+            final E newBuffer) {
+        final Tracker oldTracker = trackerOf(oldBuffer);
+        if (oldTracker == null) {
+            return newBuffer;
+        }
+
+        oldTracker.record("reallocated");
+        if (newBuffer == oldBuffer) {
+            return newBuffer;
+        }
+
+        oldTracker.close();
+        attach(oldBuffer, null);
+        attach(newBuffer, new Tracker(this, newBuffer, oldTracker));
+
+        return newBuffer;
+    }
+
+    /**
+     * Checks the {@link Buffer}s, which have become unreachable since the
+     * previous check, and reports the ones, which have not been disposed.
+     *
+     * @return the number of the leaked {@link Buffer}s found
+     */
+    public int reportLeaks() {
+        int count = 0;
+        Tracker tracker;
+        while ((tracker = (Tracker) queue.poll()) != null) {
+            if (trackers.remove(tracker)) {
+                count++;
+                leaksCount.incrementAndGet();
+                if (LOGGER.isLoggable(Level.WARNING)) {
+                    LOGGER.log(Level.WARNING, tracker.report());
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Records the current stack as the last access point of the
+     * {@link Buffer}, if the {@link Buffer} is tracked. The access points are
+     * shown, if the {@link Buffer} leaks.
+     *
+     * @param buffer the {@link Buffer}
+     * @param hint the object, which {@link Object#toString()} describes the
+     *  access, or <tt>null</tt>
+     */
+    public static void touch(final Buffer buffer, final Object hint) {
+        if (buffer instanceof CompositeBuffer) {
+            final BufferArray array = ((CompositeBuffer) buffer).toBufferArray();
+            final Buffer[] buffers = array.getArray();
+            for (int i = 0, size = array.size(); i < size; i++) {
+                touch(buffers[i], hint);
+            }
+            array.restore();
+            array.recycle();
+            return;
+        }
+
+        final Tracker tracker = trackerOf(buffer);
+        if (tracker != null) {
+            tracker.record(hint);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return BufferLeakDetector.class.getSimpleName() + " (" + name
+                + ") mode=" + mode
+                + " samplingInterval=" + samplingInterval
+                + " leaks=" + leaksCount.get();
+    }
+
+    // --------------------------------------------------------- Private Methods
+
+    private static Mode defaultMode() {
+        final String value = System.getProperty(MODE_PROPERTY);
+        if (value != null) {
+            try {
+                return Mode.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                LOGGER.log(Level.WARNING, "Unknown {0} value: {1}",
+                        new Object[] {MODE_PROPERTY, value});
+            }
+        }
+
+        return Mode.OFF;
+    }
+
+    private static Tracker trackerOf(final Buffer buffer) {
+        if (buffer instanceof HeapBuffer) {
+            return ((HeapBuffer) buffer).leakTracker;
+        } else if (buffer instanceof ByteBufferWrapper) {
+            return ((ByteBufferWrapper) buffer).leakTracker;
+        }
+
+        return null;
+    }
+
+    private static void attach(final Buffer buffer, final Tracker tracker) {
+        if (buffer instanceof HeapBuffer) {
+            ((HeapBuffer) buffer).leakTracker = tracker;
+        } else if (buffer instanceof ByteBufferWrapper) {
+            ((ByteBufferWrapper) buffer).leakTracker = tracker;
+        } else if (tracker != null) {
+            // the buffer can't be tracked
+            tracker.close();
+        }
+    }
+
+    // ---------------------------------------------------------- Nested Classes
+
+    /**
+     * Watches a tracked {@link Buffer}.
+     */
+    static final class Tracker extends PhantomReference<Object> {
+        private final BufferLeakDetector detector;
+        private final String bufferName;
+        private final Record allocation;
+        // the last access points, guarded by this
+        private final ArrayDeque<Record> records = new ArrayDeque<>(MAX_RECORDS);
+        private int droppedRecords;
+
+        private Tracker(final BufferLeakDetector detector, final Buffer buffer,
+                final Tracker previous) {
+            super(buffer, detector.queue);
+            this.detector = detector;
+            bufferName = buffer.getClass().getName() + '@'
+                    + Integer.toHexString(System.identityHashCode(buffer))
+                    + " capacity=" + buffer.capacity();
+            if (previous != null) {
+                allocation = previous.allocation;
+                synchronized (previous) {
+                    records.addAll(previous.records);
+                    droppedRecords = previous.droppedRecords;
+                }
+            } else {
+                allocation = new Record("allocated");
+            }
+
+            detector.trackers.add(this);
+        }
+
+        /**
+         * Remembers the current stack as the last access point.
+         */
+        void record(final Object hint) {
+            if (!detector.trackers.contains(this)) {
+                return;
+            }
+
+            final Record record = new Record(hint != null ? hint.toString() : "accessed");
+            synchronized (this) {
+                if (records.size() == MAX_RECORDS) {
+                    records.pollFirst();
+                    droppedRecords++;
+                }
+                records.addLast(record);
+            }
+        }
+
+        /**
+         * Stops tracking, the {@link Buffer} has been disposed.
+         */
+        void close() {
+            detector.trackers.remove(this);
+            clear();
+        }
+
+        private String report() {
+            final StringBuilder sb = new StringBuilder(512);
+            sb.append("Buffer leak detected by ").append(detector.name)
+                    .append(": ").append(bufferName)
+                    .append(" was garbage collected without being disposed.");
+            synchronized (this) {
+                if (!records.isEmpty()) {
+                    sb.append(" Last access points (most recent first");
+                    if (droppedRecords > 0) {
+                        sb.append(", ").append(droppedRecords)
+                                .append(" older omitted");
+                    }
+                    sb.append("):");
+                    for (Iterator<Record> it = records.descendingIterator(); it.hasNext();) {
+                        it.next().appendTo(sb);
+                    }
+                }
+            }
+            allocation.appendTo(sb);
+
+            return sb.toString();
+        }
+    } // END Tracker
+
+    /**
+     * The access point of a tracked {@link Buffer}.
+     */
+    private static final class Record extends Throwable {
+        private static final long serialVersionUID = 1L;
+
+        private Record(final String hint) {
+            super(hint, null, false, true);
+        }
+
+        private void appendTo(final StringBuilder sb) {
+            sb.append("\n  ").append(getMessage()).append(':');
+            for (StackTraceElement element : getStackTrace()) {
+                // skip the detector's own frames
+                final String className = element.getClassName();
+                if (className.equals(BufferLeakDetector.class.getName())
+                        || className.startsWith(BufferLeakDetector.class.getName() + '$')) {
+                    continue;
+                }
+                sb.append("\n\tat ").append(element);
+            }
+        }
+    } // END Record
+}
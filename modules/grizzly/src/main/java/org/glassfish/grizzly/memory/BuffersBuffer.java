@@ -24,6 +24,7 @@ import java.nio.ByteOrder;
 import java.nio.InvalidMarkException;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.ThreadCache;
 import org.glassfish.grizzly.utils.ArrayUtils;
@@ -35,6 +36,9 @@ import org.glassfish.grizzly.utils.ArrayUtils;
 public final class BuffersBuffer extends CompositeBuffer {
     public static volatile boolean DEBUG_MODE = false;
 
+    private static final AtomicIntegerFieldUpdater<BuffersBuffer> RETAINED_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(BuffersBuffer.class, "retained");
+
     private static final ThreadCache.CachedTypeIndex<BuffersBuffer> CACHE_IDX =
             ThreadCache.obtainIndex(BuffersBuffer.class,
                     Integer.getInteger(BuffersBuffer.class.getName() + ".bb-cache-size", 5));
@@ -99,6 +103,9 @@ public final class BuffersBuffer extends CompositeBuffer {
 
     private boolean isDisposed;
 
+    // the number of the retained references besides the original one
+    private volatile int retained;
+
     private boolean isReadOnly;
 
     private int mark = -1;
@@ -154,12 +161,15 @@ public final class BuffersBuffer extends CompositeBuffer {
         }
     }
 
-    private BuffersBuffer duplicateFrom(final BuffersBuffer that) {
+    private BuffersBuffer duplicateFrom(final BuffersBuffer that,
+            final boolean isRetained) {
         this.memoryManager = that.memoryManager;
 
         final Buffer[] ba = new Buffer[that.buffers.length];
         for (int i = 0, len = that.buffersSize; i < len; i++) {
-            ba[i] = that.buffers[i].duplicate();
+            ba[i] = isRetained
+                    ? that.buffers[i].retainedDuplicate()
+                    : that.buffers[i].duplicate();
         }
         initBuffers(ba, that.buffersSize);
         System.arraycopy(that.bufferBounds, 0, this.bufferBounds, 0, that.buffersSize);
@@ -176,8 +186,10 @@ public final class BuffersBuffer extends CompositeBuffer {
     @Override
     public final boolean tryDispose() {
         if (allowBufferDispose) {
-            dispose();
-            return true;
+            if (releaseReference()) {
+                dispose();
+                return true;
+            }
         } else if (allowInternalBuffersDispose) {
             removeAndDisposeBuffers();
         }
@@ -189,6 +201,7 @@ public final class BuffersBuffer extends CompositeBuffer {
     public void dispose() {
         checkDispose();
         isDisposed = true;
+        retained = 0;
         removeAndDisposeBuffers();
 
         if (DEBUG_MODE) { // if debug is on - clear the buffer content
@@ -400,7 +413,7 @@ public final class BuffersBuffer extends CompositeBuffer {
     @Override
     public BuffersBuffer asReadOnlyBuffer() {
         checkDispose();
-        final BuffersBuffer buffer = create().duplicateFrom(this);
+        final BuffersBuffer buffer = create().duplicateFrom(this, false);
         buffer.isReadOnly = true;
 
         return buffer;
@@ -595,6 +608,36 @@ public final class BuffersBuffer extends CompositeBuffer {
             return buffers[0].slice(position, limit);
         }
 
+        return slice0(position, limit, false);
+    }
+
+    @Override
+    public Buffer retainedSlice() {
+        return retainedSlice(position, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The slice holds references to this composite's internal buffers,
+     * rather than to the composite itself, see {@link #retainedDuplicate()}.
+     */
+    @Override
+    public Buffer retainedSlice(final int position, final int limit) {
+        checkDispose();
+
+        if (buffersSize == 0 || (position == limit)) {
+            return Buffers.EMPTY_BUFFER;
+        }
+
+        final Buffer slice = slice0(position, limit, true);
+        slice.allowBufferDispose(true);
+
+        return slice;
+    }
+
+    private Buffer slice0(final int position, final int limit,
+            final boolean isRetained) {
         checkIndex(position);
         final int posBufferIndex = lastSegmentIndex;
         final int posBufferPosition = toActiveBufferPos(position);
@@ -605,32 +648,77 @@ public final class BuffersBuffer extends CompositeBuffer {
 
         //noinspection ConstantConditions
         if (posBufferIndex == limitBufferIndex) {
-            return buffers[posBufferIndex].slice(
-                    posBufferPosition, limitBufferPosition);
+            return slice(buffers[posBufferIndex],
+                    posBufferPosition, limitBufferPosition, isRetained);
         } else {
             final Buffer[] newList = new Buffer[limitBufferIndex - posBufferIndex + 1];
 
             final Buffer posBuffer = buffers[posBufferIndex];
-            newList[0] = posBuffer.slice(posBufferPosition, posBuffer.limit());
+            newList[0] = slice(posBuffer, posBufferPosition, posBuffer.limit(),
+                    isRetained);
 
             int index = 1;
             for (int i = posBufferIndex + 1; i < limitBufferIndex; i++) {
-                newList[index++] = buffers[i].slice();
+                final Buffer buffer = buffers[i];
+                newList[index++] = slice(buffer, buffer.position(),
+                        buffer.limit(), isRetained);
             }
 
             final Buffer limitBuffer = buffers[limitBufferIndex];
-            newList[index] = limitBuffer.slice(limitBuffer.position(),
-                    limitBufferPosition);
+            newList[index] = slice(limitBuffer, limitBuffer.position(),
+                    limitBufferPosition, isRetained);
+
+            final BuffersBuffer slice = BuffersBuffer.create(memoryManager,
+                    newList, newList.length, byteOrder, isReadOnly);
+            if (isRetained) {
+                slice.allowInternalBuffersDispose(true);
+            }
 
-            return BuffersBuffer.create(memoryManager, newList, newList.length,
-                    byteOrder, isReadOnly);
+            return slice;
         }
     }
 
+    private static Buffer slice(final Buffer buffer, final int position,
+            final int limit, final boolean isRetained) {
+        return isRetained
+                ? buffer.retainedSlice(position, limit)
+                : buffer.slice(position, limit);
+    }
+
     @Override
     public BuffersBuffer duplicate() {
         checkDispose();
-        return create().duplicateFrom(this);
+        return create().duplicateFrom(this, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The composite holds a reference to this composite's internal buffers,
+     * rather than to the composite itself, so the internal buffers are
+     * disposed, when this composite and all its retained views are disposed.
+     */
+    @Override
+    public BuffersBuffer retainedDuplicate() {
+        checkDispose();
+        final BuffersBuffer buffer = create().duplicateFrom(this, true);
+        buffer.allowBufferDispose(true);
+        buffer.allowInternalBuffersDispose(true);
+
+        return buffer;
+    }
+
+    @Override
+    public BuffersBuffer retain() {
+        checkDispose();
+        RETAINED_UPDATER.incrementAndGet(this);
+        return this;
+    }
+
+    @Override
+    public int referenceCount() {
+        checkDispose();
+        return retained + 1;
     }
 
     @Override
@@ -1715,6 +1803,25 @@ public final class BuffersBuffer extends CompositeBuffer {
         this.limit = limit;
     }
 
+    /**
+     * Releases one of the references to this composite.
+     *
+     * @return <tt>true</tt>, if it was the last reference, so the composite
+     *  could be disposed
+     */
+    private boolean releaseReference() {
+        for (;;) {
+            final int r = retained;
+            if (r == 0) {
+                return true;
+            }
+
+            if (RETAINED_UPDATER.compareAndSet(this, r, r - 1)) {
+                return false;
+            }
+        }
+    }
+
     private void checkDispose() {
         if (isDisposed) {
             throw new IllegalStateException(
@@ -92,9 +92,9 @@ public class ByteBufferManager extends AbstractMemoryManager<ByteBufferWrapper>
         if (size <= maxSmallBufferSize) {
             final SmallByteBufferWrapper buffer = createSmallBuffer();
             buffer.limit(size);
-            return buffer;
+            return leakDetector.track(buffer);
         }
-        return wrap(allocateByteBuffer(size));
+        return leakDetector.track(wrap(allocateByteBuffer(size)));
     }
 
     /**
@@ -105,9 +105,9 @@ public class ByteBufferManager extends AbstractMemoryManager<ByteBufferWrapper>
         if (size <= maxSmallBufferSize) {
             final SmallByteBufferWrapper buffer = createSmallBuffer();
             buffer.limit(size);
-            return buffer;
+            return leakDetector.track(buffer);
         }
-        return wrap(allocateByteBufferAtLeast(size));
+        return leakDetector.track(wrap(allocateByteBufferAtLeast(size)));
     }
 
     /**
@@ -116,7 +116,8 @@ public class ByteBufferManager extends AbstractMemoryManager<ByteBufferWrapper>
     @Override
     public ByteBufferWrapper reallocate(ByteBufferWrapper oldBuffer,
             int newSize) {
-        return wrap(reallocateByteBuffer(oldBuffer.underlying(), newSize));
+        return leakDetector.retrack(oldBuffer,
+                wrap(reallocateByteBuffer(oldBuffer.underlying(), newSize)));
     }
     
     /**
@@ -22,6 +22,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.InvalidMarkException;
 import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import org.glassfish.grizzly.Buffer;
 
 /**
@@ -38,6 +39,9 @@ import org.glassfish.grizzly.Buffer;
 public class ByteBufferWrapper implements Buffer {
     public static volatile boolean DEBUG_MODE = false;
 
+    private static final AtomicIntegerFieldUpdater<ByteBufferWrapper> RETAINED_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(ByteBufferWrapper.class, "retained");
+
     protected ByteBuffer visible;
 
     // Maintain our own mark instead of allowing the ByteBuffer to maintain it.
@@ -49,6 +53,16 @@ public class ByteBufferWrapper implements Buffer {
     
     protected Exception disposeStackTrace;
 
+    // the leak tracker, if the buffer is tracked by a BufferLeakDetector
+    BufferLeakDetector.Tracker leakTracker;
+
+    // the number of the retained references besides the original one
+    volatile int retained;
+
+    // incremented each time the buffer is disposed, so the retained views
+    // outliving the forced dispose don't release the buffer's next use
+    volatile int disposeGeneration;
+
     protected ByteBufferWrapper() {
         this(null);
     }
@@ -97,7 +111,7 @@ public class ByteBufferWrapper implements Buffer {
 
     @Override
     public final boolean tryDispose() {
-        if (allowBufferDispose) {
+        if (allowBufferDispose && releaseReference()) {
             dispose();
             return true;
         }
@@ -105,6 +119,19 @@ public class ByteBufferWrapper implements Buffer {
         return false;
     }
 
+    @Override
+    public ByteBufferWrapper retain() {
+        checkDispose();
+        RETAINED_UPDATER.incrementAndGet(this);
+        return this;
+    }
+
+    @Override
+    public int referenceCount() {
+        checkDispose();
+        return retained + 1;
+    }
+
     @Override
     public void dispose() {
         prepareDispose();
@@ -113,6 +140,12 @@ public class ByteBufferWrapper implements Buffer {
 
     protected final void prepareDispose() {
         checkDispose();
+        retained = 0;
+        disposeGeneration++;
+        if (leakTracker != null) {
+            leakTracker.close();
+            leakTracker = null;
+        }
         if (DEBUG_MODE) { // if debug is on - clear the buffer content
             // Use static logic class to help JIT optimize the code
             DebugLogic.doDebug(this);
@@ -220,6 +253,9 @@ public class ByteBufferWrapper implements Buffer {
     @Override
     public Buffer split(final int splitPosition) {
         checkDispose();
+        if (leakTracker != null) {
+            leakTracker.record("split");
+        }
         final int cap = capacity();
         
         if (splitPosition < 0 || splitPosition > cap) {
@@ -289,6 +325,34 @@ public class ByteBufferWrapper implements Buffer {
         return wrapByteBuffer(duplicate);
     }
 
+    @Override
+    public ByteBufferWrapper retainedSlice() {
+        return retainedSlice(position(), limit());
+    }
+
+    @Override
+    public ByteBufferWrapper retainedSlice(final int position, final int limit) {
+        checkDispose();
+        final int oldPosition = position();
+        final int oldLimit = limit();
+
+        try {
+            Buffers.setPositionLimit(visible, position, limit);
+
+            final ByteBuffer slice = visible.slice();
+            return createRetainedWrapper(slice);
+        } finally {
+            Buffers.setPositionLimit(visible, oldPosition, oldLimit);
+        }
+    }
+
+    @Override
+    public ByteBufferWrapper retainedDuplicate() {
+        checkDispose();
+        final ByteBuffer duplicate = visible.duplicate();
+        return createRetainedWrapper(duplicate);
+    }
+
     @Override
     public ByteBufferWrapper asReadOnlyBuffer() {
         checkDispose();
@@ -718,6 +782,9 @@ public class ByteBufferWrapper implements Buffer {
     @Override
     public final ByteBuffer toByteBuffer() {
         checkDispose();
+        if (leakTracker != null) {
+            leakTracker.record(null);
+        }
         return visible;
     }
 
@@ -734,6 +801,10 @@ public class ByteBufferWrapper implements Buffer {
             return toByteBuffer();
         }
 
+        if (leakTracker != null) {
+            leakTracker.record(null);
+        }
+
         Buffers.setPositionLimit(visible, position, limit);
 
         final ByteBuffer resultBuffer = visible.slice();
@@ -871,6 +942,64 @@ public class ByteBufferWrapper implements Buffer {
         return new ByteBufferWrapper(byteBuffer);
     }
 
+    /**
+     * Wraps the {@link ByteBuffer}, which shares this buffer's content, with
+     * a {@link ByteBufferWrapper}, which holds a reference to this buffer
+     * until it's disposed.
+     *
+     * @param byteBuffer the {@link ByteBuffer} to wrap
+     * @return the new {@link ByteBufferWrapper}
+     */
+    protected ByteBufferWrapper createRetainedWrapper(final ByteBuffer byteBuffer) {
+        retain();
+
+        final int generation = disposeGeneration;
+        final ByteBufferWrapper b = new ByteBufferWrapper(byteBuffer) {
+            @Override
+            public void dispose() {
+                super.dispose();
+                ByteBufferWrapper.this.releaseRetained(generation);
+            }
+        };
+
+        b.order(visible.order());
+        b.allowBufferDispose(true);
+
+        return b;
+    }
+
+    /**
+     * Releases one of the references to this buffer.
+     *
+     * @return <tt>true</tt>, if it was the last reference, so the buffer
+     *  could be disposed
+     */
+    final boolean releaseReference() {
+        for (;;) {
+            final int r = retained;
+            if (r == 0) {
+                return true;
+            }
+
+            if (RETAINED_UPDATER.compareAndSet(this, r, r - 1)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Releases the reference held by a retained view, and disposes this
+     * buffer, if it was the last one. The release is ignored, if this buffer
+     * has been disposed since the view was created.
+     *
+     * @param generation the <tt>disposeGeneration</tt> the view was created at
+     */
+    final void releaseRetained(final int generation) {
+        if (generation == disposeGeneration && releaseReference()) {
+            dispose();
+        }
+    }
+
     private static class DebugLogic {
         static void doDebug(ByteBufferWrapper wrapper) {
             wrapper.visible.clear();
@@ -23,6 +23,7 @@ import java.nio.ByteOrder;
 import java.nio.InvalidMarkException;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.glassfish.grizzly.Buffer;
 
@@ -43,6 +44,9 @@ import org.glassfish.grizzly.Buffer;
 public class HeapBuffer implements Buffer {
     public static volatile boolean DEBUG_MODE = false;
 
+    private static final AtomicIntegerFieldUpdater<HeapBuffer> RETAINED_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(HeapBuffer.class, "retained");
+
     // Dispose underlying Buffer flag
     protected boolean allowBufferDispose = false;
 
@@ -68,6 +72,16 @@ public class HeapBuffer implements Buffer {
 
     protected ByteBuffer byteBuffer;
 
+    // the leak tracker, if the buffer is tracked by a BufferLeakDetector
+    BufferLeakDetector.Tracker leakTracker;
+
+    // the number of the retained references besides the original one
+    volatile int retained;
+
+    // incremented each time the buffer is disposed, so the retained views
+    // outliving the forced dispose don't release the buffer's next use
+    volatile int disposeGeneration;
+
 
     // ------------------------------------------------------------ Constructors
 
@@ -117,7 +131,7 @@ public class HeapBuffer implements Buffer {
 
     @Override
     public final boolean tryDispose() {
-        if (allowBufferDispose) {
+        if (allowBufferDispose && releaseReference()) {
             dispose();
             return true;
         }
@@ -125,6 +139,19 @@ public class HeapBuffer implements Buffer {
         return false;
     }
 
+    @Override
+    public HeapBuffer retain() {
+        checkDispose();
+        RETAINED_UPDATER.incrementAndGet(this);
+        return this;
+    }
+
+    @Override
+    public int referenceCount() {
+        checkDispose();
+        return retained + 1;
+    }
+
     @Override
     public void dispose() {
         prepareDispose();
@@ -141,6 +168,12 @@ public class HeapBuffer implements Buffer {
 
     protected final void prepareDispose() {
         checkDispose();
+        retained = 0;
+        disposeGeneration++;
+        if (leakTracker != null) {
+            leakTracker.close();
+            leakTracker = null;
+        }
         if (DEBUG_MODE) { // if debug is on - clear the buffer content
             // Use static logic class to help JIT optimize the code
             DebugLogic.doDebug(this);
@@ -251,6 +284,9 @@ public class HeapBuffer implements Buffer {
     @Override
     public Buffer split(final int splitPosition) {
         checkDispose();
+        if (leakTracker != null) {
+            leakTracker.record("split");
+        }
         
         if (splitPosition < 0 || splitPosition > cap) {
             throw new IllegalArgumentException("Invalid splitPosition value, should be 0 <= splitPosition <= capacity");
@@ -308,6 +344,28 @@ public class HeapBuffer implements Buffer {
         return duplicate;
     }
 
+    @Override
+    public HeapBuffer retainedSlice() {
+        return retainedSlice(pos, lim);
+    }
+
+    @Override
+    public HeapBuffer retainedSlice(final int position, final int limit) {
+        checkDispose();
+        return createRetainedHeapBuffer(position, limit - position);
+    }
+
+    @Override
+    public HeapBuffer retainedDuplicate() {
+        checkDispose();
+
+        final HeapBuffer duplicate =
+                createRetainedHeapBuffer(0, cap);
+        duplicate.position(pos);
+        duplicate.limit(lim);
+        return duplicate;
+    }
+
     @Override
     public HeapBuffer asReadOnlyBuffer() {
         checkDispose();
@@ -1008,9 +1066,81 @@ public class HeapBuffer implements Buffer {
                 capacity);
     }
 
+    /**
+     * Create a new {@link HeapBuffer} based on the current heap, which
+     * holds a reference to this buffer until it's disposed.
+     *
+     * @param offs relative offset, the absolute value will calculated as (this.offset + offs)
+     * @param capacity the capacity of the new {@link HeapBuffer}
+     * @return a new {@link HeapBuffer} based on the the method arguments
+     */
+    protected HeapBuffer createRetainedHeapBuffer(final int offs,
+                                                  final int capacity) {
+        onShareHeap();
+        retain();
+
+        final int generation = disposeGeneration;
+        final HeapBuffer b = isReadOnly()
+                ? new ReadOnlyHeapBuffer(heap, offs + offset, capacity) {
+                    @Override
+                    public void dispose() {
+                        super.dispose();
+                        HeapBuffer.this.releaseRetained(generation);
+                    }
+                }
+                : new HeapBuffer(heap, offs + offset, capacity) {
+                    @Override
+                    public void dispose() {
+                        super.dispose();
+                        HeapBuffer.this.releaseRetained(generation);
+                    }
+                };
+
+        b.order(order);
+        b.allowBufferDispose(true);
+
+        return b;
+    }
+
+    /**
+     * Releases one of the references to this buffer.
+     *
+     * @return <tt>true</tt>, if it was the last reference, so the buffer
+     *  could be disposed
+     */
+    final boolean releaseReference() {
+        for (;;) {
+            final int r = retained;
+            if (r == 0) {
+                return true;
+            }
+
+            if (RETAINED_UPDATER.compareAndSet(this, r, r - 1)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Releases the reference held by a retained view, and disposes this
+     * buffer, if it was the last one. The release is ignored, if this buffer
+     * has been disposed since the view was created.
+     *
+     * @param generation the <tt>disposeGeneration</tt> the view was created at
+     */
+    final void releaseRetained(final int generation) {
+        if (generation == disposeGeneration && releaseReference()) {
+            dispose();
+        }
+    }
+
     protected ByteBuffer toByteBuffer0(final int pos,
                                        final int lim,
                                        final boolean slice) {
+        if (leakTracker != null) {
+            leakTracker.record(null);
+        }
+
         if (byteBuffer == null) {
             byteBuffer = ByteBuffer.wrap(heap);
         }
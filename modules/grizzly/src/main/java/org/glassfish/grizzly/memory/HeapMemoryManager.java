@@ -59,7 +59,7 @@ public class HeapMemoryManager extends AbstractMemoryManager<HeapBuffer> impleme
      */
     @Override
     public HeapBuffer allocate(final int size) {
-        return allocateHeapBuffer(size);
+        return leakDetector.track(allocateHeapBuffer(size));
     }
     
     /**
@@ -67,7 +67,7 @@ public class HeapMemoryManager extends AbstractMemoryManager<HeapBuffer> impleme
      */
     @Override
     public HeapBuffer allocateAtLeast(final int size) {
-        return allocateHeapBufferAtLeast(size);
+        return leakDetector.track(allocateHeapBufferAtLeast(size));
     }
 
     /**
@@ -75,7 +75,8 @@ public class HeapMemoryManager extends AbstractMemoryManager<HeapBuffer> impleme
      */
     @Override
     public HeapBuffer reallocate(final HeapBuffer oldBuffer, final int newSize) {
-        return reallocateHeapBuffer(oldBuffer, newSize);
+        return leakDetector.retrack(oldBuffer,
+                reallocateHeapBuffer(oldBuffer, newSize));
     }
     
     /**
@@ -43,6 +43,54 @@ public interface MemoryProbe {
      */
     void onBufferReleaseToPoolEvent(int size);
 
+    /**
+     * Called by {@link MemoryManager}, when buffer gets allocated from the
+     * current thread's magazine (cache) without accessing the shared pool.
+     * The default implementations of the magazine events do nothing, so the
+     * existing probes don't have to implement them.
+     *
+     * @param size buffer size
+     *
+     * @since 2.4.4
+     */
+    default void onBufferAllocateFromMagazineEvent(int size) {
+    }
+
+    /**
+     * Called by {@link MemoryManager}, when buffer gets released into the
+     * current thread's magazine (cache)
+     *
+     * @param size buffer size
+     *
+     * @since 2.4.4
+     */
+    default void onBufferReleaseToMagazineEvent(int size) {
+    }
+
+    /**
+     * Called by {@link MemoryManager}, when the current thread's empty
+     * magazine gets refilled with a batch of buffers from the shared pool
+     *
+     * @param size buffer size
+     * @param count the number of the buffers moved to the magazine
+     *
+     * @since 2.4.4
+     */
+    default void onMagazineRefillEvent(int size, int count) {
+    }
+
+    /**
+     * Called by {@link MemoryManager}, when a batch of buffers gets moved
+     * from the current thread's full magazine back into the shared pool
+     *
+     * @param size buffer size
+     * @param count the number of the buffers moved from the magazine
+     *
+     * @since 2.4.4
+     */
+    default void onMagazineDrainEvent(int size, int count) {
+    }
+
 
     // ---------------------------------------------------------- Nested Classes
 
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.memory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The elastic sizing policy of the {@link PooledMemoryManager} pools.
+ *
+ * By default the {@link PooledMemoryManager} pools retain up to the fixed
+ * <tt>percentOfHeap</tt> of memory, reserved during the initialization.
+ * If the sizing policy is set, the <tt>percentOfHeap</tt> is the low-water
+ * mark of the pools instead: a pool, which runs out of buffers, grows as long
+ * as the memory retained by all the pools of the {@link PooledMemoryManager}
+ * stays within the global budget ({@link #getMaxPercentOfHeap()}), and the
+ * pool slices, which haven't been used for a {@link #getTrimInterval(TimeUnit)},
+ * are trimmed back to the low-water mark. All the pools are trimmed right
+ * away, once the heap (or the direct memory for the direct buffer pools)
+ * usage exceeds the {@link #getMemoryPressureThreshold()}.
+ *
+ * The policy is read by the {@link PooledMemoryManager} constructor, so the
+ * later changes don't affect the existing memory managers.
+ *
+ * @since 2.4.4
+ */
+public class PoolSizingPolicy {
+
+    public static final float DEFAULT_MAX_HEAP_USAGE_PERCENTAGE = 0.1f;
+    public static final long DEFAULT_TRIM_INTERVAL_MILLIS = 30 * 1000;
+    public static final float DEFAULT_MEMORY_PRESSURE_THRESHOLD = 0.9f;
+
+    private float maxPercentOfHeap = DEFAULT_MAX_HEAP_USAGE_PERCENTAGE;
+    private long trimIntervalMillis = DEFAULT_TRIM_INTERVAL_MILLIS;
+    private float memoryPressureThreshold = DEFAULT_MEMORY_PRESSURE_THRESHOLD;
+
+    /**
+     * @return the max percentage of the heap, all the pools of the
+     *  {@link PooledMemoryManager} may retain together
+     */
+    public float getMaxPercentOfHeap() {
+        return maxPercentOfHeap;
+    }
+
+    /**
+     * Sets the max percentage of the heap, all the pools of the
+     * {@link PooledMemoryManager} may retain together. The value must be
+     * greater than the <tt>percentOfHeap</tt> the memory manager is created
+     * with and less than 1.
+     *
+     * @param maxPercentOfHeap the max percentage of the heap
+     * @return this <tt>PoolSizingPolicy</tt>
+     */
+    public PoolSizingPolicy setMaxPercentOfHeap(final float maxPercentOfHeap) {
+        this.maxPercentOfHeap = maxPercentOfHeap;
+        return this;
+    }
+
+    /**
+     * @param timeUnit the {@link TimeUnit} of the result
+     * @return the interval between the checks, which trim the idle pool
+     *  slices, <tt>0</tt> or negative value means the idle pool slices
+     *  are not trimmed
+     */
+    public long getTrimInterval(final TimeUnit timeUnit) {
+        return trimIntervalMillis > 0
+                ? timeUnit.convert(trimIntervalMillis, TimeUnit.MILLISECONDS)
+                : trimIntervalMillis;
+    }
+
+    /**
+     * Sets the interval between the checks, which trim the pool slices, that
+     * haven't been used since the previous check, back to the low-water
+     * mark. The memory pressure is checked with the same interval.
+     *
+     * @param trimInterval the interval, <tt>0</tt> or negative value disables
+     *  the periodic checks
+     * @param timeUnit the {@link TimeUnit} of the <tt>trimInterval</tt>
+     * @return this <tt>PoolSizingPolicy</tt>
+     */
+    public PoolSizingPolicy setTrimInterval(final long trimInterval,
+            final TimeUnit timeUnit) {
+        this.trimIntervalMillis = trimInterval > 0
+                ? TimeUnit.MILLISECONDS.convert(trimInterval, timeUnit)
+                : trimInterval;
+        return this;
+    }
+
+    /**
+     * @return the heap (or the direct memory) usage percentage, that makes
+     *  the {@link PooledMemoryManager} trim all the pools, <tt>0</tt> means
+     *  the memory pressure is ignored
+     */
+    public float getMemoryPressureThreshold() {
+        return memoryPressureThreshold;
+    }
+
+    /**
+     * Sets the heap (or the direct memory) usage percentage, that makes the
+     * {@link PooledMemoryManager} trim all the pools back to the low-water
+     * mark. The heap usage is the one measured by the JVM after the last
+     * garbage collection.
+     * Please note, to get notified right after the garbage collection, the
+     * JVM-wide collection usage threshold of the heap memory pools (see
+     * {@link java.lang.management.MemoryPoolMXBean#setCollectionUsageThreshold(long)})
+     * is set to the lowest threshold of all the {@link PooledMemoryManager}s,
+     * unless the threshold has been already set by the application.
+     *
+     * @param memoryPressureThreshold the usage percentage, <tt>0</tt> means
+     *  the memory pressure is ignored
+     * @return this <tt>PoolSizingPolicy</tt>
+     */
+    public PoolSizingPolicy setMemoryPressureThreshold(
+            final float memoryPressureThreshold) {
+        this.memoryPressureThreshold = memoryPressureThreshold;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return PoolSizingPolicy.class.getSimpleName() + " :\r\n"
+                + "  maxPercentOfHeap: " + maxPercentOfHeap + "\r\n"
+                + "  trimIntervalMillis: " + trimIntervalMillis + "\r\n"
+                + "  memoryPressureThreshold: " + memoryPressureThreshold + "\r\n";
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.memory;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import org.glassfish.grizzly.Grizzly;
+
+/**
+ * Trims the elastic {@link PooledMemoryManager} pools according to their
+ * {@link PoolSizingPolicy}: periodically, and when the JVM reports the heap
+ * usage after the garbage collection exceeds the threshold.
+ *
+ * All the memory managers share one daemon thread. The memory managers are
+ * weakly referenced, so the ones, which are not used anymore, could be
+ * garbage collected without being explicitly unregistered.
+ *
+ * Please note, to be notified the trimmer sets the JVM-wide collection usage
+ * threshold of the heap {@link MemoryPoolMXBean}s to the lowest memory
+ * pressure threshold of the registered memory managers. The threshold, which
+ * has been set by someone else, is left intact.
+ */
+final class PoolTrimmer {
+    private static final Logger LOGGER = Grizzly.logger(PoolTrimmer.class);
+
+    private static final List<Task> TASKS = new CopyOnWriteArrayList<>();
+
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * The lowest positive memory pressure threshold registered so far, or
+     * <tt>0</tt>.
+     */
+    private static float collectionUsageThreshold;
+
+    /**
+     * The collection usage thresholds set by the trimmer, mapped by the
+     * {@link MemoryPoolMXBean} name.
+     */
+    private static final Map<String, Long> COLLECTION_USAGE_THRESHOLDS =
+            new HashMap<>();
+
+    private PoolTrimmer() {
+    }
+
+    /**
+     * Starts trimming the {@link PooledMemoryManager} pools according to
+     * the {@link PoolSizingPolicy}.
+     */
+    static void register(final PooledMemoryManager memoryManager,
+            final PoolSizingPolicy policy, final boolean isDirect) {
+        final long trimIntervalMillis =
+                policy.getTrimInterval(TimeUnit.MILLISECONDS);
+        final float threshold = policy.getMemoryPressureThreshold();
+        if (trimIntervalMillis <= 0 && threshold <= 0) {
+            return;
+        }
+
+        final Task task = new Task(memoryManager, threshold, isDirect);
+        final ScheduledExecutorService s = scheduler();
+        if (threshold > 0) {
+            updateCollectionUsageThreshold(threshold);
+        }
+
+        TASKS.add(task);
+        if (trimIntervalMillis > 0) {
+            task.future = s.scheduleWithFixedDelay(task, trimIntervalMillis,
+                    trimIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // --------------------------------------------------------- Private Methods
+
+    private static synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(final Runnable r) {
+                            final Thread thread = new Thread(r);
+                            thread.setName("Grizzly-PooledMemoryManager-Trimmer");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+
+            listenMemoryNotifications();
+        }
+
+        return scheduler;
+    }
+
+    /**
+     * Makes the JVM notify about the heap usage after the garbage collection
+     * exceeding the lowest registered threshold, unless the threshold has
+     * been set by someone else.
+     */
+    private static synchronized void updateCollectionUsageThreshold(
+            final float threshold) {
+        if (collectionUsageThreshold > 0
+                && collectionUsageThreshold <= threshold) {
+            return;
+        }
+
+        collectionUsageThreshold = threshold;
+        try {
+            for (MemoryPoolMXBean pool
+                    : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() != MemoryType.HEAP
+                        || !pool.isCollectionUsageThresholdSupported()
+                        || pool.getUsage().getMax() <= 0) {
+                    continue;
+                }
+
+                final Long ownThreshold =
+                        COLLECTION_USAGE_THRESHOLDS.get(pool.getName());
+                final long currentThreshold = pool.getCollectionUsageThreshold();
+                if (currentThreshold == 0 || (ownThreshold != null
+                        && ownThreshold == currentThreshold)) {
+                    final long newThreshold =
+                            (long) (pool.getUsage().getMax() * threshold);
+                    pool.setCollectionUsageThreshold(newThreshold);
+                    COLLECTION_USAGE_THRESHOLDS.put(pool.getName(), newThreshold);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE,
+                    "Can not set the collection usage threshold", e);
+        }
+    }
+
+    /**
+     * Checks all the memory managers, once the JVM notifies about the
+     * memory usage exceeding the threshold.
+     */
+    private static void listenMemoryNotifications() {
+        try {
+            ((NotificationEmitter) ManagementFactory.getMemoryMXBean())
+                    .addNotificationListener(new NotificationListener() {
+                        @Override
+                        public void handleNotification(
+                                final Notification notification,
+                                final Object handback) {
+                            final String type = notification.getType();
+                            if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)
+                                    || MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type)) {
+                                scheduler.execute(new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        for (Task task : TASKS) {
+                                            task.check(true);
+                                        }
+                                    }
+                                });
+                            }
+                        }
+                    }, null, null);
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE,
+                    "Can not listen to the memory usage notifications", e);
+        }
+    }
+
+    private static boolean isUnderPressure(final float threshold,
+            final boolean isDirect) {
+        try {
+            if (isDirect) {
+                // the default max direct memory size is the max heap size
+                final long maxDirectMemory = Runtime.getRuntime().maxMemory();
+                for (BufferPoolMXBean pool : ManagementFactory
+                        .getPlatformMXBeans(BufferPoolMXBean.class)) {
+                    if ("direct".equals(pool.getName())
+                            && pool.getMemoryUsed() >= maxDirectMemory * threshold) {
+                        return true;
+                    }
+                }
+            }
+
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP
+                        && pool.isCollectionUsageThresholdSupported()) {
+                    final MemoryUsage usage = pool.getCollectionUsage();
+                    if (usage != null && usage.getMax() > 0
+                            && usage.getUsed() >= usage.getMax() * threshold) {
+                        return true;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Can not check the memory usage", e);
+        }
+
+        return false;
+    }
+
+    // ---------------------------------------------------------- Nested Classes
+
+    private static final class Task implements Runnable {
+        private final WeakReference<PooledMemoryManager> memoryManagerRef;
+        private final float threshold;
+        private final boolean isDirect;
+
+        private volatile ScheduledFuture<?> future;
+
+        private Task(final PooledMemoryManager memoryManager,
+                final float threshold, final boolean isDirect) {
+            memoryManagerRef = new WeakReference<>(memoryManager);
+            this.threshold = threshold;
+            this.isDirect = isDirect;
+        }
+
+        @Override
+        public void run() {
+            check(false);
+        }
+
+        /**
+         * Trims all the pools, if the memory usage exceeds the threshold, or
+         * the idle pool slices on the periodic check.
+         */
+        private void check(final boolean isNotification) {
+            final PooledMemoryManager memoryManager = memoryManagerRef.get();
+            if (memoryManager == null) {
+                TASKS.remove(this);
+                final ScheduledFuture<?> f = future;
+                if (f != null) {
+                    f.cancel(false);
+                }
+                return;
+            }
+
+            try {
+                if (threshold > 0 && isUnderPressure(threshold, isDirect)) {
+                    memoryManager.trim(true);
+                } else if (!isNotification) {
+                    memoryManager.trim(false);
+                }
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Can not trim the memory pools", e);
+            }
+        }
+    }
+}
@@ -24,12 +24,14 @@ import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.LockSupport;
 
 import org.glassfish.grizzly.monitoring.DefaultMonitoringConfig;
 import org.glassfish.grizzly.monitoring.MonitoringConfig;
 import org.glassfish.grizzly.monitoring.MonitoringUtils;
+import org.glassfish.grizzly.threadpool.VirtualThreads;
 
 /**
  * A {@link MemoryManager} implementation based on a series of shared memory pools.
@@ -44,6 +46,7 @@ import org.glassfish.grizzly.monitoring.MonitoringUtils;
  *     <li>The percentage of the heap that this manager will use when populating the pools</li>
  *     <li>The percentage of buffers to be pre-allocated during MemoryManager initialization</li>
  *     <li>The flag indicating whether direct or heap based {@link Buffer}s will be allocated</li>
+ *     <li>The max number of buffers every thread caches per pool (the thread-local magazine size)</li>
  * </ul>
  *
  * If no explicit configuration is provided, the following defaults will be used:
@@ -55,8 +58,26 @@ import org.glassfish.grizzly.monitoring.MonitoringUtils;
  *     <li>Percentage of heap: 3% ({@link #DEFAULT_HEAP_USAGE_PERCENTAGE})</li>
  *     <li>Percentage of buffers to be pre-allocated: 100% ({@link #DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE})</li>
  *     <li>Heap based {@link Buffer}s will be allocated</li>
+ *     <li>Magazine size: 0, i.e. no thread-local magazines, unless the
+ *     <tt>org.glassfish.grizzly.memory.PooledMemoryManager.magazine-size</tt>
+ *     system property is set</li>
  * </ul>
  *
+ * If the magazines are enabled, every thread allocates the buffers from and
+ * releases them to its own small stack (magazine) of buffers per pool, which
+ * doesn't need any synchronization. The buffers are moved between the
+ * magazine and the shared pool slices in batches of half the magazine size,
+ * when the magazine gets empty or full.
+ *
+ * If the {@link PoolSizingPolicy} is set, the pools are elastic: the memory
+ * reserved during the initialization is the low-water mark of the pools,
+ * which grow as needed within the global budget and are trimmed back, when
+ * they are idle or the memory is low, see {@link PoolSizingPolicy}.
+ *
+ * The pooled buffers, which are never disposed, and so never returned to
+ * the pools, could be found using the {@link BufferLeakDetector}, see
+ * {@link #getLeakDetector()}.
+ *
  * The main advantage of this manager over {@link org.glassfish.grizzly.memory.HeapMemoryManager} or
  * {@link org.glassfish.grizzly.memory.ByteBufferManager} is that this implementation doesn't use ThreadLocal pools
  * and as such, doesn't suffer from the memory fragmentation/reallocation cycle that can impact the ThreadLocal versions.
@@ -77,6 +98,9 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
 
     private static final long BACK_OFF_DELAY = Long.getLong(
             PooledMemoryManager.class + ".back-off-delay", 0L);
+
+    private static final int MAGAZINE_SIZE = Integer.getInteger(
+            PooledMemoryManager.class.getName() + ".magazine-size", 0);
     /**
      * Basic monitoring support.  Concrete implementations of this class need
      * only to implement the {@link #createJmxManagementObject()}  method
@@ -98,6 +122,19 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
     // the max buffer size pooled by this memory manager
     private final int maxPooledBufferSize;
 
+    // the memory the elastic pools may retain, or null, if the pools are fixed
+    private final Budget budget;
+
+    // true, if the pools hold direct buffers
+    private final boolean isDirect;
+
+    // the number of bytes released by the trimmed pools
+    private final AtomicLong trimmedBytes = new AtomicLong();
+
+    // detects the pooled buffers, which haven't been returned to the pools
+    private final BufferLeakDetector leakDetector =
+            new BufferLeakDetector(getClass().getName());
+
 
     // ------------------------------------------------------------ Constructors
 
@@ -158,6 +195,80 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             final float percentOfHeap,
             final float percentPreallocated,
             final boolean isDirect) {
+        this(baseBufferSize,
+                numberOfPools,
+                growthFactor,
+                numberOfPoolSlices,
+                percentOfHeap,
+                percentPreallocated,
+                isDirect,
+                MAGAZINE_SIZE);
+    }
+
+    /**
+     * Creates a new <code>PooledMemoryManager</code> using the specified parameters for configuration.
+     *
+     * @param baseBufferSize the base size of the buffer for the 1st pool, every next pool n will have buffer size equal to bufferSize(n-1) * 2^growthFactor
+     * @param numberOfPools the number of pools, responsible for allocation of buffers of a pool-specific size
+     * @param growthFactor the buffer size growth factor, that defines 2^x multiplier, used to calculate buffer size for next allocated pool
+     * @param numberOfPoolSlices the number of pool slices that every pool will stripe allocation requests across
+     * @param percentOfHeap percentage of the heap that will be used when populating the pools
+     * @param percentPreallocated percentage of buffers to be pre-allocated during MemoryManager initialization
+     * @param isDirect flag, indicating whether direct or heap based {@link Buffer}s will be allocated
+     * @param magazineSize the max number of buffers every thread caches per pool,
+     *                     <tt>0</tt> disables the thread-local magazines
+     *
+     * @since 2.4.4
+     */
+    public PooledMemoryManager(
+            final int baseBufferSize,
+            final int numberOfPools,
+            final int growthFactor,
+            final int numberOfPoolSlices,
+            final float percentOfHeap,
+            final float percentPreallocated,
+            final boolean isDirect,
+            final int magazineSize) {
+        this(baseBufferSize,
+                numberOfPools,
+                growthFactor,
+                numberOfPoolSlices,
+                percentOfHeap,
+                percentPreallocated,
+                isDirect,
+                magazineSize,
+                null);
+    }
+
+    /**
+     * Creates a new <code>PooledMemoryManager</code> using the specified parameters for configuration.
+     *
+     * @param baseBufferSize the base size of the buffer for the 1st pool, every next pool n will have buffer size equal to bufferSize(n-1) * 2^growthFactor
+     * @param numberOfPools the number of pools, responsible for allocation of buffers of a pool-specific size
+     * @param growthFactor the buffer size growth factor, that defines 2^x multiplier, used to calculate buffer size for next allocated pool
+     * @param numberOfPoolSlices the number of pool slices that every pool will stripe allocation requests across
+     * @param percentOfHeap percentage of the heap that will be used when populating the pools,
+     *                      the low-water mark of the elastic pools
+     * @param percentPreallocated percentage of buffers to be pre-allocated during MemoryManager initialization
+     * @param isDirect flag, indicating whether direct or heap based {@link Buffer}s will be allocated
+     * @param magazineSize the max number of buffers every thread caches per pool,
+     *                     <tt>0</tt> disables the thread-local magazines
+     * @param sizingPolicy the {@link PoolSizingPolicy} of the elastic pools,
+     *                     or <tt>null</tt>, if the pools retain up to
+     *                     <tt>percentOfHeap</tt> of the memory
+     *
+     * @since 2.4.4
+     */
+    public PooledMemoryManager(
+            final int baseBufferSize,
+            final int numberOfPools,
+            final int growthFactor,
+            final int numberOfPoolSlices,
+            final float percentOfHeap,
+            final float percentPreallocated,
+            final boolean isDirect,
+            final int magazineSize,
+            final PoolSizingPolicy sizingPolicy) {
         if (baseBufferSize <= 0) {
             throw new IllegalArgumentException("baseBufferSize must be greater than zero");
         }
@@ -186,16 +297,45 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             throw new IllegalArgumentException("percentPreallocated must be greater or equal to zero and less or equal to 1");
         }
 
+        if (magazineSize < 0) {
+            throw new IllegalArgumentException("magazineSize must be greater or equal to zero");
+        }
+
+        if (sizingPolicy != null) {
+            if (sizingPolicy.getMaxPercentOfHeap() <= percentOfHeap
+                    || sizingPolicy.getMaxPercentOfHeap() >= 1.0f) {
+                throw new IllegalArgumentException("maxPercentOfHeap must be greater than percentOfHeap and less than 1");
+            }
+            if (sizingPolicy.getMemoryPressureThreshold() < 0.0f
+                    || sizingPolicy.getMemoryPressureThreshold() >= 1.0f) {
+                throw new IllegalArgumentException("memoryPressureThreshold must be greater or equal to zero and less than 1");
+            }
+        }
+
         final long heapSize = Runtime.getRuntime().maxMemory();
         final long memoryPerSubPool = (long) (heapSize * percentOfHeap / numberOfPools);
 
+        // every elastic pool may grow up to the whole budget
+        budget = sizingPolicy != null
+                ? new Budget((long) (heapSize * sizingPolicy.getMaxPercentOfHeap()))
+                : null;
+        final long maxMemoryPerSubPool = budget != null
+                ? budget.max
+                : memoryPerSubPool;
+
+        this.isDirect = isDirect;
         pools = new Pool[numberOfPools];
         for (int i = 0, bufferSize = baseBufferSize; i < numberOfPools; i++, bufferSize <<= growthFactor) {
             pools[i] = new Pool(bufferSize, memoryPerSubPool,
-                    numberOfPoolSlices, percentPreallocated, isDirect,
-                    monitoringConfig);
+                    maxMemoryPerSubPool, numberOfPoolSlices,
+                    percentPreallocated, isDirect, magazineSize, budget,
+                    leakDetector, monitoringConfig);
         }
         maxPooledBufferSize = pools[numberOfPools - 1].bufferSize;
+
+        if (sizingPolicy != null) {
+            PoolTrimmer.register(this, sizingPolicy, isDirect);
+        }
     }
 
     
@@ -369,6 +509,102 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
     }
 
 
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @return <tt>true</tt>, if the pooled buffers are direct
+     *
+     * @since 2.4.4
+     */
+    public boolean isDirect() {
+        return isDirect;
+    }
+
+    /**
+     * @return <tt>true</tt>, if the pools are elastic, see {@link PoolSizingPolicy}
+     *
+     * @since 2.4.4
+     */
+    public boolean isElastic() {
+        return budget != null;
+    }
+
+    /**
+     * @return the number of bytes currently retained by the pools
+     *
+     * @since 2.4.4
+     */
+    public long getPooledBytes() {
+        long size = 0;
+        for (Pool pool : pools) {
+            size += pool.size();
+        }
+
+        return size;
+    }
+
+    /**
+     * @return the number of bytes the pools may retain at the moment, the
+     *  elastic pools reserve more memory, when they grow, and release it,
+     *  when they are trimmed
+     *
+     * @since 2.4.4
+     */
+    public long getReservedBytes() {
+        if (budget != null) {
+            return budget.reserved.get();
+        }
+
+        long size = 0;
+        for (Pool pool : pools) {
+            size += pool.maxSize();
+        }
+
+        return size;
+    }
+
+    /**
+     * @return the max number of bytes the pools may retain
+     *
+     * @since 2.4.4
+     */
+    public long getMaxPooledBytes() {
+        return budget != null ? budget.max : getReservedBytes();
+    }
+
+    /**
+     * @return the number of bytes released by the trimmed elastic pools
+     *
+     * @since 2.4.4
+     */
+    public long getTrimmedBytes() {
+        return trimmedBytes.get();
+    }
+
+    /**
+     * Trims the elastic pools back to their low-water mark, the pooled
+     * buffers over the mark are left to the garbage collector. Does nothing,
+     * if the pools are not elastic.
+     *
+     * @since 2.4.4
+     */
+    public void trim() {
+        trim(true);
+    }
+
+    /**
+     * @return the {@link BufferLeakDetector}, which could be used to
+     *  configure and check the detection of the pooled {@link Buffer}s, which
+     *  haven't been returned to the pools
+     *
+     * @since 2.4.4
+     */
+    public BufferLeakDetector getLeakDetector() {
+        return leakDetector;
+    }
+
+
     // ------------------------------------------------------- Protected Methods
 
 
@@ -384,6 +620,26 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         return Arrays.copyOf(pools, pools.length);
     }
     
+    /**
+     * Trims the elastic pools back to their low-water mark.
+     *
+     * @param force <tt>true</tt> to trim all the pool slices, or
+     *  <tt>false</tt> to trim only the ones, which haven't been used since
+     *  the previous trim
+     */
+    synchronized void trim(final boolean force) {
+        if (budget == null) {
+            return;
+        }
+
+        for (Pool pool : pools) {
+            final int trimmed = pool.trim(force);
+            if (trimmed > 0) {
+                trimmedBytes.addAndGet((long) trimmed * pool.bufferSize);
+            }
+        }
+    }
+
     // --------------------------------------------------------- Private Methods
 
 
@@ -463,18 +719,35 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
     static final class Pool {
         private final PoolSlice[] slices;
         private final int bufferSize;
+        // the thread-local magazines, or null, if they are disabled
+        private final ThreadLocal<Magazine> magazines;
+        private final BufferLeakDetector leakDetector;
 
         public Pool(final int bufferSize, final long memoryPerSubPool,
-                final int numberOfPoolSlices, final float percentPreallocated,
-                final boolean isDirect,
+                final long maxMemoryPerSubPool, final int numberOfPoolSlices,
+                final float percentPreallocated, final boolean isDirect,
+                final int magazineSize, final Budget budget,
+                final BufferLeakDetector leakDetector,
                 final DefaultMonitoringConfig<MemoryProbe> monitoringConfig) {
             this.bufferSize = bufferSize;
+            this.leakDetector = leakDetector;
+            magazines = magazineSize > 0
+                    ? new ThreadLocal<Magazine>() {
+                        @Override
+                        protected Magazine initialValue() {
+                            return new Magazine(Pool.this, magazineSize,
+                                    monitoringConfig);
+                        }
+                    }
+                    : null;
             slices = new PoolSlice[numberOfPoolSlices];
             final long memoryPerSlice = memoryPerSubPool / numberOfPoolSlices;
+            final long maxMemoryPerSlice = maxMemoryPerSubPool / numberOfPoolSlices;
             
             for (int i = 0; i < numberOfPoolSlices; i++) {
-                slices[i] = new PoolSlice(this, memoryPerSlice, bufferSize,
-                        percentPreallocated, isDirect, monitoringConfig);
+                slices[i] = new PoolSlice(this, memoryPerSlice,
+                        maxMemoryPerSlice, bufferSize, percentPreallocated,
+                        isDirect, budget, monitoringConfig);
             }
         }
 
@@ -490,6 +763,18 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         public long size() {
             return (long) elementsCount() * (long) bufferSize;
         }
+
+        /**
+         * @return the max number of bytes the pool may retain
+         */
+        public long maxSize() {
+            long size = 0;
+            for (int i = 0; i < slices.length; i++) {
+                size += (long) slices[i].getMaxElementsCount() * bufferSize;
+            }
+
+            return size;
+        }
         
         public int getBufferSize() {
             return bufferSize;
@@ -500,13 +785,60 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         }
         
         public Buffer allocate() {
+            if (useMagazine()) {
+                PoolBuffer b = magazines.get().poll();
+                if (b == null) {
+                    final PoolSlice slice = getSlice();
+                    slice.grow();
+                    b = slice.allocate();
+                }
+
+                return leakDetector.track(b.prepare());
+            }
+
             final PoolSlice slice = getSlice();
             PoolBuffer b = slice.poll();
             if (b == null) {
+                slice.grow();
                 b = slice.allocate();
             }
             
-            return b.prepare();
+            return leakDetector.track(b.prepare());
+        }
+
+        /**
+         * Trims the elastic pool slices back to their low-water mark.
+         *
+         * @return the number of the buffers removed from the pool
+         */
+        int trim(final boolean force) {
+            int trimmed = 0;
+            for (int i = 0; i < slices.length; i++) {
+                trimmed += slices[i].trim(force);
+            }
+
+            return trimmed;
+        }
+
+        /**
+         * Virtual threads are short-lived, so the buffers left in their
+         * magazines would be lost for the pool, they use the slices directly.
+         */
+        private boolean useMagazine() {
+            return magazines != null
+                    && !VirtualThreads.isVirtual(Thread.currentThread());
+        }
+
+        /**
+         * Returns the released buffer to the current thread's magazine, or
+         * to the slice, which allocated it.
+         */
+        void release(final PoolBuffer b) {
+            if (useMagazine()) {
+                magazines.get().offer(b);
+            } else {
+                b.owner().offer(b);
+            }
         }
 
         @Override
@@ -577,6 +909,19 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         // The max size of the pool.
         private final int maxPoolSize;
 
+        // The low-water mark of the elastic pool, or the max size of the
+        // fixed one.
+        private final int minPoolSize;
+
+        // The current max number of the pooled buffers of the elastic pool.
+        private final AtomicInteger limit;
+
+        // The memory the elastic pools may retain, or null, if the pool is fixed
+        private final Budget budget;
+
+        // The poll index seen by the previous trim
+        private int lastTrimPollIdx;
+
         // Strides in pool
         private final int stridesInPool;
         
@@ -595,14 +940,17 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
 
         PoolSlice(final Pool owner,
                    final long totalPoolSize,
+                   final long maxTotalPoolSize,
                    final int bufferSize,
                    final float percentPreallocated,
                    final boolean isDirect,
+                   final Budget budget,
                    final DefaultMonitoringConfig<MemoryProbe> monitoringConfig) {
 
             this.owner = owner;
             this.bufferSize = bufferSize;
             this.isDirect = isDirect;
+            this.budget = budget;
             this.monitoringConfig = monitoringConfig;
             int initialSize = (int) (totalPoolSize / ((long) bufferSize));
 
@@ -610,7 +958,9 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             // done as elements will be accessed at (offset + index + STRIDE).
             // Offset is calculated each time we overflow the array.
             // This access scheme should help us avoid false sharing.
-            maxPoolSize = ((initialSize + (STRIDE - 1)) & ~(STRIDE - 1));
+            minPoolSize = ((initialSize + (STRIDE - 1)) & ~(STRIDE - 1));
+            maxPoolSize = Math.max(minPoolSize, (int) Math.min(WRAP_BIT_MASK,
+                    ((maxTotalPoolSize / bufferSize) + (STRIDE - 1)) & ~(STRIDE - 1)));
             stridesInPool = maxPoolSize >> LOG2_STRIDE; // maxPoolSize / STRIDE
             
             // poolSize must be less than or equal to 2^30 - 1.
@@ -619,10 +969,15 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
                         "Cannot manage a pool larger than 2^30-1");
             }
 
+            limit = new AtomicInteger(minPoolSize);
+            if (budget != null) {
+                budget.reserved.addAndGet((long) minPoolSize * bufferSize);
+            }
+
             pool1 = new PaddedAtomicReferenceArray<>(maxPoolSize);
             
-            final int preallocatedBufs = Math.min(maxPoolSize,
-                    (int) (percentPreallocated * maxPoolSize));
+            final int preallocatedBufs = Math.min(minPoolSize,
+                    (int) (percentPreallocated * minPoolSize));
             
             int idx = 0;
             
@@ -640,6 +995,16 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
 
 
         public final PoolBuffer poll() {
+            final PoolBuffer pb = poll0();
+            if (pb != null) {
+                ProbeNotifier.notifyBufferAllocatedFromPool(monitoringConfig,
+                                                            bufferSize);
+            }
+
+            return pb;
+        }
+
+        private PoolBuffer poll0() {
             int pollIdx;
             for (;;) {
                 pollIdx = this.pollIdx.get();
@@ -664,8 +1029,6 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
                 // unmask the current read value to the actual array index.
                 final PoolBuffer pb = pool.getAndSet(unmaskedPollIdx, null);
                 if (pb != null) {
-                    ProbeNotifier.notifyBufferAllocatedFromPool(monitoringConfig,
-                                                                bufferSize);
                     return pb;
                 }
                 
@@ -681,7 +1044,9 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
                 final int pollIdx = this.pollIdx.get();
                 
                 // weak isFull check, might return false positives
-                if (isFull(pollIdx, offerIdx)) {
+                if (isFull(pollIdx, offerIdx)
+                        || (budget != null
+                        && elementsCount(pollIdx, offerIdx) >= limit.get())) {
                     return false;
                 }
                 final int nextOfferIndex = nextIndex(offerIdx);
@@ -743,6 +1108,63 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         public final long size() {
             return (long) elementsCount() * (long) bufferSize;
         }
+
+        /**
+         * @return the current max number of {@link Buffer}s, that could be
+         * pooled in the elastic <tt>PoolSlice</tt>
+         */
+        public int getElementsLimit() {
+            return budget != null ? limit.get() : maxPoolSize;
+        }
+
+        /**
+         * Lets the elastic slice pool one more buffer, if the budget allows.
+         */
+        void grow() {
+            if (budget == null) {
+                return;
+            }
+
+            for (;;) {
+                final int l = limit.get();
+                if (l >= maxPoolSize || !budget.tryReserve(bufferSize)) {
+                    return;
+                }
+                if (limit.compareAndSet(l, l + 1)) {
+                    return;
+                }
+                budget.release(bufferSize);
+            }
+        }
+
+        /**
+         * Trims the elastic slice back to the low-water mark.
+         *
+         * @param force <tt>true</tt> to trim the slice, or <tt>false</tt> to
+         *  trim it only, if it hasn't been used since the previous trim
+         * @return the number of the buffers removed from the slice
+         */
+        int trim(final boolean force) {
+            final boolean isIdle = pollIdx.get() == lastTrimPollIdx;
+            int trimmed = 0;
+            if (budget != null && (force || isIdle)) {
+                int l;
+                do {
+                    l = limit.get();
+                } while (l > minPoolSize && !limit.compareAndSet(l, minPoolSize));
+
+                if (l > minPoolSize) {
+                    budget.release((long) (l - minPoolSize) * bufferSize);
+                }
+
+                while (elementsCount() > minPoolSize && poll0() != null) {
+                    trimmed++;
+                }
+            }
+
+            lastTrimPollIdx = pollIdx.get();
+            return trimmed;
+        }
         
         public void clear() {
             //noinspection StatementWithEmptyBody
@@ -876,6 +1298,117 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
 
     } // END BufferPool
 
+    /*
+     * The thread-local stack of the pool buffers, which is accessed by its
+     * thread only, so the buffers are allocated from and released to it
+     * without CAS operations. When the magazine is empty, it's refilled with
+     * a batch of buffers polled from a slice, and when it's full, a batch of
+     * the least recently released buffers is offered back to their slices.
+     */
+    static final class Magazine {
+        private final Pool owner;
+        private final PoolBuffer[] buffers;
+        private final int batchSize;
+        private final DefaultMonitoringConfig<MemoryProbe> monitoringConfig;
+        private int size;
+
+        Magazine(final Pool owner, final int magazineSize,
+                final DefaultMonitoringConfig<MemoryProbe> monitoringConfig) {
+            this.owner = owner;
+            this.monitoringConfig = monitoringConfig;
+            buffers = new PoolBuffer[magazineSize];
+            batchSize = Math.max(1, magazineSize / 2);
+        }
+
+        /**
+         * @return the buffer from the magazine, or <tt>null</tt>, if neither
+         * the magazine nor the slice it's refilled from have buffers.
+         */
+        PoolBuffer poll() {
+            if (size > 0) {
+                ProbeNotifier.notifyBufferAllocatedFromMagazine(
+                        monitoringConfig, owner.bufferSize);
+            } else if (refill() == 0) {
+                return null;
+            }
+
+            final PoolBuffer b = buffers[--size];
+            buffers[size] = null;
+            return b;
+        }
+
+        void offer(final PoolBuffer b) {
+            if (size == buffers.length) {
+                drain();
+            }
+
+            buffers[size++] = b;
+            ProbeNotifier.notifyBufferReleasedToMagazine(monitoringConfig,
+                    owner.bufferSize);
+        }
+
+        int size() {
+            return size;
+        }
+
+        private int refill() {
+            final PoolSlice slice = owner.getSlice();
+            PoolBuffer b;
+            while (size < batchSize && (b = slice.poll()) != null) {
+                buffers[size++] = b;
+            }
+
+            ProbeNotifier.notifyMagazineRefilled(monitoringConfig,
+                    owner.bufferSize, size);
+            return size;
+        }
+
+        private void drain() {
+            // keep the most recently released buffers, which are the most
+            // likely to be in the CPU cache
+            for (int i = 0; i < batchSize; i++) {
+                final PoolBuffer b = buffers[i];
+                // if the slice is full - the buffer is left to GC
+                b.owner().offer(b);
+            }
+
+            size -= batchSize;
+            System.arraycopy(buffers, batchSize, buffers, 0, size);
+            Arrays.fill(buffers, size, buffers.length, null);
+
+            ProbeNotifier.notifyMagazineDrained(monitoringConfig,
+                    owner.bufferSize, batchSize);
+        }
+    } // END Magazine
+
+    /*
+     * The memory all the elastic pools of the memory manager may retain.
+     */
+    static final class Budget {
+        private final long max;
+        private final AtomicLong reserved = new AtomicLong();
+
+        Budget(final long max) {
+            this.max = max;
+        }
+
+        boolean tryReserve(final int size) {
+            for (;;) {
+                final long r = reserved.get();
+                if (r + size > max) {
+                    return false;
+                }
+                if (reserved.compareAndSet(r, r + size)) {
+                    return true;
+                }
+            }
+        }
+
+        void release(final long size) {
+            reserved.addAndGet(-size);
+        }
+    } // END Budget
+
 
     interface PoolBuffer extends Buffer {
         PoolBuffer prepare();
@@ -904,6 +1437,11 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         // non-null in any 'child' buffers created from the original.
         protected final PoolHeapBuffer source;
 
+        // the buffer, whose reference is held by this retained 'child' buffer
+        private HeapBuffer retainedFrom;
+        // the retainedFrom dispose generation, when this buffer was created
+        private int retainedFromGeneration;
+
         
         // ------------------------------------------------------------ Constructors
 
@@ -958,6 +1496,7 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         public PoolBuffer prepare() {
             allowBufferDispose = true;
             free = false;
+            retained = 0;
             
             return this;
         }
@@ -982,7 +1521,7 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
 
         @Override
         public HeapBuffer asReadOnlyBuffer() {
-            final HeapBuffer b = asReadOnlyBuffer(offset, cap);
+            final HeapBuffer b = asReadOnlyBuffer(offset, cap, null);
             
             b.pos = pos;
             b.lim = lim;
@@ -990,15 +1529,22 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         }
 
 
-        private HeapBuffer asReadOnlyBuffer(final int offset, final int cap) {
+        private HeapBuffer asReadOnlyBuffer(final int offset, final int cap,
+                final HeapBuffer retainedFrom) {
             checkDispose();
 
             onShareHeap();
+            final int generation = retainedFrom != null
+                    ? retainedFrom.disposeGeneration
+                    : 0;
             final HeapBuffer b = new ReadOnlyHeapBuffer(heap, offset, cap) {
 
                 @Override
                 public void dispose() {
                     super.dispose();
+                    if (retainedFrom != null) {
+                        retainedFrom.releaseRetained(generation);
+                    }
                     PoolHeapBuffer.this.dispose0();
                 }
 
@@ -1011,7 +1557,16 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
                 @Override
                 protected HeapBuffer createHeapBuffer(final int offset,
                         final int capacity) {
-                    return PoolHeapBuffer.this.asReadOnlyBuffer(offset, capacity);
+                    return PoolHeapBuffer.this.asReadOnlyBuffer(offset,
+                            capacity, null);
+                }
+
+                @Override
+                protected HeapBuffer createRetainedHeapBuffer(final int offset,
+                        final int capacity) {
+                    retain();
+                    return PoolHeapBuffer.this.asReadOnlyBuffer(offset,
+                            capacity, this);
                 }
             };
             
@@ -1026,7 +1581,11 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
                 return;
             }
             free = true;
+            disposeGeneration++;
             
+            // release the retained buffer before the shared memory might be
+            // returned to the pool, so the release can't hit its next use
+            releaseRetainedFrom();
             dispose0();
         }
 
@@ -1051,12 +1610,16 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
 
 
         private void returnToPool() {
+            if (leakTracker != null) {
+                leakTracker.close();
+                leakTracker = null;
+            }
             // restore capacity
             cap = heap.length;
             // clear
             clear();
             
-            owner.offer(this);
+            owner.owner.release(this);
         }
         
         // ----------------------------------------------------- Protected Methods
@@ -1093,10 +1656,39 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
                             source, // pass the 'parent' buffer along
                             shareCount); // pass the shareCount
             b.allowBufferDispose(true);
+            // record the child buffer accesses on behalf of the source
+            b.leakTracker = source.leakTracker;
+
+            return b;
+        }
+
+        /**
+         * Create a new 'child' {@link HeapBuffer}, which shares the pooled heap
+         * like the {@link #createHeapBuffer(int, int)} result and additionally
+         * holds a reference to this buffer.
+         */
+        @Override
+        protected HeapBuffer createRetainedHeapBuffer(final int offs,
+                final int capacity) {
+            retain();
+
+            final PoolHeapBuffer b =
+                    (PoolHeapBuffer) createHeapBuffer(offs, capacity);
+            b.order(order);
+            b.retainedFrom = this;
+            b.retainedFromGeneration = disposeGeneration;
 
             return b;
         }
 
+        private void releaseRetainedFrom() {
+            final HeapBuffer r = retainedFrom;
+            if (r != null) {
+                retainedFrom = null;
+                r.releaseRetained(retainedFromGeneration);
+            }
+        }
+
         @Override
         protected void onShareHeap() {
             super.onShareHeap();
@@ -1125,6 +1717,11 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         // non-null in any 'child' buffers created from the original.
         protected final PoolByteBufferWrapper source;
 
+        // the buffer, whose reference is held by this retained 'child' buffer
+        private ByteBufferWrapper retainedFrom;
+        // the retainedFrom dispose generation, when this buffer was created
+        private int retainedFromGeneration;
+
         // Used for the special case of the split() method.  This maintains
         // the original wrapper from the pool which must ultimately be returned.
         private final ByteBuffer origVisible;
@@ -1185,6 +1782,7 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         public PoolBuffer prepare() {
             allowBufferDispose = true;
             free = false;
+            retained = 0;
             return this;
         }
 
@@ -1212,7 +1810,11 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
                 return;
             }
             free = true;
+            disposeGeneration++;
             
+            // release the retained buffer before the shared memory might be
+            // returned to the pool, so the release can't hit its next use
+            releaseRetainedFrom();
             dispose0();
         }
 
@@ -1246,10 +1848,38 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
                             source, // pass the 'parent' buffer along
                             shareCount); // pass the shareCount
             b.allowBufferDispose(true);
+            // record the child buffer accesses on behalf of the source
+            b.leakTracker = source.leakTracker;
             shareCount.incrementAndGet();
 
             return b;
         }
+
+        /**
+         * Create a new 'child' {@link ByteBufferWrapper}, which shares the
+         * pooled {@link ByteBuffer} like the {@link #wrapByteBuffer(ByteBuffer)}
+         * result and additionally holds a reference to this buffer.
+         */
+        @Override
+        protected ByteBufferWrapper createRetainedWrapper(final ByteBuffer byteBuffer) {
+            retain();
+
+            final PoolByteBufferWrapper b =
+                    (PoolByteBufferWrapper) wrapByteBuffer(byteBuffer);
+            b.order(visible.order());
+            b.retainedFrom = this;
+            b.retainedFromGeneration = disposeGeneration;
+
+            return b;
+        }
+
+        private void releaseRetainedFrom() {
+            final ByteBufferWrapper r = retainedFrom;
+            if (r != null) {
+                retainedFrom = null;
+                r.releaseRetained(retainedFromGeneration);
+            }
+        }
         
         
         /**
@@ -1270,9 +1900,13 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         
         private void returnToPool() {
             // should be called on "source" only
+            if (leakTracker != null) {
+                leakTracker.close();
+                leakTracker = null;
+            }
             visible = origVisible;
             visible.clear();
-            owner.offer(this);
+            owner.owner.release(this);
         }
     } // END PoolBuffer    
 }
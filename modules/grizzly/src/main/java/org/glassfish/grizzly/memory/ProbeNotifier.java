@@ -77,4 +77,74 @@ final class ProbeNotifier {
         }
     }
 
+    /**
+     * Notify registered {@link MemoryProbe}s about the "allocated from magazine" event.
+     *
+     * @param size buffer size
+     */
+    static void notifyBufferAllocatedFromMagazine(
+            final DefaultMonitoringConfig<MemoryProbe> config,
+            final int size) {
+
+        final MemoryProbe[] probes = config.getProbesUnsafe();
+        if (probes != null) {
+            for (MemoryProbe probe : probes) {
+                probe.onBufferAllocateFromMagazineEvent(size);
+            }
+        }
+    }
+
+    /**
+     * Notify registered {@link MemoryProbe}s about the "release to magazine" event.
+     *
+     * @param size buffer size
+     */
+    static void notifyBufferReleasedToMagazine(
+            final DefaultMonitoringConfig<MemoryProbe> config,
+            final int size) {
+
+        final MemoryProbe[] probes = config.getProbesUnsafe();
+        if (probes != null) {
+            for (MemoryProbe probe : probes) {
+                probe.onBufferReleaseToMagazineEvent(size);
+            }
+        }
+    }
+
+    /**
+     * Notify registered {@link MemoryProbe}s about the "magazine refill" event.
+     *
+     * @param size buffer size
+     * @param count the number of the moved buffers
+     */
+    static void notifyMagazineRefilled(
+            final DefaultMonitoringConfig<MemoryProbe> config,
+            final int size, final int count) {
+
+        final MemoryProbe[] probes = config.getProbesUnsafe();
+        if (probes != null) {
+            for (MemoryProbe probe : probes) {
+                probe.onMagazineRefillEvent(size, count);
+            }
+        }
+    }
+
+    /**
+     * Notify registered {@link MemoryProbe}s about the "magazine drain" event.
+     *
+     * @param size buffer size
+     * @param count the number of the moved buffers
+     */
+    static void notifyMagazineDrained(
+            final DefaultMonitoringConfig<MemoryProbe> config,
+            final int size, final int count) {
+
+        final MemoryProbe[] probes = config.getProbesUnsafe();
+        if (probes != null) {
+            for (MemoryProbe probe : probes) {
+                probe.onMagazineDrainEvent(size, count);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.nio.transport;
+
+/**
+ * Predicts the size of the next {@link TCPNIOConnection} read, based on the
+ * sizes of the previous reads.
+ *
+ * The prediction is doubled as soon as a read fills the entire buffer, and
+ * halved once two reads in a row could've fit into the half-size buffer, so
+ * the connections exchanging small messages don't allocate large buffers,
+ * and the bulk transfers quickly get buffers big enough to drain the socket
+ * in fewer reads.
+ *
+ * The predictor is not thread-safe, it relies on the fact that the
+ * connection is read by one thread at a time.
+ */
+final class ReadBufferSizePredictor {
+    /**
+     * The minimum predicted read size.
+     */
+    static final int MIN_SIZE = 512;
+
+    /**
+     * The read size, which is predicted for a new connection.
+     */
+    static final int INITIAL_SIZE = 8192;
+
+    private final int maxSize;
+    private int size;
+    private boolean shrinkPending;
+
+    /**
+     * @param maxSize the upper bound of the predicted read size.
+     */
+    ReadBufferSizePredictor(final int maxSize) {
+        this.maxSize = Math.max(MIN_SIZE, maxSize);
+        size = Math.min(INITIAL_SIZE, this.maxSize);
+    }
+
+    /**
+     * @return the predicted size of the next read.
+     */
+    int nextReadSize() {
+        return size;
+    }
+
+    /**
+     * Adjusts the prediction based on the result of the read.
+     *
+     * @param read the number of bytes read
+     * @param available the number of bytes, which could've been read into
+     *  the buffer
+     */
+    void onRead(final int read, final int available) {
+        if (read <= 0) {
+            return;
+        }
+
+        if (read >= available) {
+            shrinkPending = false;
+            size = (int) Math.min(maxSize, (long) Math.max(size, available) << 1);
+        } else if (size > MIN_SIZE && read <= (size >>> 1)) {
+            if (shrinkPending) {
+                shrinkPending = false;
+                size = Math.max(MIN_SIZE, size >>> 1);
+            } else {
+                shrinkPending = true;
+            }
+        } else {
+            shrinkPending = false;
+        }
+    }
+}
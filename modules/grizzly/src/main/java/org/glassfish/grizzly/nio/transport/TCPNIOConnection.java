@@ -48,6 +48,17 @@ public class TCPNIOConnection extends NIOConnection {
     private int readBufferSize = -1;
     private int writeBufferSize = -1;
 
+    /**
+     * The read size predictor, or <tt>null</tt>, if the read buffer size is
+     * not adaptive.
+     */
+    ReadBufferSizePredictor readBufferSizePredictor;
+
+    /**
+     * <tt>true</tt>, if the last allocated read filled the entire buffer.
+     */
+    boolean isLastReadFull;
+
     private AtomicReference<ConnectResultHandler> connectHandlerRef;
 
     public TCPNIOConnection(TCPNIOTransport transport,
@@ -105,6 +116,12 @@ public class TCPNIOConnection extends NIOConnection {
             setReadBufferSize(transport.getReadBufferSize());
             setWriteBufferSize(transport.getWriteBufferSize());
 
+            readBufferSizePredictor =
+                    ((TCPNIOTransport) transport).isAdaptiveReadBufferSize()
+                    ? new ReadBufferSizePredictor(
+                            TCPNIOUtils.maxAdaptiveReadBufferSize(this))
+                    : null;
+
             final int transportMaxAsyncWriteQueueSize =
                     ((TCPNIOTransport) transport).getAsyncQueueIO()
                     .getWriter().getMaxPendingBytesPerConnection();
@@ -39,6 +39,7 @@ import org.glassfish.grizzly.filterchain.Filter;
 import org.glassfish.grizzly.filterchain.FilterChainEnabledTransport;
 import org.glassfish.grizzly.localization.LogMessages;
 import org.glassfish.grizzly.memory.CompositeBuffer;
+import org.glassfish.grizzly.memory.PooledMemoryManager;
 import org.glassfish.grizzly.monitoring.MonitoringUtils;
 import org.glassfish.grizzly.nio.*;
 import org.glassfish.grizzly.nio.tmpselectors.TemporarySelectorIO;
@@ -72,6 +73,10 @@ public final class TCPNIOTransport extends NIOTransport implements
                     ".max-send-buffer-size", Integer.MAX_VALUE);
     
     public static final boolean DEFAULT_TCP_NO_DELAY = true;
+    public static final boolean DEFAULT_ADAPTIVE_READ_BUFFER_SIZE = false;
+    public static final boolean DEFAULT_READ_INTO_POOLED_BUFFERS = false;
+    public static final int DEFAULT_MAX_READS_PER_EVENT = 1;
+    public static final int DEFAULT_MAX_READ_BYTES_PER_EVENT = 256 * 1024;
     public static final boolean DEFAULT_KEEP_ALIVE = true;
     public static final int DEFAULT_LINGER = -1;
     public static final int DEFAULT_SERVER_CONNECTION_BACKLOG = 4096;
@@ -104,6 +109,24 @@ public final class TCPNIOTransport extends NIOTransport implements
      * The socket keepAlive mode.
      */
     boolean isKeepAlive = DEFAULT_KEEP_ALIVE;
+    /**
+     * <tt>true</tt>, if the size of the allocated read buffers is predicted
+     * per connection.
+     */
+    boolean isAdaptiveReadBufferSize = DEFAULT_ADAPTIVE_READ_BUFFER_SIZE;
+    /**
+     * <tt>true</tt>, if the data is read directly into the
+     * {@link PooledMemoryManager} buffers.
+     */
+    boolean isReadIntoPooledBuffers = DEFAULT_READ_INTO_POOLED_BUFFERS;
+    /**
+     * The maximum number of reads performed within a single read event.
+     */
+    int maxReadsPerEvent = DEFAULT_MAX_READS_PER_EVENT;
+    /**
+     * The maximum number of bytes read within a single read event.
+     */
+    int maxReadBytesPerEvent = DEFAULT_MAX_READ_BYTES_PER_EVENT;
 
     private final Filter defaultTransportFilter;
     final RegisterChannelCompletionHandler selectorRegistrationHandler;
@@ -458,6 +481,136 @@ public final class TCPNIOTransport extends NIOTransport implements
         notifyProbesConfigChanged(this);
     }
 
+    /**
+     * Returns <tt>true</tt>, if the size of the buffers allocated to read
+     * the connection data is predicted per connection based on the sizes of
+     * the previous reads, or <tt>false</tt>, if every read allocates
+     * the buffer of the connection's read buffer size.
+     *
+     * @return <tt>true</tt>, if the read buffer size is adaptive.
+     * @since 2.4.4
+     */
+    public boolean isAdaptiveReadBufferSize() {
+        return isAdaptiveReadBufferSize;
+    }
+
+    /**
+     * Enables or disables the adaptive read buffer sizing.
+     * If enabled, each connection starts with
+     * small read buffers, which grow when a read fills the entire buffer and
+     * shrink when the reads repeatedly use less than half of the buffer.
+     * The change affects the connections created afterwards.
+     *
+     * @param isAdaptiveReadBufferSize <tt>true</tt>, if the read buffer size
+     *  has to be adaptive.
+     * @since 2.4.4
+     */
+    public void setAdaptiveReadBufferSize(final boolean isAdaptiveReadBufferSize) {
+        this.isAdaptiveReadBufferSize = isAdaptiveReadBufferSize;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * Returns <tt>true</tt>, if the connection data is read directly into the
+     * buffers allocated by the {@link PooledMemoryManager}, or <tt>false</tt>,
+     * if the data is read into a temporary direct buffer first and then
+     * copied into a buffer of the exact size.
+     *
+     * @return <tt>true</tt>, if the data is read directly into the pooled
+     *  buffers.
+     * @since 2.4.4
+     */
+    public boolean isReadIntoPooledBuffers() {
+        return isReadIntoPooledBuffers;
+    }
+
+    /**
+     * Enables or disables reading directly into the buffers allocated by the
+     * {@link PooledMemoryManager}. The option has no effect if the transport
+     * uses another {@link org.glassfish.grizzly.memory.MemoryManager}, or the
+     * {@link PooledMemoryManager} pools heap buffers, because the JDK reads
+     * the socket data into a temporary direct buffer and copies it into the
+     * heap buffer anyway.
+     * The pooled buffers are larger than the data read, so it's recommended
+     * to enable the {@link #setAdaptiveReadBufferSize(boolean) adaptive read
+     * buffer size} as well.
+     *
+     * @param isReadIntoPooledBuffers <tt>true</tt>, if the data has to be read
+     *  directly into the pooled buffers.
+     * @since 2.4.4
+     */
+    public void setReadIntoPooledBuffers(final boolean isReadIntoPooledBuffers) {
+        this.isReadIntoPooledBuffers = isReadIntoPooledBuffers;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * Returns the maximum number of the socket reads performed within a
+     * single {@link IOEvent#READ} event.
+     *
+     * When a read fills the entire read buffer, the socket likely has more
+     * data, so the transport filter reads again, without returning to the
+     * selector, until the socket is drained or the per-event budget is
+     * exhausted. All the data read within the event is passed to the
+     * {@link org.glassfish.grizzly.filterchain.FilterChain} at once. The budget
+     * makes sure other connections, served by the same selector thread, are
+     * not starved.
+     *
+     * By default the value is <tt>1</tt>, so every read goes through the
+     * selector.
+     *
+     * @return the maximum number of reads per read event.
+     * @since 2.4.4
+     */
+    public int getMaxReadsPerEvent() {
+        return maxReadsPerEvent;
+    }
+
+    /**
+     * Sets the maximum number of the socket reads performed within a
+     * single {@link IOEvent#READ} event. The value of <tt>1</tt> means every
+     * read goes through the selector.
+     *
+     * @param maxReadsPerEvent the maximum number of reads per read event.
+     * @since 2.4.4
+     */
+    public void setMaxReadsPerEvent(final int maxReadsPerEvent) {
+        if (maxReadsPerEvent < 1) {
+            throw new IllegalArgumentException("maxReadsPerEvent has to be positive");
+        }
+        this.maxReadsPerEvent = maxReadsPerEvent;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * Returns the maximum number of bytes, after which the transport
+     * stops reading within a single {@link IOEvent#READ} event.
+     *
+     * @return the maximum number of bytes read per read event.
+     * @see #getMaxReadsPerEvent()
+     * @since 2.4.4
+     */
+    public int getMaxReadBytesPerEvent() {
+        return maxReadBytesPerEvent;
+    }
+
+    /**
+     * Sets the maximum number of bytes, after which the transport
+     * stops reading within a single {@link IOEvent#READ} event.
+     *
+     * @param maxReadBytesPerEvent the maximum number of bytes read per read
+     *  event.
+     * @see #setMaxReadsPerEvent(int)
+     * @since 2.4.4
+     */
+    public void setMaxReadBytesPerEvent(final int maxReadBytesPerEvent) {
+        if (maxReadBytesPerEvent < 1) {
+            throw new IllegalArgumentException("maxReadBytesPerEvent has to be positive");
+        }
+        this.maxReadBytesPerEvent = maxReadBytesPerEvent;
+        notifyProbesConfigChanged(this);
+    }
+
     /**
      * Get the default server connection backlog size.
      * @return the default server connection backlog size.
@@ -32,6 +32,10 @@ public class TCPNIOTransportBuilder extends NIOTransportBuilder<TCPNIOTransportB
     protected int serverConnectionBackLog = TCPNIOTransport.DEFAULT_SERVER_CONNECTION_BACKLOG;
     protected int serverSocketSoTimeout = TCPNIOTransport.DEFAULT_SERVER_SOCKET_SO_TIMEOUT;
     protected boolean tcpNoDelay = TCPNIOTransport.DEFAULT_TCP_NO_DELAY;
+    protected boolean adaptiveReadBufferSize = TCPNIOTransport.DEFAULT_ADAPTIVE_READ_BUFFER_SIZE;
+    protected boolean readIntoPooledBuffers = TCPNIOTransport.DEFAULT_READ_INTO_POOLED_BUFFERS;
+    protected int maxReadsPerEvent = TCPNIOTransport.DEFAULT_MAX_READS_PER_EVENT;
+    protected int maxReadBytesPerEvent = TCPNIOTransport.DEFAULT_MAX_READ_BYTES_PER_EVENT;
 
     // ------------------------------------------------------------ Constructors
 
@@ -133,6 +137,74 @@ public class TCPNIOTransportBuilder extends NIOTransportBuilder<TCPNIOTransportB
         return getThis();
     }
 
+    /**
+     * @see TCPNIOTransport#isAdaptiveReadBufferSize()
+     */
+    public boolean isAdaptiveReadBufferSize() {
+        return adaptiveReadBufferSize;
+    }
+
+    /**
+     * @see TCPNIOTransport#setAdaptiveReadBufferSize(boolean)
+     *
+     * @return this <code>TCPNIOTransportBuilder</code>
+     */
+    public TCPNIOTransportBuilder setAdaptiveReadBufferSize(boolean adaptiveReadBufferSize) {
+        this.adaptiveReadBufferSize = adaptiveReadBufferSize;
+        return getThis();
+    }
+
+    /**
+     * @see TCPNIOTransport#isReadIntoPooledBuffers()
+     */
+    public boolean isReadIntoPooledBuffers() {
+        return readIntoPooledBuffers;
+    }
+
+    /**
+     * @see TCPNIOTransport#setReadIntoPooledBuffers(boolean)
+     *
+     * @return this <code>TCPNIOTransportBuilder</code>
+     */
+    public TCPNIOTransportBuilder setReadIntoPooledBuffers(boolean readIntoPooledBuffers) {
+        this.readIntoPooledBuffers = readIntoPooledBuffers;
+        return getThis();
+    }
+
+    /**
+     * @see TCPNIOTransport#getMaxReadsPerEvent()
+     */
+    public int getMaxReadsPerEvent() {
+        return maxReadsPerEvent;
+    }
+
+    /**
+     * @see TCPNIOTransport#setMaxReadsPerEvent(int)
+     *
+     * @return this <code>TCPNIOTransportBuilder</code>
+     */
+    public TCPNIOTransportBuilder setMaxReadsPerEvent(int maxReadsPerEvent) {
+        this.maxReadsPerEvent = maxReadsPerEvent;
+        return getThis();
+    }
+
+    /**
+     * @see TCPNIOTransport#getMaxReadBytesPerEvent()
+     */
+    public int getMaxReadBytesPerEvent() {
+        return maxReadBytesPerEvent;
+    }
+
+    /**
+     * @see TCPNIOTransport#setMaxReadBytesPerEvent(int)
+     *
+     * @return this <code>TCPNIOTransportBuilder</code>
+     */
+    public TCPNIOTransportBuilder setMaxReadBytesPerEvent(int maxReadBytesPerEvent) {
+        this.maxReadBytesPerEvent = maxReadBytesPerEvent;
+        return getThis();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -144,6 +216,10 @@ public class TCPNIOTransportBuilder extends NIOTransportBuilder<TCPNIOTransportB
         transport.setServerConnectionBackLog(serverConnectionBackLog);
         transport.setTcpNoDelay(tcpNoDelay);
         transport.setServerSocketSoTimeout(serverSocketSoTimeout);
+        transport.setAdaptiveReadBufferSize(adaptiveReadBufferSize);
+        transport.setReadIntoPooledBuffers(readIntoPooledBuffers);
+        transport.setMaxReadsPerEvent(maxReadsPerEvent);
+        transport.setMaxReadBytesPerEvent(maxReadBytesPerEvent);
         return transport;
     }
 
@@ -46,7 +46,7 @@ public final class TCPNIOTransportFilter extends BaseFilter {
 
         final Buffer inBuffer = ctx.getMessage();
         
-        final Buffer buffer;
+        Buffer buffer;
         if (!isBlocking) {
             buffer = transport.read(connection, inBuffer);
         } else {
@@ -74,6 +74,10 @@ public final class TCPNIOTransportFilter extends BaseFilter {
         } else {
             buffer.trim();
             
+            if (!isBlocking && inBuffer == null) {
+                buffer = readMore(connection, buffer);
+            }
+            
             ctx.setMessage(buffer);
             ctx.setAddressHolder(connection.peerSocketAddressHolder);
         }
@@ -143,4 +147,44 @@ public final class TCPNIOTransportFilter extends BaseFilter {
             connection.closeSilently();
         }
     }
+
+    /**
+     * Keeps reading, while the last read filled the entire read buffer, so
+     * the socket likely has more data, and the per-event read budget isn't
+     * exhausted. The data is appended to the already read {@link Buffer}, so
+     * the chain processes everything read within the event at once.
+     */
+    private Buffer readMore(final TCPNIOConnection connection,
+            Buffer buffer) {
+        final int maxReads = transport.getMaxReadsPerEvent();
+        final int maxBytes = transport.getMaxReadBytesPerEvent();
+        
+        int readsCount = 1;
+        long bytesRead = buffer.remaining();
+        while (connection.isLastReadFull && readsCount < maxReads
+                && bytesRead < maxBytes) {
+            final Buffer next;
+            try {
+                next = TCPNIOUtils.allocateAndReadBuffer(connection);
+            } catch (IOException e) {
+                // let the next read event report the error, once the data
+                // read so far has been processed
+                break;
+            }
+            
+            final int read = next.position();
+            connection.onRead(next, read);
+            if (read == 0) {
+                break;
+            }
+            
+            next.trim();
+            buffer = Buffers.appendBuffers(connection.getMemoryManager(),
+                    buffer, next, true);
+            readsCount++;
+            bytesRead += read;
+        }
+        
+        return buffer;
+    }
 }
@@ -28,6 +28,7 @@ import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.ByteBufferArray;
 import org.glassfish.grizzly.memory.CompositeBuffer;
 import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.memory.PooledMemoryManager;
 import org.glassfish.grizzly.nio.DirectByteBufferRecord;
 import org.glassfish.grizzly.utils.Exceptions;
 
@@ -194,21 +195,31 @@ public class TCPNIOUtils {
             throws IOException {
         
         final MemoryManager memoryManager = connection.getMemoryManager();
+        final ReadBufferSizePredictor predictor =
+                connection.readBufferSizePredictor;
         
         int read;
         Throwable error = null;
         Buffer buffer = null;
         
         try {
-            final int receiveBufferSize =
-                    Math.min(TCPNIOTransport.MAX_RECEIVE_BUFFER_SIZE,
+            final int receiveBufferSize = predictor != null
+                    ? predictor.nextReadSize()
+                    : Math.min(TCPNIOTransport.MAX_RECEIVE_BUFFER_SIZE,
                             connection.getReadBufferSize());
+            final int available;
         
-            if (!memoryManager.willAllocateDirect(receiveBufferSize)) {
+            if (!memoryManager.willAllocateDirect(receiveBufferSize)
+                    && !isReadIntoPooledBuffer(connection, memoryManager)) {
                 final DirectByteBufferRecord ioRecord = 
                         DirectByteBufferRecord.get();
                 final ByteBuffer directByteBuffer =
                         ioRecord.allocate(receiveBufferSize);
+                if (predictor != null) {
+                    // the thread's direct buffer might be bigger
+                    directByteBuffer.limit(receiveBufferSize);
+                }
+                available = directByteBuffer.remaining();
                 
                 try {
                     read = readSimpleByteBuffer(connection, directByteBuffer);
@@ -222,9 +233,16 @@ public class TCPNIOUtils {
                 }
             } else {
                 buffer = memoryManager.allocateAtLeast(receiveBufferSize);
+                available = buffer.remaining();
                 read = readBuffer(connection, buffer);
             }
+            
+            connection.isLastReadFull = read > 0 && read >= available;
+            if (predictor != null) {
+                predictor.onRead(read, available);
+            }
         } catch (Throwable e) {
+            connection.isLastReadFull = false;
             error = e;
             read = -1;
         }
@@ -314,6 +332,32 @@ public class TCPNIOUtils {
         return read;
     }
 
+    /**
+     * @return the upper bound of the adaptive read buffer size of the
+     *  connection. The reads may grow up to four times the socket receive
+     *  buffer size, because the kernel may auto-tune the actual receive
+     *  window beyond the reported size.
+     */
+    static int maxAdaptiveReadBufferSize(final TCPNIOConnection connection) {
+        final long max = 4L * Math.max(connection.getReadBufferSize(),
+                ReadBufferSizePredictor.INITIAL_SIZE);
+        return (int) Math.min(TCPNIOTransport.MAX_RECEIVE_BUFFER_SIZE, max);
+    }
+
+    /**
+     * @return <tt>true</tt>, if the connection data has to be read directly
+     *  into the pooled direct buffer. The heap buffers are not read directly,
+     *  because the JDK reads the socket into its own temporary direct buffer
+     *  and copies the data into the heap buffer anyway, so nothing is saved.
+     */
+    private static boolean isReadIntoPooledBuffer(
+            final TCPNIOConnection connection,
+            final MemoryManager memoryManager) {
+        return memoryManager instanceof PooledMemoryManager
+                && ((PooledMemoryManager) memoryManager).isDirect()
+                && ((TCPNIOTransport) connection.getTransport()).isReadIntoPooledBuffers();
+    }
+
     private static int readSimpleByteBuffer(final TCPNIOConnection tcpConnection,
             final ByteBuffer byteBuffer) throws IOException {
         
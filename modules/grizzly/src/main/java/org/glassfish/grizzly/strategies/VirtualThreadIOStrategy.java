@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.strategies;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.IOEvent;
+import org.glassfish.grizzly.IOEventLifeCycleListener;
+import org.glassfish.grizzly.Processor;
+import org.glassfish.grizzly.Transport;
+import org.glassfish.grizzly.threadpool.AbstractThreadPool;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import java.util.logging.Logger;
+
+/**
+ * {@link org.glassfish.grizzly.IOStrategy}, which executes {@link Processor}s
+ * in virtual threads (JDK 21+), one virtual thread per {@link IOEvent}, so
+ * the processing is allowed to block, for example on JDBC calls, without
+ * requiring a huge worker thread pool.
+ *
+ * The strategy's default worker thread pool is a
+ * {@link org.glassfish.grizzly.threadpool.VirtualThreadPool}, which keeps
+ * the pooled buffers and cached objects reused across the virtual threads.
+ * On the JDKs, which don't support virtual threads, the transport fails to
+ * start with an {@link IllegalStateException}.
+ *
+ * @since 2.4.4
+ */
+public final class VirtualThreadIOStrategy extends AbstractIOStrategy {
+
+    private static final VirtualThreadIOStrategy INSTANCE = new VirtualThreadIOStrategy();
+
+    private static final Logger logger = Grizzly.logger(VirtualThreadIOStrategy.class);
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    private VirtualThreadIOStrategy() { }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    public static VirtualThreadIOStrategy getInstance() {
+        return INSTANCE;
+    }
+
+
+    // ------------------------------------------------- Methods from IOStrategy
+
+
+    @Override
+    public boolean executeIoEvent(final Connection connection,
+            final IOEvent ioEvent, final boolean isIoEventEnabled)
+            throws IOException {
+
+        final boolean isReadOrWriteEvent = isReadWrite(ioEvent);
+
+        final IOEventLifeCycleListener listener;
+        if (isReadOrWriteEvent) {
+            if (isIoEventEnabled) {
+                connection.disableIOEvent(ioEvent);
+            }
+            
+            listener = ENABLE_INTEREST_LIFECYCLE_LISTENER;
+        } else {
+            listener = null;
+        }
+
+        final Executor threadPool = getThreadPoolFor(connection, ioEvent);
+        if (threadPool != null) {
+            threadPool.execute(
+                    new VirtualThreadRunnable(connection, ioEvent, listener));
+        } else {
+            run0(connection, ioEvent, listener);
+        }
+
+        return true;
+    }
+
+    @Override
+    public ThreadPoolConfig createDefaultWorkerPoolConfig(final Transport transport) {
+
+        final ThreadPoolConfig config = super.createDefaultWorkerPoolConfig(transport);
+        config.setPoolName("Grizzly-virtual-worker");
+        // each event gets its own virtual thread, the core pool size
+        // limits the number of idle worker scopes
+        config.setMaxPoolSize(AbstractThreadPool.DEFAULT_MAX_THREAD_COUNT);
+        config.setVirtualThreads(true);
+        return config;
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private static void run0(final Connection connection,
+                             final IOEvent ioEvent,
+                             final IOEventLifeCycleListener lifeCycleListener) {
+
+        fireIOEvent(connection, ioEvent, lifeCycleListener, logger);
+
+    }
+    
+    private static final class VirtualThreadRunnable implements Runnable {
+        final Connection connection;
+        final IOEvent ioEvent;
+        final IOEventLifeCycleListener lifeCycleListener;
+        
+        private VirtualThreadRunnable(final Connection connection,
+                final IOEvent ioEvent,
+                final IOEventLifeCycleListener lifeCycleListener) {
+            this.connection = connection;
+            this.ioEvent = ioEvent;
+            this.lifeCycleListener = lifeCycleListener;
+            
+        }
+
+        @Override
+        public void run() {
+            run0(connection, ioEvent, lifeCycleListener);
+        }        
+    }
+
+}
@@ -70,7 +70,9 @@ public class GrizzlyExecutorService extends AbstractExecutorService
         }
         
         final Queue<Runnable> queue = cfg.getQueue();
-        if ((queue == null || queue instanceof BlockingQueue) &&
+        if (cfg.isVirtualThreads()) {
+            this.pool = new VirtualThreadPool(cfg);
+        } else if ((queue == null || queue instanceof BlockingQueue) &&
                 (cfg.getCorePoolSize() < 0 || cfg.getCorePoolSize() == cfg.getMaxPoolSize())) {
 
             this.pool = cfg.getQueueLimit() < 0
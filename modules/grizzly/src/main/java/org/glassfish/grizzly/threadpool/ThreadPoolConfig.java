@@ -73,6 +73,7 @@ public final class ThreadPoolConfig {
     protected DelayedExecutor transactionMonitor;
     protected long transactionTimeoutMillis;
     protected ClassLoader initialClassLoader;
+    protected boolean isVirtualThreads;
 
     /**
      * Thread pool probes
@@ -131,6 +132,7 @@ public final class ThreadPoolConfig {
         this.keepAliveTimeMillis   = cfg.keepAliveTimeMillis;
         this.mm              = cfg.mm;
         this.initialClassLoader = cfg.initialClassLoader;
+        this.isVirtualThreads = cfg.isVirtualThreads;
         
         this.threadPoolMonitoringConfig =
                 new DefaultMonitoringConfig<ThreadPoolProbe>(ThreadPoolProbe.class);
@@ -396,6 +398,33 @@ public final class ThreadPoolConfig {
         return this;
     }
 
+    /**
+     * @return <tt>true</tt>, if the thread pool runs each task on a new
+     *  virtual thread
+     *
+     * @since 2.4.4
+     */
+    public boolean isVirtualThreads() {
+        return isVirtualThreads;
+    }
+
+    /**
+     * Specifies whether the thread pool has to run each task on a new virtual
+     * thread (JDK 21+) instead of a pooled worker thread, see
+     * {@link VirtualThreadPool} for the way the other settings are applied.
+     *
+     * @param isVirtualThreads <tt>true</tt>, if the thread pool has to use
+     *  virtual threads
+     *
+     * @return the {@link ThreadPoolConfig}
+     *
+     * @since 2.4.4
+     */
+    public ThreadPoolConfig setVirtualThreads(final boolean isVirtualThreads) {
+        this.isVirtualThreads = isVirtualThreads;
+        return this;
+    }
+
     @Override
     public String toString() {
         return ThreadPoolConfig.class.getSimpleName() + " :\r\n"
@@ -410,6 +439,7 @@ public final class ThreadPoolConfig {
                 + "  transactionTimeoutMillis: " + transactionTimeoutMillis + "\r\n"
                 + "  priority: " + priority + "\r\n"
                 + "  isDaemon: " + isDaemon + "\r\n"
-                + "  initialClassLoader: " + initialClassLoader;
+                + "  initialClassLoader: " + initialClassLoader + "\r\n"
+                + "  isVirtualThreads: " + isVirtualThreads;
     }
 }
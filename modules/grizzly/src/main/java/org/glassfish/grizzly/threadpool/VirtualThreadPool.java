@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.threadpool;
+
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.memory.ThreadLocalPoolProvider;
+
+/**
+ * {@link ExecutorService} implementation, which runs each task on a new
+ * virtual thread (JDK 21+), so the tasks are allowed to block without
+ * exhausting the pool.
+ *
+ * The <tt>VirtualThreadPool</tt> is configured the following way:
+ * <ul>
+ *  <li>maxPoolSize is the max number of the tasks running at the same time,
+ *  the other tasks wait in the task queue;</li>
+ *  <li>corePoolSize is the max number of the idle {@link WorkerScope}s kept
+ *  by the pool;</li>
+ *  <li>the keep-alive time, priority and daemon settings are ignored.</li>
+ * </ul>
+ *
+ * A virtual thread is not a {@link DefaultWorkerThread}, so it can't hold
+ * the {@link org.glassfish.grizzly.memory.ThreadLocalPool} and the
+ * {@link org.glassfish.grizzly.ThreadCache} objects across the tasks.
+ * Instead the pool binds a {@link WorkerScope} to the virtual thread while
+ * it runs tasks and takes the scope back once the thread is done, so the
+ * next virtual thread reuses the buffers and cached objects.
+ *
+ * If the {@link ThreadPoolConfig} has a {@link java.util.concurrent.ThreadFactory},
+ * the pool uses it instead of creating virtual threads.
+ *
+ * @see VirtualThreads
+ * @since 2.4.4
+ */
+public class VirtualThreadPool extends AbstractThreadPool {
+
+    private final Queue<Runnable> workQueue;
+    protected int maxQueuedTasks = -1;
+    // the number of the workers, which are running or about to run the tasks
+    private int activeWorkersCount;
+
+    private final ThreadLocalPoolProvider threadLocalPoolProvider;
+
+    // the idle worker scopes, the most recently used first
+    private final Deque<WorkerScope> idleScopes =
+            new ConcurrentLinkedDeque<WorkerScope>();
+    private final AtomicInteger idleScopesCount = new AtomicInteger();
+    private final int maxIdleScopes;
+
+    /**
+     * @throws IllegalStateException if the {@link ThreadPoolConfig} doesn't
+     *  have a {@link java.util.concurrent.ThreadFactory} and the running JDK
+     *  doesn't support virtual threads
+     */
+    public VirtualThreadPool(ThreadPoolConfig config) {
+        super(initThreadFactory(config));
+
+        workQueue = config.getQueue() != null ?
+            config.getQueue() :
+            config.setQueue(new LinkedList<Runnable>()).getQueue();
+
+        this.maxQueuedTasks = config.getQueueLimit();
+
+        final MemoryManager mm = config.getMemoryManager();
+        threadLocalPoolProvider = mm instanceof ThreadLocalPoolProvider
+                ? (ThreadLocalPoolProvider) mm
+                : null;
+
+        maxIdleScopes = config.getCorePoolSize() > 0
+                ? config.getCorePoolSize()
+                : Runtime.getRuntime().availableProcessors();
+
+        ProbeNotifier.notifyThreadPoolStarted(this);
+    }
+
+    private static ThreadPoolConfig initThreadFactory(
+            final ThreadPoolConfig config) {
+        if (config.getThreadFactory() == null) {
+            if (!VirtualThreads.isSupported()) {
+                throw new IllegalStateException(
+                        "Virtual threads require JDK 21 or later");
+            }
+
+            config.setThreadFactory(
+                    VirtualThreads.newThreadFactory(config.getPoolName() + '-'));
+        }
+
+        return config;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+
+        if (task == null) {
+            throw new IllegalArgumentException("Runnable task is null");
+        }
+
+        synchronized (stateLock) {
+            if (!running) {
+                throw new RejectedExecutionException("ThreadPool is not running");
+            }
+
+            if (activeWorkersCount < config.getMaxPoolSize()) {
+                activeWorkersCount++;
+                onTaskQueued(task);
+                startWorker(new VirtualThreadWorker(task));
+
+                if (activeWorkersCount == config.getMaxPoolSize()) {
+                    onMaxNumberOfThreadsReached();
+                }
+
+                return;
+            }
+
+            if ((maxQueuedTasks < 0 || workQueue.size() < maxQueuedTasks)
+                    && workQueue.offer(task)) {
+                onTaskQueued(task);
+            } else {
+                onTaskQueueOverflow();
+                assert false; // should not reach this point
+            }
+        }
+    }
+
+    /**
+     * The workers complete the queued tasks and exit, so there's nothing to
+     * poison.
+     */
+    @Override
+    protected void poisonAll() {
+    }
+
+    /**
+     * @return the number of the idle {@link WorkerScope}s kept by the pool
+     */
+    public int getIdleScopesCount() {
+        return idleScopesCount.get();
+    }
+
+    @Override
+    public String toString() {
+        synchronized (stateLock) {
+            return super.toString()
+                    + ", max-queue-size=" + maxQueuedTasks;
+        }
+    }
+
+    private WorkerScope obtainScope() {
+        final WorkerScope scope = idleScopes.pollFirst();
+        if (scope != null) {
+            idleScopesCount.decrementAndGet();
+            return scope;
+        }
+
+        return new WorkerScope(threadLocalPoolProvider != null
+                ? threadLocalPoolProvider.createThreadLocalPool()
+                : null);
+    }
+
+    private void releaseScope(final WorkerScope scope) {
+        if (idleScopesCount.incrementAndGet() <= maxIdleScopes) {
+            idleScopes.offerFirst(scope);
+        } else {
+            idleScopesCount.decrementAndGet();
+        }
+    }
+
+    protected class VirtualThreadWorker extends Worker {
+
+        private Runnable firstTask;
+
+        public VirtualThreadWorker(final Runnable firstTask) {
+            this.firstTask = firstTask;
+        }
+
+        @Override
+        public void run() {
+            final WorkerScope scope = obtainScope();
+            scope.enter();
+            try {
+                super.run();
+            } finally {
+                scope.exit();
+                releaseScope(scope);
+            }
+        }
+
+        @Override
+        protected Runnable getTask() {
+            final Runnable task = firstTask;
+            if (task != null) {
+                firstTask = null;
+                return task;
+            }
+
+            synchronized (stateLock) {
+                final Runnable r = workQueue.poll();
+                if (r == null) {
+                    // the worker exits, so the next task gets a new one
+                    activeWorkersCount--;
+                }
+
+                return r;
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.threadpool;
+
+import org.glassfish.grizzly.ThreadCache.ObjectCache;
+import org.glassfish.grizzly.memory.ThreadLocalPool;
+
+/**
+ * The per-thread state of a Grizzly worker, i.e. the {@link ThreadLocalPool}
+ * and the {@link ObjectCache}, which a {@link DefaultWorkerThread} owns,
+ * for the threads, which are not {@link DefaultWorkerThread}s.
+ *
+ * A <tt>WorkerScope</tt> is bound to the current thread for the duration of
+ * a task, so short-lived threads, like virtual threads, which run a single
+ * task each, reuse the buffers and cached objects of the previous tasks.
+ * The scope is bound to the thread rather than to the carrier thread of a
+ * virtual thread, so a virtual thread, which blocks and resumes on another
+ * carrier, keeps its scope, and the scope is never shared by two threads
+ * at a time.
+ *
+ * @see VirtualThreadPool
+ * @since 2.4.4
+ */
+public final class WorkerScope {
+
+    private static final ThreadLocal<WorkerScope> CURRENT =
+            new ThreadLocal<WorkerScope>();
+
+    private final ThreadLocalPool memoryPool;
+
+    private final ObjectCache objectCache = new ObjectCache();
+
+    /**
+     * @param memoryPool the scope's {@link ThreadLocalPool}, or
+     *  <tt>null</tt>, if the memory manager doesn't support thread-local
+     *  pools
+     */
+    public WorkerScope(final ThreadLocalPool memoryPool) {
+        this.memoryPool = memoryPool;
+    }
+
+    /**
+     * @return the <tt>WorkerScope</tt> bound to the current thread, or
+     *  <tt>null</tt>, if there's no bound scope
+     */
+    public static WorkerScope current() {
+        return CURRENT.get();
+    }
+
+    public ThreadLocalPool getMemoryPool() {
+        return memoryPool;
+    }
+
+    public ObjectCache getObjectCache() {
+        return objectCache;
+    }
+
+    /**
+     * Binds this <tt>WorkerScope</tt> to the current thread.
+     */
+    public void enter() {
+        CURRENT.set(this);
+    }
+
+    /**
+     * Unbinds this <tt>WorkerScope</tt> from the current thread.
+     */
+    public void exit() {
+        CURRENT.remove();
+    }
+}
@@ -147,6 +147,24 @@ public class ActivityCheckFilter extends BaseFilter {
     public static DelayedExecutor createDefaultIdleDelayedExecutor(final long checkInterval,
                                                                    final TimeUnit checkIntervalUnit) {
 
+        return createDefaultIdleDelayedExecutor(checkInterval, checkIntervalUnit, false);
+
+    }
+
+    /**
+     * Creates the {@link DelayedExecutor} to be used by the <tt>ActivityCheckFilter</tt>.
+     *
+     * @param checkInterval the interval between the activity checks
+     * @param checkIntervalUnit the check interval {@link TimeUnit}
+     * @param useTimingWheel <tt>true</tt>, if the {@link DelayedExecutor}
+     *          has to track timeouts using the hashed timing wheel
+     * @return the {@link DelayedExecutor}
+     */
+    @SuppressWarnings({"UnusedDeclaration"})
+    public static DelayedExecutor createDefaultIdleDelayedExecutor(final long checkInterval,
+                                                                   final TimeUnit checkIntervalUnit,
+                                                                   final boolean useTimingWheel) {
+
         final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
 
             @Override
@@ -163,7 +181,8 @@ public class ActivityCheckFilter extends BaseFilter {
                                        : 1000L),
                                    ((checkIntervalUnit != null)
                                        ? checkIntervalUnit
-                                       : TimeUnit.MILLISECONDS));
+                                       : TimeUnit.MILLISECONDS),
+                                   useTimingWheel);
 
     }
 
@@ -25,7 +25,19 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
- * 
+ * The executor, which tracks timeouts of the registered elements and
+ * executes {@link Worker} once element's timeout expires.
+ *
+ * By default the executor scans all the registered elements once per check
+ * interval. For the large number of elements it's possible to create the
+ * executor in timing-wheel mode (see {@link #DelayedExecutor(ExecutorService, long, TimeUnit, boolean)}),
+ * so that element registration and expiration are O(1) operations and the
+ * check thread touches only elements, which are actually due.
+ * Please note, in timing-wheel mode the timeout, which becomes earlier without
+ * calling {@link DelayQueue#add(Object, long, TimeUnit)}, has to be reported
+ * via {@link DelayQueue#reschedule(Object)}, otherwise it will be noticed only
+ * once the previously registered timeout expires.
+ *
  * @author Alexey Stashok
  */
 public class DelayedExecutor {
@@ -44,18 +56,41 @@ public class DelayedExecutor {
 
     private final long checkIntervalMillis;
 
+    private final TimingWheel timingWheel;
+
     public DelayedExecutor(final ExecutorService threadPool) {
         this(threadPool, 1000, TimeUnit.MILLISECONDS);
     }
 
     public DelayedExecutor(final ExecutorService threadPool,
             final long checkInterval, final TimeUnit timeunit) {
+        this(threadPool, checkInterval, timeunit, false);
+    }
+
+    /**
+     * Constructs the <tt>DelayedExecutor</tt>.
+     *
+     * @param threadPool the {@link ExecutorService} to run the check thread on
+     * @param checkInterval the interval between the checks, in timing-wheel
+     *          mode it's the duration of one timing-wheel tick
+     * @param timeunit the check interval {@link TimeUnit}
+     * @param useTimingWheel <tt>true</tt>, if the registered elements have to
+     *          be tracked by the hierarchical hashed timing wheel, or
+     *          <tt>false</tt>, if all the registered elements have to be
+     *          scanned once per check interval
+     */
+    public DelayedExecutor(final ExecutorService threadPool,
+            final long checkInterval, final TimeUnit timeunit,
+            final boolean useTimingWheel) {
         if (checkInterval < 0) {
             throw new IllegalArgumentException("check interval can't be negative");
         }
         
         this.threadPool = threadPool;
         this.checkIntervalMillis = TimeUnit.MILLISECONDS.convert(checkInterval, timeunit);
+        this.timingWheel = useTimingWheel
+                ? new TimingWheel(checkIntervalMillis, System.currentTimeMillis())
+                : null;
     }
 
     public void start() {
@@ -79,6 +114,9 @@ public class DelayedExecutor {
     public void destroy() {
         stop();
         synchronized(sync) {
+            for (final DelayQueue delayQueue : queues) {
+                delayQueue.isDestroyed = true;
+            }
             queues.clear();
         }
     }
@@ -88,6 +126,15 @@ public class DelayedExecutor {
         return threadPool;
     }
 
+    /**
+     * @return <tt>true</tt>, if the registered elements are tracked by the
+     *          hierarchical hashed timing wheel, or <tt>false</tt> if all
+     *          the elements are scanned once per check interval
+     */
+    public boolean isTimingWheel() {
+        return timingWheel != null;
+    }
+
     public <E> DelayQueue<E> createDelayQueue(final Worker<E> worker,
             final Resolver<E> resolver) {
         
@@ -104,42 +151,15 @@ public class DelayedExecutor {
 
     private class DelayedRunnable implements Runnable {
 
-        @SuppressWarnings("unchecked")
         @Override
         public void run() {
             while(isStarted) {
                 final long currentTimeMillis = System.currentTimeMillis();
                 
-                for (final DelayQueue delayQueue : queues) {
-                    if (delayQueue.queue.isEmpty()) continue;
-                    
-                    final Resolver resolver = delayQueue.resolver;
-
-                    for (Iterator it = delayQueue.queue.keySet().iterator(); it.hasNext(); ) {
-                        final Object element = it.next();
-                        final long timeoutMillis = resolver.getTimeoutMillis(element);
-                        
-                        if (timeoutMillis == UNSET_TIMEOUT) {
-                            it.remove();
-                            if (wasModified(timeoutMillis,
-                                    resolver.getTimeoutMillis(element))) {                                
-                                delayQueue.queue.put(element, delayQueue);
-                            }
-                        } else if (currentTimeMillis - timeoutMillis >= 0) {
-                            it.remove();
-                            if (wasModified(timeoutMillis,
-                                    resolver.getTimeoutMillis(element))) {
-                                delayQueue.queue.put(element, delayQueue);
-                            } else {
-                                try {
-                                    if (!delayQueue.worker.doWork(element)) {
-                                        delayQueue.queue.put(element, delayQueue);
-                                    }
-                                } catch (Exception ignored) {
-                                }
-                            }
-                        }
-                    }
+                if (timingWheel != null) {
+                    timingWheel.advance(currentTimeMillis);
+                } else {
+                    scan(currentTimeMillis);
                 }
 
                 synchronized(sync) {
@@ -152,35 +172,200 @@ public class DelayedExecutor {
                 }
             }
         }
+
+        @SuppressWarnings("unchecked")
+        private void scan(final long currentTimeMillis) {
+            for (final DelayQueue delayQueue : queues) {
+                if (delayQueue.queue.isEmpty()) continue;
+                
+                final Resolver resolver = delayQueue.resolver;
+
+                for (Iterator it = delayQueue.queue.keySet().iterator(); it.hasNext(); ) {
+                    final Object element = it.next();
+                    final long timeoutMillis = resolver.getTimeoutMillis(element);
+                    
+                    if (timeoutMillis == UNSET_TIMEOUT) {
+                        it.remove();
+                        if (wasModified(timeoutMillis,
+                                resolver.getTimeoutMillis(element))) {                                
+                            delayQueue.queue.put(element, delayQueue);
+                        }
+                    } else if (currentTimeMillis - timeoutMillis >= 0) {
+                        it.remove();
+                        if (wasModified(timeoutMillis,
+                                resolver.getTimeoutMillis(element))) {
+                            delayQueue.queue.put(element, delayQueue);
+                        } else {
+                            try {
+                                if (!delayQueue.worker.doWork(element)) {
+                                    delayQueue.queue.put(element, delayQueue);
+                                }
+                            } catch (Exception ignored) {
+                            }
+                        }
+                    }
+                }
+            }
+        }
     }
 
     public class DelayQueue<E> {
         final ConcurrentMap<E, DelayQueue> queue = new ConcurrentHashMap<>();
 
+        // the element -> timing-wheel entry map (used in timing-wheel mode only)
+        final ConcurrentMap<E, WheelEntry> entries;
+
         final Worker<E> worker;
         final Resolver<E> resolver;
 
+        volatile boolean isDestroyed;
+
         public DelayQueue(final Worker<E> worker, final Resolver<E> resolver) {
             this.worker = worker;
             this.resolver = resolver;
+            this.entries = timingWheel != null
+                    ? new ConcurrentHashMap<E, WheelEntry>()
+                    : null;
         }
 
         public void add(final E elem, final long delay, final TimeUnit timeUnit) {
             if (delay >= 0) {
                 final long delayWithSysTime =
                         System.currentTimeMillis() + TimeUnit.MILLISECONDS.convert(delay, timeUnit);
-                resolver.setTimeoutMillis(elem, ((delayWithSysTime < 0) ? Long.MAX_VALUE : delayWithSysTime));
-                queue.put(elem, this);
+                final long timeoutMillis = (delayWithSysTime < 0) ? Long.MAX_VALUE : delayWithSysTime;
+                resolver.setTimeoutMillis(elem, timeoutMillis);
+                if (timingWheel != null) {
+                    timingWheel.schedule(obtainEntry(elem), timeoutMillis);
+                } else {
+                    queue.put(elem, this);
+                }
             }
         }
 
         public void remove(final E elem) {
             resolver.removeTimeout(elem);
+            if (timingWheel != null) {
+                final WheelEntry entry = entries.get(elem);
+                if (entry != null) {
+                    timingWheel.submit(entry);
+                }
+            }
+        }
+
+        /**
+         * Notifies the queue, that the element timeout, returned by the
+         * {@link Resolver}, might have become earlier, even though
+         * {@link #add(Object, long, TimeUnit)} wasn't called.
+         * The notification is required only if the {@link DelayedExecutor}
+         * works in timing-wheel mode, otherwise the method does nothing.
+         *
+         * @param elem the element, whose timeout has been changed
+         */
+        public void reschedule(final E elem) {
+            if (timingWheel != null) {
+                final WheelEntry entry = entries.get(elem);
+                if (entry != null) {
+                    timingWheel.schedule(entry, resolver.getTimeoutMillis(elem));
+                }
+            }
         }
 
         public void destroy() {
+            isDestroyed = true;
             queues.remove(this);
         }
+
+        private WheelEntry obtainEntry(final E elem) {
+            WheelEntry entry = entries.get(elem);
+            if (entry == null) {
+                final WheelEntry newEntry = new WheelEntry(elem);
+                entry = entries.putIfAbsent(elem, newEntry);
+                if (entry == null) {
+                    entry = newEntry;
+                }
+            }
+
+            return entry;
+        }
+
+        /**
+         * The {@link TimingWheel} entry, which represents the element
+         * registered on this queue.
+         */
+        final class WheelEntry extends TimingWheel.Entry {
+            private final E element;
+
+            // true, if the entry has been removed from the entries map
+            // (accessed by the timer thread only)
+            private boolean isDetached;
+
+            WheelEntry(final E element) {
+                this.element = element;
+            }
+
+            @Override
+            long expire(final long nowMillis) {
+                if (isDestroyed) {
+                    return UNSET_TIMEOUT;
+                }
+
+                if (isDetached) {
+                    // the detached entry was re-submitted by the thread,
+                    // which obtained it before it had been detached
+                    final WheelEntry current = entries.putIfAbsent(element, this);
+                    if (current != null && current != this) {
+                        return UNSET_TIMEOUT;
+                    }
+
+                    isDetached = false;
+                }
+
+                final long timeoutMillis = resolver.getTimeoutMillis(element);
+
+                if (timeoutMillis == UNSET_TIMEOUT) {
+                    return detach(timeoutMillis);
+                } else if (nowMillis - timeoutMillis < 0) {
+                    return timeoutMillis;
+                }
+
+                final long actualTimeoutMillis = resolver.getTimeoutMillis(element);
+                if (wasModified(timeoutMillis, actualTimeoutMillis)) {
+                    return actualTimeoutMillis != UNSET_TIMEOUT
+                            ? actualTimeoutMillis
+                            : detach(actualTimeoutMillis);
+                }
+
+                try {
+                    if (worker.doWork(element)) {
+                        return detach(timeoutMillis);
+                    }
+                } catch (Exception ignored) {
+                    return detach(timeoutMillis);
+                }
+
+                // the element has to be re-registered
+                final long newTimeoutMillis = resolver.getTimeoutMillis(element);
+                return newTimeoutMillis != UNSET_TIMEOUT
+                        ? newTimeoutMillis
+                        : detach(newTimeoutMillis);
+            }
+
+            private long detach(final long observedTimeoutMillis) {
+                entries.remove(element, this);
+                isDetached = true;
+
+                // check if the element has been re-registered concurrently
+                final long timeoutMillis = resolver.getTimeoutMillis(element);
+                if (timeoutMillis != UNSET_TIMEOUT
+                        && wasModified(observedTimeoutMillis, timeoutMillis)
+                        && entries.putIfAbsent(element, this) == null) {
+                    isDetached = false;
+                    return timeoutMillis;
+                }
+
+                return UNSET_TIMEOUT;
+            }
+        }
     }
 
     public interface Worker<E> {
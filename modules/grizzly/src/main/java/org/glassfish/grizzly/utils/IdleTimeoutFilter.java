@@ -176,6 +176,24 @@ public class IdleTimeoutFilter extends BaseFilter {
     public static DelayedExecutor createDefaultIdleDelayedExecutor(final long checkInterval,
                                                                    final TimeUnit checkIntervalUnit) {
 
+        return createDefaultIdleDelayedExecutor(checkInterval, checkIntervalUnit, false);
+
+    }
+
+    /**
+     * Creates the {@link DelayedExecutor} to be used by the <tt>IdleTimeoutFilter</tt>.
+     *
+     * @param checkInterval the interval between the idle checks
+     * @param checkIntervalUnit the check interval {@link TimeUnit}
+     * @param useTimingWheel <tt>true</tt>, if the {@link DelayedExecutor}
+     *          has to track timeouts using the hashed timing wheel
+     * @return the {@link DelayedExecutor}
+     */
+    @SuppressWarnings({"UnusedDeclaration"})
+    public static DelayedExecutor createDefaultIdleDelayedExecutor(final long checkInterval,
+                                                                   final TimeUnit checkIntervalUnit,
+                                                                   final boolean useTimingWheel) {
+
         final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
 
             @Override
@@ -192,7 +210,8 @@ public class IdleTimeoutFilter extends BaseFilter {
                                        : 1000L),
                                    ((checkIntervalUnit != null)
                                        ? checkIntervalUnit
-                                       : TimeUnit.MILLISECONDS));
+                                       : TimeUnit.MILLISECONDS),
+                                   useTimingWheel);
 
     }
 
@@ -274,8 +293,10 @@ public class IdleTimeoutFilter extends BaseFilter {
                             System.currentTimeMillis() + timeout;
                 }
 
-                IdleRecord.timeoutMillisUpdater.compareAndSet(
-                        idleRecord, FOREVER_SPECIAL, timeoutToSet);
+                if (IdleRecord.timeoutMillisUpdater.compareAndSet(
+                        idleRecord, FOREVER_SPECIAL, timeoutToSet)) {
+                    queue.reschedule(connection);
+                }
             }
         }
     } // END ContextCompletionListener
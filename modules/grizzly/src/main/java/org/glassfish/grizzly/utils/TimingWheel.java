@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Hierarchical hashed timing wheel, which backs {@link DelayedExecutor} when
+ * it's created in timing-wheel mode.
+ *
+ * The wheel consists of {@link #LEVELS} levels of {@link #SLOTS} slots each,
+ * the first level slot represents one tick, every next level slot represents
+ * all the slots of the previous level. Entries are placed into a slot according
+ * to their deadline, so on every tick the timer thread only touches the slot,
+ * which is due, and (once per previous level rotation) cascades one upper level
+ * slot down to the lower levels.
+ *
+ * All the wheel state is confined to the timer thread, other threads only
+ * submit {@link Entry}s, whose deadline became earlier than the one the entry
+ * is currently scheduled for, via lock-free inbox queue. Deadlines, which
+ * became later, are picked up lazily: once the entry is due, its actual
+ * timeout is re-evaluated and the entry gets re-scheduled if needed.
+ *
+ * @author Alexey Stashok
+ */
+final class TimingWheel {
+    private static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    static final int LEVELS = 4;
+
+    // the max distance (in ticks) between the current tick and the entry deadline
+    private static final long MAX_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final long tickMillis;
+    private final long startMillis;
+
+    private final Entry[][] wheel = new Entry[LEVELS][SLOTS];
+
+    private final Queue<Entry> inbox = new ConcurrentLinkedQueue<Entry>();
+
+    // the last processed tick (accessed by the timer thread only)
+    private long currentTick;
+
+    // the list of entries, which are due and have to be processed
+    // on the current tick (accessed by the timer thread only)
+    private Entry expired;
+
+    TimingWheel(final long tickMillis, final long startMillis) {
+        this.tickMillis = Math.max(1, tickMillis);
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * Makes sure the entry will be checked no later than the given deadline.
+     * The method could be called by any thread.
+     *
+     * @param entry the {@link Entry} to be scheduled
+     * @param deadlineMillis the deadline in milliseconds
+     */
+    void schedule(final Entry entry, final long deadlineMillis) {
+        if (deadlineMillis < entry.scheduledMillis) {
+            submit(entry);
+        }
+    }
+
+    /**
+     * Makes sure the entry will be re-checked on the next tick.
+     * The method could be called by any thread.
+     *
+     * @param entry the {@link Entry} to be re-checked
+     */
+    void submit(final Entry entry) {
+        if (Entry.pendingUpdater.compareAndSet(entry, 0, 1)) {
+            inbox.offer(entry);
+        }
+    }
+
+    /**
+     * Advances the wheel up to the given time and processes all the entries,
+     * which are due. The method has to be called by the timer thread only.
+     *
+     * @param nowMillis the current time in milliseconds
+     */
+    void advance(final long nowMillis) {
+        final long targetTick = toTick(nowMillis);
+
+        drainInbox();
+
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            for (int level = 1; level < LEVELS; level++) {
+                final int shift = SLOT_BITS * level;
+                if ((currentTick & ((1L << shift) - 1)) != 0) {
+                    break;
+                }
+
+                cascade(level, (int) ((currentTick >>> shift) & SLOT_MASK));
+            }
+
+            final int slot = (int) (currentTick & SLOT_MASK);
+            Entry entry = wheel[0][slot];
+            wheel[0][slot] = null;
+            while (entry != null) {
+                final Entry next = entry.next;
+                entry.unlinked();
+                entry.next = expired;
+                expired = entry;
+                entry = next;
+            }
+
+            processExpired(nowMillis);
+        }
+
+        processExpired(nowMillis);
+    }
+
+    private void drainInbox() {
+        Entry entry;
+        while ((entry = inbox.poll()) != null) {
+            entry.pending = 0;
+            unlink(entry);
+            entry.next = expired;
+            expired = entry;
+        }
+    }
+
+    private void processExpired(final long nowMillis) {
+        while (expired != null) {
+            final Entry entry = expired;
+            expired = entry.next;
+            entry.next = null;
+
+            // mark the entry as being processed, so any concurrent deadline
+            // change will be submitted to the inbox
+            entry.scheduledMillis = Long.MAX_VALUE;
+
+            final long deadlineMillis = entry.expire(nowMillis);
+            if (deadlineMillis != DelayedExecutor.UNSET_TIMEOUT) {
+                place(entry, deadlineMillis);
+            }
+        }
+    }
+
+    private void cascade(final int level, final int slot) {
+        Entry entry = wheel[level][slot];
+        wheel[level][slot] = null;
+
+        while (entry != null) {
+            final Entry next = entry.next;
+            entry.unlinked();
+            if (entry.deadlineTick <= currentTick) {
+                entry.next = expired;
+                expired = entry;
+            } else {
+                link(entry, entry.deadlineTick);
+            }
+            entry = next;
+        }
+    }
+
+    private void place(final Entry entry, final long deadlineMillis) {
+        long deadlineTick = toDeadlineTick(deadlineMillis);
+        if (deadlineTick - currentTick > MAX_TICKS) {
+            // the entry will be re-evaluated, once the wheel horizon is reached
+            deadlineTick = currentTick + MAX_TICKS;
+        }
+
+        entry.scheduledMillis = deadlineTick <= currentTick
+                ? deadlineMillis
+                : startMillis + deadlineTick * tickMillis;
+        link(entry, deadlineTick);
+    }
+
+    private void link(final Entry entry, final long deadlineTick) {
+        entry.deadlineTick = deadlineTick;
+
+        final long delta = deadlineTick - currentTick;
+        if (delta <= 0) {
+            // the entry is already due, but it'll be processed on the next tick
+            // to avoid spinning on entries, which were not processed by the worker
+            final int slot = (int) ((currentTick + 1) & SLOT_MASK);
+            entry.deadlineTick = currentTick + 1;
+            addToSlot(entry, 0, slot);
+            return;
+        }
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+
+        final int slot = (int) ((deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        addToSlot(entry, level, slot);
+    }
+
+    private void addToSlot(final Entry entry, final int level, final int slot) {
+        final Entry head = wheel[level][slot];
+        entry.level = level;
+        entry.slot = slot;
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+
+        wheel[level][slot] = entry;
+    }
+
+    private void unlink(final Entry entry) {
+        if (entry.level == -1) {
+            return;
+        }
+
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            wheel[entry.level][entry.slot] = entry.next;
+        }
+
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+
+        entry.unlinked();
+    }
+
+    private long toTick(final long timeMillis) {
+        return timeMillis <= startMillis
+                ? 0
+                : (timeMillis - startMillis) / tickMillis;
+    }
+
+    private long toDeadlineTick(final long deadlineMillis) {
+        if (deadlineMillis <= startMillis) {
+            return 0;
+        }
+
+        final long diff = deadlineMillis - startMillis;
+        return diff / tickMillis + (diff % tickMillis != 0 ? 1 : 0);
+    }
+
+    /**
+     * The element registered on the {@link TimingWheel}.
+     */
+    abstract static class Entry {
+        private static final AtomicIntegerFieldUpdater<Entry> pendingUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(Entry.class, "pending");
+
+        // 1, if the entry is in the inbox, or 0 otherwise
+        private volatile int pending;
+
+        // the time the entry is going to be checked at
+        private volatile long scheduledMillis = Long.MAX_VALUE;
+
+        // the fields below are accessed by the timer thread only
+        private long deadlineTick;
+        private int level = -1;
+        private int slot;
+        private Entry prev;
+        private Entry next;
+
+        /**
+         * Called by the timer thread once the entry is due.
+         *
+         * @param nowMillis the current time in milliseconds
+         * @return the new deadline, if the entry has to be kept on the wheel,
+         *          or {@link DelayedExecutor#UNSET_TIMEOUT} otherwise
+         */
+        abstract long expire(long nowMillis);
+
+        private void unlinked() {
+            level = -1;
+            prev = null;
+            next = null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.threadpool;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to the JDK virtual threads.
+ *
+ * The JDK 21+ implementation, which is packaged in the multi-release JAR
+ * under <tt>META-INF/versions/21</tt>.
+ *
+ * @since 2.4.4
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return <tt>true</tt>, if the running JDK supports virtual threads
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * @param thread the {@link Thread} to check
+     * @return <tt>true</tt>, if the {@link Thread} is a virtual thread
+     */
+    public static boolean isVirtual(final Thread thread) {
+        return thread.isVirtual();
+    }
+
+    /**
+     * Creates a {@link ThreadFactory}, which creates virtual threads.
+     *
+     * @param namePrefix the prefix of the created threads' names
+     * @return the {@link ThreadFactory}, which creates virtual threads
+     */
+    public static ThreadFactory newThreadFactory(final String namePrefix) {
+        return Thread.ofVirtual().name(namePrefix, 1).factory();
+    }
+}
@@ -87,15 +87,13 @@ public class GZipTest {
 
     @Test
     public void testLargeEcho() throws Exception {
-        final int len = 1024 * 256;
-        StringBuilder sb = new StringBuilder(len);
-        String a = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ1234567890";
-        int totalLen = a.length() - 1;
-        Random r = new Random(System.currentTimeMillis());
-        for (int i = 0; i < len; i++) {
-            sb.append(a.charAt(r.nextInt(totalLen)));
-        }
-        doTest(sb.toString());
+        doTest(largeMessage());
+    }
+
+    @Test
+    public void testLargeEchoWithReadBudget() throws Exception {
+        // the server passes several reads to the GZipFilter as one composite buffer
+        doTest(false, 8, largeMessage());
     }
 
     @Test
@@ -118,6 +116,11 @@ public class GZipTest {
     }
 
     void doTest(boolean applyChunking, String... messages) throws Exception {
+        doTest(applyChunking, TCPNIOTransport.DEFAULT_MAX_READS_PER_EVENT, messages);
+    }
+
+    void doTest(boolean applyChunking, int maxReadsPerEvent, String... messages)
+            throws Exception {
         Connection connection = null;
 
         FilterChainBuilder serverChainBuilder = FilterChainBuilder.stateless();
@@ -131,7 +134,9 @@ public class GZipTest {
         serverChainBuilder.add(new StringFilter());
         serverChainBuilder.add(new EchoFilter());
 
-        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .setMaxReadsPerEvent(maxReadsPerEvent)
+                .build();
         transport.setProcessor(serverChainBuilder.build());
         transport.setMemoryManager(manager);
         transport.getAsyncQueueIO().getWriter().setMaxPendingBytesPerConnection(-1);
@@ -165,6 +170,18 @@ public class GZipTest {
         }
     }
 
+    private static String largeMessage() {
+        final int len = 1024 * 256;
+        StringBuilder sb = new StringBuilder(len);
+        String a = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ1234567890";
+        int totalLen = a.length() - 1;
+        Random r = new Random(System.currentTimeMillis());
+        for (int i = 0; i < len; i++) {
+            sb.append(a.charAt(r.nextInt(totalLen)));
+        }
+        return sb.toString();
+    }
+
     private static final class ClientEchoCheckFilter extends BaseFilter {
         private final String[] messages;
         private final FutureImpl<Boolean> future;
@@ -23,7 +23,13 @@ import java.util.LinkedList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.glassfish.grizzly.memory.HeapMemoryManager;
 import org.glassfish.grizzly.threadpool.ThreadPoolProbe;
+import org.glassfish.grizzly.threadpool.VirtualThreadPool;
+import org.glassfish.grizzly.threadpool.VirtualThreads;
+import org.glassfish.grizzly.threadpool.WorkerScope;
 import org.glassfish.grizzly.utils.DelayedExecutor;
 
 /**
@@ -166,6 +172,127 @@ public class GrizzlyExecutorServiceTest extends GrizzlyTestCase {
         assertFalse(tpc2.getInitialMonitoringConfig().getProbes().length == 0);
     }
     
+    public void testVirtualThreadPool() throws Exception {
+        final int maxRunning = 4;
+        // platform threads, so the test runs on any JDK
+        final ThreadPoolConfig cfg = ThreadPoolConfig.defaultConfig()
+                .setPoolName("test")
+                .setCorePoolSize(2).setMaxPoolSize(maxRunning)
+                .setThreadFactory(Executors.defaultThreadFactory())
+                .setMemoryManager(new HeapMemoryManager())
+                .setVirtualThreads(true);
+
+        final VirtualThreadPool pool = new VirtualThreadPool(cfg);
+        final int tasks = 2000;
+        final CountDownLatch cl = new CountDownLatch(tasks);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxObservedRunning = new AtomicInteger();
+        final AtomicInteger unscoped = new AtomicInteger();
+        for (int i = 0; i < tasks; i++) {
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final int r = running.incrementAndGet();
+                    int max;
+                    while (r > (max = maxObservedRunning.get())
+                            && !maxObservedRunning.compareAndSet(max, r)) {
+                    }
+
+                    final WorkerScope scope = WorkerScope.current();
+                    if (scope == null || scope.getMemoryPool() == null) {
+                        unscoped.incrementAndGet();
+                    }
+                    running.decrementAndGet();
+                    cl.countDown();
+                }
+            });
+        }
+
+        assertTrue("latch timed out", cl.await(30, TimeUnit.SECONDS));
+        assertEquals(0, unscoped.get());
+        assertTrue(maxObservedRunning.get() <= maxRunning);
+
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(pool.getIdleScopesCount() > 0);
+        assertTrue(pool.getIdleScopesCount() <= 2);
+    }
+
+    public void testVirtualThreadPoolReusesScopes() throws Exception {
+        final ThreadCache.CachedTypeIndex<Object> CACHE_IDX =
+                ThreadCache.obtainIndex("testVirtualThreadPool", Object.class, 1);
+        final ThreadPoolConfig cfg = ThreadPoolConfig.defaultConfig()
+                .setCorePoolSize(1).setMaxPoolSize(1)
+                .setThreadFactory(Executors.defaultThreadFactory())
+                .setVirtualThreads(true);
+
+        final VirtualThreadPool pool = new VirtualThreadPool(cfg);
+        final Object cached = new Object();
+        final AtomicReference<Object> taken = new AtomicReference<Object>();
+
+        final CountDownLatch cl1 = new CountDownLatch(1);
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                ThreadCache.putToCache(CACHE_IDX, cached);
+                cl1.countDown();
+            }
+        });
+        assertTrue(cl1.await(10, TimeUnit.SECONDS));
+
+        // wait for the first worker to return its scope
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (pool.getIdleScopesCount() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        // the next task runs in a new thread, but in the same scope
+        final CountDownLatch cl2 = new CountDownLatch(1);
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                taken.set(ThreadCache.takeFromCache(CACHE_IDX));
+                cl2.countDown();
+            }
+        });
+        assertTrue(cl2.await(10, TimeUnit.SECONDS));
+        assertSame(cached, taken.get());
+
+        pool.shutdownNow();
+    }
+
+    public void testVirtualThreadsOption() throws Exception {
+        final ThreadPoolConfig cfg = ThreadPoolConfig.defaultConfig()
+                .setVirtualThreads(true);
+        assertTrue(cfg.copy().isVirtualThreads());
+
+        if (!VirtualThreads.isSupported()) {
+            try {
+                GrizzlyExecutorService.createInstance(cfg);
+                fail("virtual threads are not supported by the JDK");
+            } catch (IllegalStateException expected) {
+            }
+            return;
+        }
+
+        final GrizzlyExecutorService r = GrizzlyExecutorService.createInstance(cfg);
+        final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+        final CountDownLatch cl = new CountDownLatch(1);
+        r.execute(new Runnable() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread());
+                cl.countDown();
+            }
+        });
+
+        assertTrue(cl.await(10, TimeUnit.SECONDS));
+        assertTrue(VirtualThreads.isVirtual(thread.get()));
+        r.shutdown();
+        assertTrue(r.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
     public void testThreadPoolConfig() throws Exception {
         ThreadPoolConfig defaultThreadPool = ThreadPoolConfig.defaultConfig();
         assertNotNull(defaultThreadPool);
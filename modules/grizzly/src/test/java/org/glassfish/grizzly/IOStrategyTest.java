@@ -32,8 +32,10 @@ import org.glassfish.grizzly.filterchain.FilterChainBuilder;
 import org.junit.Test;
 import org.junit.Before;
 import org.junit.runners.Parameterized.Parameters;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -42,7 +44,9 @@ import org.glassfish.grizzly.filterchain.BaseFilter;
 import org.glassfish.grizzly.strategies.LeaderFollowerNIOStrategy;
 import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
 import org.glassfish.grizzly.strategies.SimpleDynamicNIOStrategy;
+import org.glassfish.grizzly.strategies.VirtualThreadIOStrategy;
 import org.glassfish.grizzly.strategies.WorkerThreadIOStrategy;
+import org.glassfish.grizzly.threadpool.VirtualThreads;
 import org.glassfish.grizzly.utils.Charsets;
 import org.glassfish.grizzly.utils.StringFilter;
 import org.junit.runners.Parameterized;
@@ -64,13 +68,20 @@ public class IOStrategyTest {
     
     @Parameters
     public static Collection<Object[]> getIOStrategy() {
-        return Arrays.asList(new Object[][]{
+        final List<Object[]> strategies = new ArrayList<Object[]>(
+                Arrays.asList(new Object[][]{
                     {WorkerThreadIOStrategy.getInstance()},
                     {LeaderFollowerNIOStrategy.getInstance()},
                     {SameThreadIOStrategy.getInstance()},
                     {SimpleDynamicNIOStrategy.getInstance()}
         }
-                );
+                ));
+
+        if (VirtualThreads.isSupported()) {
+            strategies.add(new Object[]{VirtualThreadIOStrategy.getInstance()});
+        }
+
+        return strategies;
     }
 
     @Before
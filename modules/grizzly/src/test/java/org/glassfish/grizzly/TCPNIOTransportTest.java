@@ -40,7 +40,9 @@ import org.glassfish.grizzly.filterchain.NextAction;
 import org.glassfish.grizzly.filterchain.TransportFilter;
 import org.glassfish.grizzly.impl.FutureImpl;
 import org.glassfish.grizzly.impl.SafeFutureImpl;
+import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.ByteBufferWrapper;
+import org.glassfish.grizzly.memory.PooledMemoryManager;
 import org.glassfish.grizzly.nio.AbstractNIOConnectionDistributor;
 import org.glassfish.grizzly.nio.NIOConnection;
 import org.glassfish.grizzly.nio.NIOTransport;
@@ -563,6 +565,174 @@ public class TCPNIOTransportTest {
 
         }
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAdaptiveReadIntoPooledBuffers() throws Exception {
+        final int size = 1024 * 1024;
+        final byte[] payload = new byte[size];
+        for (int i = 0; i < size; i++) {
+            payload[i] = (byte) i;
+        }
+
+        FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(new EchoFilter());
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .setMemoryManager(new PooledMemoryManager(true))
+                .setAdaptiveReadBufferSize(true)
+                .setReadIntoPooledBuffers(true)
+                .build();
+        transport.setProcessor(filterChainBuilder.build());
+
+        final FutureImpl<byte[]> resultFuture = SafeFutureImpl.create();
+        FilterChainBuilder clientFilterChainBuilder = FilterChainBuilder.stateless();
+        clientFilterChainBuilder.add(new TransportFilter());
+        clientFilterChainBuilder.add(new BaseFilter() {
+            private final byte[] received = new byte[size];
+            private int offset;
+
+            @Override
+            public NextAction handleRead(final FilterChainContext ctx)
+                    throws IOException {
+                final Buffer buffer = ctx.getMessage();
+                final int remaining = buffer.remaining();
+                buffer.get(received, offset, remaining);
+                buffer.tryDispose();
+                offset += remaining;
+                if (offset == size) {
+                    resultFuture.result(received);
+                }
+
+                return ctx.getStopAction();
+            }
+        });
+
+        Connection connection = null;
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            SocketConnectorHandler connectorHandler = TCPNIOConnectorHandler
+                    .builder(transport)
+                    .processor(clientFilterChainBuilder.build())
+                    .build();
+            Future<Connection> future = connectorHandler.connect("localhost", PORT);
+            connection = future.get(10, TimeUnit.SECONDS);
+            assertNotNull(connection);
+
+            connection.write(Buffers.wrap(transport.getMemoryManager(), payload));
+
+            assertTrue(Arrays.equals(payload,
+                    resultFuture.get(30, TimeUnit.SECONDS)));
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReadBudget() throws Exception {
+        assertTrue(countReadsPerEvent(16) > 1);
+        assertEquals(1, countReadsPerEvent(1), 0);
+    }
+
+    /**
+     * Sends 64K to the server, which doesn't process the first message until
+     * the client is done writing, and returns the average number of reads
+     * per server-side read event.
+     */
+    @SuppressWarnings("unchecked")
+    private double countReadsPerEvent(final int maxReadsPerEvent)
+            throws Exception {
+        final int size = 64 * 1024;
+        final AtomicInteger readyEvents = new AtomicInteger();
+        final AtomicInteger reads = new AtomicInteger();
+        final FutureImpl<Boolean> writeFuture = SafeFutureImpl.create();
+        final FutureImpl<Integer> receivedFuture = SafeFutureImpl.create();
+
+        FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(new BaseFilter() {
+            private int received;
+
+            @Override
+            public NextAction handleRead(final FilterChainContext ctx)
+                    throws IOException {
+                try {
+                    writeFuture.get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+
+                final Buffer buffer = ctx.getMessage();
+                received += buffer.remaining();
+                buffer.tryDispose();
+                if (received == size) {
+                    receivedFuture.result(received);
+                }
+
+                return ctx.getStopAction();
+            }
+        });
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .setIOStrategy(SameThreadIOStrategy.getInstance())
+                .setAdaptiveReadBufferSize(true)
+                .setMaxReadsPerEvent(maxReadsPerEvent)
+                .build();
+        transport.setProcessor(filterChainBuilder.build());
+        transport.getConnectionMonitoringConfig().addProbes(
+                new ConnectionProbe.Adapter() {
+            @Override
+            public void onIOEventReadyEvent(final Connection connection,
+                    final IOEvent ioEvent) {
+                if (ioEvent == IOEvent.READ) {
+                    readyEvents.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void onReadEvent(final Connection connection,
+                    final Buffer data, final int size) {
+                reads.incrementAndGet();
+            }
+        });
+
+        TCPNIOTransport clientTransport =
+                TCPNIOTransportBuilder.newInstance().build();
+        Connection connection = null;
+        try {
+            transport.bind(PORT);
+            transport.start();
+            clientTransport.start();
+
+            connection = clientTransport.connect("localhost", PORT)
+                    .get(10, TimeUnit.SECONDS);
+            connection.write(Buffers.wrap(clientTransport.getMemoryManager(),
+                    new byte[size]), new EmptyCompletionHandler<WriteResult>() {
+                        @Override
+                        public void completed(final WriteResult result) {
+                            writeFuture.result(Boolean.TRUE);
+                        }
+                    });
+
+            assertEquals(size, (int) receivedFuture.get(10, TimeUnit.SECONDS));
+
+            return (double) reads.get() / readyEvents.get();
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            clientTransport.shutdownNow();
+            transport.shutdownNow();
+        }
+    }
     
     
     // ---------------------------------------------------------- Nested Classes
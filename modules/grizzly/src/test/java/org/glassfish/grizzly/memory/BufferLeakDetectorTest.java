@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.memory;
+
+import org.glassfish.grizzly.Buffer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Parameterized.class)
+public class BufferLeakDetectorTest extends AbstractMemoryManagerTest {
+
+    private final BufferLeakDetector leakDetector;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    public BufferLeakDetectorTest(int mmType) {
+        super(mmType);
+        leakDetector = mm instanceof PooledMemoryManager
+                ? ((PooledMemoryManager) mm).getLeakDetector()
+                : ((AbstractMemoryManager) mm).getLeakDetector();
+    }
+
+
+    // ------------------------------------------------------------ Test Methods
+
+
+    @Test
+    public void testOffModeDoesNotTrack() {
+        leakDetector.setMode(BufferLeakDetector.Mode.OFF);
+
+        final Buffer b = mm.allocate(100);
+        assertEquals(0, leakDetector.getTrackedCount());
+        b.dispose();
+    }
+
+    @Test
+    public void testDisposedBuffersAreNotTracked() {
+        leakDetector.setMode(BufferLeakDetector.Mode.PARANOID);
+
+        final Buffer[] buffers = new Buffer[16];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = mm.allocate(100 * (i + 1));
+        }
+        assertEquals(buffers.length, leakDetector.getTrackedCount());
+
+        for (Buffer buffer : buffers) {
+            buffer.toByteBuffer();
+            buffer.dispose();
+        }
+        assertEquals(0, leakDetector.getTrackedCount());
+        assertEquals(0, leakDetector.getLeaksCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReallocatedBufferIsRetracked() {
+        leakDetector.setMode(BufferLeakDetector.Mode.PARANOID);
+
+        Buffer b = mm.allocate(16);
+        b = mm.reallocate(b, 1024);
+        assertEquals(1, leakDetector.getTrackedCount());
+
+        b.dispose();
+        assertEquals(0, leakDetector.getTrackedCount());
+    }
+
+    @Test
+    public void testSampledMode() {
+        leakDetector.setMode(BufferLeakDetector.Mode.SAMPLED);
+        leakDetector.setSamplingInterval(1);
+
+        final Buffer b = mm.allocate(100);
+        assertEquals(1, leakDetector.getTrackedCount());
+        b.dispose();
+        assertEquals(0, leakDetector.getTrackedCount());
+    }
+
+    @Test
+    public void testLeakIsReported() throws Exception {
+        leakDetector.setMode(BufferLeakDetector.Mode.PARANOID);
+
+        allocateAndLeak();
+        assertEquals(1, leakDetector.getTrackedCount());
+
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (leakDetector.getLeaksCount() == 0
+                && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(50);
+            leakDetector.reportLeaks();
+        }
+
+        assertEquals(1, leakDetector.getLeaksCount());
+        assertEquals(0, leakDetector.getTrackedCount());
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private void allocateAndLeak() {
+        final Buffer b = mm.allocate(100);
+        BufferLeakDetector.touch(b, "leaked by the test");
+        assertTrue(b.hasRemaining());
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.memory;
+
+import org.glassfish.grizzly.Buffer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Parameterized.class)
+public class BufferReferenceCountTest extends AbstractMemoryManagerTest {
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    public BufferReferenceCountTest(int mmType) {
+        super(mmType);
+    }
+
+
+    // ------------------------------------------------------------ Test Methods
+
+
+    @Test
+    public void testRetainAndRelease() {
+        final Buffer b = allocate(100);
+        assertEquals(1, b.referenceCount());
+
+        b.retain().retain();
+        assertEquals(3, b.referenceCount());
+
+        assertFalse(b.tryDispose());
+        assertFalse(b.release());
+        assertEquals(1, b.referenceCount());
+        assertFalse(isDisposed(b));
+
+        assertTrue(b.tryDispose());
+        assertTrue(isDisposed(b));
+    }
+
+    @Test
+    public void testRetainedSlice() {
+        final Buffer b = allocate(100);
+        final Buffer slice = b.retainedSlice(10, 20);
+        assertEquals(2, b.referenceCount());
+        assertEquals(10, slice.remaining());
+        assertEquals(b.get(10), slice.get(0));
+
+        // the slice keeps the origin alive
+        assertFalse(b.tryDispose());
+        assertFalse(isDisposed(b));
+        assertEquals(b.get(19), slice.get(9));
+
+        assertTrue(slice.tryDispose());
+        assertTrue(isDisposed(slice));
+        assertTrue(isDisposed(b));
+    }
+
+    @Test
+    public void testRetainedDuplicate() {
+        final Buffer b = allocate(100);
+        b.position(30);
+        b.limit(50);
+
+        final Buffer duplicate = b.retainedDuplicate();
+        assertEquals(30, duplicate.position());
+        assertEquals(50, duplicate.limit());
+        assertEquals(2, b.referenceCount());
+
+        // the duplicate is released before the origin
+        assertTrue(duplicate.tryDispose());
+        assertFalse(isDisposed(b));
+        assertEquals(1, b.referenceCount());
+
+        assertTrue(b.tryDispose());
+        assertTrue(isDisposed(b));
+    }
+
+    @Test
+    public void testDisposeOriginBeforeView() {
+        final Buffer b = allocate(100);
+        final Buffer slice = b.retainedSlice(10, 20);
+        final Buffer duplicate = b.retainedDuplicate();
+
+        // the forced dispose doesn't wait for the retained views
+        b.dispose();
+        assertTrue(isDisposed(b));
+        assertEquals(10, slice.get(0));
+
+        // the buffer allocated meanwhile may reuse the disposed one
+        final Buffer next = allocate(100);
+        next.retain();
+
+        // the views' release doesn't touch the disposed origin
+        assertTrue(slice.tryDispose());
+        assertTrue(duplicate.tryDispose());
+        assertEquals(2, next.referenceCount());
+
+        assertFalse(next.tryDispose());
+        assertTrue(next.tryDispose());
+    }
+
+    @Test
+    public void testDisposeReadOnlyOriginBeforeView() {
+        final Buffer b = allocate(100);
+        final Buffer readOnly = b.asReadOnlyBuffer();
+        readOnly.allowBufferDispose(true);
+
+        final Buffer slice = readOnly.retainedSlice(0, 10);
+        readOnly.dispose();
+        assertTrue(isDisposed(readOnly));
+
+        assertTrue(slice.tryDispose());
+        assertTrue(b.tryDispose());
+    }
+
+    @Test
+    public void testRetainedSliceOfReadOnlyBuffer() {
+        final Buffer b = allocate(100);
+        final Buffer readOnly = b.asReadOnlyBuffer();
+        readOnly.allowBufferDispose(true);
+
+        final Buffer slice = readOnly.retainedSlice(0, 10);
+        assertTrue(slice.isReadOnly());
+        assertEquals(2, readOnly.referenceCount());
+
+        assertFalse(readOnly.tryDispose());
+        assertFalse(isDisposed(readOnly));
+
+        assertTrue(slice.tryDispose());
+        assertTrue(isDisposed(readOnly));
+
+        assertTrue(b.tryDispose());
+    }
+
+    @Test
+    public void testCompositeRetainedSlice() {
+        final Buffer b1 = allocate(100);
+        final Buffer b2 = allocate(100);
+        final Buffer b3 = allocate(100);
+
+        final CompositeBuffer composite = CompositeBuffer.newBuffer(mm, b1, b2, b3);
+        composite.allowBufferDispose(true);
+        composite.allowInternalBuffersDispose(true);
+
+        final Buffer slice = composite.retainedSlice(50, 250);
+        assertEquals(200, slice.remaining());
+        assertEquals(composite.get(50), slice.get(0));
+        assertEquals(composite.get(249), slice.get(199));
+        assertEquals(2, b1.referenceCount());
+        assertEquals(2, b2.referenceCount());
+        assertEquals(2, b3.referenceCount());
+
+        // the composite goes away, but its buffers are kept by the slice
+        assertTrue(composite.tryDispose());
+        assertFalse(isDisposed(b1));
+        assertFalse(isDisposed(b2));
+        assertFalse(isDisposed(b3));
+        assertEquals(b2.get(0), slice.get(50));
+
+        assertTrue(slice.tryDispose());
+        assertTrue(isDisposed(b1));
+        assertTrue(isDisposed(b2));
+        assertTrue(isDisposed(b3));
+    }
+
+    @Test
+    public void testCompositeRetainedDuplicate() {
+        final Buffer b1 = allocate(100);
+        final Buffer b2 = allocate(100);
+
+        final CompositeBuffer composite = CompositeBuffer.newBuffer(mm, b1, b2);
+        composite.allowBufferDispose(true);
+        composite.allowInternalBuffersDispose(true);
+        composite.retain();
+        assertEquals(2, composite.referenceCount());
+
+        final Buffer duplicate = composite.retainedDuplicate();
+        assertEquals(200, duplicate.remaining());
+
+        assertFalse(composite.tryDispose());
+        assertTrue(composite.tryDispose());
+        assertFalse(isDisposed(b1));
+        assertFalse(isDisposed(b2));
+
+        assertTrue(duplicate.tryDispose());
+        assertTrue(isDisposed(b1));
+        assertTrue(isDisposed(b2));
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private Buffer allocate(final int size) {
+        final Buffer b = mm.allocate(size);
+        b.allowBufferDispose(true);
+        for (int i = 0; i < size; i++) {
+            b.put(i, (byte) i);
+        }
+
+        return b;
+    }
+
+    private static boolean isDisposed(final Buffer buffer) {
+        try {
+            buffer.referenceCount();
+            return false;
+        } catch (IllegalStateException e) {
+            return true;
+        }
+    }
+}
@@ -18,6 +18,9 @@ package org.glassfish.grizzly.memory;
 
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -239,6 +242,29 @@ public class PooledMemoryManagerTest {
         } catch (Exception e) {
             fail();
         }        
+
+        // invalid magazine size
+        try {
+            new PooledMemoryManager(1024, 1, 0, 1, DEFAULT_HEAP_USAGE_PERCENTAGE,
+                    DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE, isDirect, -1);
+            fail();
+        } catch (IllegalArgumentException iae) {
+            // expected
+        } catch (Exception e) {
+            fail();
+        }
+
+        // invalid max heap percentage (less than the initial one)
+        try {
+            new PooledMemoryManager(1024, 1, 0, 1, DEFAULT_HEAP_USAGE_PERCENTAGE,
+                    DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE, isDirect, 0,
+                    new PoolSizingPolicy().setMaxPercentOfHeap(0.01f));
+            fail();
+        } catch (IllegalArgumentException iae) {
+            // expected
+        } catch (Exception e) {
+            fail();
+        }
     }
 
     @Test
@@ -277,6 +303,147 @@ public class PooledMemoryManagerTest {
         assertEquals(1, probe.bufferAllocatedFromPool.get());
     }
 
+    @Test
+    public void testMagazineAllocationAndDispose() throws Exception {
+
+        // the magazine holds up to 4 buffers and moves them in batches of 2
+        PooledMemoryManager mm =
+                new PooledMemoryManager(DEFAULT_BASE_BUFFER_SIZE,
+                                        1,
+                                        0,
+                                        1,
+                                        DEFAULT_HEAP_USAGE_PERCENTAGE,
+                                        DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE,
+                                        isDirect,
+                                        4);
+
+        final TestProbe probe = new TestProbe();
+        mm.getMonitoringConfig().addProbes(probe);
+        final PooledMemoryManager.Pool pool = mm.getPools()[0];
+        final int initialCount = pool.elementsCount();
+
+        // every empty magazine gets refilled with 2 buffers from the pool
+        final Buffer[] buffers = new Buffer[5];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = mm.allocate(4096);
+            assertEquals(4096, buffers[i].remaining());
+        }
+
+        assertEquals(0, probe.bufferAllocated.get());
+        assertEquals(6, probe.bufferAllocatedFromPool.get());
+        assertEquals(2, probe.bufferAllocatedFromMagazine.get());
+        assertEquals(3, probe.magazineRefills.get());
+        assertEquals(6, probe.magazineRefilledBuffers.get());
+        assertEquals(initialCount - 6, pool.elementsCount());
+
+        // the full magazine moves the 2 least recently released buffers
+        // back to the pool
+        for (Buffer buffer : buffers) {
+            buffer.tryDispose();
+        }
+
+        assertEquals(5, probe.bufferReleasedToMagazine.get());
+        assertEquals(1, probe.magazineDrains.get());
+        assertEquals(2, probe.magazineDrainedBuffers.get());
+        assertEquals(2, probe.bufferReleasedToPool.get());
+        assertEquals(initialCount - 4, pool.elementsCount());
+
+        // the released buffers are reused without accessing the pool
+        mm.allocate(4096).tryDispose();
+        assertEquals(3, probe.bufferAllocatedFromMagazine.get());
+        assertEquals(6, probe.bufferAllocatedFromPool.get());
+        assertEquals(initialCount - 4, pool.elementsCount());
+    }
+
+    @Test
+    public void testElasticPoolGrowthAndTrim() throws Exception {
+        final int bufferSize = DEFAULT_BASE_BUFFER_SIZE;
+        final PoolSizingPolicy policy = new PoolSizingPolicy()
+                .setMaxPercentOfHeap(0.002f)
+                .setTrimInterval(0, TimeUnit.MILLISECONDS)
+                .setMemoryPressureThreshold(0);
+        PooledMemoryManager mm = new PooledMemoryManager(bufferSize, 1, 0, 1,
+                0.001f, 1.0f, isDirect, 0, policy);
+        assertTrue(mm.isElastic());
+
+        final PooledMemoryManager.PoolSlice slice =
+                mm.getPools()[0].getSlices()[0];
+        final int minCount = slice.getElementsLimit();
+        final long minReservedBytes = mm.getReservedBytes();
+        assertEquals(minCount, slice.elementsCount());
+        assertEquals((long) minCount * bufferSize, minReservedBytes);
+
+        // the burst makes the pool grow up to the budget
+        final int burst = (int) (mm.getMaxPooledBytes() / bufferSize) + 10;
+        final Buffer[] buffers = new Buffer[burst];
+        for (int i = 0; i < burst; i++) {
+            buffers[i] = mm.allocate(bufferSize);
+        }
+        assertEquals(0, slice.elementsCount());
+        assertTrue(mm.getReservedBytes() <= mm.getMaxPooledBytes());
+        assertTrue(mm.getReservedBytes() > mm.getMaxPooledBytes() - bufferSize);
+
+        // the buffers over the budget are not pooled
+        for (Buffer buffer : buffers) {
+            buffer.tryDispose();
+        }
+        final int maxCount = slice.getElementsLimit();
+        assertEquals(maxCount, slice.elementsCount());
+        assertEquals(mm.getReservedBytes(), mm.getPooledBytes());
+
+        // the recently used pool is not trimmed
+        mm.trim(false);
+        assertEquals(maxCount, slice.elementsCount());
+        assertEquals(0, mm.getTrimmedBytes());
+
+        // the idle pool is trimmed back to the low-water mark
+        mm.trim(false);
+        assertEquals(minCount, slice.elementsCount());
+        assertEquals(minCount, slice.getElementsLimit());
+        assertEquals(minReservedBytes, mm.getReservedBytes());
+        assertEquals((long) (maxCount - minCount) * bufferSize,
+                mm.getTrimmedBytes());
+
+        // the pool grows again
+        mm.allocate(bufferSize);
+        for (int i = 0; i < minCount; i++) {
+            mm.allocate(bufferSize);
+        }
+        assertEquals(minCount + 1, slice.getElementsLimit());
+    }
+
+    @Test
+    public void testMemoryPressureThresholdRegistration() throws Exception {
+        // the first memory manager doesn't watch the memory pressure
+        final PooledMemoryManager mm1 = new PooledMemoryManager(
+                DEFAULT_BASE_BUFFER_SIZE, 1, 0, 1, 0.001f, 1.0f, isDirect, 0,
+                new PoolSizingPolicy()
+                        .setTrimInterval(1, TimeUnit.HOURS)
+                        .setMemoryPressureThreshold(0));
+        final PooledMemoryManager mm2 = new PooledMemoryManager(
+                DEFAULT_BASE_BUFFER_SIZE, 1, 0, 1, 0.001f, 1.0f, isDirect, 0,
+                new PoolSizingPolicy()
+                        .setTrimInterval(0, TimeUnit.MILLISECONDS)
+                        .setMemoryPressureThreshold(0.95f));
+        final PooledMemoryManager mm3 = new PooledMemoryManager(
+                DEFAULT_BASE_BUFFER_SIZE, 1, 0, 1, 0.001f, 1.0f, isDirect, 0,
+                new PoolSizingPolicy()
+                        .setTrimInterval(0, TimeUnit.MILLISECONDS)
+                        .setMemoryPressureThreshold(0.9f));
+        assertTrue(mm1.isElastic() && mm2.isElastic() && mm3.isElastic());
+
+        // the lowest positive threshold is applied
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP
+                    && pool.isCollectionUsageThresholdSupported()
+                    && pool.getUsage().getMax() > 0) {
+                final long threshold = pool.getCollectionUsageThreshold();
+                assertTrue(pool.getName() + ": " + threshold, threshold > 0
+                        && threshold <= (long) (pool.getUsage().getMax() * 0.9f));
+            }
+        }
+    }
+
     @Test
     public void testSimpleCompositeAllocationAndDispose() throws Exception {
 
@@ -489,6 +656,40 @@ public class PooledMemoryManagerTest {
 
     }
 
+    @Test
+    public void testRetainedViewsDispose() {
+        PooledMemoryManager mm =
+                new PooledMemoryManager(DEFAULT_BASE_BUFFER_SIZE,
+                        1,
+                        0,
+                        1,
+                        DEFAULT_HEAP_USAGE_PERCENTAGE,
+                        DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE,
+                        isDirect);
+
+        final TestProbe probe = new TestProbe();
+        mm.getMonitoringConfig().addProbes(probe);
+
+        final Buffer b = mm.allocate(4096);
+        final Buffer slice = b.retainedSlice(0, 100);
+        final Buffer duplicate = b.retainedDuplicate();
+        final Buffer sliceOfSlice = slice.retainedSlice(10, 20);
+        assertEquals(3, b.referenceCount());
+        assertEquals(2, slice.referenceCount());
+
+        // the origin and the first slice are still referenced by their views
+        b.tryDispose();
+        slice.tryDispose();
+        duplicate.tryDispose();
+        assertEquals(0, probe.bufferReleasedToPool.get());
+        assertEquals(1, b.referenceCount());
+
+        // the last view returns the origin to the pool
+        sliceOfSlice.tryDispose();
+        assertEquals(1, probe.bufferReleasedToPool.get());
+        assertEquals(1, probe.bufferAllocatedFromPool.get());
+    }
+
     @Test
     public void testSingleBufferComplexDispose() {
         PooledMemoryManager mm =
@@ -815,6 +1016,12 @@ public class PooledMemoryManagerTest {
         final AtomicInteger bufferAllocated = new AtomicInteger();
         final AtomicInteger bufferAllocatedFromPool = new AtomicInteger();
         final AtomicInteger bufferReleasedToPool = new AtomicInteger();
+        final AtomicInteger bufferAllocatedFromMagazine = new AtomicInteger();
+        final AtomicInteger bufferReleasedToMagazine = new AtomicInteger();
+        final AtomicInteger magazineRefills = new AtomicInteger();
+        final AtomicInteger magazineRefilledBuffers = new AtomicInteger();
+        final AtomicInteger magazineDrains = new AtomicInteger();
+        final AtomicInteger magazineDrainedBuffers = new AtomicInteger();
 
         @Override
         public void onBufferAllocateEvent(int size) {
@@ -830,5 +1037,27 @@ public class PooledMemoryManagerTest {
         public void onBufferReleaseToPoolEvent(int size) {
             bufferReleasedToPool.incrementAndGet();
         }
+
+        @Override
+        public void onBufferAllocateFromMagazineEvent(int size) {
+            bufferAllocatedFromMagazine.incrementAndGet();
+        }
+
+        @Override
+        public void onBufferReleaseToMagazineEvent(int size) {
+            bufferReleasedToMagazine.incrementAndGet();
+        }
+
+        @Override
+        public void onMagazineRefillEvent(int size, int count) {
+            magazineRefills.incrementAndGet();
+            magazineRefilledBuffers.addAndGet(count);
+        }
+
+        @Override
+        public void onMagazineDrainEvent(int size, int count) {
+            magazineDrains.incrementAndGet();
+            magazineDrainedBuffers.addAndGet(count);
+        }
     }
 }
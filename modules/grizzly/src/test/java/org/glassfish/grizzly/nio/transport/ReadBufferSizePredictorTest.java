@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.nio.transport;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link ReadBufferSizePredictor} tests.
+ */
+public class ReadBufferSizePredictorTest {
+
+    @Test
+    public void testInitialSize() {
+        assertEquals(ReadBufferSizePredictor.INITIAL_SIZE,
+                new ReadBufferSizePredictor(1024 * 1024).nextReadSize());
+        assertEquals(4096, new ReadBufferSizePredictor(4096).nextReadSize());
+        assertEquals(ReadBufferSizePredictor.MIN_SIZE,
+                new ReadBufferSizePredictor(0).nextReadSize());
+    }
+
+    @Test
+    public void testGrowOnFullReads() {
+        final ReadBufferSizePredictor predictor =
+                new ReadBufferSizePredictor(65536);
+
+        int size = predictor.nextReadSize();
+        while (size < 65536) {
+            predictor.onRead(size, size);
+            assertEquals(size * 2, predictor.nextReadSize());
+            size = predictor.nextReadSize();
+        }
+
+        predictor.onRead(size, size);
+        assertEquals(65536, predictor.nextReadSize());
+    }
+
+    @Test
+    public void testShrinkOnRepeatedSmallReads() {
+        final ReadBufferSizePredictor predictor =
+                new ReadBufferSizePredictor(65536);
+        final int initial = predictor.nextReadSize();
+
+        predictor.onRead(100, initial);
+        assertEquals(initial, predictor.nextReadSize());
+        predictor.onRead(100, initial);
+        assertEquals(initial / 2, predictor.nextReadSize());
+
+        for (int i = 0; i < 100; i++) {
+            predictor.onRead(100, predictor.nextReadSize());
+        }
+        assertEquals(ReadBufferSizePredictor.MIN_SIZE, predictor.nextReadSize());
+    }
+
+    @Test
+    public void testSingleSmallReadDoesNotShrink() {
+        final ReadBufferSizePredictor predictor =
+                new ReadBufferSizePredictor(65536);
+        final int initial = predictor.nextReadSize();
+
+        for (int i = 0; i < 10; i++) {
+            predictor.onRead(100, initial);
+            predictor.onRead(initial - 1, initial);
+        }
+        assertEquals(initial, predictor.nextReadSize());
+    }
+
+    @Test
+    public void testEmptyReadsIgnored() {
+        final ReadBufferSizePredictor predictor =
+                new ReadBufferSizePredictor(65536);
+        final int initial = predictor.nextReadSize();
+
+        for (int i = 0; i < 10; i++) {
+            predictor.onRead(0, initial);
+            predictor.onRead(-1, initial);
+        }
+        assertEquals(initial, predictor.nextReadSize());
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link DelayedExecutor} in scanning and timing-wheel modes.
+ */
+@RunWith(Parameterized.class)
+public class DelayedExecutorTest {
+
+    @Parameters
+    public static Collection<Object[]> isTimingWheel() {
+        return Arrays.asList(new Object[][]{
+                    {Boolean.FALSE},
+                    {Boolean.TRUE}
+                });
+    }
+
+    private final boolean isTimingWheel;
+
+    private ExecutorService threadPool;
+    private DelayedExecutor delayedExecutor;
+
+    public DelayedExecutorTest(final boolean isTimingWheel) {
+        this.isTimingWheel = isTimingWheel;
+    }
+
+    @Before
+    public void before() {
+        threadPool = Executors.newSingleThreadExecutor();
+        delayedExecutor = new DelayedExecutor(threadPool, 10,
+                TimeUnit.MILLISECONDS, isTimingWheel);
+        delayedExecutor.start();
+    }
+
+    @After
+    public void after() {
+        delayedExecutor.destroy();
+        threadPool.shutdownNow();
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final DelayedExecutor.DelayQueue<Element> queue =
+                delayedExecutor.createDelayQueue(new LatchWorker(latch),
+                new ElementResolver());
+
+        final Element element = new Element();
+        final long startMillis = System.currentTimeMillis();
+        queue.add(element, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - startMillis >= 100);
+        assertEquals(1, element.counter.get());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final DelayedExecutor.DelayQueue<Element> queue =
+                delayedExecutor.createDelayQueue(new LatchWorker(latch),
+                new ElementResolver());
+
+        final Element element = new Element();
+        queue.add(element, 100, TimeUnit.MILLISECONDS);
+        queue.remove(element);
+
+        assertFalse(latch.await(500, TimeUnit.MILLISECONDS));
+        assertEquals(0, element.counter.get());
+    }
+
+    @Test
+    public void testSilentTimeoutExtension() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final DelayedExecutor.DelayQueue<Element> queue =
+                delayedExecutor.createDelayQueue(new LatchWorker(latch),
+                new ElementResolver());
+
+        final Element element = new Element();
+        final long startMillis = System.currentTimeMillis();
+        queue.add(element, 50, TimeUnit.MILLISECONDS);
+        element.timeoutMillis = startMillis + 400;
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - startMillis >= 400);
+        assertEquals(1, element.counter.get());
+    }
+
+    @Test
+    public void testReschedule() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final DelayedExecutor.DelayQueue<Element> queue =
+                delayedExecutor.createDelayQueue(new LatchWorker(latch),
+                new ElementResolver());
+
+        final Element element = new Element();
+        queue.add(element, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        element.timeoutMillis = System.currentTimeMillis() + 50;
+        queue.reschedule(element);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(1, element.counter.get());
+    }
+
+    @Test
+    public void testWorkerReRegistration() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final DelayedExecutor.DelayQueue<Element> queue =
+                delayedExecutor.createDelayQueue(
+                new DelayedExecutor.Worker<Element>() {
+
+            @Override
+            public boolean doWork(final Element element) {
+                element.counter.incrementAndGet();
+                latch.countDown();
+                element.timeoutMillis = System.currentTimeMillis() + 20;
+                return false;
+            }
+        }, new ElementResolver());
+
+        final Element element = new Element();
+        queue.add(element, 20, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        queue.remove(element);
+    }
+
+    @Test
+    public void testManyElements() throws Exception {
+        final int count = 10000;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final DelayedExecutor.DelayQueue<Element> queue =
+                delayedExecutor.createDelayQueue(new LatchWorker(latch),
+                new ElementResolver());
+
+        final List<Element> elements = new ArrayList<Element>(count);
+        for (int i = 0; i < count; i++) {
+            final Element element = new Element();
+            elements.add(element);
+            queue.add(element, i % 500, TimeUnit.MILLISECONDS);
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (Element element : elements) {
+            assertEquals(1, element.counter.get());
+        }
+    }
+
+    @Test
+    public void testTimingWheelCascade() {
+        final List<Long> expirations = new ArrayList<Long>();
+        final TimingWheel wheel = new TimingWheel(10, 0);
+
+        final long[] deadlines = {5, 10, 640, 655, 40960, 41000,
+            2621440, 2621450};
+        for (final long deadline : deadlines) {
+            wheel.schedule(new TimingWheel.Entry() {
+                @Override
+                long expire(final long nowMillis) {
+                    if (nowMillis < deadline) {
+                        return deadline;
+                    }
+
+                    expirations.add(nowMillis - deadline);
+                    return DelayedExecutor.UNSET_TIMEOUT;
+                }
+            }, 0);
+        }
+
+        for (long now = 0; now <= 2700000; now += 10) {
+            wheel.advance(now);
+        }
+
+        assertEquals(deadlines.length, expirations.size());
+        for (Long lateness : expirations) {
+            assertTrue("lateness=" + lateness, lateness < 20);
+        }
+    }
+
+    private static final class Element {
+        private volatile long timeoutMillis = DelayedExecutor.UNSET_TIMEOUT;
+        private final AtomicInteger counter = new AtomicInteger();
+    }
+
+    private static final class LatchWorker
+            implements DelayedExecutor.Worker<Element> {
+        private final CountDownLatch latch;
+
+        LatchWorker(final CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public boolean doWork(final Element element) {
+            element.counter.incrementAndGet();
+            latch.countDown();
+            return true;
+        }
+    }
+
+    private static final class ElementResolver
+            implements DelayedExecutor.Resolver<Element> {
+
+        @Override
+        public boolean removeTimeout(final Element element) {
+            element.timeoutMillis = DelayedExecutor.UNSET_TIMEOUT;
+            return true;
+        }
+
+        @Override
+        public long getTimeoutMillis(final Element element) {
+            return element.timeoutMillis;
+        }
+
+        @Override
+        public void setTimeoutMillis(final Element element,
+                final long timeoutMillis) {
+            element.timeoutMillis = timeoutMillis;
+        }
+    }
+}
@@ -413,6 +413,7 @@ final class AjpMessageUtils {
             // Serialize 0 num_headers
             encodedBuffer = putShort(mm, encodedBuffer, 0);
         } else {
+            httpResponsePacket.applyHeaderTemplates();
             final MimeHeaders headers = httpResponsePacket.getHeaders();
             final String contentType = httpResponsePacket.getContentType();
             if (contentType != null) {
@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import java.util.concurrent.ThreadLocalRandom;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.Method;
+import org.glassfish.grizzly.http.server.util.SimpleDateFormats;
+import org.glassfish.grizzly.http.util.FastHttpDateFormat;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.utils.Charsets;
+
+/**
+ * The byte ranges of a static resource requested by the <tt>Range</tt> header
+ * (RFC 7233).
+ *
+ * The overlapping and adjacent ranges are coalesced, and a request with more
+ * than {@link #MAX_RANGES} ranges is served as if it didn't have the
+ * <tt>Range</tt> header, so a client can't make the server send the same
+ * bytes many times.
+ */
+final class ByteRanges {
+    /**
+     * The maximum number of the requested ranges.
+     */
+    static final int MAX_RANGES = 16;
+
+    private static final String UNIT = "bytes";
+
+    private static final ByteRanges UNSATISFIABLE =
+            new ByteRanges(new long[0], new long[0], 0);
+
+    private final long[] starts;
+    private final long[] ends;
+    private final int size;
+
+    private String boundary;
+
+    private ByteRanges(final long[] starts, final long[] ends, final int size) {
+        this.starts = starts;
+        this.ends = ends;
+        this.size = size;
+    }
+
+    /**
+     * Parses the ranges requested by the <tt>GET</tt> request, checking the
+     * <tt>If-Range</tt> precondition.
+     *
+     * @param request the request
+     * @param length the resource length
+     * @param etag the resource entity tag, or <tt>null</tt>
+     * @param lastModified the resource last modification time
+     *
+     * @return the requested ranges, or <tt>null</tt>, if the entire resource
+     *  has to be sent
+     */
+    static ByteRanges parse(final HttpRequestPacket request, final long length,
+            final String etag, final long lastModified) {
+        if (!Method.GET.equals(request.getMethod())) {
+            return null;
+        }
+
+        final String range = request.getHeader(Header.Range);
+        if (range == null) {
+            return null;
+        }
+
+        final String ifRange = request.getHeader(Header.IfRange);
+        if (ifRange != null && !isIfRangeMatched(ifRange.trim(), etag, lastModified)) {
+            return null;
+        }
+
+        return parse(range, length);
+    }
+
+    /**
+     * Parses the <tt>Range</tt> header value.
+     *
+     * @param value the <tt>Range</tt> header value
+     * @param length the resource length
+     *
+     * @return the requested ranges, or <tt>null</tt>, if the header has to be
+     *  ignored
+     */
+    static ByteRanges parse(final String value, final long length) {
+        final int eq = value.indexOf('=');
+        if (eq == -1 || !UNIT.equalsIgnoreCase(value.substring(0, eq).trim())) {
+            return null;
+        }
+
+        final String[] specs = value.substring(eq + 1).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+
+        final long[] starts = new long[specs.length];
+        final long[] ends = new long[specs.length];
+        int count = 0;
+        boolean hasSpec = false;
+
+        for (String spec : specs) {
+            spec = spec.trim();
+            if (spec.isEmpty()) {
+                continue;
+            }
+            hasSpec = true;
+
+            final int dash = spec.indexOf('-');
+            if (dash == -1) {
+                return null;
+            }
+
+            final long first = parseLong(spec, 0, dash);
+            final long last = parseLong(spec, dash + 1, spec.length());
+            if (first == -2 || last == -2) {
+                return null;
+            }
+
+            final long start;
+            final long end;
+            if (first == -1) {
+                // suffix range: the last N bytes
+                if (last == -1) {
+                    return null;
+                }
+                if (last == 0 || length == 0) {
+                    continue;
+                }
+                start = Math.max(0, length - last);
+                end = length - 1;
+            } else {
+                if (last != -1 && last < first) {
+                    return null;
+                }
+                if (first >= length) {
+                    continue;
+                }
+                start = first;
+                end = last == -1 ? length - 1 : Math.min(last, length - 1);
+            }
+
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+        }
+
+        if (!hasSpec) {
+            return null;
+        }
+
+        if (count == 0) {
+            return UNSATISFIABLE;
+        }
+
+        return new ByteRanges(starts, ends, coalesce(starts, ends, count));
+    }
+
+    /**
+     * @return the <tt>Content-Range</tt> value of the <tt>416</tt> response.
+     */
+    static String unsatisfiedContentRange(final long length) {
+        return UNIT + " */" + length;
+    }
+
+    /**
+     * @return <tt>false</tt>, if none of the requested ranges overlaps the
+     *  resource, so the <tt>416</tt> response has to be sent.
+     */
+    boolean isSatisfiable() {
+        return size > 0;
+    }
+
+    /**
+     * @return <tt>true</tt>, if the ranges have to be sent as a
+     *  <tt>multipart/byteranges</tt> payload.
+     */
+    boolean isMultipart() {
+        return size > 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getStart(final int i) {
+        return starts[i];
+    }
+
+    long getLength(final int i) {
+        return ends[i] - starts[i] + 1;
+    }
+
+    /**
+     * @return the <tt>Content-Range</tt> value of the range.
+     */
+    String getContentRange(final int i, final long length) {
+        return UNIT + ' ' + starts[i] + '-' + ends[i] + '/' + length;
+    }
+
+    /**
+     * @return the <tt>Content-Type</tt> of the multipart payload.
+     */
+    String getMultipartContentType() {
+        return "multipart/byteranges; boundary=" + getBoundary();
+    }
+
+    /**
+     * @return the delimiter and the headers preceding the range's data within
+     *  the multipart payload.
+     */
+    byte[] getPartHeader(final int i, final String contentType,
+            final long length) {
+        final StringBuilder sb = new StringBuilder(96);
+        if (i > 0) {
+            sb.append("\r\n");
+        }
+        sb.append("--").append(getBoundary()).append("\r\n");
+        if (contentType != null) {
+            sb.append(Header.ContentType).append(": ")
+                    .append(contentType).append("\r\n");
+        }
+        sb.append(Header.ContentRange).append(": ")
+                .append(getContentRange(i, length)).append("\r\n\r\n");
+
+        return sb.toString().getBytes(Charsets.ASCII_CHARSET);
+    }
+
+    /**
+     * @return the close delimiter of the multipart payload.
+     */
+    byte[] getCloseDelimiter() {
+        return ("\r\n--" + getBoundary() + "--\r\n").getBytes(Charsets.ASCII_CHARSET);
+    }
+
+    /**
+     * @return the length of the multipart payload.
+     */
+    long getMultipartLength(final String contentType, final long length) {
+        long total = getCloseDelimiter().length;
+        for (int i = 0; i < size; i++) {
+            total += getPartHeader(i, contentType, length).length + getLength(i);
+        }
+
+        return total;
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+
+    private String getBoundary() {
+        if (boundary == null) {
+            boundary = "GRIZZLY" + Long.toHexString(
+                    ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+        }
+
+        return boundary;
+    }
+
+    /**
+     * Sorts the ranges and merges the overlapping and adjacent ones.
+     *
+     * @return the number of the remaining ranges
+     */
+    private static int coalesce(final long[] starts, final long[] ends,
+            final int count) {
+        if (count == 1) {
+            return 1;
+        }
+
+        // insertion sort by the start offset, there are MAX_RANGES at most
+        for (int i = 1; i < count; i++) {
+            final long start = starts[i];
+            final long end = ends[i];
+            int j = i - 1;
+            while (j >= 0 && starts[j] > start) {
+                starts[j + 1] = starts[j];
+                ends[j + 1] = ends[j];
+                j--;
+            }
+            starts[j + 1] = start;
+            ends[j + 1] = end;
+        }
+
+        int size = 0;
+        for (int i = 1; i < count; i++) {
+            if (starts[i] <= ends[size] + 1) {
+                ends[size] = Math.max(ends[size], ends[i]);
+            } else {
+                size++;
+                starts[size] = starts[i];
+                ends[size] = ends[i];
+            }
+        }
+
+        return size + 1;
+    }
+
+    /**
+     * @return the non-negative number, or <tt>-1</tt>, if the substring is
+     *  empty, or <tt>-2</tt>, if it's not a number
+     */
+    private static long parseLong(final String s, final int from, final int to) {
+        int start = from;
+        int end = to;
+        while (start < end && s.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && s.charAt(end - 1) == ' ') {
+            end--;
+        }
+
+        if (start == end) {
+            return -1;
+        }
+
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            final char c = s.charAt(i);
+            if (c < '0' || c > '9' || result > (Long.MAX_VALUE - 9) / 10) {
+                return -2;
+            }
+            result = result * 10 + (c - '0');
+        }
+
+        return result;
+    }
+
+    /**
+     * RFC 7233, 3.2: the range is sent only if the validator exactly matches
+     * the strong entity tag or the last modification date of the resource.
+     */
+    private static boolean isIfRangeMatched(final String ifRange,
+            final String etag, final long lastModified) {
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+
+        final SimpleDateFormats formats = SimpleDateFormats.create();
+        try {
+            final long date = FastHttpDateFormat.parseDate(ifRange,
+                    formats.getFormats());
+            return date != -1 && date / 1000 == lastModified / 1000;
+        } finally {
+            formats.recycle();
+        }
+    }
+}
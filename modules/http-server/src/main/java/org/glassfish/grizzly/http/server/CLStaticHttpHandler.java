@@ -268,7 +268,12 @@ public class CLStaticHttpHandler extends StaticHttpHandlerBase {
         
         if (fileResource != null) {
             addToFileCache(request, response, fileResource);
-            sendFile(response, fileResource);
+            
+            final File precompressedFile =
+                    lookupPrecompressedFile(request, response, fileResource);
+            sendFile(response, precompressedFile != null
+                    ? precompressedFile
+                    : fileResource);
         } else {
             assert urlConnection != null;
             
@@ -284,6 +289,18 @@ public class CLStaticHttpHandler extends StaticHttpHandlerBase {
                 addTimeStampEntryToFileCache(request, response, jarFile);
             }
             
+            final URL precompressedUrl = isPrecompressedFilesEnabled()
+                    ? lookupResource(resourcePath + FileCache.PRECOMPRESSED_FILE_SUFFIX)
+                    : null;
+            if (precompressedUrl != null
+                    && acceptPrecompressed(request, response)) {
+                if (urlInputStream != null) {
+                    urlInputStream.close();
+                }
+                sendResource(response, precompressedUrl.openStream());
+                return true;
+            }
+            
             sendResource(response,
                     urlInputStream != null ?
                     urlInputStream :
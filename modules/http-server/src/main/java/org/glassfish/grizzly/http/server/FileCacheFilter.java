@@ -19,6 +19,7 @@ package org.glassfish.grizzly.http.server;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -41,7 +42,9 @@ import org.glassfish.grizzly.http.server.filecache.FileCache;
 import org.glassfish.grizzly.http.server.filecache.FileCache.CacheType;
 import org.glassfish.grizzly.http.server.filecache.FileCacheEntry;
 import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HttpStatus;
 import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
 
 /**
  *
@@ -84,6 +87,13 @@ public class FileCacheFilter extends BaseFilter {
                     return flush(ctx);
                 }
 
+                final ByteRanges ranges = ByteRanges.parse(request,
+                        cacheEntry.getFileSize(false), cacheEntry.Etag,
+                        cacheEntry.lastModified);
+                if (ranges != null) {
+                    return sendRanges(ctx, response, cacheEntry, ranges);
+                }
+                
                 // check if we can send plain or compressed data back.
                 // depends on client request headers and file cache entry
                 final boolean isServeCompressed =
@@ -142,16 +152,146 @@ public class FileCacheFilter extends BaseFilter {
     private void prepareResponseWithPayload(final FileCacheEntry entry,
             final HttpResponsePacket response, final boolean isServeCompressed)
             throws IOException {
-        response.addHeader(Header.ETag, entry.Etag);
+        response.addHeader(Header.ETag, entry.getEtag(isServeCompressed));
         response.addHeader(Header.LastModified, entry.lastModifiedHeader);
+        if (!isServeCompressed) {
+            // the ranges are always cut from the plain representation
+            response.addHeader(Header.AcceptRanges, "bytes");
+        }
 
         response.setContentLengthLong(entry.getFileSize(isServeCompressed));
         
+        if (entry.hasCompressedVariant()) {
+            response.addHeader(Header.Vary, Header.AcceptEncoding.toString());
+        }
         if (isServeCompressed) {
             response.addHeader(Header.ContentEncoding, "gzip");
         }
     }
 
+    /**
+     * Sends the requested ranges of the plain resource.
+     * The ranges of the <tt>HEAP</tt> and <tt>MAPPED</tt> entries are sent
+     * as slices of the cached {@link ByteBuffer}, the ranges of the
+     * <tt>FILE</tt> entries are sent using {@link FileTransfer}, if it's
+     * possible.
+     */
+    private NextAction sendRanges(final FilterChainContext ctx,
+            final HttpResponsePacket response, final FileCacheEntry cacheEntry,
+            final ByteRanges ranges) throws IOException {
+        final long length = cacheEntry.getFileSize(false);
+
+        response.addHeader(Header.ETag, cacheEntry.Etag);
+        response.addHeader(Header.LastModified, cacheEntry.lastModifiedHeader);
+        response.addHeader(Header.AcceptRanges, "bytes");
+        if (cacheEntry.hasCompressedVariant()) {
+            response.addHeader(Header.Vary, Header.AcceptEncoding.toString());
+        }
+
+        if (!ranges.isSatisfiable()) {
+            response.setStatus(HttpStatus.REQUEST_RANGE_NOT_SATISFIABLE_416);
+            response.addHeader(Header.ContentRange,
+                    ByteRanges.unsatisfiedContentRange(length));
+            response.setContentLengthLong(0);
+            ctx.write(HttpContent.builder(response)
+                    .content(Buffers.EMPTY_BUFFER)
+                    .last(true)
+                    .build());
+
+            return flush(ctx);
+        }
+
+        response.setStatus(HttpStatus.PARTIAL_CONTENT_206);
+        
+        final String partContentType = response.getContentType();
+        if (ranges.isMultipart()) {
+            response.setContentType(ranges.getMultipartContentType());
+            response.setContentLengthLong(
+                    ranges.getMultipartLength(partContentType, length));
+        } else {
+            response.addHeader(Header.ContentRange,
+                    ranges.getContentRange(0, length));
+            response.setContentLengthLong(ranges.getLength(0));
+        }
+
+        final MemoryManager mm = ctx.getMemoryManager();
+        
+        if (cacheEntry.type != CacheType.FILE) {
+            final ByteBuffer bb = cacheEntry.getByteBuffer(false);
+            for (int i = 0; i < ranges.size(); i++) {
+                if (ranges.isMultipart()) {
+                    writeContent(ctx, response, Buffers.wrap(mm,
+                            ranges.getPartHeader(i, partContentType, length)),
+                            false);
+                }
+
+                final ByteBuffer slice = bb.duplicate();
+                final int start = bb.position() + (int) ranges.getStart(i);
+                Buffers.setPositionLimit(slice, start,
+                        start + (int) ranges.getLength(i));
+                writeContent(ctx, response, Buffers.wrap(mm, slice),
+                        !ranges.isMultipart());
+            }
+
+            if (ranges.isMultipart()) {
+                writeContent(ctx, response,
+                        Buffers.wrap(mm, ranges.getCloseDelimiter()), true);
+            }
+
+            return flush(ctx);
+        }
+
+        if (!fileCache.isFileSendEnabled()
+                || response.getRequest().isSecure()) {
+            try {
+                final FileSendEntry sendEntry = FileSendEntry.create(ctx,
+                        response, cacheEntry.getFile(false), ranges,
+                        partContentType, length);
+                ctx.suspend();
+                sendEntry.send();
+                return ctx.getSuspendAction();
+            } catch (IOException e) {
+                // FAILURE
+                return ctx.getInvokeAction();
+            }
+        }
+
+        ctx.write(response);
+        for (int i = 0; i < ranges.size(); i++) {
+            if (ranges.isMultipart()) {
+                writeContent(ctx, response, Buffers.wrap(mm,
+                        ranges.getPartHeader(i, partContentType, length)),
+                        false);
+            }
+            
+            ctx.write(new FileTransfer(cacheEntry.getFile(false),
+                    ranges.getStart(i), ranges.getLength(i)),
+                    new EmptyCompletionHandler<WriteResult>() {
+                        @Override
+                        public void failed(Throwable throwable) {
+                            LOGGER.log(Level.FINE, "Error reported during file-send entry: " +
+                                    cacheEntry, throwable);
+                        }
+                    });
+        }
+
+        if (ranges.isMultipart()) {
+            writeContent(ctx, response,
+                    Buffers.wrap(mm, ranges.getCloseDelimiter()), true);
+        }
+
+        return flush(ctx);
+    }
+
+    private static void writeContent(final FilterChainContext ctx,
+            final HttpResponsePacket response, final Buffer content,
+            final boolean isLast) {
+        ctx.write(HttpContent.builder(response)
+                .content(content)
+                .last(isLast)
+                .build());
+    }
+    
     private NextAction sendFileUsingBuffers(final FilterChainContext ctx,
             final HttpResponsePacket response, final FileCacheEntry cacheEntry,
             final boolean isServeCompressed) {
@@ -234,6 +374,12 @@ public class FileCacheFilter extends BaseFilter {
         private final HttpResponsePacket response;
         private final OutputSink output;
         
+        // the ranges to be sent, or null, if the entire file is sent
+        private final ByteRanges ranges;
+        private final String partContentType;
+        private final long fileLength;
+        private int rangeIdx;
+        
         private long remaining;
 
         public static FileSendEntry create(final FilterChainContext ctx,
@@ -243,19 +389,42 @@ public class FileCacheFilter extends BaseFilter {
             final FileInputStream fis = new FileInputStream(file);
             final FileChannel fc = fis.getChannel();
             
-            return new FileSendEntry(ctx, response, fis, fc, size);
+            return new FileSendEntry(ctx, response, fis, fc, size, null, null, -1);
+        }
+        
+        static FileSendEntry create(final FilterChainContext ctx,
+                final HttpResponsePacket response, final File file,
+                final ByteRanges ranges, final String partContentType,
+                final long fileLength) throws IOException {
+            
+            final FileInputStream fis = new FileInputStream(file);
+            final FileChannel fc = fis.getChannel();
+            
+            return new FileSendEntry(ctx, response, fis, fc, -1, ranges,
+                    partContentType, fileLength);
         }
         
         public FileSendEntry(final FilterChainContext ctx,
                 final HttpResponsePacket response,
                 final FileInputStream fis, final FileChannel fc,
                 final long size) {
+            this(ctx, response, fis, fc, size, null, null, -1);
+        }
+        
+        private FileSendEntry(final FilterChainContext ctx,
+                final HttpResponsePacket response,
+                final FileInputStream fis, final FileChannel fc,
+                final long size, final ByteRanges ranges,
+                final String partContentType, final long fileLength) {
 
             this.ctx = ctx;
             this.response = response;
             this.fis = fis;
             this.fc = fc;
             this.remaining = size;
+            this.ranges = ranges;
+            this.partContentType = partContentType;
+            this.fileLength = fileLength;
             
             final HttpContext httpContext = response.getProcessingState().getHttpContext();
             assert httpContext != null;
@@ -276,17 +445,31 @@ public class FileCacheFilter extends BaseFilter {
             try {
                 boolean isLast;
                 do {
-                    final Buffer buffer = ctx.getMemoryManager().allocate(chunkSize);
+                    if (remaining <= 0 && ranges != null) {
+                        nextRange();
+                    }
+                    
+                    final Buffer buffer = ctx.getMemoryManager().allocate(
+                            (int) Math.min(chunkSize,
+                                    ranges != null ? remaining : chunkSize));
                     buffer.allowBufferDispose(true);
                     
                     final long readNow = Buffers.readFromFileChannel(fc, buffer);
                     isLast = readNow <= 0 || (remaining -= readNow) <= 0;
+                    if (isLast && ranges != null && readNow > 0
+                            && rangeIdx < ranges.size()) {
+                        isLast = false;
+                    }
 
                     buffer.trim();
-                    ctx.write(HttpContent.builder(response)
-                            .content(buffer)
-                            .last(isLast)
-                            .build());
+                    if (isLast && ranges != null && ranges.isMultipart()) {
+                        writeContent(ctx, response, buffer, false);
+                        writeContent(ctx, response, Buffers.wrap(
+                                ctx.getMemoryManager(),
+                                ranges.getCloseDelimiter()), true);
+                    } else {
+                        writeContent(ctx, response, buffer, isLast);
+                    }
                     
                 } while (!isLast && output.canWrite());
                 
@@ -300,6 +483,22 @@ public class FileCacheFilter extends BaseFilter {
             }
         }
 
+        /**
+         * Positions the file at the next range, writing the range's
+         * multipart headers.
+         */
+        private void nextRange() throws IOException {
+            if (ranges.isMultipart()) {
+                writeContent(ctx, response, Buffers.wrap(ctx.getMemoryManager(),
+                        ranges.getPartHeader(rangeIdx, partContentType,
+                                fileLength)), false);
+            }
+
+            fc.position(ranges.getStart(rangeIdx));
+            remaining = ranges.getLength(rangeIdx);
+            rangeIdx++;
+        }
+
         private void done() {
             close();
             ctx.resume(ctx.getStopAction());
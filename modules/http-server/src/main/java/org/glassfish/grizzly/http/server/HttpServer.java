@@ -109,6 +109,12 @@ public class HttpServer {
 
     volatile DelayedExecutor delayedExecutor;
 
+    /**
+     * The fine-grained {@link DelayedExecutor}, which writes the coalesced
+     * pipelined responses, once they have been held back for too long.
+     */
+    private volatile DelayedExecutor coalescedResponseExecutor;
+
     protected volatile GrizzlyJmxManager jmxManager;
 
     protected volatile Object managementObject;
@@ -240,9 +246,20 @@ public class HttpServer {
         
         configureAuxThreadPool();
 
-        delayedExecutor = new DelayedExecutor(auxExecutorService);
+        delayedExecutor = new DelayedExecutor(auxExecutorService, 1000,
+                TimeUnit.MILLISECONDS, serverConfig.isTimingWheelEnabled());
         delayedExecutor.start();
 
+        if (serverConfig.isPipelinedResponseCoalescing()) {
+            // tick twice per max delay, so the responses aren't held back
+            // for much longer than configured
+            coalescedResponseExecutor = new DelayedExecutor(auxExecutorService,
+                    Math.max(1, serverConfig.getMaxCoalescedResponseDelay(
+                            TimeUnit.MILLISECONDS) / 2),
+                    TimeUnit.MILLISECONDS, true);
+            coalescedResponseExecutor.start();
+        }
+
         for (final NetworkListener listener : listeners.values()) {
             configureListener(listener);
         }
@@ -423,6 +440,12 @@ public class HttpServer {
             delayedExecutor.stop();
             delayedExecutor.destroy();
             delayedExecutor = null;
+
+            if (coalescedResponseExecutor != null) {
+                coalescedResponseExecutor.stop();
+                coalescedResponseExecutor.destroy();
+                coalescedResponseExecutor = null;
+            }
             
             stopAuxThreadPool();
 
@@ -655,6 +678,19 @@ public class HttpServer {
                     serverConfig.isAllowPayloadForUndefinedHttpMethods());
             httpServerCodecFilter.setMaxPayloadRemainderToSkip(
                     serverConfig.getMaxPayloadRemainderToSkip());
+            if (serverConfig.isWordAtATimeHeaderParsing()) {
+                httpServerCodecFilter.setWordAtATimeHeaderParsing(true);
+            }
+            if (serverConfig.isPipelinedResponseCoalescing()) {
+                httpServerCodecFilter.setPipelinedResponseCoalescing(true);
+                httpServerCodecFilter.setMaxCoalescedResponseSize(
+                        serverConfig.getMaxCoalescedResponseSize());
+                httpServerCodecFilter.setMaxCoalescedResponseDelay(
+                        serverConfig.getMaxCoalescedResponseDelay(TimeUnit.MILLISECONDS),
+                        TimeUnit.MILLISECONDS);
+                httpServerCodecFilter.setCoalescedResponseExecutor(
+                        coalescedResponseExecutor);
+            }
             
             httpServerCodecFilter.getMonitoringConfig().addProbes(
                     serverConfig.getMonitoringConfig().getHttpConfig().getProbes());
@@ -187,6 +187,10 @@ public class HttpServerFilter extends BaseFilter
                     handlerRequest.addAfterServiceListener(flushResponseHandler);
                 }
                 
+                if (!handlerRequest.isReused()) {
+                    HttpServerProbeNotifier.notifyRequestAllocate(this,
+                            connection, handlerRequest);
+                }
                 HttpServerProbeNotifier.notifyRequestReceive(this, connection,
                         handlerRequest);
 
@@ -99,6 +99,25 @@ public interface HttpServerProbe {
      */
     void onBeforeServiceEvent(HttpServerFilter filter,
                               Connection connection, Request request, HttpHandler httpHandler);
+
+    /**
+     * Method will be called, when a new {@link Request}/{@link Response} pair
+     * has been allocated to process a received request, because the
+     * processing thread had no recycled pair to reuse. Comparing the number of
+     * these events with the number of the received requests shows how well the
+     * request objects and the helpers they hold are being reused.
+     * The default implementation does nothing, so the existing probes
+     * don't have to implement it.
+     *
+     * @param filter {@link HttpServerFilter}, the event belongs to.
+     * @param connection {@link Connection}, the event belongs to.
+     * @param request the allocated {@link Request}.
+     *
+     * @since 2.4.4
+     */
+    default void onRequestAllocateEvent(HttpServerFilter filter,
+                                        Connection connection, Request request) {
+    }
     
     // ---------------------------------------------------------- Nested Classes
 
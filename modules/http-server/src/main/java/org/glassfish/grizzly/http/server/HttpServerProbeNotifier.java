@@ -152,5 +152,23 @@ final class HttpServerProbeNotifier {
                 probe.onBeforeServiceEvent(filter, connection, request, httpHandler);
             }
         }
-    }    
+    }
+
+    /**
+     * Notify registered {@link HttpServerProbe}s about the "request allocated" event.
+     *
+     * @param filter {@link HttpServerFilter}, the event belongs to.
+     * @param connection {@link Connection}, the event belongs to.
+     * @param request the allocated {@link Request}.
+     */
+    static void notifyRequestAllocate(final HttpServerFilter filter,
+            final Connection connection, final Request request) {
+
+        final HttpServerProbe[] probes = filter.monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (HttpServerProbe probe : probes) {
+                probe.onRequestAllocateEvent(filter, connection, request);
+            }
+        }
+    }
 }
@@ -120,6 +120,15 @@ public class Request {
         assert localeParser != null;
     }
 
+    /**
+     * @return <tt>true</tt>, if the <tt>Request</tt> has been taken from the
+     *  thread cache, or <tt>false</tt>, if it has been allocated to process
+     *  the current request.
+     */
+    boolean isReused() {
+        return reused;
+    }
+
     public static Request create() {
         final Request request =
                 ThreadCache.takeFromCache(CACHE_IDX);
@@ -260,6 +269,19 @@ public class Request {
      * The preferred Locales associated with this Request.
      */
     protected final ArrayList<Locale> locales = new ArrayList<>();
+
+    /**
+     * The last parsed <tt>Accept-Language</tt> header value and its Locales,
+     * which are kept across the recycles, so the requests with the same
+     * header value don't have to parse it again.
+     */
+    private String cachedAcceptLanguage;
+    private final ArrayList<Locale> cachedLocales = new ArrayList<>();
+
+    /**
+     * <tt>true</tt>, if the <tt>Request</tt> has been recycled at least once.
+     */
+    private boolean reused;
     
 
     /**
@@ -661,6 +683,7 @@ public class Request {
             cachedMappingData.recycle();
         }
 
+        reused = true;
         ThreadCache.putToCache(CACHE_IDX, this);
     }
 
@@ -2179,6 +2202,32 @@ public class Request {
 
         localesParsed = true;
 
+        final MimeHeaders headers = request.getHeaders();
+        final int idx = headers.indexOf("accept-language", 0);
+        if (idx >= 0 && headers.indexOf("accept-language", idx + 1) < 0) {
+            // single Accept-Language header, try the Locales cached by the
+            // previous request
+            final DataChunk value = headers.getValue(idx);
+            if (cachedAcceptLanguage != null
+                    && value.equals(cachedAcceptLanguage)) {
+                for (int i = 0; i < cachedLocales.size(); i++) {
+                    addLocale(cachedLocales.get(i));
+                }
+                return;
+            }
+
+            final String valueStr = value.toString();
+            final int from = locales.size();
+            parseLocalesHeader(valueStr);
+
+            cachedLocales.clear();
+            for (int i = from; i < locales.size(); i++) {
+                cachedLocales.add(locales.get(i));
+            }
+            cachedAcceptLanguage = valueStr;
+            return;
+        }
+
         final Iterable<String> values = getHeaders("accept-language");
 
         for (String value : values) {
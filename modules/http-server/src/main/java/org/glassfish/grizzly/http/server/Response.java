@@ -62,6 +62,7 @@ import org.glassfish.grizzly.http.util.ContentType;
 import org.glassfish.grizzly.http.util.CookieSerializerUtils;
 import org.glassfish.grizzly.http.util.FastHttpDateFormat;
 import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HeaderTemplate;
 import org.glassfish.grizzly.http.util.HeaderValue;
 import org.glassfish.grizzly.http.util.HttpRequestURIDecoder;
 import org.glassfish.grizzly.http.util.HttpStatus;
@@ -1227,6 +1228,23 @@ public class Response {
         response.addHeader(header, value);
     }
 
+    /**
+     * Add the pre-encoded header block, which is copied into the response
+     * output as is. The template headers take precedence over the headers
+     * with the same names set on this response.
+     *
+     * @param template the {@link HeaderTemplate} to add
+     *
+     * @since 2.4.4
+     */
+    public void addHeaderTemplate(final HeaderTemplate template) {
+        checkResponse();
+        if (isCommitted())
+            return;
+
+        response.addHeaderTemplate(template);
+    }
+
     /**
      * Add the specified integer header to the specified value.
      *
@@ -1912,6 +1930,14 @@ public class Response {
 
         httpContext.getCloseable().addCloseListener(suspendedContext.closeListener);
 
+        if (request.httpServerFilter != null && request.httpServerFilter
+                .getConfiguration().isPipelinedResponseCoalescing()) {
+            // don't hold back the responses to the previous pipelined
+            // requests, while this one is suspended
+            ctx.notifyDownstream(
+                    org.glassfish.grizzly.http.HttpServerFilter.RESPONSE_SUSPEND_EVENT);
+        }
+
         if (timeout > 0) {
             final long timeoutMillis =
                     TimeUnit.MILLISECONDS.convert(timeout, timeunit);
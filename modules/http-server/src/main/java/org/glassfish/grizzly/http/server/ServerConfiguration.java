@@ -72,6 +72,18 @@ public class ServerConfiguration extends ServerFilterConfiguration {
      * close the connection.
      */
     private long maxPayloadRemainderToSkip = -1;
+
+    /**
+     * <tt>true</tt>, if the server's {@link org.glassfish.grizzly.utils.DelayedExecutor}
+     * has to track timeouts using the hashed timing wheel.
+     */
+    private boolean timingWheelEnabled;
+
+    /**
+     * <tt>true</tt>, if the request headers are parsed by the word-at-a-time
+     * header parser.
+     */
+    private boolean wordAtATimeHeaderParsing;
     
     final Object handlersSync = new Object();
     
@@ -384,5 +396,59 @@ public class ServerConfiguration extends ServerFilterConfiguration {
      */
     public void setMaxPayloadRemainderToSkip(long maxPayloadRemainderToSkip) {
         this.maxPayloadRemainderToSkip = maxPayloadRemainderToSkip;
-    }    
+    }
+
+    /**
+     * @return <tt>true</tt>, if the idle, keep-alive, suspend and file-cache
+     * timeouts are tracked using the hashed timing wheel, or <tt>false</tt>
+     * if all the registered timeouts are scanned once per second.
+     *
+     * @since 2.4.4
+     */
+    public boolean isTimingWheelEnabled() {
+        return timingWheelEnabled;
+    }
+
+    /**
+     * Enables/disables the hashed timing wheel to track the idle, keep-alive,
+     * suspend and file-cache timeouts. The timing wheel is recommended for
+     * servers handling large number of connections. The setting takes effect
+     * the next time the server is started.
+     *
+     * @param timingWheelEnabled <tt>true</tt>, if the timeouts have to be
+     * tracked using the hashed timing wheel, or <tt>false</tt> if all the
+     * registered timeouts have to be scanned once per second
+     *
+     * @since 2.4.4
+     */
+    public void setTimingWheelEnabled(boolean timingWheelEnabled) {
+        this.timingWheelEnabled = timingWheelEnabled;
+    }
+
+    /**
+     * @return <tt>true</tt>, if the request headers are parsed by the
+     * word-at-a-time header parser.
+     *
+     * @see org.glassfish.grizzly.http.HttpServerFilter#setWordAtATimeHeaderParsing(boolean)
+     * @since 2.4.4
+     */
+    public boolean isWordAtATimeHeaderParsing() {
+        return wordAtATimeHeaderParsing;
+    }
+
+    /**
+     * Enables the word-at-a-time request header parser, which scans the
+     * header values 8 bytes at a time and rejects the header names with
+     * invalid chars. The setting takes effect the next time the server is
+     * started.
+     *
+     * @param wordAtATimeHeaderParsing <tt>true</tt> to use the word-at-a-time
+     * header parser
+     *
+     * @see org.glassfish.grizzly.http.HttpServerFilter#setWordAtATimeHeaderParsing(boolean)
+     * @since 2.4.4
+     */
+    public void setWordAtATimeHeaderParsing(boolean wordAtATimeHeaderParsing) {
+        this.wordAtATimeHeaderParsing = wordAtATimeHeaderParsing;
+    }
 } // END ServerConfiguration
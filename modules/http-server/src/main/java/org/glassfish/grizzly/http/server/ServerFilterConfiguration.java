@@ -17,6 +17,7 @@
 package org.glassfish.grizzly.http.server;
 
 import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
 import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.utils.JdkVersion;
 
@@ -70,6 +71,16 @@ public class ServerFilterConfiguration {
      * graceful shutdown, or <tt>false</tt> otherwise
      */
     private boolean isGracefulShutdownSupported = true;
+
+    /**
+     * <tt>true</tt>, if the responses to the pipelined HTTP requests are
+     * coalesced.
+     */
+    private boolean pipelinedResponseCoalescing;
+    private int maxCoalescedResponseSize =
+            org.glassfish.grizzly.http.HttpServerFilter.DEFAULT_MAX_COALESCED_RESPONSE_SIZE;
+    private long maxCoalescedResponseDelayMillis =
+            org.glassfish.grizzly.http.HttpServerFilter.DEFAULT_MAX_COALESCED_RESPONSE_DELAY_MILLIS;
     
     public ServerFilterConfiguration() {
         this("Grizzly", Grizzly.getDotedVersion());
@@ -99,6 +110,9 @@ public class ServerFilterConfiguration {
         this.maxPostSize = configuration.maxPostSize;
         this.sessionTimeoutSeconds = configuration.sessionTimeoutSeconds;
         this.sessionManager = configuration.sessionManager;
+        this.pipelinedResponseCoalescing = configuration.pipelinedResponseCoalescing;
+        this.maxCoalescedResponseSize = configuration.maxCoalescedResponseSize;
+        this.maxCoalescedResponseDelayMillis = configuration.maxCoalescedResponseDelayMillis;
     }
     
     /**
@@ -502,6 +516,81 @@ public class ServerFilterConfiguration {
     public void setSessionManager(SessionManager sessionManager) {
         this.sessionManager = sessionManager;
     }
+
+    /**
+     * @return <tt>true</tt>, if the responses to the pipelined HTTP requests
+     * are coalesced.
+     *
+     * @see org.glassfish.grizzly.http.HttpServerFilter#setPipelinedResponseCoalescing(boolean)
+     * @since 2.4.4
+     */
+    public boolean isPipelinedResponseCoalescing() {
+        return pipelinedResponseCoalescing;
+    }
+
+    /**
+     * Enables the coalescing of the responses to the pipelined HTTP requests,
+     * which are written in the request order as one gathering write, even if
+     * some of the requests are suspended and resumed by other threads.
+     * The setting takes effect the next time the server is started.
+     *
+     * @param pipelinedResponseCoalescing <tt>true</tt> to coalesce the
+     * responses to the pipelined HTTP requests
+     *
+     * @see org.glassfish.grizzly.http.HttpServerFilter#setPipelinedResponseCoalescing(boolean)
+     * @since 2.4.4
+     */
+    public void setPipelinedResponseCoalescing(boolean pipelinedResponseCoalescing) {
+        this.pipelinedResponseCoalescing = pipelinedResponseCoalescing;
+    }
+
+    /**
+     * @return the max number of the coalesced pipelined response bytes.
+     *
+     * @since 2.4.4
+     */
+    public int getMaxCoalescedResponseSize() {
+        return maxCoalescedResponseSize;
+    }
+
+    /**
+     * Sets the max number of the coalesced pipelined response bytes.
+     *
+     * @param maxCoalescedResponseSize the max number of the coalesced bytes
+     *
+     * @see org.glassfish.grizzly.http.HttpServerFilter#setMaxCoalescedResponseSize(int)
+     * @since 2.4.4
+     */
+    public void setMaxCoalescedResponseSize(int maxCoalescedResponseSize) {
+        this.maxCoalescedResponseSize = maxCoalescedResponseSize;
+    }
+
+    /**
+     * @return the max time a pipelined response can be held back to be
+     * coalesced with the next responses.
+     *
+     * @since 2.4.4
+     */
+    public long getMaxCoalescedResponseDelay(final TimeUnit timeUnit) {
+        return timeUnit.convert(maxCoalescedResponseDelayMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the max time a pipelined response can be held back to be
+     * coalesced with the next responses.
+     *
+     * @param maxCoalescedResponseDelay the max time a response can be held back
+     * @param timeUnit the <tt>maxCoalescedResponseDelay</tt> {@link TimeUnit}
+     *
+     * @see org.glassfish.grizzly.http.HttpServerFilter#setMaxCoalescedResponseDelay(long, java.util.concurrent.TimeUnit)
+     * @since 2.4.4
+     */
+    public void setMaxCoalescedResponseDelay(final long maxCoalescedResponseDelay,
+            final TimeUnit timeUnit) {
+        this.maxCoalescedResponseDelayMillis =
+                timeUnit.toMillis(maxCoalescedResponseDelay);
+    }
     
     // --------------------------------------------------------- Private Methods
 
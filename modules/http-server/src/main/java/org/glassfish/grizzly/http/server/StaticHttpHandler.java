@@ -234,7 +234,12 @@ public class StaticHttpHandler extends StaticHttpHandlerBase {
         pickupContentType(response, resource.getPath());
         
         addToFileCache(request, response, resource);
-        sendFile(response, resource);
+        
+        final File precompressedFile =
+                lookupPrecompressedFile(request, response, resource);
+        sendFile(response, precompressedFile != null
+                ? precompressedFile
+                : resource);
 
         return true;
     }
@@ -29,6 +29,8 @@ import org.glassfish.grizzly.WriteHandler;
 import org.glassfish.grizzly.filterchain.Filter;
 import org.glassfish.grizzly.filterchain.FilterChain;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.http.CompressionConfig;
+import org.glassfish.grizzly.http.GZipContentEncoding;
 import org.glassfish.grizzly.http.server.filecache.FileCache;
 import org.glassfish.grizzly.http.io.NIOOutputStream;
 import org.glassfish.grizzly.http.io.OutputBuffer;
@@ -52,6 +54,8 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
     
     private volatile boolean isFileCacheEnabled = true;
     
+    private volatile boolean isPrecompressedFilesEnabled;
+    
     /**
      * Returns <tt>true</tt> if this <tt>StaticHttpHandler</tt> has been
      * configured to use file cache to serve static resources,
@@ -89,6 +93,36 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
         this.isFileCacheEnabled = isFileCacheEnabled;
     }
     
+    /**
+     * Returns <tt>true</tt> if this <tt>StaticHttpHandler</tt> serves the
+     * precompressed <tt>.gz</tt> siblings of the static resources to the
+     * clients, which accept gzip encoding, or <tt>false</tt> otherwise.
+     * 
+     * @return <tt>true</tt> if the precompressed resources are served,
+     * or <tt>false</tt> otherwise.
+     */
+    public boolean isPrecompressedFilesEnabled() {
+        return isPrecompressedFilesEnabled;
+    }
+
+    /**
+     * Set <tt>true</tt> to serve the precompressed <tt>.gz</tt> siblings of the
+     * static resources to the clients, which accept gzip encoding.
+     * The sibling <tt>resource.gz</tt> is sent with the <tt>Content-Type</tt>
+     * of the <tt>resource</tt> and <tt>Content-Encoding: gzip</tt>, so the
+     * resource is never compressed at runtime. The <tt>Range</tt> requests
+     * are served using the <tt>resource</tt> itself.
+     * 
+     * Please note, the precompressed siblings of the resources served by the
+     * file cache are controlled by {@link FileCache#setPrecompressedFilesEnabled(boolean)}.
+     * 
+     * @param isPrecompressedFilesEnabled <tt>true</tt> to serve the
+     * precompressed resources, or <tt>false</tt> otherwise.
+     */
+    public void setPrecompressedFilesEnabled(boolean isPrecompressedFilesEnabled) {
+        this.isPrecompressedFilesEnabled = isPrecompressedFilesEnabled;
+    }
+    
     public static void sendFile(final Response response, final File file)
             throws IOException {
         response.setStatus(HttpStatus.OK_200);
@@ -97,16 +131,70 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
         pickupContentType(response, file.getPath());
 
         final long length = file.length();
+        final long lastModified = file.lastModified();
+
+        // the encoded (precompressed) file doesn't serve the ranges, they're
+        // always cut from the identity representation
+        if (response.getResponse().getHeader(Header.ContentEncoding) == null) {
+            response.setHeader(Header.AcceptRanges, "bytes");
+
+            final ByteRanges ranges = ByteRanges.parse(
+                    response.getRequest().getRequest(), length,
+                    getETag(length, lastModified), lastModified);
+            if (ranges != null) {
+                sendRanges(response, file, length, ranges);
+                return;
+            }
+        }
+
         response.setContentLengthLong(length);
         response.addDateHeader(Header.Date, System.currentTimeMillis());
         if (!response.isSendFileEnabled() || response.getRequest().isSecure()) {
-            sendUsingBuffers(response, file);
+            sendUsingBuffers(response, file, null, null, length);
         } else {
             sendZeroCopy(response, file);
         }
     }
 
-    private static void sendUsingBuffers(final Response response, final File file)
+    private static void sendRanges(final Response response, final File file,
+            final long length, final ByteRanges ranges) throws IOException {
+        response.addDateHeader(Header.Date, System.currentTimeMillis());
+
+        if (!ranges.isSatisfiable()) {
+            response.setStatus(HttpStatus.REQUEST_RANGE_NOT_SATISFIABLE_416);
+            response.setHeader(Header.ContentRange,
+                    ByteRanges.unsatisfiedContentRange(length));
+            response.setContentLengthLong(0);
+            return;
+        }
+
+        response.setStatus(HttpStatus.PARTIAL_CONTENT_206);
+
+        if (!ranges.isMultipart()) {
+            response.setHeader(Header.ContentRange,
+                    ranges.getContentRange(0, length));
+            response.setContentLengthLong(ranges.getLength(0));
+
+            if (!response.isSendFileEnabled() || response.getRequest().isSecure()) {
+                sendUsingBuffers(response, file, ranges, null, length);
+            } else {
+                response.getOutputBuffer().sendfile(file, ranges.getStart(0),
+                        ranges.getLength(0), null);
+            }
+            return;
+        }
+
+        // the parts are interleaved with the headers, so they're copied
+        final String partContentType = response.getContentType();
+        response.setContentType(ranges.getMultipartContentType());
+        response.setContentLengthLong(
+                ranges.getMultipartLength(partContentType, length));
+        sendUsingBuffers(response, file, ranges, partContentType, length);
+    }
+
+    private static void sendUsingBuffers(final Response response,
+            final File file, final ByteRanges ranges,
+            final String partContentType, final long length)
             throws FileNotFoundException, IOException {
         final int chunkSize = 8192;
         
@@ -116,7 +204,7 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
         
         outputStream.notifyCanWrite(
                 new NonBlockingDownloadHandler(response, outputStream,
-                        file, chunkSize));
+                        file, chunkSize, ranges, partContentType, length));
 
     }
 
@@ -126,6 +214,53 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
         outputBuffer.sendfile(file, null);
     }
 
+    /**
+     * Returns the precompressed <tt>.gz</tt> sibling of the file, which has to
+     * be sent instead of the file, or <tt>null</tt> if the file itself has to
+     * be sent. If the sibling is returned, the <tt>Content-Encoding</tt>
+     * response header is set.
+     */
+    protected final File lookupPrecompressedFile(final Request request,
+            final Response response, final File file) {
+        if (!isPrecompressedFilesEnabled) {
+            return null;
+        }
+        
+        final File precompressedFile = FileCache.lookupPrecompressedFile(file);
+        return precompressedFile != null
+                && acceptPrecompressed(request, response)
+                ? precompressedFile
+                : null;
+    }
+    
+    /**
+     * Negotiates the representation of the resource, which has the
+     * precompressed sibling.
+     * 
+     * @return <tt>true</tt>, if the precompressed representation has to be
+     *  sent, in this case the <tt>Content-Encoding</tt> response header is set
+     */
+    protected static boolean acceptPrecompressed(final Request request,
+            final Response response) {
+        response.setHeader(Header.Vary, Header.AcceptEncoding.toString());
+        
+        // the ranges are served using the identity representation
+        if (request.getHeader(Header.Range) != null
+                || !CompressionConfig.isClientSupportContentEncoding(
+                        request.getRequest(), GZipContentEncoding.getGzipAliases())) {
+            return false;
+        }
+        
+        response.setHeader(Header.ContentEncoding, "gzip");
+        
+        final String etag = response.getResponse().getHeader(Header.ETag);
+        if (etag != null) {
+            response.setHeader(Header.ETag, FileCache.getCompressedETag(etag));
+        }
+        
+        return true;
+    }
+    
     public final boolean addToFileCache(final Request req,
                                         final Response res,
                                         final File resource) {
@@ -266,21 +401,23 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
 
     protected static void addCachingHeaders(final Response response,
                                           final File file) {
-        final StringBuilder sb = new StringBuilder();
-
         final long fileLength = file.length();
         final long lastModified = file.lastModified();
         if ((fileLength >= 0) || (lastModified >= 0)) {
-            sb.append('"').append(fileLength).append('-').
-                    append(lastModified).append('"');
-            response.setHeader(Header.ETag, sb.toString());
+            response.setHeader(Header.ETag, getETag(fileLength, lastModified));
         }
         response.addDateHeader(Header.LastModified, lastModified);
 
     }
+
+    private static String getETag(final long fileLength,
+            final long lastModified) {
+        return new StringBuilder().append('"').append(fileLength).append('-').
+                append(lastModified).append('"').toString();
+    }
     
     private static class NonBlockingDownloadHandler implements WriteHandler {
-        // keep the remaining size
+        // keep the remaining size of the current range
         private volatile long size;
         
         private final Response response;
@@ -289,9 +426,16 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
         private final MemoryManager mm;
         private final int chunkSize;
         
+        // the ranges to be sent, or null, if the entire file is sent
+        private final ByteRanges ranges;
+        private final String partContentType;
+        private final long fileLength;
+        private int rangeIdx;
+        
         NonBlockingDownloadHandler(final Response response,
                 final NIOOutputStream outputStream, final File file,
-                final int chunkSize) {
+                final int chunkSize, final ByteRanges ranges,
+                final String partContentType, final long fileLength) {
             
             try {
                 fileChannel = new FileInputStream(file).getChannel();
@@ -299,12 +443,15 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
                 throw new IllegalStateException("File should have existed", e);
             }
             
-            size = file.length();
-            
             this.response = response;
             this.outputStream = outputStream;
             mm = response.getRequest().getContext().getMemoryManager();
             this.chunkSize = chunkSize;
+            this.ranges = ranges;
+            this.partContentType = partContentType;
+            this.fileLength = fileLength;
+
+            size = ranges == null ? file.length() : -1;
         }
         
         @Override
@@ -330,8 +477,14 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
          * Send next CHUNK_SIZE of file
          */
         private boolean sendChunk() throws IOException {
+            if (size <= 0 && ranges != null && !nextRange()) {
+                complete(false);
+                return false;
+            }
+            
             // allocate Buffer
-            final Buffer buffer = mm.allocate(chunkSize);
+            final Buffer buffer = mm.allocate((int) Math.min(chunkSize,
+                    ranges != null ? size : chunkSize));
             // mark it available for disposal after content is written
             buffer.allowBufferDispose(true);
 
@@ -352,7 +505,10 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
             size -= justReadBytes;
 
             // check the remaining size here to avoid extra onWritePossible() invocation
-            if (size <= 0) {
+            if (size <= 0 && (ranges == null || !hasNextRange())) {
+                if (ranges != null && ranges.isMultipart()) {
+                    outputStream.write(ranges.getCloseDelimiter());
+                }
                 complete(false);
                 return false;
             }
@@ -360,6 +516,31 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
             return true;
         }
 
+        private boolean hasNextRange() {
+            return rangeIdx < ranges.size();
+        }
+        
+        /**
+         * Positions the file at the next range, writing the range's
+         * multipart headers.
+         */
+        private boolean nextRange() throws IOException {
+            if (!hasNextRange()) {
+                return false;
+            }
+
+            if (ranges.isMultipart()) {
+                outputStream.write(ranges.getPartHeader(rangeIdx,
+                        partContentType, fileLength));
+            }
+
+            fileChannel.position(ranges.getStart(rangeIdx));
+            size = ranges.getLength(rangeIdx);
+            rangeIdx++;
+
+            return true;
+        }
+
         /**
          * Complete the download
          */
@@ -48,6 +48,10 @@ public class AccessLogBuilder {
     private String rotationPattern;
     /* Non-synchronous, always use a Queue+Thread */
     private boolean synchronous;
+    /* Ring buffer capacity, when zero use a QueueingAppender */
+    private int ringBufferCapacity;
+    /* What to do when the ring buffer is full */
+    private RingBufferAppender.OverflowPolicy overflowPolicy = RingBufferAppender.OverflowPolicy.BLOCK;
 
     /* The base file name of the access log */
     private final File file;
@@ -79,7 +83,7 @@ public class AccessLogBuilder {
      */
     public AccessLogProbe build() {
         /* Build an appender, plain or rotating */
-        AccessLogAppender appender;
+        BatchAppender appender;
         try {
             if (rotationPattern == null) {
                 appender = new FileAppender(file.getCanonicalFile());
@@ -114,11 +118,18 @@ public class AccessLogBuilder {
             throw new IllegalStateException("I/O error creating acces log", exception);
         }
 
-        /* Wrap the synch in a queue in a-synchronous */
-        if (!synchronous) appender = new QueueingAppender(appender);
+        /* Wrap the synch in a queue or ring buffer in a-synchronous */
+        final AccessLogAppender wrapped;
+        if (synchronous) {
+            wrapped = appender;
+        } else if (ringBufferCapacity > 0) {
+            wrapped = new RingBufferAppender(appender, ringBufferCapacity, overflowPolicy);
+        } else {
+            wrapped = new QueueingAppender(appender);
+        }
 
         /* Create and return our probe */
-        return new AccessLogProbe(appender, format, statusThreshold);
+        return new AccessLogProbe(wrapped, format, statusThreshold);
     }
 
     /**
@@ -237,11 +248,34 @@ public class AccessLogBuilder {
      * Specify whether access log entries should be written
      * <en>synchronously</em> or not.
      *
-     * <p>If <b>false</b> (the default) a {@link QueueingAppender} will be used
-     * to enqueue entries and append to the final appenders when possible.</p>
+     * <p>If <b>false</b> (the default) a {@link QueueingAppender} (or a
+     * {@link RingBufferAppender}, if {@linkplain #ringBuffer(int, RingBufferAppender.OverflowPolicy)
+     * configured}) will be used to enqueue entries and append to the final
+     * appenders when possible.</p>
      */
     public AccessLogBuilder synchronous(boolean synchronous) {
         this.synchronous = synchronous;
         return this;
     }
+
+    /**
+     * Use a bounded {@link RingBufferAppender} rather than a
+     * {@link QueueingAppender} when writing entries
+     * <em>asynchronously</em>.
+     *
+     * <p>Entries are formatted into per-thread reusable buffers and written
+     * to the log file in large batches, making this suitable for high
+     * request rates.</p>
+     *
+     * @param capacity The number of entries the ring buffer can hold.
+     * @param overflowPolicy What to do when the ring buffer is full, either
+     *                       wait for the writer or drop the entry.
+     */
+    public AccessLogBuilder ringBuffer(int capacity, RingBufferAppender.OverflowPolicy overflowPolicy) {
+        if (capacity < 2) throw new IllegalArgumentException("Capacity must be at least 2");
+        if (overflowPolicy == null) throw new NullPointerException("Null overflow policy");
+        this.ringBufferCapacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        return this;
+    }
 }
@@ -121,7 +121,12 @@ public class AccessLogProbe extends HttpServerProbe.Adapter {
 
         /* Create a formatted log entry string and append it */
         try {
-            appender.append(format.format(response, requestMillis, responseNanos));
+            if (appender instanceof RingBufferAppender) {
+                /* Let the appender format into its own reusable buffers */
+                ((RingBufferAppender) appender).append(format, response, requestMillis, responseNanos);
+            } else {
+                appender.append(format.format(response, requestMillis, responseNanos));
+            }
         } catch (Throwable throwable) {
             LOGGER.log(WARNING, "Exception caught appending to access log", throwable);
         }
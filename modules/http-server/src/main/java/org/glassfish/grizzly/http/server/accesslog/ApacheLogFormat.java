@@ -185,7 +185,19 @@ public class ApacheLogFormat implements AccessLogFormat {
 
     @Override
     public String format(Response response, Date timeStamp, long responseNanos) {
-        final StringBuilder builder = new StringBuilder();
+        return format(new StringBuilder(), response, timeStamp, responseNanos).toString();
+    }
+
+    /**
+     * Format the data contained in the specified {@link Response} appending
+     * it to the specified {@link StringBuilder}.
+     *
+     * <p>This allows callers to reuse the same {@link StringBuilder} across
+     * log entries, rather than creating a new {@link String} per request.</p>
+     *
+     * @return The same {@link StringBuilder} passed as an argument.
+     */
+    public StringBuilder format(StringBuilder builder, Response response, Date timeStamp, long responseNanos) {
         final Request request = response.getRequest();
         for (Field field: fields) try {
             field.format(builder, request, response, timeStamp, responseNanos);
@@ -193,7 +205,7 @@ public class ApacheLogFormat implements AccessLogFormat {
             LOGGER.log(WARNING, "Exception formatting access log entry", exception);
             builder.append('-');
         }
-        return builder.toString();
+        return builder;
     }
 
     String unsafeFormat(Response response, Date timeStamp, long responseNanos) {
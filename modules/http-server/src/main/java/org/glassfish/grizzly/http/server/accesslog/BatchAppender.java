@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.accesslog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link AccessLogAppender appender} which can also append batches of
+ * access log entries already encoded in <em>UTF-8</em>, each one terminated
+ * by a line separator.
+ *
+ * <p>This allows a {@link RingBufferAppender} to hand over many entries with
+ * a single write, rather than one write per entry.</p>
+ */
+public interface BatchAppender extends AccessLogAppender {
+
+    /**
+     * Append all the remaining bytes of the specified {@link ByteBuffer},
+     * holding one or more complete access log entries.
+     *
+     * @param entries The encoded entries, each one terminated by a line
+     *                separator.
+     * @throws IOException If an I/O error occurred appending to the log.
+     */
+    void append(ByteBuffer entries)
+    throws IOException;
+
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.accesslog;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.Response;
+
+/**
+ * An {@link AccessLogAppender appender} handing log entries over to a
+ * secondary, separate {@link Thread} through a bounded, lock-free
+ * <em>ring buffer</em>, and writing them to a nested
+ * {@link BatchAppender appender} in large batches.
+ *
+ * <p>Unlike the {@link QueueingAppender}, entries are encoded in
+ * <em>UTF-8</em> directly into pre-allocated ring slots, and when used through
+ * {@link #append(AccessLogFormat, Response, Date, long)} they are formatted
+ * into a per-thread reusable {@link StringBuilder}, so no {@link String} or
+ * queue node is created per request.</p>
+ *
+ * <p>When the ring is full the configured {@link OverflowPolicy} applies:
+ * either the appending thread waits for a free slot, or the entry is dropped
+ * and {@linkplain #getDroppedEntries() counted}.</p>
+ */
+public class RingBufferAppender implements AccessLogAppender {
+
+    /**
+     * What to do with a new entry when the ring buffer is full.
+     */
+    public enum OverflowPolicy {
+        /** Wait until the writer thread frees a slot. */
+        BLOCK,
+        /** Discard the entry. */
+        DROP
+    }
+
+    /** The default number of entries the ring buffer can hold. */
+    public static final int DEFAULT_CAPACITY = 8192;
+    /** The default size, in bytes, of a batch written to the nested appender. */
+    public static final int DEFAULT_BATCH_SIZE = 64 * 1024;
+
+    private static final Logger LOGGER = Grizzly.logger(HttpServer.class);
+
+    /* Line separator for entries, respect Windoshhhh */
+    private static final byte[] LINE_SEPARATOR = System.getProperty("line.separator").getBytes();
+    /* The initial size of the ring slots */
+    private static final int SLOT_SIZE = 512;
+    /* Per-thread builders grown beyond this size are not retained */
+    private static final int MAX_RETAINED_BUILDER = 16 * 1024;
+    /* How long the writer sleeps when idle, and a blocked appender waits */
+    private static final long WRITER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /* The per-thread reusable format buffers */
+    private static final ThreadLocal<StringBuilder> BUILDERS = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
+    /* Where to write stuff to */
+    private final BatchAppender appender;
+    /* What to do when full */
+    private final OverflowPolicy overflowPolicy;
+    /* The size of the write batches */
+    private final int batchSize;
+
+    /* The ring: slot contents, their lengths and sequences */
+    private final int mask;
+    private final byte[][] slots;
+    private final int[] lengths;
+    private final AtomicLongArray sequences;
+    /* The next position to be claimed by the appending threads */
+    private final AtomicLong tail = new AtomicLong();
+    /* The next position to be consumed, only accessed by the writer thread */
+    private long head;
+
+    /* Entries dropped because of a full ring */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /* The thread doing the writing */
+    private final Thread thread;
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+
+    /**
+     * Create a new {@link RingBufferAppender} with the
+     * {@linkplain #DEFAULT_CAPACITY default capacity} blocking when full.
+     */
+    public RingBufferAppender(BatchAppender appender) {
+        this(appender, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Create a new {@link RingBufferAppender}.
+     *
+     * @param appender The {@link BatchAppender} to write batches to.
+     * @param capacity The number of entries the ring buffer can hold, rounded
+     *                 up to a power of two.
+     * @param overflowPolicy What to do when the ring buffer is full.
+     */
+    public RingBufferAppender(BatchAppender appender, int capacity, OverflowPolicy overflowPolicy) {
+        this(appender, capacity, overflowPolicy, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Create a new {@link RingBufferAppender}.
+     *
+     * @param appender The {@link BatchAppender} to write batches to.
+     * @param capacity The number of entries the ring buffer can hold, rounded
+     *                 up to a power of two.
+     * @param overflowPolicy What to do when the ring buffer is full.
+     * @param batchSize The maximum size, in bytes, of a single batch written
+     *                  to the nested appender.
+     */
+    public RingBufferAppender(BatchAppender appender, int capacity, OverflowPolicy overflowPolicy, int batchSize) {
+        if (appender == null) throw new NullPointerException("Null appender");
+        if (overflowPolicy == null) throw new NullPointerException("Null overflow policy");
+        if (capacity < 2) throw new IllegalArgumentException("Capacity must be at least 2");
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive");
+
+        this.appender = appender;
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+
+        final int size = Integer.highestOneBit(capacity - 1) << 1;
+        mask = size - 1;
+        slots = new byte[size][];
+        lengths = new int[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i ++) {
+            slots[i] = new byte[SLOT_SIZE];
+            sequences.set(i, i);
+        }
+
+        thread = new Thread(new BatchWriter());
+        thread.setName(toString());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /* ====================================================================== */
+
+    @Override
+    public void append(String accessLogEntry)
+    throws IOException {
+        publish(accessLogEntry);
+    }
+
+    /**
+     * Format the specified {@link Response} with the specified
+     * {@link AccessLogFormat} and append the resulting entry.
+     *
+     * <p>When the format is an {@link ApacheLogFormat}, the entry is
+     * formatted into a per-thread reusable {@link StringBuilder}.</p>
+     */
+    public void append(AccessLogFormat format, Response response, Date timeStamp, long responseNanos) {
+        if (!(format instanceof ApacheLogFormat)) {
+            publish(format.format(response, timeStamp, responseNanos));
+            return;
+        }
+
+        StringBuilder builder = BUILDERS.get();
+        builder.setLength(0);
+        ((ApacheLogFormat) format).format(builder, response, timeStamp, responseNanos);
+        publish(builder);
+
+        /* Don't keep around buffers grown by a few huge entries */
+        if (builder.capacity() > MAX_RETAINED_BUILDER) BUILDERS.remove();
+    }
+
+    /**
+     * Return the number of entries dropped so far because the ring buffer
+     * was full, or the appender was closed.
+     */
+    public long getDroppedEntries() {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException exception) {
+            LOGGER.log(FINE, "Interrupted stopping writer", exception);
+        } finally {
+            appender.close();
+        }
+    }
+
+    /* ====================================================================== */
+    /* RING BUFFER                                                            */
+    /* ====================================================================== */
+
+    private void publish(CharSequence entry) {
+        if (closed) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        /* Claim a slot, multiple producers race on the tail */
+        long position = tail.get();
+        while (true) {
+            final long available = sequences.get((int) position & mask) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+                position = tail.get();
+            } else if (available < 0) {
+                /* Full, the writer hasn't consumed the slot yet */
+                if (overflowPolicy == OverflowPolicy.DROP || closed) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+                position = tail.get();
+            } else {
+                position = tail.get();
+            }
+        }
+
+        /* Encode into the slot, then make it visible to the writer */
+        final int index = (int) position & mask;
+        final int maximum = entry.length() * 3 + LINE_SEPARATOR.length;
+        if (slots[index].length < maximum) slots[index] = new byte[maximum];
+        lengths[index] = encode(entry, slots[index]);
+        sequences.lazySet(index, position + 1);
+
+        if (writerParked) LockSupport.unpark(thread);
+    }
+
+    /* Encode in UTF-8 followed by the line separator, return the length */
+    private static int encode(CharSequence entry, byte[] bytes) {
+        final int length = entry.length();
+        int position = 0;
+        for (int x = 0; x < length; x ++) {
+            final char c = entry.charAt(x);
+            if (c < 0x80) {
+                bytes[position ++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[position ++] = (byte) (0xC0 | (c >> 6));
+                bytes[position ++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && x + 1 < length
+                       && Character.isLowSurrogate(entry.charAt(x + 1))) {
+                final int codePoint = Character.toCodePoint(c, entry.charAt(++ x));
+                bytes[position ++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[position ++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[position ++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[position ++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                /* Unpaired surrogate, same as the JDK encoder replacement */
+                bytes[position ++] = (byte) '?';
+            } else {
+                bytes[position ++] = (byte) (0xE0 | (c >> 12));
+                bytes[position ++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[position ++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        System.arraycopy(LINE_SEPARATOR, 0, bytes, position, LINE_SEPARATOR.length);
+        return position + LINE_SEPARATOR.length;
+    }
+
+    /* ====================================================================== */
+    /* OUR WRITER                                                             */
+    /* ====================================================================== */
+
+    private final class BatchWriter implements Runnable {
+
+        private final ByteBuffer batch = ByteBuffer.allocateDirect(batchSize);
+
+        @Override
+        public void run() {
+            while (true) {
+                if (drain()) continue;
+
+                /* Nothing to consume, write what we have and wait */
+                flush();
+                if (closed) {
+                    /* Entries published while we were closing */
+                    if (drain()) continue;
+                    return;
+                }
+
+                writerParked = true;
+                if (!isAvailable()) LockSupport.parkNanos(this, WRITER_PARK_NANOS);
+                writerParked = false;
+            }
+        }
+
+        private boolean isAvailable() {
+            return sequences.get((int) head & mask) == head + 1;
+        }
+
+        /* Move all published entries into the batch, true if any */
+        private boolean drain() {
+            boolean drained = false;
+            while (isAvailable()) {
+                final int index = (int) head & mask;
+                final int length = lengths[index];
+
+                if (length > batch.remaining()) flush();
+                if (length > batch.capacity()) {
+                    write(ByteBuffer.wrap(slots[index], 0, length));
+                } else {
+                    batch.put(slots[index], 0, length);
+                }
+
+                /* Release the slot to the producers, one lap ahead */
+                sequences.lazySet(index, head + mask + 1);
+                head ++;
+                drained = true;
+            }
+            return drained;
+        }
+
+        private void flush() {
+            if (batch.position() == 0) return;
+            batch.flip();
+            write(batch);
+            batch.clear();
+        }
+
+        private void write(ByteBuffer entries) {
+            try {
+                appender.append(entries);
+            } catch (Throwable throwable) {
+                LOGGER.log(WARNING, "Exception caught writing access log entries", throwable);
+            }
+        }
+    }
+
+}
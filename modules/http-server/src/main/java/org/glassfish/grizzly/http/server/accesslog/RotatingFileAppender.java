@@ -20,6 +20,7 @@ import static java.util.logging.Level.WARNING;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.logging.Logger;
@@ -34,7 +35,7 @@ import org.glassfish.grizzly.http.server.HttpServer;
  * @author <a href="mailto:pier@usrz.com">Pier Fumagalli</a>
  * @author <a href="http://www.usrz.com/">USRZ.com</a>
  */
-public class RotatingFileAppender implements AccessLogAppender {
+public class RotatingFileAppender implements BatchAppender {
 
     private static final Logger LOGGER = Grizzly.logger(HttpServer.class);
 
@@ -145,40 +146,19 @@ public class RotatingFileAppender implements AccessLogAppender {
     throws IOException {
         if (closed) return;
 
-        /* It's all about date and time */
-        final Date date = new Date();
         synchronized(this) {
-            /* Calculate the name of the current archive */
-            final SimpleDateFormat archiveFormat = this.archiveFormat.get();
-            final File archive = new File(directory, archiveFormat.format(date));
-
-            /* If this archive is *NOT* the one we wrote to last, rotate */
-            if (!archive.equals(currentArchive)) try {
-
-                /* Close our current appender */
-                appender.close();
-
-                /* If we have different file names, move the file to archive */
-                if (!currentFile.equals(currentArchive)) {
-                    LOGGER.info("Archiving \"" + currentFile + "\" to \"" + currentArchive +"\"");
-                    if (!currentFile.renameTo(currentArchive))
-                        throw new IOException("Unable to rename \"" + currentFile + "\" to \"" + currentArchive + "\"");
-                }
-
-                /* Save our new state */
-                currentArchive = archive;
-                currentFile = new File(directory, fileFormat.get().format(date));
-
-                /* Create our new appender */
-                appender = new FileAppender(currentFile, true);
+            rotate().append(accessLogEntry);
+        }
+    }
 
-            } catch (IOException exception) {
-                LOGGER.log(WARNING, "I/O error rotating access log file", exception);
-            }
+    @Override
+    public void append(ByteBuffer entries)
+    throws IOException {
+        if (closed) return;
 
-            appender.append(accessLogEntry);
+        synchronized(this) {
+            rotate().append(entries);
         }
-
     }
 
     @Override
@@ -188,4 +168,42 @@ public class RotatingFileAppender implements AccessLogAppender {
         appender.close();
     }
 
+    /* ====================================================================== */
+
+    /* Rotate the current file if needed, must be called holding our lock */
+    private FileAppender rotate() {
+        /* It's all about date and time */
+        final Date date = new Date();
+
+        /* Calculate the name of the current archive */
+        final SimpleDateFormat archiveFormat = this.archiveFormat.get();
+        final File archive = new File(directory, archiveFormat.format(date));
+
+        /* If this archive is *NOT* the one we wrote to last, rotate */
+        if (!archive.equals(currentArchive)) try {
+
+            /* Close our current appender */
+            appender.close();
+
+            /* If we have different file names, move the file to archive */
+            if (!currentFile.equals(currentArchive)) {
+                LOGGER.info("Archiving \"" + currentFile + "\" to \"" + currentArchive +"\"");
+                if (!currentFile.renameTo(currentArchive))
+                    throw new IOException("Unable to rename \"" + currentFile + "\" to \"" + currentArchive + "\"");
+            }
+
+            /* Save our new state */
+            currentArchive = archive;
+            currentFile = new File(directory, fileFormat.get().format(date));
+
+            /* Create our new appender */
+            appender = new FileAppender(currentFile, true);
+
+        } catch (IOException exception) {
+            LOGGER.log(WARNING, "I/O error rotating access log file", exception);
+        }
+
+        return appender;
+    }
+
 }
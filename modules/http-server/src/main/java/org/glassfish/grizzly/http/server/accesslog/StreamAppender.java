@@ -16,10 +16,13 @@
 
 package org.glassfish.grizzly.http.server.accesslog;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 
 /**
@@ -31,12 +34,16 @@ import java.nio.charset.Charset;
  * @author <a href="mailto:pier@usrz.com">Pier Fumagalli</a>
  * @author <a href="http://www.usrz.com/">USRZ.com</a>
  */
-public class StreamAppender implements AccessLogAppender {
+public class StreamAppender implements BatchAppender {
 
     /* Line separator for entries, respect Windoshhhh */
     private static final String LINE_SEPARATOR = System.getProperty("line.separator");
     /* The writer we'll actually use */
     private final Writer writer;
+    /* The stream for pre-encoded batches */
+    private final OutputStream output;
+    /* The channel for pre-encoded batches, if writing to a file */
+    private final FileChannel channel;
 
     /**
      * Create a new {@link StreamAppender} instance writing log entries to the
@@ -44,6 +51,10 @@ public class StreamAppender implements AccessLogAppender {
      */
     public StreamAppender(OutputStream  output) {
         writer = new OutputStreamWriter(output, Charset.forName("UTF-8"));
+        this.output = output;
+        channel = output instanceof FileOutputStream ?
+                      ((FileOutputStream) output).getChannel() :
+                      null;
     }
 
     @Override
@@ -56,6 +67,25 @@ public class StreamAppender implements AccessLogAppender {
         }
     }
 
+    @Override
+    public void append(ByteBuffer entries)
+    throws IOException {
+        synchronized(this) {
+            writer.flush();
+            if (channel != null) {
+                while (entries.hasRemaining()) channel.write(entries);
+            } else if (entries.hasArray()) {
+                output.write(entries.array(), entries.arrayOffset() + entries.position(), entries.remaining());
+                entries.position(entries.limit());
+            } else {
+                final byte[] bytes = new byte[entries.remaining()];
+                entries.get(bytes);
+                output.write(bytes);
+            }
+            output.flush();
+        }
+    }
+
     @Override
     public void close()
     throws IOException {
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.http.server.filecache;
+
+/**
+ * Admission and eviction policy of the {@link FileCache}: a segmented LRU
+ * (probation and protected segments) guarded by the {@link FrequencySketch}
+ * <tt>TinyLFU</tt> admission filter.
+ *
+ * The entries are spread across the shards by their key hash, every shard
+ * keeps its own LRU order under its own lock, so the cache hits on different
+ * resources don't contend. The capacity limits (the number of entries and the
+ * HEAP/MAPPED byte sizes) stay global: when a new resource doesn't fit, the
+ * least recently used entries of the required tier are the eviction victims,
+ * but a victim is evicted only if the new resource was requested more often
+ * recently. Otherwise the new resource isn't admitted.
+ */
+final class EvictionPolicy {
+    /**
+     * Maximum share of the shard entries in the protected segment.
+     */
+    private static final int PROTECTED_PERCENT = 80;
+
+    /**
+     * Maximum number of the LRU entries examined per segment, when looking
+     * for a victim of a specific tier.
+     */
+    private static final int MAX_SCAN = 16;
+
+    private final Shard[] shards;
+    private final int shardMask;
+    private volatile FrequencySketch sketch;
+
+    EvictionPolicy(final int maximumSize) {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int shardCount = Math.min(16,
+                Integer.highestOneBit(Math.max(1, processors) * 2 - 1));
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        shardMask = shardCount - 1;
+        sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Resizes the popularity sketch for the new cache capacity.
+     */
+    void setMaximumSize(final int maximumSize) {
+        sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Records a request for the resource with the given key hash, which is
+     * not cached.
+     */
+    void recordMiss(final int hash) {
+        sketch.increment(hash);
+    }
+
+    /**
+     * Records a cache hit.
+     */
+    void recordHit(final FileCacheEntry entry) {
+        sketch.increment(entry.keyHash);
+        shardOf(entry.keyHash).touch(entry);
+    }
+
+    /**
+     * Starts tracking the newly cached entry.
+     */
+    void onAdded(final FileCacheEntry entry) {
+        sketch.increment(entry.keyHash);
+        shardOf(entry.keyHash).link(entry);
+    }
+
+    /**
+     * Stops tracking the removed entry.
+     */
+    void onRemoved(final FileCacheEntry entry) {
+        shardOf(entry.keyHash).unlink(entry);
+    }
+
+    /**
+     * Finds the eviction victim for the resource with the given key hash.
+     *
+     * @param hash the key hash of the resource to be admitted
+     * @param type the {@link FileCache.CacheType} the victim has to be of, or
+     *  <tt>null</tt> if any entry could be evicted
+     *
+     * @return the entry to be evicted, or <tt>null</tt>, if the new resource
+     *  shouldn't be admitted
+     */
+    FileCacheEntry selectVictim(final int hash, final FileCache.CacheType type) {
+        final int start = hash & shardMask;
+        for (int i = 0; i <= shardMask; i++) {
+            final FileCacheEntry victim =
+                    shards[(start + i) & shardMask].lruOf(type);
+            if (victim != null) {
+                final FrequencySketch s = sketch;
+                return s.frequency(hash) > s.frequency(victim.keyHash)
+                        ? victim
+                        : null;
+            }
+        }
+
+        return null;
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+
+    private Shard shardOf(final int hash) {
+        return shards[hash & shardMask];
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    private static final class Shard {
+        // circular lists with the sentinel heads, the LRU entry is head.next
+        private final FileCacheEntry probation = sentinel();
+        private final FileCacheEntry protectedHead = sentinel();
+        private int size;
+        private int protectedSize;
+
+        synchronized void link(final FileCacheEntry entry) {
+            if (entry.lruNext != null) {
+                return;
+            }
+
+            append(probation, entry);
+            entry.lruProtected = false;
+            size++;
+        }
+
+        synchronized void unlink(final FileCacheEntry entry) {
+            if (entry.lruNext == null) {
+                return;
+            }
+
+            remove(entry);
+            if (entry.lruProtected) {
+                protectedSize--;
+            }
+            size--;
+        }
+
+        synchronized void touch(final FileCacheEntry entry) {
+            if (entry.lruNext == null) {
+                return;
+            }
+
+            remove(entry);
+            append(protectedHead, entry);
+            if (!entry.lruProtected) {
+                entry.lruProtected = true;
+                protectedSize++;
+
+                // demote the protected LRU, if the segment grew too big
+                if (protectedSize * 100 > size * PROTECTED_PERCENT) {
+                    final FileCacheEntry demoted = protectedHead.lruNext;
+                    remove(demoted);
+                    append(probation, demoted);
+                    demoted.lruProtected = false;
+                    protectedSize--;
+                }
+            }
+        }
+
+        synchronized FileCacheEntry lruOf(final FileCache.CacheType type) {
+            FileCacheEntry victim = lruOf(probation, type);
+            if (victim == null) {
+                victim = lruOf(protectedHead, type);
+            }
+
+            return victim;
+        }
+
+        private static FileCacheEntry lruOf(final FileCacheEntry head,
+                final FileCache.CacheType type) {
+            FileCacheEntry entry = head.lruNext;
+            for (int i = 0; i < MAX_SCAN && entry != head; i++) {
+                if (type == null || entry.type == type) {
+                    return entry;
+                }
+                entry = entry.lruNext;
+            }
+
+            return null;
+        }
+
+        private static void append(final FileCacheEntry head,
+                final FileCacheEntry entry) {
+            final FileCacheEntry last = head.lruPrev;
+            entry.lruPrev = last;
+            entry.lruNext = head;
+            last.lruNext = entry;
+            head.lruPrev = entry;
+        }
+
+        private static void remove(final FileCacheEntry entry) {
+            entry.lruPrev.lruNext = entry.lruNext;
+            entry.lruNext.lruPrev = entry.lruPrev;
+            entry.lruPrev = null;
+            entry.lruNext = null;
+        }
+
+        private static FileCacheEntry sentinel() {
+            final FileCacheEntry head = new FileCacheEntry(null);
+            head.lruPrev = head;
+            head.lruNext = head;
+            return head;
+        }
+    }
+}
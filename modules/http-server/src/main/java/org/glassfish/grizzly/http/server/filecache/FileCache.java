@@ -38,6 +38,8 @@ import java.nio.channels.FileChannel;
 import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -65,6 +67,11 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
     
     final static String[] COMPRESSION_ALIASES = {"gzip"};
 
+    /**
+     * The suffix of the precompressed (gzipped) sibling of a static resource.
+     */
+    public static final String PRECOMPRESSED_FILE_SUFFIX = ".gz";
+
     public enum CacheType {
         HEAP, MAPPED, FILE, TIMESTAMP
     }
@@ -92,6 +99,11 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
     
     private final FileCacheEntry NULL_CACHE_ENTRY = new FileCacheEntry(this);
 
+    /**
+     * Decides which entries are evicted, when the cache is full.
+     */
+    private final EvictionPolicy evictionPolicy = new EvictionPolicy(1024);
+
     /**
      * Specifies the maximum time in seconds a resource may be cached.
      */
@@ -148,6 +160,28 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
      * has to be compressed or not
      */
     private final CompressionConfig compressionConfig = new CompressionConfig();
+
+    /**
+     * <tt>true</tt>, if the precompressed <tt>.gz</tt> siblings of the cached
+     * files have to be served to the clients, which accept gzip encoding.
+     */
+    private volatile boolean precompressedFilesEnabled;
+
+    /**
+     * The {@link Executor} to compress the cached files in the background,
+     * or <tt>null</tt>, if the files are compressed by the request thread.
+     */
+    private volatile Executor compressionExecutor;
+
+    /**
+     * The maximum number of the files waiting for the background compression.
+     */
+    private volatile int maxPendingCompressions = 16;
+
+    /**
+     * The number of the files waiting for the background compression.
+     */
+    private final AtomicInteger pendingCompressions = new AtomicInteger();
     
     /**
      * <tt>true</tt>, if zero-copy file-send feature could be used, or
@@ -217,9 +251,10 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
             return CacheResult.FAILED_ENTRY_EXISTS;
         }
 
-        final int size = cacheSize.incrementAndGet();
-        // cache is full.
-        if (size > getMaxCacheEntries()) {
+        final int keyHash = key.hashCode();
+        cacheSize.incrementAndGet();
+        // cache is full, evict less popular entries or reject the new one.
+        if (!makeRoom(keyHash, null)) {
             cacheSize.decrementAndGet();
             fileCacheMap.remove(key);
             key.recycle();
@@ -233,14 +268,21 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         
         final FileCacheEntry entry;
         if (cacheFile != null) { // If we have a file - try to create File-aware cache resource
-            entry = createEntry(cacheFile);
-            entry.setCanBeCompressed(canBeCompressed(cacheFile, contentType));
+            entry = createEntry(cacheFile, keyHash);
+            final File precompressedFile = isPrecompressedFilesEnabled()
+                    ? lookupPrecompressedFile(cacheFile)
+                    : null;
+            if (precompressedFile == null
+                    || !setPrecompressedFile(entry, precompressedFile)) {
+                entry.setCanBeCompressed(canBeCompressed(cacheFile, contentType));
+            }
         } else {
             entry = new FileCacheEntry(this);
             entry.type = CacheType.TIMESTAMP;
         }
 
         entry.key = key;
+        entry.keyHash = keyHash;
         entry.requestURI = requestURI;
 
         entry.lastModified = lastModified;
@@ -253,6 +295,12 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         entry.server = headers.getHeader(Header.Server);
 
         fileCacheMap.put(key, entry);
+        evictionPolicy.onAdded(entry);
+
+        if (compressionExecutor != null) {
+            // prepare the compressed representation in advance
+            entry.compress();
+        }
         
         notifyProbesEntryAdded(this, entry);
         
@@ -277,9 +325,12 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
 
         final LazyFileCacheKey key = LazyFileCacheKey.create(request);
         final FileCacheEntry entry = fileCacheMap.get(key);
+        final int keyHash = key.hashCode();
         key.recycle();
         try {
             if (entry != null && entry != NULL_CACHE_ENTRY) {
+                evictionPolicy.recordHit(entry);
+
                 // determine if we need to send the cache entry bytes
                 // to the user-agent
                 final HttpStatus httpStatus = checkIfHeaders(entry, request);
@@ -297,6 +348,7 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
                 return entry;
             }
             
+            evictionPolicy.recordMiss(keyHash);
             notifyProbesEntryMissed(this, request);
         } catch (Exception e) {
             notifyProbesError(this, e);
@@ -310,10 +362,14 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
     }
 
     protected void remove(final FileCacheEntry entry) {
-        if (fileCacheMap.remove(entry.key) != null) {
-            cacheSize.decrementAndGet();
+        // the entry could be both evicted and expired, release it once
+        if (!fileCacheMap.remove(entry.key, entry)) {
+            return;
         }
 
+        cacheSize.decrementAndGet();
+        evictionPolicy.onRemoved(entry);
+
         if (entry.type == FileCache.CacheType.MAPPED) {
             subMappedMemorySize(entry.bb.remaining());
         } else if (entry.type == FileCache.CacheType.HEAP) {
@@ -323,6 +379,52 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         notifyProbesEntryRemoved(this, entry);
     }
 
+    /**
+     * Evicts the less popular entries until the cache limit of the given
+     * {@link CacheType} is met. The new resource size has to be already
+     * accounted.
+     *
+     * @param keyHash the key hash of the resource being added
+     * @param type {@link CacheType#HEAP} or {@link CacheType#MAPPED} to meet
+     *  the tier byte size limit, or <tt>null</tt> to meet the maximum number
+     *  of entries
+     *
+     * @return <tt>true</tt> if the limit is met, or <tt>false</tt> if the new
+     *  resource shouldn't be admitted
+     */
+    private boolean makeRoom(final int keyHash, final CacheType type) {
+        while (isOverLimit(type)) {
+            final FileCacheEntry victim =
+                    evictionPolicy.selectVictim(keyHash, type);
+            if (victim == null) {
+                return false;
+            }
+
+            if (fileCacheMap.get(victim.key) == victim) {
+                if (getSecondsMaxAge() > 0) {
+                    delayQueue.remove(victim);
+                }
+                remove(victim);
+                notifyProbesEntryEvicted(this, victim);
+            } else {
+                // concurrently removed, but not unlinked yet
+                evictionPolicy.onRemoved(victim);
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isOverLimit(final CacheType type) {
+        if (type == null) {
+            return cacheSize.get() > getMaxCacheEntries();
+        }
+
+        return type == CacheType.HEAP
+                ? heapSize.get() > getMaxSmallFileCacheSize()
+                : mappedMemorySize.get() > getMaxLargeFileCacheSize();
+    }
+
     protected Object createJmxManagementObject() {
         return MonitoringUtils.loadJmxObject(
                 "org.glassfish.grizzly.http.server.filecache.jmx.FileCache",
@@ -332,8 +434,8 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
     /**
      * Creates {@link FileCacheEntry}.
      */
-    private FileCacheEntry createEntry(final File file) {
-        FileCacheEntry entry = tryMapFileToBuffer(file);
+    private FileCacheEntry createEntry(final File file, final int keyHash) {
+        FileCacheEntry entry = tryMapFileToBuffer(file, keyHash);
         if (entry == null) {
             entry = new FileCacheEntry(this);
             entry.type = CacheType.FILE;
@@ -349,7 +451,8 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
      * Map the file to a {@link ByteBuffer}
      * @return the preinitialized {@link FileCacheEntry}
      */
-    private FileCacheEntry tryMapFileToBuffer(final File file) {
+    private FileCacheEntry tryMapFileToBuffer(final File file,
+            final int keyHash) {
         
         final long size = file.length();
         if (size > getMaxEntrySize()) {
@@ -362,7 +465,9 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         FileInputStream stream = null;
         try {
             if (size > getMinEntrySize()) {
-                if (addMappedMemorySize(size) > getMaxLargeFileCacheSize()) {
+                addMappedMemorySize(size);
+                if (size > getMaxLargeFileCacheSize()
+                        || !makeRoom(keyHash, CacheType.MAPPED)) {
                     // Cache full
                     subMappedMemorySize(size);
                     return null;
@@ -370,7 +475,9 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
                 
                 type = CacheType.MAPPED;
             } else {
-                if (addHeapSize(size) > getMaxSmallFileCacheSize()) {
+                addHeapSize(size);
+                if (size > getMaxSmallFileCacheSize()
+                        || !makeRoom(keyHash, CacheType.HEAP)) {
                     // Cache full
                     subHeapSize(size);
                     return null;
@@ -415,6 +522,60 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         return entry;
     }
 
+    /**
+     * Uses the precompressed <tt>.gz</tt> sibling as the compressed
+     * representation of the given cache entry.
+     *
+     * @return <tt>true</tt> if the precompressed file has been set
+     */
+    private boolean setPrecompressedFile(final FileCacheEntry entry,
+            final File precompressedFile) {
+        try {
+            if (entry.type != CacheType.FILE) {
+                entry.compressedBb = map(precompressedFile, entry.type);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Can not map the precompressed file: "
+                    + precompressedFile, e);
+            return false;
+        }
+
+        entry.compressedFileSize = precompressedFile.length();
+        entry.setPrecompressedFile(precompressedFile);
+        return true;
+    }
+
+    /**
+     * Returns the entity tag of the gzip representation of the resource, which
+     * has the given entity tag. The representations have to be tagged
+     * differently, so the <tt>If-Range</tt> and <tt>If-Match</tt> conditions
+     * of one representation never match the other.
+     *
+     * @param etag the entity tag of the plain resource
+     * @return the entity tag of the gzip representation
+     */
+    public static String getCompressedETag(final String etag) {
+        final int len = etag.length();
+        return len > 1 && etag.charAt(len - 1) == '"'
+                ? etag.substring(0, len - 1) + "-gzip\""
+                : etag + "-gzip";
+    }
+
+    /**
+     * Returns the precompressed <tt>.gz</tt> sibling of the given {@link File},
+     * or <tt>null</tt>, if there is no sibling, or it's older than the file.
+     */
+    public static File lookupPrecompressedFile(final File file) {
+        final File precompressedFile =
+                new File(file.getPath() + PRECOMPRESSED_FILE_SUFFIX);
+        if (precompressedFile.isFile()
+                && precompressedFile.lastModified() >= file.lastModified()) {
+            return precompressedFile;
+        }
+
+        return null;
+    }
+
     /**
      * Checks if the {@link File} with the given content-type could be compressed.
      */
@@ -468,6 +629,7 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
      */
     public void setMaxCacheEntries(int maxCacheEntries) {
         this.maxCacheEntries = maxCacheEntries;
+        evictionPolicy.setMaximumSize(maxCacheEntries);
     }
 
 
@@ -589,6 +751,76 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
                 TMP_DIR;
     }
 
+    /**
+     * @return <tt>true</tt>, if the precompressed <tt>.gz</tt> siblings of the
+     *  cached files are served to the clients, which accept gzip encoding
+     */
+    public boolean isPrecompressedFilesEnabled() {
+        return precompressedFilesEnabled;
+    }
+
+    /**
+     * Enables/disables serving of the precompressed <tt>.gz</tt> siblings of
+     * the cached files. When enabled, the up to date <tt>file.gz</tt>
+     * sibling of the cached <tt>file</tt> is served to the clients, which
+     * accept gzip encoding, so the file is never compressed at runtime.
+     * The precompressed files are served regardless of the
+     * {@link #getCompressionConfig()} settings.
+     *
+     * @param precompressedFilesEnabled <tt>true</tt> to serve the precompressed
+     *  files
+     */
+    public void setPrecompressedFilesEnabled(final boolean precompressedFilesEnabled) {
+        this.precompressedFilesEnabled = precompressedFilesEnabled;
+    }
+
+    /**
+     * @return the {@link Executor} compressing the cached files in the
+     *  background, or <tt>null</tt>, if the files are compressed by the
+     *  request thread
+     */
+    public Executor getCompressionExecutor() {
+        return compressionExecutor;
+    }
+
+    /**
+     * Sets the {@link Executor} to compress the cached files in the background.
+     * If set, the compression starts as soon as the file is added to the
+     * cache, and the file is served uncompressed until its compressed
+     * representation is ready. If <tt>null</tt> (default), the file is
+     * compressed by the thread processing the first request, which accepts
+     * compressed content.
+     *
+     * @param compressionExecutor the compression {@link Executor}
+     */
+    public void setCompressionExecutor(final Executor compressionExecutor) {
+        this.compressionExecutor = compressionExecutor;
+    }
+
+    /**
+     * @return the maximum number of the files waiting for the background
+     *  compression
+     */
+    public int getMaxPendingCompressions() {
+        return maxPendingCompressions;
+    }
+
+    /**
+     * Sets the maximum number of the files waiting for the background
+     * compression. If the limit is reached, the file is served uncompressed
+     * and its compression is retried by one of the next requests.
+     *
+     * @param maxPendingCompressions the maximum number of the files waiting
+     *  for the background compression
+     */
+    public void setMaxPendingCompressions(final int maxPendingCompressions) {
+        if (maxPendingCompressions <= 0) {
+            throw new IllegalArgumentException(
+                    "maxPendingCompressions has to be positive");
+        }
+        this.maxPendingCompressions = maxPendingCompressions;
+    }
+
     /**
      * <p>
      * Returns <code>true</code> if File resources may be be sent using
@@ -631,6 +863,40 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         this.fileSendEnabled = fileSendEnabled;
     }
     
+    /**
+     * Compresses the given cache entry using the compression {@link Executor},
+     * if any, or in the current thread.
+     */
+    void compress(final FileCacheEntry entry) {
+        final Executor executor = compressionExecutor;
+        if (executor == null) {
+            compressFile(entry);
+            return;
+        }
+
+        if (pendingCompressions.incrementAndGet() > maxPendingCompressions) {
+            pendingCompressions.decrementAndGet();
+            entry.onCompressionRejected();
+            return;
+        }
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        compressFile(entry);
+                    } finally {
+                        pendingCompressions.decrementAndGet();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingCompressions.decrementAndGet();
+            entry.onCompressionRejected();
+        }
+    }
+
     /**
      * Creates a temporary compressed representation of the given cache entry.
      */
@@ -678,24 +944,7 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
             switch (entry.type) {
                 case HEAP:
                 case MAPPED: {
-                    final FileInputStream cFis =
-                            new FileInputStream(tmpCompressedFile);
-                    
-                    try {
-                        final FileChannel cFileChannel = cFis.getChannel();
-
-                        final MappedByteBuffer compressedBb = cFileChannel.map(
-                                FileChannel.MapMode.READ_ONLY, 0, size);
-
-                        if (entry.type == CacheType.HEAP) {
-                            compressedBb.load();
-                        }
-                        
-                        entry.compressedBb = compressedBb;
-                    } finally {
-                        cFis.close();
-                    }
-                    
+                    entry.compressedBb = map(tmpCompressedFile, entry.type);
                     break;
                 }
                 case FILE: {
@@ -712,6 +961,30 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         }
     }
     
+    /**
+     * Maps the compressed representation of a <tt>HEAP</tt> or
+     * <tt>MAPPED</tt> entry.
+     */
+    private static ByteBuffer map(final File compressedFile,
+            final CacheType type) throws IOException {
+        final FileInputStream cFis = new FileInputStream(compressedFile);
+
+        try {
+            final FileChannel cFileChannel = cFis.getChannel();
+
+            final MappedByteBuffer compressedBb = cFileChannel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, compressedFile.length());
+
+            if (type == CacheType.HEAP) {
+                compressedBb.load();
+            }
+
+            return compressedBb;
+        } finally {
+            cFis.close();
+        }
+    }
+    
     // ---------------------------------------------------- Monitoring --------//
 
 
@@ -820,8 +1093,6 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
 
         String headerValue = request.getHeader(Header.IfNoneMatch);
         if (headerValue != null) {
-            String eTag = entry.Etag;
-
             boolean conditionSatisfied = false;
 
             if (!headerValue.equals("*")) {
@@ -831,7 +1102,7 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
 
                 while (!conditionSatisfied && commaTokenizer.hasMoreTokens()) {
                     String currentToken = commaTokenizer.nextToken();
-                    if (currentToken.trim().equals(eTag)) {
+                    if (isETagMatched(entry, currentToken.trim())) {
                         conditionSatisfied = true;
                     }
                 }
@@ -857,6 +1128,17 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         return null;
     }
 
+    /**
+     * Checks if the entity tag matches either the plain or the compressed
+     * representation of the entry.
+     */
+    private static boolean isETagMatched(final FileCacheEntry entry,
+            final String eTag) {
+        return eTag.equals(entry.Etag)
+                || (entry.hasCompressedVariant()
+                        && eTag.equals(entry.getEtag(true)));
+    }
+
     /**
      * Check if the if-unmodified-since condition is satisfied.
      *
@@ -908,14 +1190,12 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         String headerValue = request.getHeader(Header.IfMatch);
         if (headerValue != null) {
             if (headerValue.indexOf('*') == -1) {
-                String eTag = entry.Etag;
-
                 StringTokenizer commaTokenizer = new StringTokenizer(headerValue, ",");
                 boolean conditionSatisfied = false;
 
                 while (!conditionSatisfied && commaTokenizer.hasMoreTokens()) {
                     String currentToken = commaTokenizer.nextToken();
-                    if (currentToken.trim().equals(eTag)) {
+                    if (isETagMatched(entry, currentToken.trim())) {
                         conditionSatisfied = true;
                     }
                 }
@@ -974,6 +1254,23 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         }
     }
 
+    /**
+     * Notify registered {@link FileCacheProbe}s about the "entry evicted" event.
+     *
+     * @param fileCache the <tt>FileCache</tt> event occurred on.
+     * @param entry entry been evicted
+     */
+    protected static void notifyProbesEntryEvicted(final FileCache fileCache,
+            final FileCacheEntry entry) {
+        final FileCacheProbe[] probes =
+                fileCache.monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (FileCacheProbe probe : probes) {
+                probe.onEntryEvictedEvent(fileCache, entry);
+            }
+        }
+    }
+
     /**
      * Notify registered {@link FileCacheProbe}s about the "entry hit event.
      *
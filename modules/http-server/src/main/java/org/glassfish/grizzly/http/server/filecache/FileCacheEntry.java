@@ -48,6 +48,8 @@ public final class FileCacheEntry implements Runnable {
     
     private boolean canBeCompressed;
     private AtomicBoolean isCompressed;
+    // true, if the compressedFile is the precompressed sibling of the plainFile
+    private boolean isPrecompressed;
     volatile File compressedFile;
     ByteBuffer compressedBb;
     long compressedFileSize = -1;
@@ -61,6 +63,12 @@ public final class FileCacheEntry implements Runnable {
 
     public volatile long timeoutMillis;
 
+    // the EvictionPolicy bookkeeping, guarded by the policy shard lock
+    int keyHash;
+    FileCacheEntry lruPrev;
+    FileCacheEntry lruNext;
+    boolean lruProtected;
+
     private final FileCache fileCache;
 
     public FileCacheEntry(FileCache fileCache) {
@@ -80,12 +88,51 @@ public final class FileCacheEntry implements Runnable {
         }
     }
     
+    /**
+     * Sets the precompressed sibling of the plain file to be served to the
+     * clients, which support gzip encoding.
+     */
+    void setPrecompressedFile(final File precompressedFile) {
+        isPrecompressed = true;
+        compressedFile = precompressedFile;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this entry has the compressed representation,
+     * so the responses vary on the <tt>Accept-Encoding</tt> request header.
+     */
+    public boolean hasCompressedVariant() {
+        return canBeCompressed || isPrecompressed;
+    }
+
+    /**
+     * Initiates the entry compression, unless it's already initiated.
+     */
+    void compress() {
+        if (canBeCompressed && isCompressed.compareAndSet(false, true)) {
+            fileCache.compress(this);
+        }
+    }
+
+    /**
+     * The background compression of the entry can't be initiated now,
+     * so let the next request retry.
+     */
+    void onCompressionRejected() {
+        isCompressed.set(false);
+    }
+    
     /**
      * Returns <tt>true</tt> if this entry could be served compressed as response
      * to this (passed) specific {@link HttpRequestPacket}. Or <tt>false</tt>
      * will be returned otherwise.
      */
     public boolean canServeCompressed(final HttpRequestPacket request) {
+        if (isPrecompressed) {
+            return CompressionConfig.isClientSupportContentEncoding(request,
+                    FileCache.COMPRESSION_ALIASES);
+        }
+        
         if (!canBeCompressed ||
                 !CompressionConfig.isClientSupportCompression(
                 fileCache.getCompressionConfig(), request,
@@ -93,12 +140,11 @@ public final class FileCacheEntry implements Runnable {
             return false;
         }
         
-        if (isCompressed.compareAndSet(false, true)) {
-            fileCache.compressFile(this);
-        }
+        compress();
         
         // compressedFile could be still "null" if the file compression was
-        // initiated by other request and it is still not completed
+        // initiated by other request (or in the background) and it is still
+        // not completed
         return compressedFile != null;
     }
     
@@ -112,6 +158,19 @@ public final class FileCacheEntry implements Runnable {
         return isCompressed ? compressedFileSize : plainFileSize;
     }
     
+    /**
+     * Returns the entry entity tag.
+     * @param isCompressed if <tt>true</tt> the entity tag of the compressed
+     *        representation will be returned, otherwise the entity tag of the
+     *        uncompressed representation will be returned as the result.
+     * @return the entry entity tag, or <tt>null</tt> if it's not known
+     */
+    public String getEtag(final boolean isCompressed) {
+        return isCompressed && Etag != null
+                ? FileCache.getCompressedETag(Etag)
+                : Etag;
+    }
+
     /**
      * Returns the entry's {@link File} reference.
      * @param isCompressed if <tt>true</tt> the compressed {@link File} reference
@@ -150,6 +209,7 @@ public final class FileCacheEntry implements Runnable {
         sb.append(", type=").append(type);
         sb.append(", plainFileSize=").append(plainFileSize);
         sb.append(", canBeCompressed=").append(canBeCompressed);
+        sb.append(", isPrecompressed=").append(isPrecompressed);
         sb.append(", compressedFileSize=").append(compressedFileSize);
         sb.append(", timeoutMillis=").append(timeoutMillis);
         sb.append(", fileCache=").append(fileCache);
@@ -160,7 +220,7 @@ public final class FileCacheEntry implements Runnable {
 
     @Override
     protected void finalize() throws Throwable {
-        if (compressedFile != null) {
+        if (compressedFile != null && !isPrecompressed) {
             if (!compressedFile.delete()) {
                 if (LOGGER.isLoggable(Level.FINE)) {
                     LOGGER.log(Level.FINE,
@@ -40,6 +40,22 @@ public interface FileCacheProbe {
      */
     void onEntryRemovedEvent(FileCache fileCache, FileCacheEntry entry);
 
+    /**
+     * Method will be called, when file cache entry gets evicted to make room
+     * for a more popular resource. The
+     * {@link #onEntryRemovedEvent(FileCache, FileCacheEntry)} is called for
+     * the evicted entry as well.
+     * The default implementation does nothing, so the existing probes
+     * don't have to implement it.
+     *
+     * @param fileCache {@link FileCache}, the event belongs to.
+     * @param entry {@link FileCacheEntry} been evicted.
+     *
+     * @since 2.4.4
+     */
+    default void onEntryEvictedEvent(FileCache fileCache, FileCacheEntry entry) {
+    }
+
     /**
      * Method will be called, when file cache entry gets hit.
      *
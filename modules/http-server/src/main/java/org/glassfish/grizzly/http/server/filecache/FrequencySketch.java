@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.grizzly.http.server.filecache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Probabilistic popularity estimate of the {@link FileCache} keys: a
+ * count-min sketch of 4-bit counters, which are halved periodically so the
+ * estimates follow the recent traffic (the <tt>TinyLFU</tt> admission filter).
+ *
+ * Updates are lock-free; a lost increment under contention only makes an
+ * estimate slightly lower.
+ */
+final class FrequencySketch {
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int[] SEEDS = {
+        0x97cb3127, 0xc3a5c85c, 0xb492b66f, 0x9ae16a3b
+    };
+
+    private final AtomicLongArray table;
+    private final int tableMask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /**
+     * @param maximumSize the expected maximum number of the cached entries.
+     */
+    FrequencySketch(final int maximumSize) {
+        final int size = Math.max(16,
+                Integer.highestOneBit(Math.max(1, maximumSize) - 1) << 1);
+        table = new AtomicLongArray(size);
+        tableMask = size - 1;
+        sampleSize = 10 * size;
+    }
+
+    /**
+     * @return the estimated number of occurrences of the given key hash,
+     *  <tt>0..15</tt>.
+     */
+    int frequency(final int hash) {
+        final int spread = spread(hash);
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            final int index = indexOf(spread, i);
+            final int offset = offsetOf(spread, i);
+            final int count = (int) ((table.get(index) >>> offset) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+
+        return frequency;
+    }
+
+    /**
+     * Records an occurrence of the given key hash.
+     */
+    void increment(final int hash) {
+        final int spread = spread(hash);
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(spread, i), offsetOf(spread, i));
+        }
+
+        if (added && additions.incrementAndGet() == sampleSize) {
+            reset();
+        }
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+
+    private boolean incrementAt(final int index, final int offset) {
+        final long mask = 0xFL << offset;
+        final long value = table.get(index);
+        if ((value & mask) == mask) {
+            return false;
+        }
+
+        // a single attempt, the estimate doesn't have to be exact
+        return table.compareAndSet(index, value, value + (1L << offset));
+    }
+
+    /**
+     * Halves all the counters, so the old popularity fades out.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length(); i++) {
+            long value;
+            do {
+                value = table.get(i);
+            } while (!table.compareAndSet(i, value, (value >>> 1) & RESET_MASK));
+        }
+        additions.set(0);
+    }
+
+    private int indexOf(final int spread, final int i) {
+        int h = (spread + SEEDS[i]) * SEEDS[i];
+        h += h >>> 16;
+        return h & tableMask;
+    }
+
+    private static int offsetOf(final int spread, final int i) {
+        // each long holds 16 counters, every hash function uses its own quarter
+        return ((((spread >>> (i << 3)) & 3) << 2) + i) << 2;
+    }
+
+    private static int spread(final int hash) {
+        int h = hash * 0x9e3779b9;
+        h ^= h >>> 16;
+        return h * 0x85ebca6b;
+    }
+}
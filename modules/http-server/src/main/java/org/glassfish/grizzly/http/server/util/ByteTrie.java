@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.util;
+
+import java.util.Arrays;
+
+/**
+ * Radix trie over byte keys, used by the {@link CompiledRouter}.
+ *
+ * The trie is populated once, when the router is compiled, and is read-only
+ * afterwards, so the lookups may be performed concurrently.
+ */
+final class ByteTrie<V> {
+    private static final byte[] EMPTY_LABEL = new byte[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node<V> root = new Node<>(EMPTY_LABEL, 0);
+
+    /**
+     * Associates the value with the key, replacing the previous value if any.
+     */
+    void put(final byte[] key, final V value) {
+        Node<V> node = root;
+        int i = 0;
+        while (i < key.length) {
+            final int idx = node.indexOf(key[i]);
+            if (idx < 0) {
+                final Node<V> leaf = new Node<>(
+                        Arrays.copyOfRange(key, i, key.length), key.length);
+                node.insert(-idx - 1, leaf);
+                node = leaf;
+                break;
+            }
+
+            final Node<V> child = node.children[idx];
+            final byte[] label = child.label;
+            int common = 1;
+            while (common < label.length && i + common < key.length
+                    && label[common] == key[i + common]) {
+                common++;
+            }
+
+            if (common < label.length) {
+                // split the edge
+                final Node<V> middle = new Node<>(
+                        Arrays.copyOfRange(label, 0, common), i + common);
+                child.label = Arrays.copyOfRange(label, common, label.length);
+                child.first = child.label[0];
+                middle.insert(0, child);
+                node.children[idx] = middle;
+                node = middle;
+            } else {
+                node = child;
+            }
+            i += common;
+        }
+
+        node.value = value;
+        node.hasValue = true;
+    }
+
+    /**
+     * @return the value associated with the key <tt>buf[start, end)</tt>,
+     *  or <tt>null</tt>
+     */
+    V get(final byte[] buf, final int start, final int end) {
+        Node<V> node = root;
+        int i = start;
+        while (i < end) {
+            final int idx = node.indexOf(buf[i]);
+            if (idx < 0) {
+                return null;
+            }
+            node = node.children[idx];
+            final byte[] label = node.label;
+            if (end - i < label.length || !matches(label, buf, i)) {
+                return null;
+            }
+            i += label.length;
+        }
+
+        return node.hasValue ? node.value : null;
+    }
+
+    /**
+     * Finds the longest key, which is a prefix of <tt>buf[start, end)</tt>
+     * and is followed either by the end of the input or by the <tt>'/'</tt>.
+     *
+     * @return the matched node, or <tt>null</tt>
+     */
+    Node<V> longestPathPrefix(final byte[] buf, final int start, final int end) {
+        Node<V> node = root;
+        Node<V> found = null;
+        int i = start;
+        while (true) {
+            if (node.hasValue && (i == end || buf[i] == '/')) {
+                found = node;
+            }
+            if (i == end) {
+                return found;
+            }
+
+            final int idx = node.indexOf(buf[i]);
+            if (idx < 0) {
+                return found;
+            }
+            node = node.children[idx];
+            final byte[] label = node.label;
+            if (end - i < label.length || !matches(label, buf, i)) {
+                return found;
+            }
+            i += label.length;
+        }
+    }
+
+    private static boolean matches(final byte[] label, final byte[] buf,
+            final int offset) {
+        // the first byte has been matched by the child lookup
+        for (int j = 1; j < label.length; j++) {
+            if (label[j] != buf[offset + j]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static final class Node<V> {
+        byte[] label;
+        byte first;
+        /**
+         * The length of the key, which ends at this node.
+         */
+        final int depth;
+        V value;
+        boolean hasValue;
+
+        @SuppressWarnings("unchecked")
+        Node<V>[] children = (Node<V>[]) NO_CHILDREN;
+
+        Node(final byte[] label, final int depth) {
+            this.label = label;
+            this.depth = depth;
+            this.first = label.length > 0 ? label[0] : 0;
+        }
+
+        /**
+         * Binary search of the child by the first byte of its label.
+         */
+        int indexOf(final byte b) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final byte midByte = children[mid].first;
+                if (midByte < b) {
+                    low = mid + 1;
+                } else if (midByte > b) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+
+            return -(low + 1);
+        }
+
+        void insert(final int idx, final Node<V> child) {
+            @SuppressWarnings("unchecked")
+            final Node<V>[] newChildren = (Node<V>[]) new Node[children.length + 1];
+            System.arraycopy(children, 0, newChildren, 0, idx);
+            newChildren[idx] = child;
+            System.arraycopy(children, idx, newChildren, idx + 1,
+                    children.length - idx);
+            children = newChildren;
+        }
+    }
+}
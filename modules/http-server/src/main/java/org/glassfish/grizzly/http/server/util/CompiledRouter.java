@@ -0,0 +1,549 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.util;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http.util.BufferChunk;
+import org.glassfish.grizzly.http.util.ByteChunk;
+import org.glassfish.grizzly.http.util.CharChunk;
+import org.glassfish.grizzly.http.util.DataChunk;
+import org.glassfish.grizzly.utils.Charsets;
+
+/**
+ * Immutable snapshot of the {@link Mapper} hosts, contexts and wrappers,
+ * compiled into radix tries over the URI bytes.
+ *
+ * The router maps the URI directly from the request {@link DataChunk},
+ * without converting it to chars, and applies the same mapping rules as the
+ * {@link Mapper} for the exact, prefix, extension and default wrappers.
+ * The cases, which need the rest of the rules (welcome files, JSP wildcards,
+ * redirects, static resources and default web modules), are reported back,
+ * so the {@link Mapper} handles them.
+ *
+ * The {@link Mapper} compiles a new router each time its configuration is
+ * changed, the routers are never updated in place.
+ */
+final class CompiledRouter {
+    /**
+     * The {@link Route} returned when the request has to be mapped by the
+     * {@link Mapper}.
+     */
+    private static final Route FALLBACK = new Route(null, null, null, null,
+            MappingData.UNKNOWN, null, null, null, null, null);
+
+    final int version;
+
+    private final ByteTrie<RouteHost> hosts;
+    private final RouteHost defaultHost;
+
+    private CompiledRouter(final int version, final ByteTrie<RouteHost> hosts,
+            final RouteHost defaultHost) {
+        this.version = version;
+        this.hosts = hosts;
+        this.defaultHost = defaultHost;
+    }
+
+    /**
+     * Compiles the router.
+     *
+     * @param hosts the {@link Mapper} hosts
+     * @param defaultHostName the {@link Mapper} default host name
+     * @param cacheSize the size of the per-host route cache, <tt>0</tt> to
+     *  disable the cache
+     * @param version the {@link Mapper} configuration version
+     */
+    static CompiledRouter compile(final Mapper.Host[] hosts,
+            final String defaultHostName, final int cacheSize,
+            final int version) {
+        final ByteTrie<RouteHost> hostTrie = new ByteTrie<>();
+        // the aliases share the context list, compile it once
+        final Map<Mapper.ContextList, RouteHost> compiled = new HashMap<>();
+        RouteHost defaultHost = null;
+
+        for (Mapper.Host host : hosts) {
+            if (!isAscii(host.name)) {
+                // can't be matched by the byte lookup
+                continue;
+            }
+
+            RouteHost routeHost = compiled.get(host.contextList);
+            if (routeHost == null || routeHost.object != host.object) {
+                routeHost = new RouteHost(host, cacheSize);
+                compiled.put(host.contextList, routeHost);
+            }
+
+            hostTrie.put(bytes(host.name.toLowerCase(Locale.ENGLISH)), routeHost);
+            if (host.name.equalsIgnoreCase(defaultHostName)) {
+                defaultHost = routeHost;
+            }
+        }
+
+        return new CompiledRouter(version, hostTrie, defaultHost);
+    }
+
+    /**
+     * Maps the request.
+     *
+     * @param host the host name, or <tt>null</tt> to use the default host
+     * @param uri the decoded URI
+     * @param mappingData the mapping data to populate
+     *
+     * @return <tt>true</tt>, if the request has been mapped, or
+     *  <tt>false</tt>, if it has to be mapped by the {@link Mapper}
+     */
+    boolean map(final DataChunk host, final DataChunk uri,
+            final MappingData mappingData) {
+        if (mappingData.host != null || mappingData.context != null
+                || mappingData.wrapper != null) {
+            return false;
+        }
+
+        final int uriLength = uri.getLength();
+        final int hostLength = host != null ? host.getLength() : 0;
+        byte[] buf = mappingData.routeBuffer;
+        if (buf == null || buf.length < uriLength + hostLength) {
+            buf = new byte[Math.max(64, uriLength + hostLength)];
+            mappingData.routeBuffer = buf;
+        }
+
+        if (!copyAscii(uri, buf, 0, false)) {
+            return false;
+        }
+
+        RouteHost routeHost = null;
+        if (host != null) {
+            if (!copyAscii(host, buf, uriLength, true)) {
+                return false;
+            }
+            routeHost = hosts.get(buf, uriLength, uriLength + hostLength);
+        }
+        if (routeHost == null) {
+            routeHost = defaultHost;
+            if (routeHost == null) {
+                // no host is mapped
+                return true;
+            }
+        }
+
+        final Route route = routeHost.route(buf, uriLength);
+        if (route == FALLBACK) {
+            return false;
+        }
+
+        route.apply(mappingData);
+        return true;
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+
+    /**
+     * Copies the ASCII chunk content to the buffer.
+     *
+     * @return <tt>false</tt>, if the chunk has non-ASCII chars
+     */
+    private static boolean copyAscii(final DataChunk dc, final byte[] dst,
+            final int offset, final boolean toLowerCase) {
+        int i = offset;
+        switch (dc.getType()) {
+            case Bytes: {
+                final ByteChunk bc = dc.getByteChunk();
+                final byte[] src = bc.getBuffer();
+                for (int j = bc.getStart(); j < bc.getEnd(); j++) {
+                    final byte b = src[j];
+                    if (b < 0) {
+                        return false;
+                    }
+                    dst[i++] = toLowerCase ? toLowerCase(b) : b;
+                }
+                return true;
+            }
+            case Buffer: {
+                final BufferChunk bc = dc.getBufferChunk();
+                final Buffer src = bc.getBuffer();
+                for (int j = bc.getStart(); j < bc.getEnd(); j++) {
+                    final byte b = src.get(j);
+                    if (b < 0) {
+                        return false;
+                    }
+                    dst[i++] = toLowerCase ? toLowerCase(b) : b;
+                }
+                return true;
+            }
+            case Chars: {
+                final CharChunk cc = dc.getCharChunk();
+                final char[] src = cc.getBuffer();
+                for (int j = cc.getStart(); j < cc.getEnd(); j++) {
+                    final char c = src[j];
+                    if (c > 0x7F) {
+                        return false;
+                    }
+                    dst[i++] = toLowerCase ? toLowerCase((byte) c) : (byte) c;
+                }
+                return true;
+            }
+            case String: {
+                final String src = dc.toString();
+                for (int j = 0; j < src.length(); j++) {
+                    final char c = src.charAt(j);
+                    if (c > 0x7F) {
+                        return false;
+                    }
+                    dst[i++] = toLowerCase ? toLowerCase((byte) c) : (byte) c;
+                }
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    private static byte toLowerCase(final byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static boolean isAscii(final String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static byte[] bytes(final String s) {
+        return s.getBytes(Charsets.ASCII_CHARSET);
+    }
+
+    private static String string(final byte[] buf, final int start,
+            final int end) {
+        return new String(buf, start, end - start, Charsets.ASCII_CHARSET);
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    /**
+     * The compiled host, shared by the host aliases.
+     */
+    private static final class RouteHost {
+        private final Object object;
+        private final ByteTrie<RouteContext> contexts = new ByteTrie<>();
+        private final boolean hasDefaultContext;
+        private final RouteCache cache;
+
+        RouteHost(final Mapper.Host host, final int cacheSize) {
+            object = host.object;
+            hasDefaultContext = host.defaultContexts != null
+                    && host.defaultContexts[0] != null;
+            cache = cacheSize > 0 ? new RouteCache(cacheSize) : null;
+
+            for (Mapper.Context context : host.contextList.contexts) {
+                if (isAscii(context.name)) {
+                    contexts.put(bytes(context.name), new RouteContext(context));
+                }
+            }
+        }
+
+        /**
+         * Maps the URI, which is stored at the beginning of the buffer.
+         */
+        Route route(final byte[] buf, final int end) {
+            if (hasDefaultContext) {
+                return FALLBACK;
+            }
+
+            if (cache == null) {
+                return resolve(buf, end);
+            }
+
+            final int hash = RouteCache.hash(buf, end);
+            Route route = cache.get(buf, end, hash);
+            if (route == null) {
+                route = resolve(buf, end);
+                cache.put(buf, end, hash, route);
+            }
+
+            return route;
+        }
+
+        private Route resolve(final byte[] buf, final int end) {
+            if (end == 0 || buf[0] != '/') {
+                return FALLBACK;
+            }
+
+            final ByteTrie.Node<RouteContext> node =
+                    contexts.longestPathPrefix(buf, 0, end);
+            if (node == null) {
+                return new Route(object, null, null, null,
+                        MappingData.UNKNOWN, null, null, null, null, null);
+            }
+
+            return node.value.resolve(object, buf, node.depth, end);
+        }
+    }
+
+    /**
+     * The compiled context.
+     */
+    private static final class RouteContext {
+        private final Mapper.Context context;
+        private final boolean isSupported;
+        private final boolean hasWelcomeResources;
+        private final ByteTrie<Mapper.Wrapper> exactWrappers = new ByteTrie<>();
+        private final ByteTrie<Mapper.Wrapper> wildcardWrappers = new ByteTrie<>();
+        private final ByteTrie<Mapper.Wrapper> extensionWrappers = new ByteTrie<>();
+
+        RouteContext(final Mapper.Context context) {
+            this.context = context;
+            hasWelcomeResources = context.welcomeResources != null
+                    && context.welcomeResources.length > 0;
+
+            // the static resources (and their alternate docbases) are
+            // looked up by the Mapper
+            boolean supported = context.resources == null;
+            supported &= compile(exactWrappers, context.exactWrappers);
+            supported &= compile(wildcardWrappers, context.wildcardWrappers);
+            supported &= compile(extensionWrappers, context.extensionWrappers);
+            isSupported = supported;
+        }
+
+        private static boolean compile(final ByteTrie<Mapper.Wrapper> trie,
+                final Mapper.Wrapper[] wrappers) {
+            for (Mapper.Wrapper wrapper : wrappers) {
+                if (!isAscii(wrapper.name)) {
+                    return false;
+                }
+                trie.put(bytes(wrapper.name), wrapper);
+            }
+
+            return true;
+        }
+
+        /**
+         * Applies the wrapper mapping rules to the servlet path
+         * <tt>buf[servletPath, end)</tt>.
+         */
+        Route resolve(final Object host, final byte[] buf,
+                final int servletPath, final int end) {
+            if (!isSupported || servletPath == end) {
+                // no servlet path, the Mapper may redirect
+                return FALLBACK;
+            }
+
+            final Mapper.Context ctx = context;
+
+            // Rule 0 -- Empty path match
+            final Mapper.Wrapper emptyPathWrapper = ctx.emptyPathWrapper;
+            if (emptyPathWrapper != null && end - servletPath == 1) {
+                return new Route(host, ctx, emptyPathWrapper, null,
+                        MappingData.CONTEXT_ROOT, "/", "/", "", "", "/");
+            }
+
+            // Rule 1 -- Exact Match
+            Mapper.Wrapper wrapper = exactWrappers.get(buf, servletPath, end);
+            if (wrapper != null) {
+                final String path = string(buf, servletPath, end);
+                return new Route(host, ctx, wrapper, wrapper.servletName,
+                        "/".equals(path) ? MappingData.DEFAULT : MappingData.EXACT,
+                        wrapper.path, path, wrapper.name, wrapper.name, null);
+            }
+
+            // Rule 2 -- Prefix Match
+            final ByteTrie.Node<Mapper.Wrapper> prefix =
+                    wildcardWrappers.longestPathPrefix(buf, servletPath, end);
+            if (prefix != null) {
+                wrapper = prefix.value;
+                if (wrapper.jspWildCard) {
+                    return FALLBACK;
+                }
+
+                final String path = string(buf, servletPath, end);
+                final int length = prefix.depth;
+                return new Route(host, ctx, wrapper, wrapper.servletName,
+                        MappingData.PATH, wrapper.path, path, path, wrapper.name,
+                        end - servletPath > length
+                                ? path.substring(length)
+                                : null);
+            }
+
+            // Rule 3 -- Extension Match
+            String matchedPath = null;
+            int slash = end - 1;
+            while (buf[slash] != '/') {
+                slash--;
+            }
+            for (int i = end - 1; i > slash; i--) {
+                if (buf[i] == '.') {
+                    matchedPath = string(buf, servletPath, end);
+                    wrapper = extensionWrappers.get(buf, i + 1, end);
+                    if (wrapper != null) {
+                        return new Route(host, ctx, wrapper, wrapper.servletName,
+                                MappingData.EXTENSION, wrapper.path, matchedPath,
+                                matchedPath, matchedPath, null);
+                    }
+                    break;
+                }
+            }
+
+            // Rule 4 -- Welcome resources
+            if (hasWelcomeResources && buf[end - 1] == '/') {
+                return FALLBACK;
+            }
+
+            // Rule 7 -- Default servlet
+            wrapper = ctx.defaultWrapper;
+            if (wrapper != null) {
+                final String path = matchedPath != null
+                        ? matchedPath
+                        : string(buf, servletPath, end);
+                return new Route(host, ctx, wrapper, wrapper.servletName,
+                        MappingData.DEFAULT, "/", path, path, path, null);
+            }
+
+            return new Route(host, ctx, null, null, MappingData.UNKNOWN, null,
+                    matchedPath, null, null, null);
+        }
+    }
+
+    /**
+     * The mapping result.
+     */
+    private static final class Route {
+        private final Object host;
+        private final Mapper.Context context;
+        private final Mapper.Wrapper wrapper;
+        private final String servletName;
+        private final byte mappingType;
+        private final String descriptorPath;
+        private final String matchedPath;
+        private final String requestPath;
+        private final String wrapperPath;
+        private final String pathInfo;
+
+        Route(final Object host, final Mapper.Context context,
+                final Mapper.Wrapper wrapper, final String servletName,
+                final byte mappingType, final String descriptorPath,
+                final String matchedPath, final String requestPath,
+                final String wrapperPath, final String pathInfo) {
+            this.host = host;
+            this.context = context;
+            this.wrapper = wrapper;
+            this.servletName = servletName;
+            this.mappingType = mappingType;
+            this.descriptorPath = descriptorPath;
+            this.matchedPath = matchedPath;
+            this.requestPath = requestPath;
+            this.wrapperPath = wrapperPath;
+            this.pathInfo = pathInfo;
+        }
+
+        void apply(final MappingData mappingData) {
+            mappingData.host = host;
+            if (context == null) {
+                return;
+            }
+
+            // the context and wrapper objects are read from the Mapper
+            // elements, they may be replaced in place
+            mappingData.context = context.object;
+            mappingData.contextPath.setString(context.name);
+            if (matchedPath != null) {
+                mappingData.matchedPath = matchedPath;
+            }
+            if (wrapper == null) {
+                return;
+            }
+
+            mappingData.wrapper = wrapper.object;
+            mappingData.servletName = servletName;
+            mappingData.mappingType = mappingType;
+            mappingData.descriptorPath = descriptorPath;
+            mappingData.requestPath.setString(requestPath);
+            mappingData.wrapperPath.setString(wrapperPath);
+            if (pathInfo != null) {
+                mappingData.pathInfo.setString(pathInfo);
+            }
+        }
+    }
+
+    /**
+     * Bounded direct-mapped cache of the recent routes, keyed by the URI.
+     * A colliding URI replaces the cached route.
+     */
+    private static final class RouteCache {
+        private final Entry[] entries;
+        private final int mask;
+
+        RouteCache(final int size) {
+            final int capacity = Integer.highestOneBit(
+                    Math.max(1, Math.min(size, 1 << 20)) * 2 - 1);
+            entries = new Entry[capacity];
+            mask = capacity - 1;
+        }
+
+        static int hash(final byte[] buf, final int end) {
+            int h = 0;
+            for (int i = 0; i < end; i++) {
+                h = 31 * h + buf[i];
+            }
+
+            return h ^ (h >>> 16);
+        }
+
+        Route get(final byte[] buf, final int end, final int hash) {
+            final Entry entry = entries[hash & mask];
+            if (entry == null || entry.hash != hash || entry.key.length != end) {
+                return null;
+            }
+
+            final byte[] key = entry.key;
+            for (int i = 0; i < end; i++) {
+                if (key[i] != buf[i]) {
+                    return null;
+                }
+            }
+
+            return entry.route;
+        }
+
+        void put(final byte[] buf, final int end, final int hash,
+                final Route route) {
+            final byte[] key = new byte[end];
+            System.arraycopy(buf, 0, key, 0, end);
+            entries[hash & mask] = new Entry(key, hash, route);
+        }
+
+        private static final class Entry {
+            final byte[] key;
+            final int hash;
+            final Route route;
+
+            Entry(final byte[] key, final int hash, final Route route) {
+                this.key = key;
+                this.hash = hash;
+                this.route = route;
+            }
+        }
+    }
+}
@@ -42,7 +42,9 @@ import org.glassfish.grizzly.memory.CompositeBuffer;
  * buffering HTTP responses and then writing them as one operation.
  * 
  * Please note, this addon is not thread-safe, so it can't be used with HTTP
- * requests, that require asynchronous processing.
+ * requests, that require asynchronous processing. See
+ * {@link org.glassfish.grizzly.http.server.ServerFilterConfiguration#setPipelinedResponseCoalescing(boolean)}
+ * for the thread-safe alternative.
  * 
  * @author Alexey Stashok
  */
@@ -28,6 +28,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import org.glassfish.grizzly.http.server.naming.DirContext;
 import org.glassfish.grizzly.http.server.naming.NamingContext;
@@ -55,6 +56,12 @@ public class Mapper {
     private static final String JSP_SERVLET =
             System.getProperty("org.glassfish.grizzly.servlet.jspServlet", "jsp");
 
+    private static final boolean COMPILED_ROUTING = Boolean.parseBoolean(
+            System.getProperty(Mapper.class.getName() + ".compiledRouting", "false"));
+
+    private static final int ROUTE_CACHE_SIZE =
+            Integer.getInteger(Mapper.class.getName() + ".routeCacheSize", 0);
+
     private static final CharChunk SLASH = new CharChunk();
 
     /**
@@ -101,6 +108,23 @@ public class Mapper {
     private int port = 0;
 
 
+    /**
+     * Incremented on each change of the hosts, contexts or wrappers, so the
+     * compiled router is rebuilt.
+     */
+    private final AtomicInteger mappingVersion = new AtomicInteger();
+
+    /**
+     * The router compiled from the current hosts, contexts and wrappers,
+     * it's rebuilt lazily, when the request is mapped.
+     */
+    private volatile CompiledRouter router;
+
+    private volatile boolean isCompiledRoutingEnabled = COMPILED_ROUTING;
+
+    private volatile int routeCacheSize = ROUTE_CACHE_SIZE;
+
+
     // --------------------------------------------------------- Public Methods
 
 
@@ -140,6 +164,59 @@ public class Mapper {
     }
 
 
+    /**
+     * @return <tt>true</tt>, if the requests are mapped by the router compiled
+     *  from the hosts, contexts and wrappers, which matches the raw URI bytes,
+     *  or <tt>false</tt>, if the char-based lookups are always used.
+     */
+    public boolean isCompiledRoutingEnabled() {
+        return isCompiledRoutingEnabled;
+    }
+
+
+    /**
+     * Enables or disables the compiled routing. The requests, which need the
+     * welcome files, JSP wildcards, redirects, static resources or default web
+     * modules processing are mapped by the char-based lookups anyway.
+     * Default is <tt>false</tt>, unless the
+     * <tt>org.glassfish.grizzly.http.server.util.Mapper.compiledRouting</tt>
+     * system property is set to <tt>true</tt>.
+     *
+     * @param isCompiledRoutingEnabled <tt>true</tt> to enable the compiled
+     *  routing
+     */
+    public void setCompiledRoutingEnabled(final boolean isCompiledRoutingEnabled) {
+        this.isCompiledRoutingEnabled = isCompiledRoutingEnabled;
+    }
+
+
+    /**
+     * @return the maximum number of the mapping results cached per host by
+     *  the compiled router, <tt>0</tt> means the cache is disabled.
+     */
+    public int getRouteCacheSize() {
+        return routeCacheSize;
+    }
+
+
+    /**
+     * Sets the maximum number of the mapping results cached per host by the
+     * compiled router. The size is rounded up to the power of two, each URI
+     * may replace the cached result of another URI with the same hash.
+     * Default is <tt>0</tt> (disabled).
+     *
+     * @param routeCacheSize the route cache size
+     */
+    public void setRouteCacheSize(final int routeCacheSize) {
+        if (routeCacheSize < 0) {
+            throw new IllegalArgumentException("routeCacheSize can't be negative");
+        }
+
+        this.routeCacheSize = routeCacheSize;
+        invalidateRouter();
+    }
+
+
     /**
      * @return Default host name
      */
@@ -155,6 +232,7 @@ public class Mapper {
      */
     public void setDefaultHostName(String defaultHostName) {
         this.defaultHostName = defaultHostName;
+        invalidateRouter();
     }
 
     /**
@@ -204,6 +282,8 @@ public class Mapper {
         if (defaultContextPath != null) {
             newHost.defaultContextPaths[0] = defaultContextPath;
         }
+
+        invalidateRouter();
     }
 
 
@@ -236,6 +316,8 @@ public class Mapper {
         // START GlassFish 1024
         defaultContextPathsMap.remove(name);
         // END GlassFish 1024
+
+        invalidateRouter();
     }
 
     public String[] getHosts() {
@@ -335,6 +417,8 @@ public class Mapper {
                     oldElem.resources = resources;
                 }
             }
+
+            invalidateRouter();
         }
     }
 
@@ -372,6 +456,8 @@ public class Mapper {
                     }
                 }
             }
+
+            invalidateRouter();
         }
     }
 
@@ -571,6 +657,8 @@ public class Mapper {
                 }
             }
         }
+
+        invalidateRouter();
     }
 
 
@@ -654,6 +742,8 @@ public class Mapper {
                 }
             }
         }
+
+        invalidateRouter();
     }
 
     public String getWrappersString( String host, String context ) {
@@ -728,6 +818,8 @@ public class Mapper {
             hosts[pos].defaultContexts[0] = null;
             defaultContextPathsMap.remove(hostName);
         }
+
+        invalidateRouter();
     }
 
 
@@ -859,6 +951,14 @@ public class Mapper {
     public void map(final DataChunk host, final DataChunk uri,
                     final MappingData mappingData) throws Exception {
 
+        if (isCompiledRoutingEnabled) {
+            final DataChunk routeHost = host.isNull() ? null : host;
+            if ((routeHost == null || routeHost.getLength() > 0)
+                    && getRouter().map(routeHost, uri, mappingData)) {
+                return;
+            }
+        }
+
         if (host.isNull()) {
             host.getCharChunk().append(defaultHostName);
         } else if (host.getLength() == 0) {
@@ -885,6 +985,21 @@ public class Mapper {
     public void map(final HttpRequestPacket requestPacket, final DataChunk uri,
                     final MappingData mappingData) throws Exception {
 
+        if (isCompiledRoutingEnabled) {
+            DataChunk host = null;
+            if (hosts.length > 1) {
+                host = requestPacket.serverName();
+                if (host.isNull()) {
+                    host = null;
+                }
+            }
+
+            if ((host == null || host.getLength() > 0)
+                    && getRouter().map(host, uri, mappingData)) {
+                return;
+            }
+        }
+
         final CharChunk hostCC;
         if (hosts.length > 1) {
             final DataChunk host = requestPacket.serverName();
@@ -931,6 +1046,28 @@ public class Mapper {
     // -------------------------------------------------------- Private Methods
 
 
+    /**
+     * @return the router compiled from the current hosts, contexts and
+     *  wrappers, compiling it if the configuration has been changed.
+     */
+    private CompiledRouter getRouter() {
+        final int version = mappingVersion.get();
+        CompiledRouter r = router;
+        if (r == null || r.version != version) {
+            r = CompiledRouter.compile(hosts, defaultHostName, routeCacheSize,
+                    version);
+            router = r;
+        }
+
+        return r;
+    }
+
+
+    private void invalidateRouter() {
+        mappingVersion.incrementAndGet();
+    }
+
+
     /**
      * Map the specified URI.
      */
@@ -56,6 +56,12 @@ public class MappingData {
     public final DataChunk redirectPath = DataChunk.newInstance();
 
     public final DataChunk tmpMapperDC = DataChunk.newInstance();
+
+    /**
+     * The {@link CompiledRouter} scratch buffer, reused across the requests.
+     */
+    byte[] routeBuffer;
+
     public void recycle() {
         mappingType = UNKNOWN;
         host = null;
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.Method;
+import org.glassfish.grizzly.http.util.FastHttpDateFormat;
+import org.glassfish.grizzly.http.util.Header;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * {@link ByteRanges} parsing test.
+ */
+public class ByteRangesTest {
+    private static final long LENGTH = 10000;
+    
+    @Test
+    public void testSingleRange() {
+        ByteRanges ranges = ByteRanges.parse("bytes=0-499", LENGTH);
+        assertRange(ranges, 0, 500);
+        assertFalse(ranges.isMultipart());
+        assertEquals("bytes 0-499/10000", ranges.getContentRange(0, LENGTH));
+
+        // the last byte position is truncated to the resource length
+        assertRange(ByteRanges.parse("bytes=9500-20000", LENGTH), 9500, 500);
+        // open-ended range
+        assertRange(ByteRanges.parse("bytes=9500-", LENGTH), 9500, 500);
+        // suffix range
+        assertRange(ByteRanges.parse("bytes=-500", LENGTH), 9500, 500);
+        assertRange(ByteRanges.parse("bytes=-20000", LENGTH), 0, LENGTH);
+        // whitespaces and the unit case
+        assertRange(ByteRanges.parse("Bytes = 1 - 2 ", LENGTH), 1, 2);
+    }
+
+    @Test
+    public void testCoalescing() {
+        ByteRanges ranges = ByteRanges.parse("bytes=500-599,0-99,100-199,150-300",
+                LENGTH);
+        assertNotNull(ranges);
+        assertEquals(2, ranges.size());
+        assertTrue(ranges.isMultipart());
+        assertEquals(0, ranges.getStart(0));
+        assertEquals(301, ranges.getLength(0));
+        assertEquals(500, ranges.getStart(1));
+        assertEquals(100, ranges.getLength(1));
+
+        // all the ranges are merged into one
+        ranges = ByteRanges.parse("bytes=0-10,5-20,-9990", LENGTH);
+        assertRange(ranges, 0, LENGTH);
+        assertFalse(ranges.isMultipart());
+    }
+
+    @Test
+    public void testUnsatisfiable() {
+        assertFalse(ByteRanges.parse("bytes=10000-", LENGTH).isSatisfiable());
+        assertFalse(ByteRanges.parse("bytes=-0", LENGTH).isSatisfiable());
+        assertFalse(ByteRanges.parse("bytes=0-0", 0).isSatisfiable());
+        assertEquals("bytes */10000", ByteRanges.unsatisfiedContentRange(LENGTH));
+
+        // the unsatisfiable ranges are skipped, if there are satisfiable ones
+        assertRange(ByteRanges.parse("bytes=20000-30000,5-9", LENGTH), 5, 5);
+    }
+
+    @Test
+    public void testIgnored() {
+        assertNull(ByteRanges.parse("items=0-1", LENGTH));
+        assertNull(ByteRanges.parse("bytes=1", LENGTH));
+        assertNull(ByteRanges.parse("bytes=2-1", LENGTH));
+        assertNull(ByteRanges.parse("bytes=a-b", LENGTH));
+        assertNull(ByteRanges.parse("bytes=-", LENGTH));
+        assertNull(ByteRanges.parse("bytes=", LENGTH));
+
+        final StringBuilder sb = new StringBuilder("bytes=0-0");
+        for (int i = 1; i <= ByteRanges.MAX_RANGES; i++) {
+            sb.append(',').append(i * 2).append('-').append(i * 2);
+        }
+        assertNull(ByteRanges.parse(sb.toString(), LENGTH));
+    }
+
+    @Test
+    public void testMultipartLength() {
+        final ByteRanges ranges = ByteRanges.parse("bytes=0-9,100-199", LENGTH);
+        final String contentType = "text/plain";
+        
+        long total = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            total += ranges.getPartHeader(i, contentType, LENGTH).length
+                    + ranges.getLength(i);
+        }
+        total += ranges.getCloseDelimiter().length;
+        
+        assertEquals(total, ranges.getMultipartLength(contentType, LENGTH));
+        assertTrue(ranges.getMultipartContentType().startsWith(
+                "multipart/byteranges; boundary="));
+        assertTrue(new String(ranges.getPartHeader(1, contentType, LENGTH))
+                .startsWith("\r\n--"));
+    }
+
+    @Test
+    public void testIfRange() {
+        final long lastModified = 1500000000000L;
+        final String etag = "\"10000-1500000000000\"";
+        
+        assertNotNull(parse("bytes=0-1", etag, etag, lastModified));
+        assertNull(parse("bytes=0-1", "\"other\"", etag, lastModified));
+        // weak entity tags never match
+        assertNull(parse("bytes=0-1", "W/" + etag, "W/" + etag, lastModified));
+        
+        final String date = FastHttpDateFormat.formatDate(lastModified, null);
+        assertNotNull(parse("bytes=0-1", date, etag, lastModified + 500));
+        assertNull(parse("bytes=0-1", date, etag, lastModified + 1000));
+        
+        // the Range header is ignored for non-GET requests
+        final HttpRequestPacket head = HttpRequestPacket.builder()
+                .method(Method.HEAD).uri("/").protocol("HTTP/1.1")
+                .header(Header.Range, "bytes=0-1").build();
+        assertNull(ByteRanges.parse(head, LENGTH, etag, lastModified));
+    }
+
+    private static ByteRanges parse(final String range, final String ifRange,
+            final String etag, final long lastModified) {
+        final HttpRequestPacket request = HttpRequestPacket.builder()
+                .method(Method.GET).uri("/").protocol("HTTP/1.1")
+                .header(Header.Range, range)
+                .header(Header.IfRange, ifRange).build();
+        return ByteRanges.parse(request, LENGTH, etag, lastModified);
+    }
+
+    private static void assertRange(final ByteRanges ranges, final long start,
+            final long length) {
+        assertNotNull(ranges);
+        assertTrue(ranges.isSatisfiable());
+        assertEquals(1, ranges.size());
+        assertEquals(start, ranges.getStart(0));
+        assertEquals(length, ranges.getLength(0));
+    }
+}
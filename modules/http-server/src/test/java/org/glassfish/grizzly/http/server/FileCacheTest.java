@@ -50,6 +50,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
@@ -59,13 +60,18 @@ import java.util.Date;
 import java.util.Locale;
 import java.util.Random;
 import java.util.TimeZone;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 import org.glassfish.grizzly.http.CompressionConfig.CompressionMode;
 
 import org.glassfish.grizzly.http.server.filecache.FileCacheProbe;
+import org.glassfish.grizzly.http.util.Header;
 import org.glassfish.grizzly.http.util.MimeType;
 import org.junit.After;
 import org.junit.Before;
@@ -547,6 +553,213 @@ public class FileCacheTest {
     }
     
     @SuppressWarnings("ResultOfMethodCallIgnored")
+    @Test
+    public void testPrecompressedFile() throws Exception {
+        final File file = createTempFile();
+        final File gzFile = createGzipSibling(file);
+        final String requestPath = "/" + file.getName();
+        
+        final StatsCacheProbe probe = new StatsCacheProbe();
+        httpServer.getServerConfiguration().getMonitoringConfig().getFileCacheConfig().addProbes(probe);
+        httpServer.getListener("grizzly").getFileCache().setPrecompressedFilesEnabled(true);
+        
+        final StaticHttpHandler handler = new StaticHttpHandler(file.getParent());
+        handler.setPrecompressedFilesEnabled(true);
+        startHttpServer(handler);
+
+        final byte[] data = new byte[(int) file.length()];
+        final InputStream fis = new FileInputStream(file);
+        fis.read(data);
+        fis.close();
+        final String pattern = new String(data);
+
+        final ReusableFuture<HttpContent> responseFuture =
+                new ReusableFuture<HttpContent>();
+        final Connection c = getConnection("localhost", PORT, responseFuture);
+        
+        // the first response is sent by the StaticHttpHandler, the second
+        // by the file cache
+        for (int i = 0; i < 2; i++) {
+            responseFuture.reset();
+            c.write(HttpRequestPacket.builder()
+                    .method("GET")
+                    .uri(requestPath)
+                    .protocol("HTTP/1.1")
+                    .header("Host", "localhost")
+                    .header("Accept-Encoding", "gzip")
+                    .build());
+            final HttpContent response = responseFuture.get(10, TimeUnit.SECONDS);
+            final HttpResponsePacket header = (HttpResponsePacket) response.getHttpHeader();
+            assertEquals(probe.toString(), "gzip", header.getHeader(Header.ContentEncoding));
+            assertEquals("Accept-Encoding", header.getHeader(Header.Vary));
+            assertEquals("text/plain", header.getContentType());
+            // the gzip representation doesn't serve the ranges and has its own tag
+            assertNull(header.getHeader(Header.AcceptRanges));
+            assertTrue(header.getHeader(Header.ETag).endsWith("-gzip\""));
+            assertEquals(pattern, response.getContent().toStringContent());
+        }
+        assertEquals(probe.toString(), 1, probe.entryHitCounter.get());
+        
+        responseFuture.reset();
+        c.write(HttpRequestPacket.builder()
+                .method("GET")
+                .uri(requestPath)
+                .protocol("HTTP/1.1")
+                .header("Host", "localhost")
+                .build());
+        final HttpContent response = responseFuture.get(10, TimeUnit.SECONDS);
+        assertNull(response.getHttpHeader().getHeader(Header.ContentEncoding));
+        assertEquals("Accept-Encoding", response.getHttpHeader().getHeader(Header.Vary));
+        assertEquals(pattern, response.getContent().toStringContent());
+        assertEquals(file.length(), response.getHttpHeader().getContentLength());
+        assertEquals("bytes", response.getHttpHeader().getHeader(Header.AcceptRanges));
+        assertFalse(response.getHttpHeader().getHeader(Header.ETag).endsWith("-gzip\""));
+        
+        assertTrue(gzFile.exists());
+    }
+
+    @Test
+    public void testBackgroundCompression() throws Exception {
+        final File file = createTempFile();
+        final String requestPath = "/" + file.getName();
+        
+        final FileCache fileCache = httpServer.getListener("grizzly").getFileCache();
+        fileCache.getCompressionConfig().setCompressionMode(CompressionMode.FORCE);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final AtomicInteger compressions = new AtomicInteger();
+        fileCache.setCompressionExecutor(new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                compressions.incrementAndGet();
+                executor.execute(command);
+            }
+        });
+        startHttpServer(new StaticHttpHandler(file.getParent()));
+
+        final byte[] data = new byte[(int) file.length()];
+        final InputStream fis = new FileInputStream(file);
+        fis.read(data);
+        fis.close();
+        final String pattern = new String(data);
+
+        try {
+            final ReusableFuture<HttpContent> responseFuture =
+                    new ReusableFuture<HttpContent>();
+            final Connection c = getConnection("localhost", PORT, responseFuture);
+
+            // the compressed representation eventually replaces the plain one
+            String contentEncoding = null;
+            for (int i = 0; i < 100 && contentEncoding == null; i++) {
+                responseFuture.reset();
+                c.write(HttpRequestPacket.builder()
+                        .method("GET")
+                        .uri(requestPath)
+                        .protocol("HTTP/1.1")
+                        .header("Host", "localhost")
+                        .header("Accept-Encoding", "gzip")
+                        .build());
+                final HttpContent response = responseFuture.get(10, TimeUnit.SECONDS);
+                assertEquals(pattern, response.getContent().toStringContent());
+                contentEncoding = response.getHttpHeader().getHeader(Header.ContentEncoding);
+                if (contentEncoding == null) {
+                    Thread.sleep(50);
+                }
+            }
+
+            assertEquals("gzip", contentEncoding);
+            assertEquals(1, compressions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static File createGzipSibling(final File file) throws IOException {
+        final File gzFile = new File(file.getPath() + FileCache.PRECOMPRESSED_FILE_SUFFIX);
+        gzFile.deleteOnExit();
+        
+        final InputStream in = new FileInputStream(file);
+        final OutputStream out = new GZIPOutputStream(new FileOutputStream(gzFile));
+        try {
+            final byte[] buf = new byte[1024];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                out.write(buf, 0, len);
+            }
+        } finally {
+            in.close();
+            out.close();
+        }
+        
+        return gzFile;
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        final File file = createTempFile();
+        final String requestPath = "/" + file.getName();
+        startHttpServer(new StaticHttpHandler(file.getParent()) {
+        });
+
+        final byte[] data = new byte[(int) file.length()];
+        final InputStream fis = new FileInputStream(file);
+        fis.read(data);
+        fis.close();
+        final String pattern = new String(data);
+
+        final ReusableFuture<HttpContent> responseFuture =
+                new ReusableFuture<HttpContent>();
+        final Connection c = getConnection("localhost", PORT, responseFuture);
+        
+        // the first request puts the file into the cache
+        c.write(rangeRequest(requestPath, null));
+        final HttpContent response1 = responseFuture.get(10, TimeUnit.SECONDS);
+        assertEquals(pattern, response1.getContent().toStringContent());
+        assertEquals("bytes", response1.getHttpHeader().getHeader(Header.AcceptRanges));
+
+        responseFuture.reset();
+        c.write(rangeRequest(requestPath, "bytes=5-14"));
+        final HttpContent response2 = responseFuture.get(10, TimeUnit.SECONDS);
+        final HttpResponsePacket header2 = (HttpResponsePacket) response2.getHttpHeader();
+        assertEquals(206, header2.getStatus());
+        assertEquals("bytes 5-14/" + data.length, header2.getHeader(Header.ContentRange));
+        assertEquals(pattern.substring(5, 15), response2.getContent().toStringContent());
+
+        responseFuture.reset();
+        c.write(rangeRequest(requestPath, "bytes=0-1,-2"));
+        final HttpContent response3 = responseFuture.get(10, TimeUnit.SECONDS);
+        final HttpResponsePacket header3 = (HttpResponsePacket) response3.getHttpHeader();
+        assertEquals(206, header3.getStatus());
+        assertTrue(header3.getContentType().startsWith("multipart/byteranges"));
+        final String body = response3.getContent().toStringContent();
+        assertEquals(header3.getContentLength(), body.length());
+        assertTrue(body, body.contains("Content-Range: bytes 0-1/" + data.length
+                + "\r\n\r\n" + pattern.substring(0, 2) + "\r\n"));
+        assertTrue(body, body.contains("Content-Range: bytes "
+                + (data.length - 2) + "-" + (data.length - 1) + "/" + data.length
+                + "\r\n\r\n" + pattern.substring(data.length - 2) + "\r\n"));
+        
+        responseFuture.reset();
+        c.write(rangeRequest(requestPath, "bytes=" + data.length + "-"));
+        final HttpContent response4 = responseFuture.get(10, TimeUnit.SECONDS);
+        final HttpResponsePacket header4 = (HttpResponsePacket) response4.getHttpHeader();
+        assertEquals(416, header4.getStatus());
+        assertEquals("bytes */" + data.length, header4.getHeader(Header.ContentRange));
+        assertFalse(response4.getContent().hasRemaining());
+    }
+
+    private static HttpRequestPacket rangeRequest(final String requestPath,
+            final String range) {
+        final HttpRequestPacket.Builder builder = HttpRequestPacket.builder()
+                .method("GET")
+                .uri(requestPath)
+                .protocol("HTTP/1.1")
+                .header("Host", "localhost");
+        if (range != null) {
+            builder.header(Header.Range, range);
+        }
+        return builder.build();
+    }
+
     @Test
     public void testIfModifiedSince() throws Exception {
         final File file = createTempFile();
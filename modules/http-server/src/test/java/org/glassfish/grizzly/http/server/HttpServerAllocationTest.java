@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the bytes the server threads allocate per keep-alive <tt>GET</tt>,
+ * so the request objects and the helpers they hold stay reused across the
+ * requests. The thresholds leave headroom over the measured numbers, see
+ * <tt>KeepAliveAllocationBenchmark</tt> in the benchmarks module.
+ */
+public class HttpServerAllocationTest {
+    private static final int PORT = 18910;
+
+    private static final int WARMUP_REQUESTS = 5000;
+    private static final int REQUESTS = 5000;
+
+    private static final byte[] BODY = "hello".getBytes();
+    private static final byte[] REQUEST = ("GET /hello?a=1&b=two HTTP/1.1\r\n"
+            + "Host: localhost:" + PORT + "\r\n"
+            + "Accept: */*\r\n"
+            + "Accept-Language: en-US,en;q=0.8\r\n"
+            + "Cookie: x=1; y=2\r\n"
+            + "\r\n").getBytes();
+
+    // ------------------------------------------------------------ Test Methods
+
+    @Test
+    public void testSimpleGet() throws Exception {
+        final long bytes = measure(false, null);
+        assertTrue("Allocated " + bytes + " bytes per request", bytes < 1024);
+    }
+
+    @Test
+    public void testRichGet() throws Exception {
+        final long bytes = measure(true, null);
+        assertTrue("Allocated " + bytes + " bytes per request", bytes < 2048);
+    }
+
+    @Test
+    public void testRequestAllocateProbe() throws Exception {
+        final AtomicInteger allocated = new AtomicInteger();
+        final AtomicInteger received = new AtomicInteger();
+        final HttpServerProbe probe = new HttpServerProbe.Adapter() {
+            @Override
+            public void onRequestAllocateEvent(HttpServerFilter filter,
+                    Connection connection, Request request) {
+                allocated.incrementAndGet();
+            }
+
+            @Override
+            public void onRequestReceiveEvent(HttpServerFilter filter,
+                    Connection connection, Request request) {
+                received.incrementAndGet();
+            }
+        };
+
+        measure(true, probe);
+        assertEquals(WARMUP_REQUESTS + REQUESTS, received.get());
+        // the only selector thread allocates the Request once and reuses it
+        assertEquals(1, allocated.get());
+    }
+
+    // --------------------------------------------------------- Private Methods
+
+    private static long measure(final boolean rich, final HttpServerProbe probe)
+            throws Exception {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean mx =
+                (com.sun.management.ThreadMXBean) threadMXBean;
+        Assume.assumeTrue(mx.isThreadAllocatedMemorySupported()
+                && mx.isThreadAllocatedMemoryEnabled());
+
+        final HttpServer server = createServer(rich);
+        if (probe != null) {
+            server.getServerConfiguration().getMonitoringConfig()
+                    .getWebServerConfig().addProbes(probe);
+        }
+
+        Socket s = null;
+        try {
+            server.start();
+            s = new Socket("localhost", PORT);
+            s.setSoTimeout(10 * 1000);
+            s.setTcpNoDelay(true);
+            final OutputStream out = s.getOutputStream();
+            final InputStream in = s.getInputStream();
+            final byte[] buffer = new byte[8192];
+
+            for (int i = 0; i < WARMUP_REQUESTS; i++) {
+                get(out, in, buffer);
+            }
+
+            final long start = serverBytes(mx);
+            for (int i = 0; i < REQUESTS; i++) {
+                get(out, in, buffer);
+            }
+
+            return (serverBytes(mx) - start) / REQUESTS;
+        } finally {
+            if (s != null) {
+                s.close();
+            }
+            server.shutdownNow();
+        }
+    }
+
+    private static HttpServer createServer(final boolean rich) {
+        final HttpServer server = new HttpServer();
+        final NetworkListener listener =
+                new NetworkListener("grizzly", NetworkListener.DEFAULT_NETWORK_HOST, PORT);
+        listener.getTransport().setIOStrategy(SameThreadIOStrategy.getInstance());
+        listener.getTransport().setSelectorRunnersCount(1);
+        listener.getKeepAlive().setMaxRequestsCount(-1);
+        server.addListener(listener);
+        server.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(Request request, Response response) throws Exception {
+                response.setContentType("text/plain");
+                response.setContentLength(BODY.length);
+                if (rich) {
+                    assertEquals("1", request.getParameter("a"));
+                    assertEquals(2, request.getCookies().length);
+                    assertEquals(Locale.US, request.getLocale());
+                    assertEquals("/hello", request.getRequestURI());
+                    response.setCharacterEncoding("UTF-8");
+                    response.getWriter().write("hello");
+                } else {
+                    response.getOutputStream().write(BODY);
+                }
+            }
+        }, "/hello");
+
+        return server;
+    }
+
+    private static void get(final OutputStream out, final InputStream in,
+            final byte[] buffer) throws IOException {
+        out.write(REQUEST);
+
+        int length = 0;
+        int headersEnd = -1;
+        while (headersEnd < 0 || length < headersEnd + BODY.length) {
+            final int read = in.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                throw new EOFException();
+            }
+
+            final int from = Math.max(0, length - 3);
+            length += read;
+            for (int i = from; headersEnd < 0 && i + 3 < length; i++) {
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n'
+                        && buffer[i + 2] == '\r' && buffer[i + 3] == '\n') {
+                    headersEnd = i + 4;
+                }
+            }
+        }
+
+        assertTrue(new String(buffer, 0, length).startsWith("HTTP/1.1 200"));
+    }
+
+    private static long serverBytes(final com.sun.management.ThreadMXBean mx) {
+        long bytes = 0;
+        for (ThreadInfo info : mx.getThreadInfo(mx.getAllThreadIds())) {
+            if (info != null && info.getThreadName().startsWith("grizzly")) {
+                bytes += mx.getThreadAllocatedBytes(info.getThreadId());
+            }
+        }
+
+        return bytes;
+    }
+}
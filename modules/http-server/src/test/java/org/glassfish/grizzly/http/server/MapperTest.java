@@ -95,4 +95,123 @@ public class MapperTest {
         assertEquals(wrapper21, md.wrapper);
         
     }
+
+    @Test
+    public void testCompiledRoutingIsOptIn() throws Exception {
+        assertFalse(new Mapper().isCompiledRoutingEnabled());
+    }
+
+    @Test
+    public void testCompiledRouting() throws Exception {
+        final Mapper[] mappers = {
+            createMapper(false, 0), createMapper(true, 0), createMapper(true, 4)
+        };
+        final Mapper legacy = mappers[0];
+
+        final String[] hosts = {null, "default", "DEFAULT", "www.default.com",
+            "host1", "unknown"};
+        final String[] uris = {"/", "/index.html", "/exact", "/exact/", "/exactx",
+            "/app", "/app/", "/app/exact", "/app/servlet", "/app/servlet/",
+            "/app/servlet/info", "/app/servletx", "/app/page.jsp",
+            "/app/dir/page.jsp", "/app/dir.jsp/page", "/app/page.", "/app/a/b",
+            "/app/a/b/c", "/app/a/bc", "/app/api", "/app/api/", "/app/api/v1",
+            "/app/apix", "/shop", "/shop/", "/shop/cart", "/shop/cart.html",
+            "/jsp/", "/jsp/x", "/jsp/dir/", "/empty/", "/empty/x", "/nested/a",
+            "/context1/wrapper11", "/context2/wrapper21", "/\u00e9t\u00e9",
+            "/app/\u00e9.jsp", "", "relative", "/app;jsessionid=1"};
+
+        for (int i = 0; i < 2; i++) {
+            for (String host : hosts) {
+                for (String uri : uris) {
+                    final String expected = map(legacy, host, uri);
+                    for (int j = 1; j < mappers.length; j++) {
+                        assertEquals(host + " " + uri, expected,
+                                map(mappers[j], host, uri));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledRoutingReconfiguration() throws Exception {
+        final Mapper mapper = createMapper(true, 16);
+        final Object wrapper = new Object();
+
+        MappingData md = new MappingData();
+        mapper.map(dataChunk("default"), dataChunk("/app/new"), md);
+        assertNotSame(wrapper, md.wrapper);
+
+        mapper.addWrapper("default", "/app", "/new", wrapper);
+        md = new MappingData();
+        mapper.map(dataChunk("default"), dataChunk("/app/new"), md);
+        assertSame(wrapper, md.wrapper);
+
+        mapper.removeWrapper("default", "/app", "/new");
+        md = new MappingData();
+        mapper.map(dataChunk("default"), dataChunk("/app/new"), md);
+        assertNotSame(wrapper, md.wrapper);
+    }
+
+    private static Mapper createMapper(final boolean isCompiledRoutingEnabled,
+            final int routeCacheSize) {
+        final Mapper mapper = new Mapper();
+        mapper.setCompiledRoutingEnabled(isCompiledRoutingEnabled);
+        mapper.setRouteCacheSize(routeCacheSize);
+        mapper.setDefaultHostName("default");
+        mapper.addHost("default", new String[] {"www.default.com"}, "default");
+        mapper.addHost("host1", new String[0], "host1");
+
+        final String[] welcome = {"index.html"};
+        mapper.addContext("default", "", "root", welcome, null);
+        mapper.addWrapper("default", "", "/exact", "root-exact");
+        mapper.addWrapper("default", "", "/", "root-default");
+
+        mapper.addContext("default", "/app", "app", new String[0], null);
+        mapper.addWrapper("default", "/app", "/exact", "app-exact");
+        mapper.addWrapper("default", "/app", "/servlet/*", "app-servlet");
+        mapper.addWrapper("default", "/app", "/a/b/*", "app-ab");
+        mapper.addWrapper("default", "/app", "*.jsp", "app-jsp");
+        mapper.addWrapper("default", "/app", "/", "app-default", false,
+                "default", false);
+        mapper.addContext("default", "/app/api", "api", null, null);
+        mapper.addWrapper("default", "/app/api", "/*", "api-all");
+
+        mapper.addContext("default", "/shop", "shop", new String[0], null);
+        mapper.addWrapper("default", "/shop", "*.html", "shop-html");
+
+        mapper.addContext("default", "/jsp", "jsp", welcome, null);
+        mapper.addWrapper("default", "/jsp", "/*", "jsp-all", true);
+
+        mapper.addContext("default", "/empty", "empty", new String[0], null);
+        mapper.addWrapper("default", "/empty", "", "empty-path", false,
+                "empty", true);
+
+        mapper.addContext("default", "/nested/a", "nested", null, null);
+
+        mapper.addContext("host1", "/context1", "context1", null, null);
+        mapper.addWrapper("host1", "/context1", "/wrapper11", "wrapper11");
+
+        return mapper;
+    }
+
+    private static String map(final Mapper mapper, final String host,
+            final String uri) throws Exception {
+        final DataChunk hostChunk = DataChunk.newInstance();
+        if (host != null) {
+            hostChunk.setBytes(host.getBytes());
+        }
+
+        final MappingData md = new MappingData();
+        mapper.mapUriWithSemicolon(hostChunk, dataChunk(uri), md, 0);
+
+        return md + "\njspWildCard: " + md.jspWildCard
+                + "\nisDefaultContext: " + md.isDefaultContext;
+    }
+
+    private static DataChunk dataChunk(final String s) {
+        final DataChunk chunk = DataChunk.newInstance();
+        chunk.setChars(s.toCharArray(), 0, s.length());
+        return chunk;
+    }
 }
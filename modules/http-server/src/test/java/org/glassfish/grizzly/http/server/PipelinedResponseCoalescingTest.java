@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.ConnectionProbe;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the responses to the pipelined HTTP requests are written in the
+ * request order and coalesced, when
+ * {@link ServerFilterConfiguration#setPipelinedResponseCoalescing(boolean)}
+ * is enabled.
+ */
+public class PipelinedResponseCoalescingTest {
+    private static final int PORT = 18911;
+    private static final int REQUESTS = 10;
+
+    private HttpServer server;
+    private ScheduledExecutorService scheduler;
+    private final AtomicInteger writes = new AtomicInteger();
+
+    @Before
+    public void before() throws Exception {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        server = HttpServer.createSimpleServer(null, PORT);
+        server.getServerConfiguration().setPipelinedResponseCoalescing(true);
+        server.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response)
+                    throws Exception {
+                final String id = request.getParameter("id");
+                final String sleep = request.getParameter("sleep");
+                if (sleep != null) {
+                    Thread.sleep(Long.parseLong(sleep));
+                }
+
+                if (request.getParameter("suspend") == null) {
+                    response.getWriter().write(id);
+                    return;
+                }
+
+                // the response is written and resumed by another thread
+                response.suspend();
+                scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            response.getWriter().write(id);
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        } finally {
+                            response.resume();
+                        }
+                    }
+                }, 100, TimeUnit.MILLISECONDS);
+            }
+        }, "/echo");
+
+        server.getListener("grizzly").getTransport().getConnectionMonitoringConfig()
+                .addProbes(new ConnectionProbe.Adapter() {
+                    @Override
+                    public void onWriteEvent(final Connection connection,
+                            final Buffer data, final long size) {
+                        writes.incrementAndGet();
+                    }
+                });
+        server.start();
+    }
+
+    @After
+    public void after() {
+        server.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    // ------------------------------------------------------------ Test Methods
+
+    @Test
+    public void testCoalescedResponses() throws Exception {
+        final StringBuilder requests = new StringBuilder();
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < REQUESTS; i++) {
+            requests.append(request("/echo?id=" + i, false));
+            expected.append(i);
+        }
+
+        assertEquals(expected.toString(), send(requests.toString(), REQUESTS));
+        assertTrue("Written " + writes.get() + " times", writes.get() < REQUESTS);
+    }
+
+    @Test
+    public void testSuspendedResponses() throws Exception {
+        final String requests = request("/echo?id=1", false)
+                + request("/echo?id=2&suspend=true", false)
+                + request("/echo?id=3", false)
+                + request("/echo?id=4&suspend=true", false)
+                + request("/echo?id=5", false);
+
+        assertEquals("12345", send(requests, 5));
+    }
+
+    @Test
+    public void testConnectionClose() throws Exception {
+        final String requests = request("/echo?id=1", false)
+                + request("/echo?id=2", true)
+                + request("/echo?id=3", false);
+
+        // the connection is closed after the second response
+        assertEquals("12", send(requests, -1));
+    }
+
+    @Test
+    public void testHeldResponseDelay() throws Exception {
+        final String requests = request("/echo?id=1", false)
+                + request("/echo?id=2&sleep=3000", false);
+
+        final Socket s = new Socket("localhost", PORT);
+        try {
+            s.getOutputStream().write(requests.getBytes("ISO-8859-1"));
+            s.getOutputStream().flush();
+
+            // the first response is not held back till the second one is
+            // served
+            s.setSoTimeout(1000);
+            final InputStream in = s.getInputStream();
+            assertEquals("1", readResponse(in));
+
+            s.setSoTimeout(10 * 1000);
+            assertEquals("2", readResponse(in));
+        } finally {
+            s.close();
+        }
+    }
+
+    // --------------------------------------------------------- Private Methods
+
+    private static String request(final String uri, final boolean close) {
+        return "GET " + uri + " HTTP/1.1\r\n"
+                + "Host: localhost:" + PORT + "\r\n"
+                + (close ? "Connection: close\r\n" : "")
+                + "\r\n";
+    }
+
+    /**
+     * Sends the requests as one chunk and returns the concatenated bodies of
+     * the responses.
+     *
+     * @param responses the number of the responses to read, or <tt>-1</tt> to
+     *  read till the connection is closed
+     */
+    private static String send(final String requests, final int responses)
+            throws IOException {
+        final Socket s = new Socket("localhost", PORT);
+        try {
+            s.setSoTimeout(10 * 1000);
+            s.getOutputStream().write(requests.getBytes("ISO-8859-1"));
+            s.getOutputStream().flush();
+
+            final InputStream in = s.getInputStream();
+            final StringBuilder bodies = new StringBuilder();
+            for (int i = 0; responses == -1 || i < responses; i++) {
+                final String body = readResponse(in);
+                if (body == null) {
+                    assertEquals(-1, responses);
+                    break;
+                }
+                bodies.append(body);
+            }
+
+            return bodies.toString();
+        } finally {
+            s.close();
+        }
+    }
+
+    /**
+     * @return the body of the <tt>200</tt> response with the
+     *  <tt>Content-Length</tt> or <tt>chunked</tt> payload, or <tt>null</tt>,
+     *  if the connection has been closed.
+     */
+    private static String readResponse(final InputStream in) throws IOException {
+        final String statusLine = readLine(in);
+        if (statusLine == null) {
+            return null;
+        }
+        assertTrue(statusLine, statusLine.startsWith("HTTP/1.1 200"));
+
+        int contentLength = -1;
+        boolean chunked = false;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            final String lowerCase = line.toLowerCase();
+            if (lowerCase.startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring(15).trim());
+            } else if (lowerCase.startsWith("transfer-encoding:")) {
+                chunked = lowerCase.contains("chunked");
+            }
+        }
+
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (chunked) {
+            int size;
+            while ((size = Integer.parseInt(readLine(in).trim(), 16)) > 0) {
+                read(in, body, size);
+                readLine(in);
+            }
+            readLine(in);
+        } else {
+            read(in, body, contentLength);
+        }
+
+        return body.toString("ISO-8859-1");
+    }
+
+    private static void read(final InputStream in,
+            final ByteArrayOutputStream out, final int size) throws IOException {
+        for (int i = 0; i < size; i++) {
+            final int b = in.read();
+            assertTrue("Unexpected EOF", b != -1);
+            out.write(b);
+        }
+    }
+
+    private static String readLine(final InputStream in) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                return sb.length() == 0 ? null : sb.toString();
+            }
+            if (b != '\r') {
+                sb.append((char) b);
+            }
+        }
+
+        return sb.toString();
+    }
+}
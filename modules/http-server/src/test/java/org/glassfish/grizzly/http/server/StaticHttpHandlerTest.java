@@ -16,6 +16,7 @@
 
 package org.glassfish.grizzly.http.server;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -31,6 +32,7 @@ import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
 import org.glassfish.grizzly.Connection;
 import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.filterchain.*;
@@ -172,6 +174,146 @@ public class StaticHttpHandlerTest {
         }        
     }
     
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPrecompressedFile() throws Exception {
+        final File control = generateTempFile(100000);
+        final File gzControl = new File(control.getPath() + ".gz");
+        gzControl.deleteOnExit();
+        final GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(gzControl));
+        try {
+            out.write(Files.readAllBytes(control.toPath()));
+        } finally {
+            out.close();
+        }
+        
+        final FutureImpl<File> result = Futures.createSafeFuture();
+
+        TCPNIOTransport client = createClient(result, new ResponseValidator() {
+            @Override
+            public void validate(HttpResponsePacket response) {
+                assertEquals(200, response.getStatus());
+                assertEquals("gzip", response.getHeader(Header.ContentEncoding));
+                assertEquals("Accept-Encoding", response.getHeader(Header.Vary));
+                assertEquals(Long.toString(gzControl.length()),
+                        response.getHeader(Header.ContentLength));
+                assertNull(response.getHeader(Header.AcceptRanges));
+            }
+        }, isSslEnabled);
+        try {
+            client.start();
+            Connection c = client.connect("localhost", PORT).get(10, TimeUnit.SECONDS);
+            
+            HttpRequestPacket request =
+                    HttpRequestPacket.builder().uri("/" + control.getName())
+                        .method(Method.GET)
+                        .protocol(Protocol.HTTP_1_1)
+                        .header("Host", "localhost:" + PORT)
+                        .header(Header.AcceptEncoding, "gzip, deflate").build();
+            c.write(request);
+            final File fResult = result.get(20, TimeUnit.SECONDS);
+            
+            // the client decodes the gzipped payload
+            assertArrayEquals(Files.readAllBytes(control.toPath()),
+                    Files.readAllBytes(fResult.toPath()));
+            
+            c.close();
+        } finally {
+            client.shutdownNow();
+        }        
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSingleRange() throws Exception {
+        final int fileSize = 100000;
+        final File control = generateTempFile(fileSize);
+        
+        final FutureImpl<File> result = Futures.createSafeFuture();
+
+        TCPNIOTransport client = createClient(result, new ResponseValidator() {
+            @Override
+            public void validate(HttpResponsePacket response) {
+                assertEquals(206, response.getStatus());
+                assertEquals("bytes 1000-70999/" + fileSize,
+                        response.getHeader(Header.ContentRange));
+                assertEquals("70000", response.getHeader(Header.ContentLength));
+                assertEquals("bytes", response.getHeader(Header.AcceptRanges));
+            }
+        }, isSslEnabled);
+        try {
+            client.start();
+            Connection c = client.connect("localhost", PORT).get(10, TimeUnit.SECONDS);
+            
+            HttpRequestPacket request =
+                    HttpRequestPacket.builder().uri("/" + control.getName())
+                        .method(Method.GET)
+                        .protocol(Protocol.HTTP_1_1)
+                        .header("Host", "localhost:" + PORT)
+                        .header(Header.Range, "bytes=1000-70999").build();
+            c.write(request);
+            final File fResult = result.get(20, TimeUnit.SECONDS);
+            
+            final byte[] expected = Arrays.copyOfRange(
+                    Files.readAllBytes(control.toPath()), 1000, 71000);
+            assertArrayEquals(expected, Files.readAllBytes(fResult.toPath()));
+            
+            c.close();
+        } finally {
+            client.shutdownNow();
+        }        
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMultipleRanges() throws Exception {
+        final int fileSize = 100000;
+        final File control = generateTempFile(fileSize);
+        
+        final FutureImpl<File> result = Futures.createSafeFuture();
+        final String[] contentType = new String[1];
+        
+        TCPNIOTransport client = createClient(result, new ResponseValidator() {
+            @Override
+            public void validate(HttpResponsePacket response) {
+                assertEquals(206, response.getStatus());
+                assertNull(response.getHeader(Header.ContentRange));
+                contentType[0] = response.getHeader(Header.ContentType);
+            }
+        }, isSslEnabled);
+        try {
+            client.start();
+            Connection c = client.connect("localhost", PORT).get(10, TimeUnit.SECONDS);
+            
+            HttpRequestPacket request =
+                    HttpRequestPacket.builder().uri("/" + control.getName())
+                        .method(Method.GET)
+                        .protocol(Protocol.HTTP_1_1)
+                        .header("Host", "localhost:" + PORT)
+                        .header(Header.Range, "bytes=90000-,0-9,5-19").build();
+            c.write(request);
+            final File fResult = result.get(20, TimeUnit.SECONDS);
+            
+            assertTrue(contentType[0],
+                    contentType[0].startsWith("multipart/byteranges; boundary="));
+            final String boundary = contentType[0].substring(
+                    "multipart/byteranges; boundary=".length());
+            
+            final byte[] data = Files.readAllBytes(control.toPath());
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            writePart(expected, boundary, data, 0, 20);
+            writePart(expected, boundary, data, 90000, fileSize);
+            expected.write(("\r\n--" + boundary + "--\r\n").getBytes("ISO-8859-1"));
+            
+            assertArrayEquals(expected.toByteArray(),
+                    Files.readAllBytes(fResult.toPath()));
+            
+            c.close();
+        } finally {
+            client.shutdownNow();
+        }        
+    }
+    
     /**
      * Make sure we receive 301 redirect, when trying to access directory
      * without trailing slash.
@@ -306,12 +448,26 @@ public class StaticHttpHandlerTest {
         
         listener.setSendFileEnabled(isFileSendEnabled);
         server.addListener(listener);
-        server.getServerConfiguration().addHttpHandler(
-                new StaticHttpHandler(getSystemTmpDir()), "/");
+        final StaticHttpHandler handler = new StaticHttpHandler(getSystemTmpDir());
+        handler.setPrecompressedFilesEnabled(true);
+        server.getServerConfiguration().addHttpHandler(handler, "/");
         
         return server;
     }
 
+    private static void writePart(final ByteArrayOutputStream out,
+            final String boundary, final byte[] data, final int from,
+            final int to) throws IOException {
+        if (out.size() > 0) {
+            out.write("\r\n".getBytes("ISO-8859-1"));
+        }
+        out.write(("--" + boundary + "\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes " + from + "-" + (to - 1) + "/"
+                + data.length + "\r\n\r\n").getBytes("ISO-8859-1"));
+        out.write(data, from, to - from);
+    }
+    
     private static BigInteger getMDSum(final File f) throws Exception {
         MessageDigest digest = MessageDigest.getInstance("MD5");
         byte[] b = new byte[8192];
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.accesslog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link RingBufferAppender}
+ */
+public class RingBufferAppenderTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    @Test
+    public void testConcurrentAppendersBlocking() throws Exception {
+        final CollectingAppender collector = new CollectingAppender();
+        final RingBufferAppender appender = new RingBufferAppender(collector, 16, RingBufferAppender.OverflowPolicy.BLOCK);
+
+        final int threads = 4;
+        final int entries = 5000;
+        final List<Thread> workers = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t ++) {
+            final int id = t;
+            final Thread worker = new Thread() {
+                @Override
+                public void run() {
+                    for (int x = 0; x < entries; x ++) try {
+                        appender.append("thread-" + id + " entry-" + x);
+                    } catch (IOException exception) {
+                        throw new IllegalStateException(exception);
+                    }
+                }
+            };
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker: workers) worker.join();
+        appender.close();
+
+        final List<String> lines = collector.lines();
+        assertEquals(threads * entries, lines.size());
+        assertEquals(threads * entries, new HashSet<String>(lines).size());
+        assertEquals(0, appender.getDroppedEntries());
+        assertTrue("Entries were not batched", collector.batches < lines.size());
+        assertTrue(collector.closed);
+    }
+
+    @Test
+    public void testEncoding() throws Exception {
+        final CollectingAppender collector = new CollectingAppender();
+        final RingBufferAppender appender = new RingBufferAppender(collector);
+
+        final String entry = "ascii éè € 😀 end";
+        appender.append(entry);
+        appender.append(new StringBuilder().append('x').append(entry).toString());
+        appender.close();
+
+        assertEquals(Arrays.asList(entry, "x" + entry), collector.lines());
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CollectingAppender collector = new CollectingAppender() {
+            @Override
+            public void append(ByteBuffer entries) throws IOException {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException exception) {
+                    throw new IOException(exception);
+                }
+                super.append(entries);
+            }
+        };
+        final RingBufferAppender appender = new RingBufferAppender(collector, 4, RingBufferAppender.OverflowPolicy.DROP);
+
+        for (int x = 0; x < 100; x ++) appender.append("entry-" + x);
+        release.countDown();
+        appender.close();
+
+        final long dropped = appender.getDroppedEntries();
+        assertTrue("Nothing dropped", dropped > 0);
+        assertEquals(100, collector.lines().size() + dropped);
+    }
+
+    @Test
+    public void testBatchesToFile() throws Exception {
+        final File file = File.createTempFile("access", ".log");
+        file.deleteOnExit();
+
+        final FileAppender fileAppender = new FileAppender(file, false);
+        fileAppender.append("first");
+        final RingBufferAppender appender = new RingBufferAppender(fileAppender, 8, RingBufferAppender.OverflowPolicy.BLOCK, 64);
+        final Set<String> expected = new HashSet<String>();
+        expected.add("first");
+        for (int x = 0; x < 50; x ++) {
+            appender.append("entry number " + x);
+            expected.add("entry number " + x);
+        }
+        appender.close();
+
+        final List<String> lines = Files.readAllLines(file.toPath(), UTF8);
+        assertEquals("first", lines.get(0));
+        assertEquals(expected, new HashSet<String>(lines));
+        assertEquals(51, lines.size());
+    }
+
+    /* ====================================================================== */
+
+    private static class CollectingAppender implements BatchAppender {
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private volatile int batches;
+        private volatile boolean closed;
+
+        @Override
+        public synchronized void append(ByteBuffer entries) throws IOException {
+            final byte[] bytes = new byte[entries.remaining()];
+            entries.get(bytes);
+            output.write(bytes);
+            batches ++;
+        }
+
+        @Override
+        public synchronized void append(String accessLogEntry) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+        }
+
+        synchronized List<String> lines() {
+            final String contents = new String(output.toByteArray(), UTF8);
+            final List<String> lines = new ArrayList<String>();
+            for (String line: contents.split(LINE_SEPARATOR)) {
+                if (!line.isEmpty()) lines.add(line);
+            }
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.filecache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link EvictionPolicy} and {@link FrequencySketch} tests.
+ */
+public class EvictionPolicyTest {
+
+    // all the hashes map to the same shard, so the victim order is
+    // deterministic regardless of the number of CPUs
+    private static final int SHARD_STRIDE = 16;
+
+    @Test
+    public void testSketchCountsOccurrences() {
+        final FrequencySketch sketch = new FrequencySketch(1024);
+        for (int i = 0; i < 5; i++) {
+            sketch.increment(hash(1));
+        }
+        sketch.increment(hash(2));
+
+        assertEquals(5, sketch.frequency(hash(1)));
+        assertEquals(1, sketch.frequency(hash(2)));
+        assertEquals(0, sketch.frequency(hash(3)));
+    }
+
+    @Test
+    public void testSketchSaturates() {
+        final FrequencySketch sketch = new FrequencySketch(1024);
+        for (int i = 0; i < 100; i++) {
+            sketch.increment(hash(1));
+        }
+
+        assertEquals(15, sketch.frequency(hash(1)));
+    }
+
+    @Test
+    public void testSketchAging() {
+        // the counters are halved after 10 * 16 additions
+        final FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 8; i++) {
+            sketch.increment(hash(1));
+        }
+        final int before = sketch.frequency(hash(1));
+
+        for (int i = 100; sketch.frequency(hash(1)) >= before && i < 10000; i++) {
+            sketch.increment(hash(i));
+        }
+
+        assertTrue(sketch.frequency(hash(1)) < before);
+    }
+
+    @Test
+    public void testInfrequentCandidateIsNotAdmitted() {
+        final EvictionPolicy policy = new EvictionPolicy(16);
+        final FileCacheEntry cached = entry(1, FileCache.CacheType.TIMESTAMP);
+        policy.onAdded(cached);
+        policy.recordHit(cached);
+
+        policy.recordMiss(hash(2));
+
+        assertNull(policy.selectVictim(hash(2), null));
+    }
+
+    @Test
+    public void testFrequentCandidateEvictsLru() {
+        final EvictionPolicy policy = new EvictionPolicy(16);
+        final FileCacheEntry first = entry(1, FileCache.CacheType.TIMESTAMP);
+        final FileCacheEntry second = entry(2, FileCache.CacheType.TIMESTAMP);
+        policy.onAdded(first);
+        policy.onAdded(second);
+
+        for (int i = 0; i < 3; i++) {
+            policy.recordMiss(hash(3));
+        }
+
+        assertSame(first, policy.selectVictim(hash(3), null));
+    }
+
+    @Test
+    public void testHitProtectsEntry() {
+        final EvictionPolicy policy = new EvictionPolicy(16);
+        final FileCacheEntry first = entry(1, FileCache.CacheType.TIMESTAMP);
+        final FileCacheEntry second = entry(2, FileCache.CacheType.TIMESTAMP);
+        final FileCacheEntry third = entry(3, FileCache.CacheType.TIMESTAMP);
+        policy.onAdded(first);
+        policy.onAdded(second);
+        policy.onAdded(third);
+
+        policy.recordHit(first);
+        for (int i = 0; i < 5; i++) {
+            policy.recordMiss(hash(4));
+        }
+
+        assertSame(second, policy.selectVictim(hash(4), null));
+    }
+
+    @Test
+    public void testVictimOfType() {
+        final EvictionPolicy policy = new EvictionPolicy(16);
+        final FileCacheEntry timestamp = entry(1, FileCache.CacheType.TIMESTAMP);
+        final FileCacheEntry heap = entry(2, FileCache.CacheType.HEAP);
+        policy.onAdded(timestamp);
+        policy.onAdded(heap);
+
+        for (int i = 0; i < 3; i++) {
+            policy.recordMiss(hash(3));
+        }
+
+        assertSame(heap, policy.selectVictim(hash(3), FileCache.CacheType.HEAP));
+        assertNull(policy.selectVictim(hash(3), FileCache.CacheType.MAPPED));
+    }
+
+    @Test
+    public void testRemoveIsIdempotent() {
+        final EvictionPolicy policy = new EvictionPolicy(16);
+        final FileCacheEntry first = entry(1, FileCache.CacheType.TIMESTAMP);
+        final FileCacheEntry second = entry(2, FileCache.CacheType.TIMESTAMP);
+        policy.onAdded(first);
+        policy.onAdded(second);
+
+        policy.onRemoved(first);
+        policy.onRemoved(first);
+
+        for (int i = 0; i < 3; i++) {
+            policy.recordMiss(hash(3));
+        }
+        assertSame(second, policy.selectVictim(hash(3), null));
+
+        policy.onRemoved(second);
+        assertNull(policy.selectVictim(hash(3), null));
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+
+    private static int hash(final int id) {
+        return id * SHARD_STRIDE;
+    }
+
+    private static FileCacheEntry entry(final int id,
+            final FileCache.CacheType type) {
+        final FileCacheEntry entry = new FileCacheEntry(null);
+        entry.keyHash = hash(id);
+        entry.type = type;
+        return entry;
+    }
+}
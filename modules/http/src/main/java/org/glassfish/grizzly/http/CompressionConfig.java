@@ -379,8 +379,16 @@ public final class CompressionConfig {
 
     }
     
-    private static boolean isClientSupportContentEncoding(
-            HttpRequestPacket request, final String[] aliases) {
+    /**
+     * Returns <tt>true</tt> if the client accepts one of the given content
+     * encodings, according to the request <tt>Accept-Encoding</tt> header.
+     * Unlike {@link #isClientSupportCompression(CompressionConfig, HttpRequestPacket, String[])},
+     * the compression mode and user-agent aren't checked, so the method could
+     * be used to decide if already encoded (precompressed) content could be
+     * served.
+     */
+    public static boolean isClientSupportContentEncoding(
+            final HttpRequestPacket request, final String[] aliases) {
         // Check if browser support gzip encoding
         final DataChunk acceptEncodingDC =
                 request.getHeaders().getValue(Header.AcceptEncoding);
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http.util.Constants;
+import org.glassfish.grizzly.memory.ByteBufferWrapper;
+
+/**
+ * Primitives of the word-at-a-time HTTP header parsing, see
+ * {@link HttpServerFilter#setWordAtATimeHeaderParsing(boolean)}.
+ *
+ * The header values are scanned 8 bytes at a time, using SWAR ("SIMD within
+ * a register") arithmetic on the <tt>long</tt>s read from the
+ * {@link ByteBuffer} view of the input, and the header names are validated
+ * against the RFC 7230 <tt>token</tt> lookup table.
+ */
+final class HeaderScanner {
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private static final long CRS = ONES * Constants.CR;
+    private static final long LFS = ONES * Constants.LF;
+    private static final long SPS = ONES * Constants.SP;
+
+    /**
+     * The header name chars: the lower-case char for the <tt>token</tt>
+     * chars, or <tt>0</tt> for the rest.
+     */
+    private static final byte[] TOKEN = new byte[256];
+
+    static {
+        for (int c = '0'; c <= '9'; c++) {
+            TOKEN[c] = (byte) c;
+        }
+        for (int c = 'a'; c <= 'z'; c++) {
+            TOKEN[c] = (byte) c;
+            TOKEN[c + Constants.LC_OFFSET] = (byte) c;
+        }
+        for (char c : "!#$%&'*+-.^_`|~".toCharArray()) {
+            TOKEN[c] = (byte) c;
+        }
+    }
+
+    private HeaderScanner() {
+    }
+
+    /**
+     * @return the lower-case header name char, or <tt>0</tt>, if the byte is
+     *  not a <tt>token</tt> char.
+     */
+    static byte toTokenLowerCase(final byte b) {
+        return TOKEN[b & 0xFF];
+    }
+
+    /**
+     * @return the {@link ByteBuffer} view of the input, whose indexes match
+     *  the {@link Buffer} indexes, or <tt>null</tt>, if the {@link Buffer}
+     *  doesn't have such a view.
+     */
+    static ByteBuffer view(final Buffer input) {
+        return input instanceof ByteBufferWrapper ? input.toByteBuffer() : null;
+    }
+
+    /**
+     * @return the {@link ByteBuffer} view of the array, which is cached in
+     *  the parsing state.
+     */
+    static ByteBuffer view(final HttpCodecFilter.HeaderParsingState parsingState,
+            final byte[] input) {
+        ByteBuffer view = parsingState.wordView;
+        if (view == null || view.array() != input) {
+            view = ByteBuffer.wrap(input).order(ByteOrder.nativeOrder());
+            parsingState.wordView = view;
+        }
+
+        return view;
+    }
+
+    /**
+     * Finds the first <tt>CR</tt> or <tt>LF</tt> byte, looking at 8 bytes
+     * at a time.
+     *
+     * @return the index of the first <tt>CR</tt> or <tt>LF</tt> byte, or the
+     *  index, from which less than 8 bytes remain till the limit, if the
+     *  scanned words don't have them.
+     */
+    static int indexOfEol(final ByteBuffer view, final int offset,
+            final int limit) {
+        final boolean isBigEndian = view.order() == ByteOrder.BIG_ENDIAN;
+        int i = offset;
+        while (i + 8 <= limit) {
+            final long word = view.getLong(i);
+            final long eol = zeroBytes(word ^ CRS) | zeroBytes(word ^ LFS);
+            if (eol != 0) {
+                return i + firstByte(eol, isBigEndian);
+            }
+            i += 8;
+        }
+
+        return i;
+    }
+
+    /**
+     * @return the index following the last non-<tt>SP</tt> byte within
+     *  <tt>[offset, end)</tt>, or <tt>offset</tt>, if all the bytes are
+     *  <tt>SP</tt>.
+     */
+    static int trimTrailingSpaces(final ByteBuffer view, final int offset,
+            int end) {
+        final boolean isBigEndian = view.order() == ByteOrder.BIG_ENDIAN;
+        while (end - 8 >= offset) {
+            final long nonSpaces = ~zeroBytes(view.getLong(end - 8) ^ SPS)
+                    & ~LOW_BITS;
+            if (nonSpaces != 0) {
+                return end - 8 + lastByte(nonSpaces, isBigEndian) + 1;
+            }
+            end -= 8;
+        }
+
+        while (end > offset && view.get(end - 1) == Constants.SP) {
+            end--;
+        }
+
+        return end;
+    }
+
+    /**
+     * @return the word with <tt>0x80</tt> in place of the zero bytes and
+     *  <tt>0</tt> in place of the others.
+     */
+    private static long zeroBytes(final long word) {
+        return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+    }
+
+    /**
+     * @return the memory order index of the first marked byte.
+     */
+    private static int firstByte(final long marks, final boolean isBigEndian) {
+        return (isBigEndian
+                ? Long.numberOfLeadingZeros(marks)
+                : Long.numberOfTrailingZeros(marks)) >>> 3;
+    }
+
+    /**
+     * @return the memory order index of the last marked byte.
+     */
+    private static int lastByte(final long marks, final boolean isBigEndian) {
+        return 7 - ((isBigEndian
+                ? Long.numberOfTrailingZeros(marks)
+                : Long.numberOfLeadingZeros(marks)) >>> 3);
+    }
+}
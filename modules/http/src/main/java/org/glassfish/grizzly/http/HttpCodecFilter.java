@@ -17,6 +17,7 @@
 package org.glassfish.grizzly.http;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
@@ -33,6 +34,7 @@ import org.glassfish.grizzly.http.util.CacheableDataChunk;
 import org.glassfish.grizzly.http.util.Constants;
 import org.glassfish.grizzly.http.util.DataChunk;
 import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HeaderTemplate;
 import org.glassfish.grizzly.http.util.MimeHeaders;
 import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.CompositeBuffer;
@@ -148,6 +150,13 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
     protected boolean preserveHeaderCase =
             Boolean.parseBoolean(System.getProperty("org.glassfish.grizzly.http.PRESERVE_HEADER_CASE", "false"));
 
+    /**
+     * <tt>true</tt>, if the header values are scanned 8 bytes at a time and
+     * the header names are validated against the <tt>token</tt> chars.
+     */
+    protected boolean wordAtATimeHeaderParsing =
+            Boolean.parseBoolean(System.getProperty("org.glassfish.grizzly.http.WORD_AT_A_TIME_HEADER_PARSING", "false"));
+
     /**
      * Method is responsible for parsing initial line of HTTP message (different
      * for {@link HttpRequestPacket} and {@link HttpResponsePacket}).
@@ -205,6 +214,18 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
      */
     protected abstract boolean onHttpPacketParsed(HttpHeader httpHeader, FilterChainContext ctx);
 
+    /**
+     * Callback method, called when the {@link HttpPacket} without payload
+     * has been parsed and the input has more bytes, which belong to the next
+     * pipelined {@link HttpPacket}.
+     *
+     * @param httpHeader {@link HttpHeader}, which represents parsed HTTP packet header
+     * @param ctx processing context.
+     */
+    void onPipelinedHttpPacket(final HttpHeader httpHeader,
+            final FilterChainContext ctx) {
+    }
+
 
     /**
      * Callback invoked when the HTTP message header parsing is complete.
@@ -703,6 +724,7 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
 
             ctx.setMessage(emptyContent);
             if (input.remaining() > 0) {
+                onPipelinedHttpPacket(httpHeader, ctx);
                 return ctx.getInvokeAction(input);
             }
             return ctx.getInvokeAction();
@@ -805,7 +827,9 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
                     parsingState.subState++;
                 }
                 case 1: { // parse header name
-                    if (!parseHeaderName(httpHeader, mimeHeaders, parsingState, input, end)) {
+                    if (wordAtATimeHeaderParsing
+                            ? !parseTokenHeaderName(httpHeader, mimeHeaders, parsingState, input, end)
+                            : !parseHeaderName(httpHeader, mimeHeaders, parsingState, input, end)) {
                         return false;
                     }
 
@@ -834,6 +858,12 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
                 }
 
                 case 3: { // parse header value
+                    if (wordAtATimeHeaderParsing) {
+                        skipHeaderValueWords(parsingState,
+                                HeaderScanner.view(parsingState, input),
+                                arrayOffs, Math.min(end, packetLim));
+                    }
+
                     final int result = parseHeaderValue(httpHeader, parsingState, input, end);
                     if (result == -1) {
                         return false;
@@ -868,11 +898,11 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
             byte b = input[offset];
             if (b == Constants.COLON) {
 
+                final Header header = Header.find(input, start, offset);
                 parsingState.headerValueStorage =
-                        mimeHeaders.addValue(input, start, offset - start);
+                        mimeHeaders.addValue(input, start, offset - start, header);
                 parsingState.offset = offset + 1 - arrayOffs;
-                finalizeKnownHeaderNames(httpHeader, parsingState, input,
-                        start, offset);
+                finalizeKnownHeaderNames(httpHeader, parsingState, header);
 
                 return true;
             } else if ((b >= Constants.A) && (b <= Constants.Z)) {
@@ -946,31 +976,94 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
         return -1;
     }
     
+    /**
+     * {@link #parseHeaderName(HttpHeader, MimeHeaders, HeaderParsingState, byte[], int)}
+     * variant, which rejects the names with non-<tt>token</tt> chars.
+     */
+    private boolean parseTokenHeaderName(final HttpHeader httpHeader,
+            final MimeHeaders mimeHeaders, final HeaderParsingState parsingState,
+            final byte[] input, final int end) {
+        final int arrayOffs = parsingState.arrayOffset;
+
+        final int limit = Math.min(end, arrayOffs + parsingState.packetLimit);
+        final int start = arrayOffs + parsingState.start;
+        int offset = arrayOffs + parsingState.offset;
+
+        while (offset < limit) {
+            final byte b = input[offset];
+            if (b == Constants.COLON && offset > start) {
+                final Header header = Header.find(input, start, offset);
+                parsingState.headerValueStorage =
+                        mimeHeaders.addValue(input, start, offset - start, header);
+                parsingState.offset = offset + 1 - arrayOffs;
+                finalizeKnownHeaderNames(httpHeader, parsingState, header);
+
+                return true;
+            }
+
+            final byte lc = HeaderScanner.toTokenLowerCase(b);
+            if (lc == 0) {
+                throw new IllegalStateException("Invalid HTTP header name char: "
+                        + (b & 0xFF));
+            }
+            if (lc != b && !preserveHeaderCase) {
+                input[offset] = lc;
+            }
+
+            offset++;
+        }
+
+        parsingState.offset = offset - arrayOffs;
+        return false;
+    }
+
+    /**
+     * Advances the header value parsing state over the value bytes preceding
+     * the first <tt>CR</tt> or <tt>LF</tt>, 8 bytes at a time. The rest of
+     * the value is parsed by <tt>parseHeaderValue</tt>.
+     *
+     * @param base the view index of the parsing state offset <tt>0</tt>
+     */
+    private static void skipHeaderValueWords(final HeaderParsingState parsingState,
+            final ByteBuffer view, final int base, final int limit) {
+        if (parsingState.offset != parsingState.checkpoint) {
+            // the multi-line value is being shifted
+            return;
+        }
+
+        final int offset = base + parsingState.offset;
+        final int eol = HeaderScanner.indexOfEol(view, offset, limit);
+        if (eol > offset) {
+            final int valueEnd = HeaderScanner.trimTrailingSpaces(view, offset, eol);
+            parsingState.offset += eol - offset;
+            parsingState.checkpoint += eol - offset;
+            if (valueEnd > offset) {
+                parsingState.checkpoint2 = parsingState.checkpoint - (eol - valueEnd);
+            }
+        }
+    }
+
     private static void finalizeKnownHeaderNames(final HttpHeader httpHeader,
-            final HeaderParsingState parsingState, final byte[] input,
-            final int start, final int end) {
-        
-        final int size = end - start;
-        if (size == Header.ContentLength.getLowerCaseBytes().length) {
-            if (ByteChunk.equalsIgnoreCaseLowerCase(input, start, end,
-                    Header.ContentLength.getLowerCaseBytes())) {
+            final HeaderParsingState parsingState, final Header header) {
+
+        if (header == null) {
+            return;
+        }
+
+        switch (header) {
+            case ContentLength:
                 parsingState.isContentLengthHeader = true;
-            }
-        } else if (size == Header.TransferEncoding.getLowerCaseBytes().length) {
-            if (ByteChunk.equalsIgnoreCaseLowerCase(input, start, end,
-                    Header.TransferEncoding.getLowerCaseBytes())) {
+                break;
+            case TransferEncoding:
                 parsingState.isTransferEncodingHeader = true;
-            }
-        } else if (size == Header.Upgrade.getLowerCaseBytes().length) {
-            if (ByteChunk.equalsIgnoreCaseLowerCase(input, start, end,
-                    Header.Upgrade.getLowerCaseBytes())) {
+                break;
+            case Upgrade:
                 parsingState.isUpgradeHeader = true;
-            }
-        } else if (size == Header.Expect.getLowerCaseBytes().length) {
-            if (ByteChunk.equalsIgnoreCaseLowerCase(input, start, end,
-                    Header.Expect.getLowerCaseBytes())) {
+                break;
+            case Expect:
                 ((HttpRequestPacket) httpHeader).requiresAcknowledgement(true);
-            }
+                break;
+            default:
         }
     }
 
@@ -1089,7 +1182,9 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
                     parsingState.subState++;
                 }
                 case 1: { // parse header name
-                    if (!parseHeaderName(httpHeader, mimeHeaders, parsingState, input)) {
+                    if (wordAtATimeHeaderParsing
+                            ? !parseTokenHeaderName(httpHeader, mimeHeaders, parsingState, input)
+                            : !parseHeaderName(httpHeader, mimeHeaders, parsingState, input)) {
                         return false;
                     }
 
@@ -1115,6 +1210,14 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
                 }
 
                 case 3: { // parse header value
+                    if (wordAtATimeHeaderParsing) {
+                        final ByteBuffer view = HeaderScanner.view(input);
+                        if (view != null) {
+                            skipHeaderValueWords(parsingState, view, 0,
+                                    Math.min(input.limit(), parsingState.packetLimit));
+                        }
+                    }
+
                     final int result = parseHeaderValue(httpHeader, parsingState, input);
                     if (result == -1) {
                         return false;
@@ -1147,11 +1250,11 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
             byte b = input.get(offset);
             if (b == Constants.COLON) {
 
+                final Header header = Header.find(input, start, offset);
                 parsingState.headerValueStorage =
-                        mimeHeaders.addValue(input, start, offset - start);
+                        mimeHeaders.addValue(input, start, offset - start, header);
                 parsingState.offset = offset + 1;
-                finalizeKnownHeaderNames(httpHeader, parsingState, input,
-                        start, offset);
+                finalizeKnownHeaderNames(httpHeader, parsingState, header);
 
                 return true;
             } else if ((b >= Constants.A) && (b <= Constants.Z)) {
@@ -1221,32 +1324,43 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
         return -1;
     }
 
-    private static void finalizeKnownHeaderNames(final HttpHeader httpHeader,
-            final HeaderParsingState parsingState, final Buffer input,
-            final int start, final int end) {
-        
-        final int size = end - start;
-        if (size == Header.ContentLength.getLowerCaseBytes().length) {
-            if (BufferChunk.equalsIgnoreCaseLowerCase(input, start, end,
-                    Header.ContentLength.getLowerCaseBytes())) {
-                parsingState.isContentLengthHeader = true;
-            }
-        } else if (size == Header.TransferEncoding.getLowerCaseBytes().length) {
-            if (BufferChunk.equalsIgnoreCaseLowerCase(input, start, end,
-                    Header.TransferEncoding.getLowerCaseBytes())) {
-                parsingState.isTransferEncodingHeader = true;
+    /**
+     * {@link #parseHeaderName(HttpHeader, MimeHeaders, HeaderParsingState, Buffer)}
+     * variant, which rejects the names with non-<tt>token</tt> chars.
+     */
+    private boolean parseTokenHeaderName(final HttpHeader httpHeader,
+            final MimeHeaders mimeHeaders, final HeaderParsingState parsingState,
+            final Buffer input) {
+        final int limit = Math.min(input.limit(), parsingState.packetLimit);
+        final int start = parsingState.start;
+        int offset = parsingState.offset;
+
+        while (offset < limit) {
+            final byte b = input.get(offset);
+            if (b == Constants.COLON && offset > start) {
+                final Header header = Header.find(input, start, offset);
+                parsingState.headerValueStorage =
+                        mimeHeaders.addValue(input, start, offset - start, header);
+                parsingState.offset = offset + 1;
+                finalizeKnownHeaderNames(httpHeader, parsingState, header);
+
+                return true;
             }
-        } else if (size == Header.Upgrade.getLowerCaseBytes().length) {
-            if (BufferChunk.equalsIgnoreCaseLowerCase(input, start, end,
-                    Header.Upgrade.getLowerCaseBytes())) {
-                parsingState.isUpgradeHeader = true;
+
+            final byte lc = HeaderScanner.toTokenLowerCase(b);
+            if (lc == 0) {
+                throw new IllegalStateException("Invalid HTTP header name char: "
+                        + (b & 0xFF));
             }
-        } else if (size == Header.Expect.getLowerCaseBytes().length) {
-            if (BufferChunk.equalsIgnoreCaseLowerCase(input, start, end,
-                    Header.Expect.getLowerCaseBytes())) {
-                ((HttpRequestPacket) httpHeader).requiresAcknowledgement(true);
+            if (lc != b && !preserveHeaderCase) {
+                input.put(offset, lc);
             }
+
+            offset++;
         }
+
+        parsingState.offset = offset;
+        return false;
     }
 
     private static void finalizeKnownHeaderValues(final HttpHeader httpHeader,
@@ -1585,7 +1699,13 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
 
             final MimeHeaders mimeHeaders = httpHeader.getHeaders();
             final byte[] tempEncodingBuffer = httpHeader.getTempHeaderEncodingBuffer();
-            encodedBuffer = encodeMimeHeaders(memoryManager, encodedBuffer, mimeHeaders, tempEncodingBuffer);
+            if (!httpHeader.isRequest()
+                    && ((HttpResponsePacket) httpHeader).getHeaderTemplatesCount() > 0) {
+                encodedBuffer = encodeTemplatedHeaders(memoryManager, encodedBuffer,
+                        (HttpResponsePacket) httpHeader, tempEncodingBuffer);
+            } else {
+                encodedBuffer = encodeMimeHeaders(memoryManager, encodedBuffer, mimeHeaders, tempEncodingBuffer);
+            }
             onHttpHeadersEncoded(httpHeader, ctx);
             encodedBuffer = put(memoryManager, encodedBuffer, CRLF_BYTES);
             encodedBuffer.trim();
@@ -1708,6 +1828,42 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
         return buffer;
     }
 
+    /**
+     * Copies the pre-encoded {@link HeaderTemplate}s of the response, and
+     * then encodes the {@link MimeHeaders}, which are not overridden by the
+     * templates.
+     */
+    private static Buffer encodeTemplatedHeaders(final MemoryManager memoryManager,
+                                                 Buffer buffer,
+                                                 final HttpResponsePacket response,
+                                                 final byte[] tempEncodingBuffer) {
+        final int templatesNum = response.getHeaderTemplatesCount();
+        for (int i = 0; i < templatesNum; i++) {
+            buffer = put(memoryManager, buffer,
+                    response.getHeaderTemplate(i).getBytes());
+        }
+
+        final MimeHeaders mimeHeaders = response.getHeaders();
+        final int mimeHeadersNum = mimeHeaders.size();
+
+        for (int i = 0; i < mimeHeadersNum; i++) {
+            if (!mimeHeaders.setSerialized(i, true)) {
+                final DataChunk name = mimeHeaders.getName(i);
+                final DataChunk value = mimeHeaders.getValue(i);
+                if (!value.isNull() && !response.isHeaderTemplated(name)) {
+                    buffer = encodeMimeHeader(memoryManager,
+                                              buffer,
+                                              name,
+                                              value,
+                                              tempEncodingBuffer,
+                                              true);
+                }
+            }
+        }
+
+        return buffer;
+    }
+
     protected static Buffer encodeMimeHeader(final MemoryManager memoryManager,
                                              Buffer buffer,
                                              final DataChunk name,
@@ -2015,6 +2171,11 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
         public DataChunk headerValueStorage;
         public HttpCodecFilter codecFilter;
 
+        /**
+         * The word-at-a-time view of the parsed array.
+         */
+        ByteBuffer wordView;
+
         public long parsingNumericValue;
 
         public boolean isContentLengthHeader;
@@ -2046,6 +2207,7 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
             checkpoint = -1;
             checkpoint2 = -1;
             headerValueStorage = null;
+            wordView = null;
             parsingNumericValue = 0;
             contentLengthHeadersCount = 0;
             contentLengthsDiffer = false;
@@ -69,6 +69,22 @@ public class HttpEvents {
         
     }
     
+    /**
+     * The event, which is sent downstream, when the HTTP request processing
+     * has been suspended.
+     *
+     * @since 2.4.4
+     */
+    public static final class ResponseSuspendEvent implements FilterChainEvent {
+        public static final Object TYPE = ResponseSuspendEvent.class.getName();
+        
+        @Override
+        public Object type() {
+            return TYPE;
+        }
+        
+    }
+    
     public static final class IncomingHttpUpgradeEvent extends HttpUpgradeEvent {
         public static final Object TYPE = IncomingHttpUpgradeEvent.class.getName();
 
@@ -16,9 +16,12 @@
 
 package org.glassfish.grizzly.http;
 
+import java.util.Arrays;
 import java.util.Locale;
 import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.http.util.DataChunk;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HeaderTemplate;
 import org.glassfish.grizzly.http.util.HttpStatus;
 import org.glassfish.grizzly.http.util.MimeHeaders;
 
@@ -77,6 +80,14 @@ public abstract class HttpResponsePacket extends HttpHeader {
      * Do we need to encode HTML sensitive characters in custom reason phrase.
      */
     private boolean isHtmlEncodingCustomReasonPhrase = true;
+
+    /**
+     * The pre-encoded header blocks added to this response.
+     */
+    private HeaderTemplate[] headerTemplates = NO_HEADER_TEMPLATES;
+    private int headerTemplatesCount;
+
+    private static final HeaderTemplate[] NO_HEADER_TEMPLATES = new HeaderTemplate[0];
     
     /**
      * Returns {@link HttpResponsePacket} builder.
@@ -284,6 +295,10 @@ public abstract class HttpResponsePacket extends HttpHeader {
         locale = null;
         contentLanguage = null;
         request = null;
+        if (headerTemplatesCount > 0) {
+            Arrays.fill(headerTemplates, 0, headerTemplatesCount, null);
+            headerTemplatesCount = 0;
+        }
 
         super.reset();
     }
@@ -373,6 +388,140 @@ public abstract class HttpResponsePacket extends HttpHeader {
         this.contentLanguage = contentLanguage;
     }
 
+    /**
+     * Adds the pre-encoded header block to this response. The template
+     * headers take precedence over the {@link MimeHeaders} with the same
+     * names.
+     *
+     * @param template the {@link HeaderTemplate}
+     *
+     * @since 2.4.4
+     */
+    public void addHeaderTemplate(final HeaderTemplate template) {
+        if (headerTemplatesCount == headerTemplates.length) {
+            headerTemplates = Arrays.copyOf(headerTemplates,
+                    Math.max(4, headerTemplatesCount * 2));
+        }
+        headerTemplates[headerTemplatesCount++] = template;
+    }
+
+    /**
+     * @return the number of the {@link HeaderTemplate}s added to this response.
+     *
+     * @since 2.4.4
+     */
+    public int getHeaderTemplatesCount() {
+        return headerTemplatesCount;
+    }
+
+    /**
+     * @return the Nth {@link HeaderTemplate} added to this response.
+     *
+     * @since 2.4.4
+     */
+    public HeaderTemplate getHeaderTemplate(final int n) {
+        if (n < 0 || n >= headerTemplatesCount) {
+            throw new IndexOutOfBoundsException(String.valueOf(n));
+        }
+        return headerTemplates[n];
+    }
+
+    /**
+     * @return <tt>true</tt>, if one of the {@link HeaderTemplate}s added to
+     *  this response has the {@link Header}.
+     *
+     * @since 2.4.4
+     */
+    public boolean isHeaderTemplated(final Header header) {
+        for (int i = 0; i < headerTemplatesCount; i++) {
+            if (headerTemplates[i].contains(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return <tt>true</tt>, if one of the {@link HeaderTemplate}s added to
+     *  this response has the header with the name.
+     *
+     * @since 2.4.4
+     */
+    public boolean isHeaderTemplated(final DataChunk name) {
+        for (int i = 0; i < headerTemplatesCount; i++) {
+            if (headerTemplates[i].contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the {@link MimeHeaders} with the same names by the headers
+     * of the added {@link HeaderTemplate}s. Used by the codecs, which don't
+     * serialize the headers as HTTP/1.x text.
+     *
+     * @since 2.4.4
+     */
+    public void applyHeaderTemplates() {
+        for (int i = 0; i < headerTemplatesCount; i++) {
+            headerTemplates[i].applyTo(getHeaders());
+            headerTemplates[i] = null;
+        }
+        headerTemplatesCount = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsHeader(final String name) {
+        for (int i = 0; i < headerTemplatesCount; i++) {
+            if (headerTemplates[i].contains(name)) {
+                return true;
+            }
+        }
+        return super.containsHeader(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsHeader(final Header header) {
+        return (header != null && isHeaderTemplated(header))
+                || super.containsHeader(header);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getHeader(final String name) {
+        for (int i = 0; i < headerTemplatesCount; i++) {
+            final String value = headerTemplates[i].getValue(name);
+            if (value != null) {
+                return value;
+            }
+        }
+        return super.getHeader(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getHeader(final Header header) {
+        if (header != null) {
+            for (int i = 0; i < headerTemplatesCount; i++) {
+                if (headerTemplates[i].contains(header)) {
+                    return headerTemplates[i].getValue(header.toString());
+                }
+            }
+        }
+        return super.getHeader(header);
+    }
+
     @Override
     public void setContentLengthLong(long contentLength) {
         setChunked(contentLength < 0);
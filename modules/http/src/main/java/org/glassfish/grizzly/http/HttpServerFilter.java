@@ -60,9 +60,35 @@ public class HttpServerFilter extends HttpCodecFilter {
     public static final FilterChainEvent RESPONSE_COMPLETE_EVENT =
             new HttpEvents.ResponseCompleteEvent();
 
+    /**
+     * The event, which is sent downstream, when the HTTP request processing
+     * has been suspended, so the responses to the previous pipelined requests
+     * are not held back, see {@link #setPipelinedResponseCoalescing(boolean)}.
+     *
+     * @since 2.4.4
+     */
+    public static final FilterChainEvent RESPONSE_SUSPEND_EVENT =
+            new HttpEvents.ResponseSuspendEvent();
+
+    /**
+     * The default max number of the coalesced pipelined response bytes.
+     *
+     * @since 2.4.4
+     */
+    public static final int DEFAULT_MAX_COALESCED_RESPONSE_SIZE = 16384;
+
+    /**
+     * The default max time (in milliseconds) a pipelined response can be
+     * held back to be coalesced with the next responses.
+     *
+     * @since 2.4.4
+     */
+    public static final long DEFAULT_MAX_COALESCED_RESPONSE_DELAY_MILLIS = 10;
+
     
     private final Attribute<ServerHttpRequestImpl> httpRequestInProcessAttr;
     private final Attribute<KeepAliveContext> keepAliveContextAttr;
+    private final Attribute<PipelinedResponseCoalescer> responseCoalescerAttr;
 
     private final DelayedExecutor.DelayQueue<KeepAliveContext> keepAliveQueue;
 
@@ -80,6 +106,12 @@ public class HttpServerFilter extends HttpCodecFilter {
     // for which HTTP spec doesn't clearly state whether they support payload.
     // Known "undefined" methods are: GET, HEAD, DELETE
     private boolean allowPayloadForUndefinedHttpMethods;
+
+    private boolean pipelinedResponseCoalescing;
+    private int maxCoalescedResponseSize = DEFAULT_MAX_COALESCED_RESPONSE_SIZE;
+    private long maxCoalescedResponseDelayNanos = TimeUnit.MILLISECONDS.toNanos(
+            DEFAULT_MAX_COALESCED_RESPONSE_DELAY_MILLIS);
+    private DelayedExecutor.DelayQueue<PipelinedResponseCoalescer> coalescedResponseQueue;
     
     /**
      * Constructor, which creates <tt>HttpServerFilter</tt> instance
@@ -180,6 +212,8 @@ public class HttpServerFilter extends HttpCodecFilter {
                         createAttribute(HTTP_SERVER_REQUEST_ATTR_NAME);
         this.keepAliveContextAttr = Grizzly.DEFAULT_ATTRIBUTE_BUILDER.
                 createAttribute("HttpServerFilter.KeepAliveContext");
+        this.responseCoalescerAttr = Grizzly.DEFAULT_ATTRIBUTE_BUILDER.
+                createAttribute("HttpServerFilter.PipelinedResponseCoalescer");
 
         keepAliveQueue = executor != null ?
                 executor.createDelayQueue(
@@ -239,6 +273,140 @@ public class HttpServerFilter extends HttpCodecFilter {
         this.allowPayloadForUndefinedHttpMethods = allowPayloadForUndefinedHttpMethods;
     }
 
+    /**
+     * @return <tt>true</tt>, if the HTTP request headers are parsed by the
+     *  word-at-a-time header parser, or <tt>false</tt> otherwise.
+     * @see #setWordAtATimeHeaderParsing(boolean)
+     */
+    public boolean isWordAtATimeHeaderParsing() {
+        return wordAtATimeHeaderParsing;
+    }
+
+    /**
+     * Selects the HTTP request header parser. The word-at-a-time parser
+     * scans the header values 8 bytes at a time (the heap and direct
+     * {@link Buffer}s are supported, the composite ones are scanned a byte
+     * at a time) and rejects the header names, which have
+     * non-<tt>token</tt> chars (RFC 7230), with the <tt>400</tt> response.
+     * Default is <tt>false</tt>, unless the
+     * <tt>org.glassfish.grizzly.http.WORD_AT_A_TIME_HEADER_PARSING</tt>
+     * system property is set.
+     *
+     * @param wordAtATimeHeaderParsing <tt>true</tt> to use the word-at-a-time
+     *  header parser
+     */
+    public void setWordAtATimeHeaderParsing(final boolean wordAtATimeHeaderParsing) {
+        this.wordAtATimeHeaderParsing = wordAtATimeHeaderParsing;
+    }
+
+    /**
+     * @return <tt>true</tt>, if the responses to the pipelined HTTP requests
+     *  are coalesced, or <tt>false</tt> otherwise.
+     * @see #setPipelinedResponseCoalescing(boolean)
+     *
+     * @since 2.4.4
+     */
+    public boolean isPipelinedResponseCoalescing() {
+        return pipelinedResponseCoalescing;
+    }
+
+    /**
+     * Enables the coalescing of the responses to the pipelined HTTP requests.
+     * If a request is followed by more input, its response is held back and
+     * then written together with the responses to the next requests as one
+     * gathering write. The held responses are written in the request order,
+     * once the last request in the batch is served, the next request is
+     * incomplete, or its processing has been suspended (see
+     * {@link #RESPONSE_SUSPEND_EVENT}), or the size or the time limit is hit.
+     * Unlike the <tt>HttpPipelineOptAddOn</tt>, the responses could be
+     * written by any thread.
+     * Default is <tt>false</tt>.
+     *
+     * @param pipelinedResponseCoalescing <tt>true</tt> to coalesce the responses
+     *  to the pipelined HTTP requests
+     *
+     * @since 2.4.4
+     */
+    public void setPipelinedResponseCoalescing(final boolean pipelinedResponseCoalescing) {
+        this.pipelinedResponseCoalescing = pipelinedResponseCoalescing;
+    }
+
+    /**
+     * @return the max number of the coalesced response bytes, see
+     *  {@link #setPipelinedResponseCoalescing(boolean)}.
+     *
+     * @since 2.4.4
+     */
+    public int getMaxCoalescedResponseSize() {
+        return maxCoalescedResponseSize;
+    }
+
+    /**
+     * Sets the max number of the coalesced response bytes. The held responses
+     * are written before they exceed the limit.
+     * Default is {@value #DEFAULT_MAX_COALESCED_RESPONSE_SIZE}.
+     *
+     * @param maxCoalescedResponseSize the max number of the coalesced
+     *  response bytes
+     *
+     * @since 2.4.4
+     */
+    public void setMaxCoalescedResponseSize(final int maxCoalescedResponseSize) {
+        this.maxCoalescedResponseSize = maxCoalescedResponseSize;
+    }
+
+    /**
+     * @return the max time a response can be held back to be coalesced with
+     *  the next responses, see {@link #setPipelinedResponseCoalescing(boolean)}.
+     *
+     * @since 2.4.4
+     */
+    public long getMaxCoalescedResponseDelay(final TimeUnit timeUnit) {
+        return timeUnit.convert(maxCoalescedResponseDelayNanos,
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the max time a response can be held back to be coalesced with the
+     * next responses. Once the time is up, the held responses are written by
+     * the {@link DelayedExecutor} set via {@link #setCoalescedResponseExecutor(DelayedExecutor)},
+     * even if the next request is still being served. If the executor is
+     * not set, the limit is checked only when the next response is written.
+     * Default is {@value #DEFAULT_MAX_COALESCED_RESPONSE_DELAY_MILLIS} milliseconds.
+     *
+     * @param maxCoalescedResponseDelay the max time a response can be held back
+     * @param timeUnit the <tt>maxCoalescedResponseDelay</tt> {@link TimeUnit}
+     *
+     * @since 2.4.4
+     */
+    public void setMaxCoalescedResponseDelay(final long maxCoalescedResponseDelay,
+            final TimeUnit timeUnit) {
+        this.maxCoalescedResponseDelayNanos =
+                timeUnit.toNanos(maxCoalescedResponseDelay);
+    }
+
+    /**
+     * Sets the {@link DelayedExecutor}, which writes the held pipelined
+     * responses, once the max delay (see {@link #setMaxCoalescedResponseDelay(long, TimeUnit)})
+     * expires. The executor check interval has to be shorter than the max
+     * delay, the timing-wheel mode is preferable.
+     *
+     * @param executor the {@link DelayedExecutor}, or <tt>null</tt> to check
+     *  the max delay only when the next response is written
+     *
+     * @since 2.4.4
+     */
+    public void setCoalescedResponseExecutor(final DelayedExecutor executor) {
+        if (coalescedResponseQueue != null) {
+            coalescedResponseQueue.destroy();
+        }
+
+        coalescedResponseQueue = executor != null
+                ? executor.createDelayQueue(new CoalescedResponseWorker(),
+                        new CoalescedResponseResolver())
+                : null;
+    }
+
     
     // ----------------------------------------------------------- Parsing
     
@@ -262,8 +430,17 @@ public class HttpServerFilter extends HttpCodecFilter {
         final Buffer input = ctx.getMessage();
         final Connection connection = ctx.getConnection();
         ServerHttpRequestImpl httpRequest = httpRequestInProcessAttr.get(connection);
+        final PipelinedResponseCoalescer responseCoalescer =
+                pipelinedResponseCoalescing
+                        ? responseCoalescerAttr.get(connection)
+                        : null;
         
         if (httpRequest == null) {
+            if (responseCoalescer != null) {
+                // the previous response is complete
+                responseCoalescer.hold(null);
+            }
+
             final boolean isSecureLocal = isSecure(connection);
             httpRequest = ServerHttpRequestImpl.create();
             httpRequest.initialize(connection, this, input.position(), maxHeadersSize, maxRequestHeaders);
@@ -307,7 +484,14 @@ public class HttpServerFilter extends HttpCodecFilter {
             httpRequest.getProcessingState().getHttpContext().attach(ctx);
         }
 
-        return handleRead(ctx, httpRequest);
+        final NextAction action = handleRead(ctx, httpRequest);
+        if (responseCoalescer != null
+                && httpRequestInProcessAttr.get(connection) != null) {
+            // the request is incomplete, so don't hold the previous responses
+            responseCoalescer.flush(ctx);
+        }
+
+        return action;
     }
 
     @Override
@@ -738,6 +922,24 @@ public class HttpServerFilter extends HttpCodecFilter {
         return error;
     }
 
+    @Override
+    void onPipelinedHttpPacket(final HttpHeader httpHeader,
+            final FilterChainContext ctx) {
+        if (pipelinedResponseCoalescing && !httpHeader.isUpgrade()) {
+            final Connection connection = ctx.getConnection();
+            PipelinedResponseCoalescer responseCoalescer =
+                    responseCoalescerAttr.get(connection);
+            if (responseCoalescer == null) {
+                responseCoalescer = new PipelinedResponseCoalescer(this,
+                        connection, maxCoalescedResponseSize,
+                        maxCoalescedResponseDelayNanos, coalescedResponseQueue);
+                responseCoalescerAttr.set(connection, responseCoalescer);
+            }
+
+            responseCoalescer.hold((HttpRequestPacket) httpHeader);
+        }
+    }
+
     @Override
     protected void onInitialLineParsed(final HttpHeader httpHeader,
                                        final FilterChainContext ctx) {
@@ -787,6 +989,33 @@ public class HttpServerFilter extends HttpCodecFilter {
     }
     
     // ----------------------------------------------------------- Serializing
+
+    @Override
+    public NextAction handleWrite(final FilterChainContext ctx) throws IOException {
+        final PipelinedResponseCoalescer responseCoalescer =
+                pipelinedResponseCoalescing
+                        ? responseCoalescerAttr.get(ctx.getConnection())
+                        : null;
+        if (responseCoalescer == null) {
+            return super.handleWrite(ctx);
+        }
+
+        final Object message = ctx.getMessage();
+        // get the request before the HttpContent is encoded and recycled
+        final HttpRequestPacket request = HttpPacket.isHttp(message)
+                ? ((HttpResponsePacket) ((HttpPacket) message).getHttpHeader()).getRequest()
+                : null;
+
+        final NextAction action = super.handleWrite(ctx);
+        if (request != null && ctx.getMessage() == message) {
+            // nothing has been encoded
+            return action;
+        }
+
+        return responseCoalescer.write(ctx, request)
+                ? ctx.getStopAction()
+                : action;
+    }
     
     @Override
     protected Buffer encodeHttpPacket(final FilterChainContext ctx,
@@ -941,6 +1170,8 @@ public class HttpServerFilter extends HttpCodecFilter {
         }
 
         if (!response.containsHeader(Header.Date)) {
+            // keep the Date in MimeHeaders, so it's visible to the
+            // header lookups and the access log
             response.getHeaders().addValue(Header.Date)
                     .setBytes(FastHttpDateFormat.getCurrentDateBytes());
         }
@@ -1032,12 +1263,25 @@ public class HttpServerFilter extends HttpCodecFilter {
     public NextAction handleEvent(final FilterChainContext ctx,
             final FilterChainEvent event) throws IOException {
 
+        final PipelinedResponseCoalescer responseCoalescer =
+                pipelinedResponseCoalescing
+                        ? responseCoalescerAttr.get(ctx.getConnection())
+                        : null;
+
         if (event.type() == HttpEvents.ResponseCompleteEvent.TYPE) {
             
             if (ctx.getConnection().isOpen()) {
                 final HttpContext context = HttpContext.get(ctx);
                 final HttpRequestPacket httpRequest = context.getRequest();
 
+                if (responseCoalescer != null) {
+                    responseCoalescer.onResponseComplete(ctx, httpRequest,
+                            allowKeepAlive
+                            && httpRequest.getProcessingState().isKeepAlive()
+                            && !httpRequest.isUpgrade()
+                            && !httpRequest.isExpectContent());
+                }
+
                 if (allowKeepAlive) {
                     if (keepAliveQueue != null) {
                         final KeepAliveContext keepAliveContext =
@@ -1059,6 +1303,12 @@ public class HttpServerFilter extends HttpCodecFilter {
                 }
             }
             
+            return ctx.getStopAction();
+        } else if (event.type() == HttpEvents.ResponseSuspendEvent.TYPE) {
+            if (responseCoalescer != null) {
+                responseCoalescer.release(ctx);
+            }
+
             return ctx.getStopAction();
         }
 
@@ -1067,6 +1317,14 @@ public class HttpServerFilter extends HttpCodecFilter {
     
     @Override
     public NextAction handleClose(final FilterChainContext ctx) throws IOException {
+        if (pipelinedResponseCoalescing) {
+            final PipelinedResponseCoalescer responseCoalescer =
+                    responseCoalescerAttr.remove(ctx.getConnection());
+            if (responseCoalescer != null) {
+                responseCoalescer.close();
+            }
+        }
+
         final ServerHttpRequestImpl httpRequest =
                 httpRequestInProcessAttr.get(ctx.getConnection());
         if (httpRequest != null && !httpRequest.isContentBroken()) {
@@ -1167,6 +1425,13 @@ public class HttpServerFilter extends HttpCodecFilter {
     private void commitAndCloseAsError(FilterChainContext ctx, HttpResponsePacket response) {
         final HttpContent errorHttpResponse = customizeErrorResponse(response);
         final Buffer resBuf = encodeHttpPacket(ctx, errorHttpResponse);
+        if (pipelinedResponseCoalescing) {
+            final PipelinedResponseCoalescer responseCoalescer =
+                    responseCoalescerAttr.get(ctx.getConnection());
+            if (responseCoalescer != null) {
+                responseCoalescer.release(ctx);
+            }
+        }
         ctx.write(resBuf);
         response.getProcessingState().getHttpContext().close();
     }
@@ -1242,6 +1507,45 @@ public class HttpServerFilter extends HttpCodecFilter {
 
     } // END KeepAliveResolver
 
+
+    private static class CoalescedResponseWorker implements
+            DelayedExecutor.Worker<PipelinedResponseCoalescer> {
+
+        @Override
+        public boolean doWork(final PipelinedResponseCoalescer coalescer) {
+            coalescer.onTimeout();
+            return true;
+        }
+
+    } // END CoalescedResponseWorker
+
+
+    private static class CoalescedResponseResolver implements
+            DelayedExecutor.Resolver<PipelinedResponseCoalescer> {
+
+        @Override
+        public boolean removeTimeout(final PipelinedResponseCoalescer coalescer) {
+            if (coalescer.flushTimeoutMillis != DelayedExecutor.UNSET_TIMEOUT) {
+                coalescer.flushTimeoutMillis = DelayedExecutor.UNSET_TIMEOUT;
+                return true;
+            }
+
+            return false;
+        }
+
+        @Override
+        public long getTimeoutMillis(final PipelinedResponseCoalescer coalescer) {
+            return coalescer.flushTimeoutMillis;
+        }
+
+        @Override
+        public void setTimeoutMillis(final PipelinedResponseCoalescer coalescer,
+                final long timeoutMillis) {
+            coalescer.flushTimeoutMillis = timeoutMillis;
+        }
+
+    } // END CoalescedResponseResolver
+
     private static final class ServerHttpRequestImpl extends HttpRequestPacket
             implements HttpPacketParsing {
 
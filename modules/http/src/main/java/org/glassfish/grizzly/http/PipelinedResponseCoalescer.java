@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.CompletionHandler;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.WriteResult;
+import org.glassfish.grizzly.asyncqueue.MessageCloner;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.memory.CompositeBuffer;
+import org.glassfish.grizzly.utils.DelayedExecutor;
+
+/**
+ * The per-connection buffer of the encoded HTTP responses to the pipelined
+ * requests, see {@link HttpServerFilter#setPipelinedResponseCoalescing(boolean)}.
+ *
+ * The response to the request, which is followed by more pipelined input,
+ * is held back, so it could be written together with the responses to the
+ * next requests as one {@link CompositeBuffer} (gathering write). The held
+ * responses are written, once the response to the last request in the
+ * batch is written, or the next request can't be served right away (it's
+ * incomplete, or the request processing has been suspended), or the
+ * connection is going to be closed, or the size or the time limit is hit.
+ * If the {@link DelayedExecutor.DelayQueue} is set, the time limit is
+ * enforced by the timer, otherwise it's checked on the next write.
+ *
+ * The requests on a connection are processed one by one, so the responses
+ * are appended in the order of the requests. All the methods are
+ * synchronized, because a suspended response might be written by any
+ * thread, and the held responses are written while holding the lock, so
+ * they can't be overtaken by a later write.
+ */
+final class PipelinedResponseCoalescer {
+    private final HttpServerFilter filter;
+    private final Connection connection;
+    private final int maxSize;
+    private final long maxDelayNanos;
+    private final DelayedExecutor.DelayQueue<PipelinedResponseCoalescer> flushQueue;
+
+    /**
+     * The time the held responses have to be written at, or
+     * {@link DelayedExecutor#UNSET_TIMEOUT}, see {@link #flushQueue}.
+     */
+    volatile long flushTimeoutMillis = DelayedExecutor.UNSET_TIMEOUT;
+
+    /**
+     * The request, whose response is being held back, or <tt>null</tt>.
+     */
+    private HttpRequestPacket request;
+
+    private CompositeBuffer buffer;
+    private List<CompletionHandler<WriteResult>> completionHandlers;
+    private long firstWriteNanos;
+
+    PipelinedResponseCoalescer(final HttpServerFilter filter,
+            final Connection connection, final int maxSize,
+            final long maxDelayNanos,
+            final DelayedExecutor.DelayQueue<PipelinedResponseCoalescer> flushQueue) {
+        this.filter = filter;
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.maxDelayNanos = maxDelayNanos;
+        this.flushQueue = flushQueue;
+    }
+
+    /**
+     * Holds back the response to the request, which is followed by more
+     * pipelined input.
+     */
+    synchronized void hold(final HttpRequestPacket request) {
+        this.request = request;
+    }
+
+    /**
+     * Stops holding back the response to the current request and writes the
+     * held responses.
+     */
+    synchronized void release(final FilterChainContext ctx) {
+        request = null;
+        flush(ctx);
+    }
+
+    /**
+     * Appends the encoded message, which is being written, to the held
+     * responses, or prepends the held responses to it.
+     *
+     * @param ctx the write {@link FilterChainContext}
+     * @param request the request, whose response is being written, or
+     *  <tt>null</tt>, if the message is not an HTTP packet
+     * @return <tt>true</tt>, if the message has been held back and must
+     *  not be passed down the chain, or <tt>false</tt> otherwise
+     */
+    @SuppressWarnings("unchecked")
+    synchronized boolean write(final FilterChainContext ctx,
+            final HttpRequestPacket request) {
+        final Object message = ctx.getMessage();
+        if (!(message instanceof Buffer)) {
+            // the message can't be appended, write the held responses first
+            flush(ctx);
+            return false;
+        }
+
+        final Buffer output = (Buffer) message;
+        final FilterChainContext.TransportContext transportContext =
+                ctx.getTransportContext();
+
+        if (request != null && request == this.request
+                && !transportContext.isBlocking()
+                && size() + output.remaining() <= maxSize
+                && !isExpired()) {
+            // the caller expects the message to be either written or queued,
+            // so let the cloner copy the content the caller is going to reuse
+            final MessageCloner<Buffer> cloner =
+                    transportContext.getMessageCloner();
+            append(cloner == null ? output : cloner.clone(connection, output),
+                    transportContext.getCompletionHandler());
+
+            transportContext.setCompletionHandler(null);
+            transportContext.setMessageCloner(null);
+            return true;
+        }
+
+        if (buffer != null) {
+            // the cloner (if any) replaces the output in the composite buffer
+            buffer.append(output);
+            ctx.setMessage(buffer);
+
+            final CompletionHandler<WriteResult> completionHandler =
+                    transportContext.getCompletionHandler();
+            if (completionHandler != null) {
+                completionHandlers.add(completionHandler);
+            }
+            transportContext.setCompletionHandler(
+                    new AggrCompletionHandler(completionHandlers));
+            reset();
+        }
+
+        return false;
+    }
+
+    /**
+     * Writes the held responses, if the connection is going to be closed,
+     * or the completed response is not held back, or the time limit is hit.
+     */
+    synchronized void onResponseComplete(final FilterChainContext ctx,
+            final HttpRequestPacket request, final boolean isStayAlive) {
+        if (!isStayAlive || request != this.request || isExpired()) {
+            flush(ctx);
+        }
+    }
+
+    /**
+     * Writes the held responses.
+     */
+    synchronized void flush(final FilterChainContext ctx) {
+        if (buffer != null) {
+            ctx.write(buffer, new AggrCompletionHandler(completionHandlers));
+            reset();
+        }
+    }
+
+    /**
+     * Writes the held responses, once the time limit is hit, even if the
+     * next request is still being served.
+     */
+    synchronized void onTimeout() {
+        if (buffer != null && connection.isOpen()) {
+            filter.createContext(connection, FilterChainContext.Operation.WRITE)
+                    .write(buffer, new AggrCompletionHandler(completionHandlers));
+            reset();
+        }
+    }
+
+    /**
+     * Drops the held responses of the closed connection.
+     */
+    synchronized void close() {
+        request = null;
+        if (buffer != null) {
+            final AggrCompletionHandler completionHandler =
+                    new AggrCompletionHandler(completionHandlers);
+            buffer.tryDispose();
+            reset();
+            completionHandler.failed(new IOException("Connection is closed"));
+        }
+    }
+
+    // --------------------------------------------------------- Private Methods
+
+    private int size() {
+        return buffer != null ? buffer.remaining() : 0;
+    }
+
+    private boolean isExpired() {
+        return buffer != null
+                && System.nanoTime() - firstWriteNanos >= maxDelayNanos;
+    }
+
+    private void append(final Buffer output,
+            final CompletionHandler<WriteResult> completionHandler) {
+        if (buffer == null) {
+            buffer = CompositeBuffer.newBuffer(connection.getMemoryManager());
+            buffer.allowBufferDispose(true);
+            buffer.allowInternalBuffersDispose(true);
+            buffer.disposeOrder(CompositeBuffer.DisposeOrder.LAST_TO_FIRST);
+            completionHandlers = new ArrayList<>(4);
+            firstWriteNanos = System.nanoTime();
+            if (flushQueue != null) {
+                flushQueue.add(this, maxDelayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        buffer.append(output);
+        if (completionHandler != null) {
+            completionHandlers.add(completionHandler);
+        }
+    }
+
+    private void reset() {
+        buffer = null;
+        completionHandlers = null;
+        if (flushQueue != null) {
+            flushQueue.remove(this);
+        }
+    }
+
+    // ---------------------------------------------------------- Nested Classes
+
+    /**
+     * Notifies the {@link CompletionHandler}s of the coalesced writes.
+     */
+    private static final class AggrCompletionHandler
+            implements CompletionHandler<WriteResult> {
+        private final List<CompletionHandler<WriteResult>> completionHandlers;
+
+        private AggrCompletionHandler(
+                final List<CompletionHandler<WriteResult>> completionHandlers) {
+            this.completionHandlers = completionHandlers;
+        }
+
+        @Override
+        public void cancelled() {
+            for (CompletionHandler<WriteResult> handler : completionHandlers) {
+                handler.cancelled();
+            }
+        }
+
+        @Override
+        public void failed(final Throwable throwable) {
+            for (CompletionHandler<WriteResult> handler : completionHandlers) {
+                handler.failed(throwable);
+            }
+        }
+
+        @Override
+        public void completed(final WriteResult result) {
+            for (CompletionHandler<WriteResult> handler : completionHandlers) {
+                handler.completed(result);
+            }
+        }
+
+        @Override
+        public void updated(final WriteResult result) {
+            for (CompletionHandler<WriteResult> handler : completionHandlers) {
+                handler.updated(result);
+            }
+        }
+    }
+}
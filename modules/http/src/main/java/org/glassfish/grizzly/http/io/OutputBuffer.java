@@ -632,8 +632,11 @@ public class OutputBuffer {
         if (outputHeader.getContentType() == null) {
             outputHeader.setContentType(MimeType.getByFilename(file.getName()));
         }
-        // set Content-Encoding to identity to prevent compression
-        outputHeader.setHeader(Header.ContentEncoding, HeaderValue.IDENTITY);
+        // set Content-Encoding to identity to prevent compression, unless
+        // the file content is already encoded (precompressed resource)
+        if (!outputHeader.containsHeader(Header.ContentEncoding)) {
+            outputHeader.setHeader(Header.ContentEncoding, HeaderValue.IDENTITY);
+        }
 
         try {
             flush(); // commit the headers, then send the file
@@ -17,8 +17,7 @@
 package org.glassfish.grizzly.http.util;
 
 import java.util.Locale;
-import java.util.Map;
-import java.util.TreeMap;
+import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.utils.Charsets;
 
 /**
@@ -86,10 +85,20 @@ public enum Header {
 
     // ----------------------------------------------------------------- Statics
 
-    private static final Map<String,Header> VALUES = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    /**
+     * The perfect hash table of the headers, indexed by the
+     * {@link #hash(int, int, int)} of their names.
+     */
+    private static final Header[] VALUES = new Header[256];
     static {
         for (final Header h : Header.values()) {
-            VALUES.put(h.toString(), h);
+            final byte[] name = h.getLowerCaseBytes();
+            final int idx = hash(name.length, name[0], name[name.length - 1]);
+            if (VALUES[idx] != null) {
+                throw new IllegalStateException("Header name hash collision: "
+                        + h + " and " + VALUES[idx]);
+            }
+            VALUES[idx] = h;
         }
     }
 
@@ -207,8 +216,164 @@ public enum Header {
         if (name == null || name.isEmpty()) {
             return null;
         }
-        return VALUES.get(name);
 
+        final int length = name.length();
+        final Header h = VALUES[hash(length, name.charAt(0),
+                name.charAt(length - 1))];
+        if (h == null || h.length != length) {
+            return null;
+        }
+
+        final byte[] lowerCase = h.headerNameLowerCaseBytes;
+        for (int i = 0; i < length; i++) {
+            final char c = name.charAt(i);
+            if (c > 0x7F || Ascii.toLower(c) != lowerCase[i]) {
+                return null;
+            }
+        }
+
+        return h;
+
+    }
+
+    /**
+     * <p>
+     * Attempts to find a HTTP header by its name stored in the byte array.
+     * Note that this search is case insensitive.
+     * </p>
+     *
+     * @param buffer the byte array
+     * @param start the name start offset
+     * @param end the name end offset (exclusive)
+     *
+     * @return the <code>Header</code> with the specified name, or
+     *  <code>null</code>, if no <code>Header</code> matches.
+     *
+     * @since 2.4.4
+     */
+    public static Header find(final byte[] buffer, final int start,
+            final int end) {
+
+        final int length = end - start;
+        if (length <= 0) {
+            return null;
+        }
+
+        final Header h = VALUES[hash(length, buffer[start], buffer[end - 1])];
+        return h != null && h.length == length
+                && ByteChunk.equalsIgnoreCaseLowerCase(buffer, start, end,
+                        h.headerNameLowerCaseBytes)
+                ? h
+                : null;
+
+    }
+
+    /**
+     * <p>
+     * Attempts to find a HTTP header by its name stored in the {@link Buffer}.
+     * Note that this search is case insensitive.
+     * </p>
+     *
+     * @param buffer the {@link Buffer}
+     * @param start the name start offset
+     * @param end the name end offset (exclusive)
+     *
+     * @return the <code>Header</code> with the specified name, or
+     *  <code>null</code>, if no <code>Header</code> matches.
+     *
+     * @since 2.4.4
+     */
+    public static Header find(final Buffer buffer, final int start,
+            final int end) {
+
+        final int length = end - start;
+        if (length <= 0) {
+            return null;
+        }
+
+        final Header h = VALUES[hash(length, buffer.get(start),
+                buffer.get(end - 1))];
+        return h != null && h.length == length
+                && BufferChunk.equalsIgnoreCaseLowerCase(buffer, start, end,
+                        h.headerNameLowerCaseBytes)
+                ? h
+                : null;
+
+    }
+
+    /**
+     * <p>
+     * Attempts to find a HTTP header by its name stored in the
+     * {@link DataChunk}. Note that this search is case insensitive.
+     * </p>
+     *
+     * @param name the {@link DataChunk} containing the name
+     *
+     * @return the <code>Header</code> with the specified name, or
+     *  <code>null</code>, if no <code>Header</code> matches.
+     *
+     * @since 2.4.4
+     */
+    public static Header find(final DataChunk name) {
+
+        switch (name.getType()) {
+            case Bytes: {
+                final ByteChunk bc = name.getByteChunk();
+                return find(bc.getBuffer(), bc.getStart(), bc.getEnd());
+            }
+            case Buffer: {
+                final BufferChunk bc = name.getBufferChunk();
+                return find(bc.getBuffer(), bc.getStart(), bc.getEnd());
+            }
+            case Chars: {
+                final CharChunk cc = name.getCharChunk();
+                return find(cc.getBuffer(), cc.getStart(), cc.getEnd());
+            }
+            case String:
+                return find(name.toString());
+            default:
+                return null;
+        }
+
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private static Header find(final char[] chars, final int start,
+            final int end) {
+
+        final int length = end - start;
+        if (length <= 0) {
+            return null;
+        }
+
+        final Header h = VALUES[hash(length, chars[start], chars[end - 1])];
+        if (h == null || h.length != length) {
+            return null;
+        }
+
+        final byte[] lowerCase = h.headerNameLowerCaseBytes;
+        for (int i = 0; i < length; i++) {
+            final char c = chars[start + i];
+            if (c > 0x7F || Ascii.toLower(c) != lowerCase[i]) {
+                return null;
+            }
+        }
+
+        return h;
+
+    }
+
+    /**
+     * The perfect hash of the header names: no two {@link Header}s have
+     * the same hash, so a name may only match the {@link Header} found at its
+     * hash.
+     */
+    private static int hash(final int length, final int first, final int last) {
+        return (length * 33 + Ascii.toLower(first)
+                + (Ascii.toLower(last) << 2)) & 0xFF;
     }
 
 }
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.util;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import org.glassfish.grizzly.utils.Charsets;
+
+/**
+ * The immutable block of HTTP response headers, which is encoded once, when
+ * the template is built, and then copied as is into the HTTP/1.x output of
+ * every response the template is added to.
+ *
+ * The template headers take precedence over the response {@link MimeHeaders}
+ * with the same names. The message framing headers (<tt>Content-Length</tt>,
+ * <tt>Transfer-Encoding</tt> and <tt>Connection</tt>) can't be part of a
+ * template, because they are managed by the HTTP codec.
+ *
+ * <pre>
+ * private static final HeaderTemplate JSON = HeaderTemplate.builder()
+ *         .header(Header.ContentType, "application/json")
+ *         .header(Header.Server, "Grizzly")
+ *         .build();
+ * ...
+ * response.addHeaderTemplate(JSON);
+ * </pre>
+ *
+ * @since 2.4.4
+ */
+public final class HeaderTemplate {
+    private static final Charset ISO_8859_1 = Charsets.lookupCharset("ISO-8859-1");
+
+    private final String[] names;
+    private final String[] values;
+    private final boolean[] knownHeaders = new boolean[Header.values().length];
+    private final byte[] bytes;
+
+    /**
+     * @return the {@link HeaderTemplate} builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private HeaderTemplate(final String[] names, final String[] values) {
+        this.names = names;
+        this.values = values;
+
+        final StringBuilder sb = new StringBuilder(64 * names.length);
+        for (int i = 0; i < names.length; i++) {
+            final Header header = Header.find(names[i]);
+            if (header != null) {
+                knownHeaders[header.ordinal()] = true;
+            }
+            sb.append(names[i]).append(": ").append(values[i]).append("\r\n");
+        }
+
+        bytes = sb.toString().getBytes(ISO_8859_1);
+    }
+
+    /**
+     * @return the number of the template headers.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @return the name of the Nth template header.
+     */
+    public String getName(final int n) {
+        return names[n];
+    }
+
+    /**
+     * @return the value of the Nth template header.
+     */
+    public String getValue(final int n) {
+        return values[n];
+    }
+
+    /**
+     * @return the value of the template header with the name, which is
+     *  compared ignoring case, or <tt>null</tt>, if there is no such header.
+     */
+    public String getValue(final String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(name)) {
+                return values[i];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the encoded template headers, each followed by <tt>CRLF</tt>.
+     *  The returned array must not be modified.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return <tt>true</tt>, if the template has the {@link Header}.
+     */
+    public boolean contains(final Header header) {
+        return knownHeaders[header.ordinal()];
+    }
+
+    /**
+     * @return <tt>true</tt>, if the template has the header with the name,
+     *  which is compared ignoring case.
+     */
+    public boolean contains(final String name) {
+        final Header header = Header.find(name);
+        if (header != null) {
+            return knownHeaders[header.ordinal()];
+        }
+
+        for (String n : names) {
+            if (n.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return <tt>true</tt>, if the template has the header with the name,
+     *  which is compared ignoring case.
+     */
+    public boolean contains(final DataChunk name) {
+        final Header header = Header.find(name);
+        if (header != null) {
+            return knownHeaders[header.ordinal()];
+        }
+
+        for (String n : names) {
+            if (name.equalsIgnoreCase(n)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Replaces the {@link MimeHeaders} with the same names by the template
+     * headers. Used by the codecs, which don't serialize the headers as
+     * HTTP/1.x text.
+     */
+    public void applyTo(final MimeHeaders headers) {
+        for (String name : names) {
+            headers.removeHeader(name);
+        }
+        for (int i = 0; i < names.length; i++) {
+            headers.addValue(names[i]).setString(values[i]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, ISO_8859_1);
+    }
+
+    /**
+     * <tt>HeaderTemplate</tt> builder.
+     */
+    public static final class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final List<String> values = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds the header to the template.
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if the header is one of the message
+         *  framing headers, or the name or the value is not a valid HTTP header
+         *  name or value
+         */
+        public Builder header(final Header header, final String value) {
+            return header(header.toString(), value);
+        }
+
+        /**
+         * Adds the header to the template.
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if the header is one of the message
+         *  framing headers, or the name or the value is not a valid HTTP header
+         *  name or value
+         */
+        public Builder header(final String name, final String value) {
+            final Header header = Header.find(name);
+            if (header == Header.ContentLength
+                    || header == Header.TransferEncoding
+                    || header == Header.Connection) {
+                throw new IllegalArgumentException(
+                        "The header is managed by the HTTP codec: " + name);
+            }
+
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Empty header name");
+            }
+
+            for (int i = 0; i < name.length(); i++) {
+                final char c = name.charAt(i);
+                if (c <= ' ' || c >= 0x7F || c == ':') {
+                    throw new IllegalArgumentException(
+                            "Invalid header name: " + name);
+                }
+            }
+
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == '\r' || c == '\n' || c > 0xFF) {
+                    throw new IllegalArgumentException(
+                            "Invalid header value: " + value);
+                }
+            }
+
+            names.add(name);
+            values.add(value);
+            return this;
+        }
+
+        /**
+         * @return the {@link HeaderTemplate} with the added headers.
+         */
+        public HeaderTemplate build() {
+            return new HeaderTemplate(names.toArray(new String[names.size()]),
+                    values.toArray(new String[values.size()]));
+        }
+    }
+}
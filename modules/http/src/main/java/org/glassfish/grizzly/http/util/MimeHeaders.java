@@ -236,6 +236,7 @@ servlet needs direct access to headers).
             } else {
                 f.valueB.set(sourceField.valueB);
             }
+            f.setHeader(sourceField.getHeader());
         }
 
     }
@@ -329,8 +330,9 @@ servlet needs direct access to headers).
         // of constructing the hashtable
 
         // A custom search tree may be better
+        final Header header = Header.find(name);
         for (int i = fromIndex; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCase(name)) {
+            if (isNamed(headers[i], header, name)) {
                 return i;
             }
         }
@@ -348,9 +350,11 @@ servlet needs direct access to headers).
         // of constructing the hashtable
 
         // A custom search tree may be better
-        final byte[] bytes = header.getLowerCaseBytes();
+
+        // the names are classified, when the fields are added, so the
+        // Header lookup doesn't have to compare the name bytes
         for (int i = fromIndex; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCaseLowerCase(bytes)) {
+            if (headers[i].getHeader() == header) {
                 return i;
             }
         }
@@ -453,6 +457,7 @@ servlet needs direct access to headers).
         }
         MimeHeaderField mh = createHeader();
         mh.getName().setString(name);
+        mh.setHeader(Header.find(name));
         return mh.getValue();
     }
 
@@ -465,6 +470,7 @@ servlet needs direct access to headers).
         }
         MimeHeaderField mh = createHeader();
         mh.getName().setBytes(header.toByteArray());
+        mh.setHeader(header);
         return mh.getValue();
     }
 
@@ -474,11 +480,27 @@ servlet needs direct access to headers).
      */
     public DataChunk addValue(final byte[] buffer, final int startN,
             final int len) {
+        return addValue(buffer, startN, len,
+                Header.find(buffer, startN, startN + len));
+    }
+
+    /**
+     * Create a new named header using un-translated byte[], whose name
+     * has already been classified by {@link Header#find(byte[], int, int)}.
+     *
+     * @param header the {@link Header} matching the name, or <tt>null</tt>,
+     *  if the name is not a known {@link Header}
+     *
+     * @since 2.4.4
+     */
+    public DataChunk addValue(final byte[] buffer, final int startN,
+            final int len, final Header header) {
         if (!isValidName(buffer)) {
             return NOOP_CHUNK;
         }
         MimeHeaderField mhf = createHeader();
         mhf.getName().setBytes(buffer, startN, startN + len);
+        mhf.setHeader(header);
         return mhf.getValue();
     }
 
@@ -488,11 +510,27 @@ servlet needs direct access to headers).
      */
     public DataChunk addValue(final Buffer buffer, final int startN,
             final int len) {
+        return addValue(buffer, startN, len,
+                Header.find(buffer, startN, startN + len));
+    }
+
+    /**
+     * Create a new named header using un-translated Buffer, whose name
+     * has already been classified by {@link Header#find(Buffer, int, int)}.
+     *
+     * @param header the {@link Header} matching the name, or <tt>null</tt>,
+     *  if the name is not a known {@link Header}
+     *
+     * @since 2.4.4
+     */
+    public DataChunk addValue(final Buffer buffer, final int startN,
+            final int len, final Header header) {
         if (!isValidName(buffer)) {
             return NOOP_CHUNK;
         }
         MimeHeaderField mhf = createHeader();
         mhf.getName().setBuffer(buffer, startN, startN + len);
+        mhf.setHeader(header);
         return mhf.getValue();
     }
 
@@ -506,10 +544,11 @@ servlet needs direct access to headers).
         if (!isValidName(name)) {
             return NOOP_CHUNK;
         }
+        final Header header = Header.find(name);
         for (int i = 0; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCase(name)) {
+            if (isNamed(headers[i], header, name)) {
                 for (int j = i + 1; j < count; j++) {
-                    if (headers[j].getName().equalsIgnoreCase(name)) {
+                    if (isNamed(headers[j], header, name)) {
                         removeHeader(j--);
                     }
                 }
@@ -518,6 +557,7 @@ servlet needs direct access to headers).
         }
         MimeHeaderField mh = createHeader();
         mh.getName().setString(name);
+        mh.setHeader(header);
         return mh.getValue();
     }
 
@@ -531,11 +571,10 @@ servlet needs direct access to headers).
         if (!isValidName(header)) {
             return NOOP_CHUNK;
         }
-        final byte[] bytes = header.getLowerCaseBytes();
         for (int i = 0; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCaseLowerCase(bytes)) {
+            if (headers[i].getHeader() == header) {
                 for (int j = i + 1; j < count; j++) {
-                    if (headers[j].getName().equalsIgnoreCaseLowerCase(bytes)) {
+                    if (headers[j].getHeader() == header) {
                         removeHeader(j--);
                     }
                 }
@@ -544,6 +583,7 @@ servlet needs direct access to headers).
         }
         MimeHeaderField mh = createHeader();
         mh.getName().setBytes(header.toByteArray());
+        mh.setHeader(header);
 
         return mh.getValue();
     }
@@ -555,12 +595,8 @@ servlet needs direct access to headers).
      * in the header, an arbitrary one is returned.
      */
     public DataChunk getValue(String name) {
-        for (int i = 0; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCase(name)) {
-                return headers[i].getValue();
-            }
-        }
-        return null;
+        final int idx = indexOf(name, 0);
+        return idx >= 0 ? headers[idx].getValue() : null;
     }
 
     /**
@@ -569,13 +605,8 @@ servlet needs direct access to headers).
      * in the header, an arbitrary one is returned.
      */
     public DataChunk getValue(final Header header) {
-        final byte[] bytes = header.getLowerCaseBytes();
-        for (int i = 0; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCaseLowerCase(bytes)) {
-                return headers[i].getValue();
-            }
-        }
-        return null;
+        final int idx = indexOf(header, 0);
+        return idx >= 0 ? headers[idx].getValue() : null;
     }
 
     // bad shortcut - it'll convert to string ( too early probably,
@@ -600,8 +631,9 @@ servlet needs direct access to headers).
         // XXX
         // warning: rather sticky code; heavily tuned
 
+        final Header header = Header.find(name);
         for (int i = 0; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCase(name)) {
+            if (isNamed(headers[i], header, name)) {
                 removeHeader(i--);
             }
         }
@@ -610,7 +642,7 @@ servlet needs direct access to headers).
     public void removeHeader(final Header header) {
 
         for (int i = 0; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCase(header.getBytes())) {
+            if (headers[i].getHeader() == header) {
                 removeHeader(i--);
             }
         }
@@ -665,8 +697,7 @@ servlet needs direct access to headers).
      */
     public void removeHeaderMatches(final Header header, final String regex) {
         for (int i = 0; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCaseLowerCase(
-                    header.getLowerCaseBytes())
+            if (headers[i].getHeader() == header
                     && getValue(i) != null
                     && getValue(i).toString() != null
                     && getValue(i).toString().matches(regex)) {
@@ -675,6 +706,18 @@ servlet needs direct access to headers).
         }
     }
 
+    /**
+     * @return <tt>true</tt>, if the field has the name, or, if the name is
+     *  a known {@link Header}, if the field has been classified as the same
+     *  {@link Header}
+     */
+    private static boolean isNamed(final MimeHeaderField field,
+            final Header header, final String name) {
+        return header != null
+                ? field.getHeader() == header
+                : field.getHeader() == null && field.getName().equalsIgnoreCase(name);
+    }
+
     /**
      * reset and swap with last header
      * @param idx the index of the header to remove.
@@ -856,6 +899,13 @@ final class MimeHeaderField {
     protected final DataChunk valueB = DataChunk.newInstance();
 
     private boolean isSerialized;
+
+    /**
+     * The {@link Header} the name has been classified as, or <tt>null</tt>,
+     * if the name is not a known {@link Header}.
+     */
+    private Header header;
+
     /**
      * Creates a new, uninitialized header field.
      */
@@ -864,6 +914,7 @@ final class MimeHeaderField {
 
     public void recycle() {
         isSerialized = false;
+        header = null;
         nameB.recycle();
         valueB.recycle();
     }
@@ -876,6 +927,14 @@ final class MimeHeaderField {
         return valueB;
     }
 
+    Header getHeader() {
+        return header;
+    }
+
+    void setHeader(final Header header) {
+        this.header = header;
+    }
+
     public boolean isSerialized() {
         return isSerialized;
     }
@@ -31,6 +31,7 @@ import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.Grizzly;
 
 import org.glassfish.grizzly.localization.LogMessages;
+import org.glassfish.grizzly.memory.Buffers;
 
 /**
  * @author Costin Manolache
@@ -44,14 +45,34 @@ public final class Parameters {
     private final LinkedHashMap<String, ArrayList<String>> paramHashValues =
         new LinkedHashMap<String, ArrayList<String>>();
 
+    /**
+     * The parameter value lists of the recycled requests, reused by
+     * {@link #addParameter(String, String)}.
+     */
+    private final ArrayList<ArrayList<String>> freeValueLists =
+        new ArrayList<ArrayList<String>>();
+
     private boolean didQueryParameters = false;
     private boolean didMerge = false;
     MimeHeaders headers;
     DataChunk queryDC;
     
     final DataChunk decodedQuery = DataChunk.newInstance();
+
+    /**
+     * The storage of the query copy, which is decoded in place, kept across
+     * the recycles.
+     */
+    private byte[] queryBytes;
+    private Buffer queryBuffer;
     
     public static final int INITIAL_SIZE = 4;
+
+    /**
+     * The max number of the parameter value lists kept for reuse.
+     */
+    private static final int MAX_FREE_VALUE_LISTS = 64;
+
     // Garbage-less parameter merging.
     // In a sub-request with parameters, the new parameters
     // will be stored in child. When a getParameter happens,
@@ -104,7 +125,15 @@ public final class Parameters {
 
     public void recycle() {
 
-        paramHashValues.clear();
+        if (!paramHashValues.isEmpty()) {
+            for (ArrayList<String> values : paramHashValues.values()) {
+                if (freeValueLists.size() < MAX_FREE_VALUE_LISTS) {
+                    values.clear();
+                    freeValueLists.add(values);
+                }
+            }
+            paramHashValues.clear();
+        }
         didQueryParameters = false;
         currentChild = null;
         didMerge = false;
@@ -288,11 +317,48 @@ public final class Parameters {
                        new Object[]{queryDC, queryStringEncoding});
         }
         
-        decodedQuery.duplicate(queryDC);
+        copyQuery();
         
         processParameters(decodedQuery, queryStringEncoding);
 
     }
+
+    /**
+     * Copies the query into the {@link #decodedQuery}, reusing the storage
+     * allocated for the previous requests.
+     */
+    private void copyQuery() {
+        switch (queryDC.getType()) {
+            case Bytes: {
+                final ByteChunk bc = queryDC.getByteChunk();
+                final int length = bc.getLength();
+                if (queryBytes == null || queryBytes.length < length) {
+                    queryBytes = new byte[2 * length];
+                }
+                System.arraycopy(bc.getBuffer(), bc.getStart(),
+                        queryBytes, 0, length);
+                decodedQuery.setBytes(queryBytes, 0, length);
+                break;
+            }
+            case Buffer: {
+                final BufferChunk bc = queryDC.getBufferChunk();
+                final int length = bc.getLength();
+                if (queryBuffer == null || queryBuffer.capacity() < length) {
+                    queryBuffer = Buffers.wrap(null, new byte[2 * length]);
+                }
+                final Buffer src = bc.getBuffer();
+                final int start = bc.getStart();
+                for (int i = 0; i < length; i++) {
+                    queryBuffer.put(i, src.get(start + i));
+                }
+                decodedQuery.setBuffer(queryBuffer, 0, length);
+                break;
+            }
+            default:
+                decodedQuery.duplicate(queryDC);
+        }
+    }
+
     // --------------------
 
     /**
@@ -348,7 +414,10 @@ public final class Parameters {
 
         ArrayList<String> values = paramHashValues.get(key);
         if (values == null) {
-            values = new ArrayList<String>(1);
+            final int free = freeValueLists.size();
+            values = free > 0
+                    ? freeValueLists.remove(free - 1)
+                    : new ArrayList<String>(1);
             paramHashValues.put(key, values);
         }
         values.add(value);
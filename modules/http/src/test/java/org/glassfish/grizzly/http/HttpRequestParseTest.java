@@ -39,12 +39,14 @@ import org.glassfish.grizzly.filterchain.TransportFilter;
 import org.glassfish.grizzly.http.util.MimeHeaders;
 import org.glassfish.grizzly.impl.FutureImpl;
 import org.glassfish.grizzly.impl.SafeFutureImpl;
+import org.glassfish.grizzly.memory.ByteBufferManager;
 import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.MemoryManager;
 import org.glassfish.grizzly.nio.NIOConnection;
 import org.glassfish.grizzly.nio.transport.TCPNIOConnectorHandler;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.utils.Charsets;
 import org.glassfish.grizzly.utils.ChunkingFilter;
 import org.glassfish.grizzly.utils.Pair;
 
@@ -57,6 +59,27 @@ public class HttpRequestParseTest extends TestCase {
 
     public static final int PORT = 19000;
 
+    private static final String[] WORD_AT_A_TIME_REQUESTS = {
+        "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n",
+        "GET / HTTP/1.1\nHost: localhost\nAccept: */*\n\n",
+        "GET /index.html HTTP/1.1\r\n"
+                + "Host: www.example.com:8080\r\n"
+                + "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/61.0.3163.100 Safari/537.36\r\n"
+                + "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8\r\n"
+                + "Accept-Encoding: gzip, deflate, br\r\n"
+                + "Accept-Language: en-US,en;q=0.8,de;q=0.6\r\n"
+                + "Cookie: JSESSIONID=8D5D8E1F0A2B3C4D5E6F708192A3B4C5; theme=dark; _ga=GA1.2.1234567890.1500000000\r\n"
+                + "\r\n",
+        "POST /api HTTP/1.1\r\nHost: localhost\r\nContent-Length: 0\r\nX-Trailing:    value with spaces        \r\n"
+                + "X-Empty:\r\nX-Spaces:                 \r\nX-Tab:\tvalue\t\r\n\r\n",
+        "POST /api HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n"
+                + "Multi-Line: first part of the value\r\n    second part of the value\r\n\tthird\r\n"
+                + "X-After: 12345678901234567890\r\n\r\n0\r\n\r\n",
+        "GET / HTTP/1.1\r\nHost: localhost\r\nX-Obs-Text: caf\u00e9 \u00fcber  \r\nX-Bare-CR: a\rb\r\n\r\n",
+    };
+
+    private boolean wordAtATime;
+
     public void testCustomMethod() throws Exception {
         doHttpRequestTest("TAKE", "/index.html", "HTTP/1.0", Collections.<String, Pair<String, String>>emptyMap(), "\r\n");
     }
@@ -182,11 +205,72 @@ public class HttpRequestParseTest extends TestCase {
         assertTrue(packet.getHttpHeader().isChunked());
     }
     
-    @SuppressWarnings({"unchecked"})
+    public void testWordAtATimeHeaders() {
+        for (String request : WORD_AT_A_TIME_REQUESTS) {
+            final String expected = headersOf(doTestDecoder(request, 4096));
+            assertEquals(request, expected,
+                    headersOf(doTestDecoder(request, 4096, true, false)));
+            assertEquals(request, expected,
+                    headersOf(doTestDecoder(request, 4096, true, true)));
+        }
+    }
+
+    public void testWordAtATimeSplitHeaders() throws Exception {
+        Map<String, Pair<String, String>> headers =
+                new HashMap<String, Pair<String, String>>();
+        headers.put("Host", new Pair<String,String>("localhost", "localhost"));
+        headers.put("User-Agent", new Pair<String,String>(
+                "Mozilla/5.0 (Windows NT 10.0; Win64; x64) Gecko/20100101 Firefox/56.0   ",
+                "Mozilla/5.0 (Windows NT 10.0; Win64; x64) Gecko/20100101 Firefox/56.0"));
+        headers.put("Multi-line", new Pair<String,String>("first\r\n          second\r\n       third", "first second third"));
+        headers.put("Content-length", new Pair<String,String>("2345", "2345"));
+        wordAtATime = true;
+        doHttpRequestTest("POST", "/index.html", "HTTP/1.1", headers, "\r\n");
+    }
+
+    public void testWordAtATimeDecoderOverflowHeader() {
+        try {
+            doTestDecoder("GET /index.html HTTP/1.0\nHost: localhost.localdomain\n\n",
+                    50, true, false);
+            fail("Overflow exception had to be thrown");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    public void testWordAtATimeInvalidHeaderName() {
+        final String[] names = {"Bad Name", "Bad\tName", "Bad\u0001", "(Bad)",
+            "", "Bad\r\nName"};
+        for (String name : names) {
+            for (boolean direct : new boolean[] {false, true}) {
+                try {
+                    doTestDecoder("GET / HTTP/1.1\r\n" + name + ": value\r\n\r\n",
+                            4096, true, direct);
+                    fail("Invalid header name '" + name + "' had to be rejected");
+                } catch (IllegalStateException e) {
+                    // expected
+                }
+            }
+        }
+    }
+
     private HttpPacket doTestDecoder(String request, int limit) {
+        return doTestDecoder(request, limit, false, false);
+    }
 
-        MemoryManager mm = MemoryManager.DEFAULT_MEMORY_MANAGER;
-        Buffer input = Buffers.wrap(mm, request);
+    @SuppressWarnings({"unchecked"})
+    private HttpPacket doTestDecoder(String request, int limit,
+            boolean wordAtATime, boolean direct) {
+
+        final byte[] bytes = request.getBytes(Charsets.lookupCharset("ISO-8859-1"));
+        final Buffer input;
+        if (direct) {
+            input = new ByteBufferManager(true).allocate(bytes.length);
+            input.put(bytes);
+            input.flip();
+        } else {
+            input = Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, bytes);
+        }
         
         HttpServerFilter filter = new HttpServerFilter(true, limit, null, null) {
 
@@ -197,6 +281,7 @@ public class HttpRequestParseTest extends TestCase {
                 throw new IllegalStateException(t);
             }
         };
+        filter.setWordAtATimeHeaderParsing(wordAtATime);
         FilterChainContext ctx = FilterChainContext.create(new StandaloneConnection());
         ctx.setMessage(input);
 
@@ -208,6 +293,19 @@ public class HttpRequestParseTest extends TestCase {
         }
     }
 
+    private static String headersOf(final HttpPacket packet) {
+        final HttpHeader header = packet.getHttpHeader();
+        final MimeHeaders mimeHeaders = header.getHeaders();
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < mimeHeaders.size(); i++) {
+            sb.append(mimeHeaders.getName(i)).append('=')
+                    .append(mimeHeaders.getValue(i)).append('\n');
+        }
+
+        return sb.append("content-length=").append(header.getContentLength())
+                .append(" chunked=").append(header.isChunked()).toString();
+    }
+
     private void doHttpRequestTest(String method, String requestURI,
             String protocol, Map<String, Pair<String, String>> headers, String eol)
             throws Exception {
@@ -239,6 +337,7 @@ public class HttpRequestParseTest extends TestCase {
 
         final HttpServerFilter serverFilter = new HttpServerFilter();
         serverFilter.setPreserveHeaderCase(preserveHeaderCase);
+        serverFilter.setWordAtATimeHeaderParsing(wordAtATime);
 
         FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless()
                 .add(new TransportFilter())
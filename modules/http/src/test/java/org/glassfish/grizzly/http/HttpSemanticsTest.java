@@ -51,6 +51,7 @@ import java.util.logging.Logger;
 import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.http.HttpRequestPacket.Builder;
 import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HeaderTemplate;
 import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.nio.transport.TCPNIOConnection;
 
@@ -850,6 +851,83 @@ public class HttpSemanticsTest extends TestCase {
         assertFalse(response.getProcessingState().isKeepAlive());
     }
     
+    public void testHeaderTemplates() throws Throwable {
+        final TCPNIOConnection connection = new TCPNIOConnection(
+                TCPNIOTransportBuilder.newInstance().build(), null);
+
+        Buffer requestBuf = Buffers.wrap(connection.getMemoryManager(),
+                "GET /path HTTP/1.1\n"
+                        + "Host: localhost:" + PORT + '\n'
+                        + '\n');
+
+        FilterChainContext ctx = FilterChainContext.create(connection);
+        ctx.setMessage(requestBuf);
+        httpServerFilter.handleRead(ctx);
+
+        final HttpRequestPacket request =
+                (HttpRequestPacket) ((HttpContent) ctx.getMessage())
+                        .getHttpHeader();
+
+        final HeaderTemplate template = HeaderTemplate.builder()
+                .header(Header.ContentType, "application/json")
+                .header("X-Template", "one")
+                .build();
+
+        final HttpResponsePacket response = request.getResponse();
+        response.setContentLength(0);
+        response.setContentType("text/plain");
+        response.setHeader("x-template", "two");
+        response.setHeader("X-Other", "three");
+        response.addHeaderTemplate(template);
+        assertTrue(response.containsHeader("X-TEMPLATE"));
+        assertTrue(response.containsHeader(Header.ContentType));
+        assertEquals("one", response.getHeader("X-TEMPLATE"));
+        assertEquals("application/json", response.getHeader(Header.ContentType));
+        assertEquals("three", response.getHeader("X-Other"));
+
+        final String encoded = httpServerFilter.encodeHttpPacket(ctx, response)
+                .toStringContent(Charsets.ASCII_CHARSET);
+
+        assertTrue(encoded, encoded.startsWith("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: application/json\r\n"
+                + "X-Template: one\r\n"));
+        assertTrue(encoded, encoded.contains("\r\nDate: "));
+        assertTrue(encoded, encoded.contains("\r\nX-Other: three\r\n"));
+        assertTrue(encoded, encoded.contains("\r\nContent-Length: 0\r\n"));
+        assertFalse(encoded, encoded.contains("text/plain"));
+        assertFalse(encoded, encoded.contains("two"));
+        assertEquals(encoded, encoded.indexOf("Date:"),
+                encoded.lastIndexOf("Date:"));
+        assertTrue(encoded, encoded.endsWith("\r\n\r\n"));
+
+        // the Date header is visible to the lookups, like the access log
+        assertNotNull(response.getHeaders().getHeader(Header.Date));
+        assertNotNull(response.getHeader("Date"));
+    }
+
+    public void testHeaderTemplateValidation() throws Throwable {
+        for (Header header : new Header[] {Header.ContentLength,
+                Header.TransferEncoding, Header.Connection}) {
+            try {
+                HeaderTemplate.builder().header(header, "1");
+                fail(header.toString());
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+
+        try {
+            HeaderTemplate.builder().header("X-Split", "a\r\nX-Injected: b");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        try {
+            HeaderTemplate.builder().header("X Space", "a");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
     // --------------------------------------------------------- Private Methods
 
 
@@ -16,12 +16,17 @@
 
 package org.glassfish.grizzly.http.util;
 
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.utils.Charsets;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 public class MimeHeadersTest {
 
@@ -143,4 +148,72 @@ public class MimeHeadersTest {
         Assert.assertArrayEquals(expectedValuesSet2, list.toArray(new String[list.size()]));
     }
 
+    @Test
+    public void testFindHeader() throws Exception {
+        for (Header header : Header.values()) {
+            final String name = header.toString();
+            for (String s : new String[] {name,
+                    name.toLowerCase(Locale.ENGLISH), name.toUpperCase(Locale.ENGLISH)}) {
+                final byte[] bytes = ("x" + s + "x").getBytes(Charsets.ASCII_CHARSET);
+                final Buffer buffer = Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, bytes);
+                final DataChunk chars = DataChunk.newInstance();
+                chars.setChars(s.toCharArray(), 0, s.length());
+
+                Assert.assertSame(s, header, Header.find(s));
+                Assert.assertSame(s, header, Header.find(bytes, 1, bytes.length - 1));
+                Assert.assertSame(s, header, Header.find(buffer, 1, bytes.length - 1));
+                Assert.assertSame(s, header, Header.find(chars));
+
+                Assert.assertNull(s, Header.find(s + "s"));
+                Assert.assertNull(s, Header.find(bytes, 0, bytes.length - 1));
+                Assert.assertNull(s, Header.find(buffer, 1, bytes.length));
+            }
+        }
+
+        Assert.assertNull(Header.find("X-Custom"));
+        Assert.assertNull(Header.find("Hos\u0174"));
+        Assert.assertNull(Header.find(""));
+        Assert.assertNull(Header.find((String) null));
+    }
+
+    @Test
+    public void testKnownHeaderLookup() throws Exception {
+        final byte[] bytes = "xcontent-lengthxtransfer-encoding".getBytes(Charsets.ASCII_CHARSET);
+        final MimeHeaders headers = new MimeHeaders();
+        headers.addValue(bytes, 1, 14).setString("10");
+        headers.addValue(Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, bytes), 16, 17)
+                .setString("chunked");
+        headers.addValue("CONNECTION").setString("close");
+        headers.addValue("X-Content-Length").setString("20");
+        headers.setValue(Header.Host).setString("localhost");
+
+        Assert.assertEquals("10", headers.getHeader(Header.ContentLength));
+        Assert.assertEquals("10", headers.getHeader("Content-Length"));
+        Assert.assertEquals("chunked", headers.getHeader(Header.TransferEncoding));
+        Assert.assertEquals("close", headers.getHeader(Header.Connection));
+        Assert.assertEquals("close", headers.getHeader("connection"));
+        Assert.assertEquals("20", headers.getHeader("x-content-length"));
+        Assert.assertEquals("localhost", headers.getHeader("HOST"));
+        Assert.assertEquals(4, headers.indexOf(Header.Host, 0));
+        Assert.assertFalse(headers.contains(Header.Upgrade));
+
+        headers.setValue("Content-Length").setString("30");
+        Assert.assertEquals("30", headers.getHeader(Header.ContentLength));
+
+        headers.removeHeader("Transfer-Encoding");
+        Assert.assertFalse(headers.contains(Header.TransferEncoding));
+        headers.removeHeader(Header.Connection);
+        Assert.assertFalse(headers.contains("Connection"));
+        Assert.assertEquals(3, headers.size());
+
+        final MimeHeaders copy = new MimeHeaders();
+        copy.copyFrom(headers);
+        Assert.assertEquals("30", copy.getHeader(Header.ContentLength));
+        Assert.assertEquals("localhost", copy.getHeader(Header.Host));
+
+        headers.recycle();
+        headers.addValue("X-Content-Length");
+        Assert.assertFalse(headers.contains(Header.ContentLength));
+    }
+
 }
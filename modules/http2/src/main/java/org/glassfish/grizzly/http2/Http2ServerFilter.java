@@ -1090,6 +1090,7 @@ public class Http2ServerFilter extends Http2BaseFilter {
 
     private void prepareOutgoingResponse(final HttpResponsePacket response) {
         response.setProtocol(Protocol.HTTP_2_0);
+        response.applyHeaderTemplates();
 
         String contentType = response.getContentType();
         if (contentType != null) {
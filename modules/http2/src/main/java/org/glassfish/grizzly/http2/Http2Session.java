@@ -22,7 +22,6 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.locks.ReentrantLock;
@@ -109,7 +108,7 @@ public class Http2Session {
     @SuppressWarnings("unused")
     private volatile int concurrentStreamsCount;
 
-    private final TreeMap<Integer, Http2Stream> streamsMap = new TreeMap<>();
+    private final StreamsMap streamsMap = new StreamsMap();
 
     // (Optimization) We may read several DataFrames belonging to the same
     // Http2Stream, so in order to not process every DataFrame separately -
@@ -449,7 +448,7 @@ public class Http2Session {
             this.peerStreamWindowSize = peerStreamWindowSize;
 
             if (!streamsMap.isEmpty()) {
-                for (final Http2Stream stream : streamsMap.values()) {
+                for (final Http2Stream stream : streamsMap) {
                     if (stream.isClosed()) {
                         continue;
                     }
@@ -676,16 +675,10 @@ public class Http2Session {
         // close streams that rank above the last stream ID specified by the GOAWAY frame.
         // Allow other streams to continue processing.  Once the concurrent stream count reaches zero,
         // the session will be closed.
-        Map<Integer, Http2Stream> invalidStreams =
-                streamsMap.subMap(goingAwayLastStreamId,
-                        false,
-                        Integer.MAX_VALUE,
-                        true);
+        final List<Http2Stream> invalidStreams =
+                streamsMap.streamsAfter(goingAwayLastStreamId);
         if (!invalidStreams.isEmpty()) {
-            // needs to iterate over copied list to prevent
-            // bug #1995 - ConcurrentModificationException
-            List<Http2Stream> closedStreams = new ArrayList<>(invalidStreams.values());
-            for (final Http2Stream stream : closedStreams) {
+            for (final Http2Stream stream : invalidStreams) {
                 stream.closedRemotely();
                 deregisterStream();
             }
@@ -1206,10 +1199,10 @@ public class Http2Session {
                     checkCount = 0;
                     int maxCount = Float.valueOf(streamsHighWaterMark * http2Configuration.getCleanPercentage()).intValue();
                     int count = 0;
-                    for (final Iterator<Map.Entry<Integer,Http2Stream>> streamIds = streamsMap.entrySet().iterator(); (streamIds.hasNext() && count < maxCount);) {
-                        final Map.Entry<Integer,Http2Stream> entry = streamIds.next();
-                        if (entry.getValue().isClosed()) {
-                            streamIds.remove();
+                    for (final Iterator<Http2Stream> streams = streamsMap.iterator(); (streams.hasNext() && count < maxCount);) {
+                        final Http2Stream stream = streams.next();
+                        if (stream.isClosed()) {
+                            streams.remove();
                         }
                         count++;
                     }
@@ -1411,7 +1404,7 @@ public class Http2Session {
             }
 
             if (isClosing) {
-                for (Http2Stream stream : streamsMap.values()) {
+                for (Http2Stream stream : streamsMap) {
                     stream.closedRemotely();
                 }
             }
@@ -17,16 +17,29 @@
 package org.glassfish.grizzly.http2;
 
 
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * N-ary tree node implementation to support HTTP/2 stream hierarchies.
+ *
+ * All the nodes of the same tree share one read/write lock, so operations
+ * on different trees (for example trees, which belong to different
+ * {@link Http2Session}s) never contend with each other. The node, which is
+ * added to a tree, adopts the tree lock.
+ *
+ * The tree lock of a node changes only while both the old and the new tree
+ * write locks are held, so once a thread has locked a tree and checked the
+ * node still belongs to it, the node can't move to another tree until the
+ * lock is released.
  */
 public abstract class Node {
 
-    private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-    protected static final ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
-    protected static final ReentrantReadWriteLock.WriteLock writeLock = lock.writeLock();
+    // orders the locking of two trees with the same identity hash code
+    private static final ReentrantLock TIE_LOCK = new ReentrantLock();
+
+    // the lock shared by all the nodes of the tree this node belongs to
+    private volatile ReentrantReadWriteLock treeLock;
 
     protected final int id;
     protected Node next;
@@ -39,20 +52,56 @@ public abstract class Node {
     // ----------------------------------------------------------- Constructors
 
 
+    /**
+     * Creates the {@link Node}, which is the root of its own tree, until it's
+     * added to another tree.
+     */
     protected Node(final int id) {
+        this(id, new ReentrantReadWriteLock());
+    }
+
+    /**
+     * Creates the {@link Node}, which uses the given tree lock.
+     * All the nodes of the same tree (for example the stream hierarchy
+     * of one {@link Http2Session}) are expected to share the same lock.
+     */
+    protected Node(final int id, final ReentrantReadWriteLock treeLock) {
+        if (treeLock == null) {
+            throw new IllegalArgumentException("treeLock can't be null");
+        }
+        
         this.id = id;
+        this.treeLock = treeLock;
     }
 
 
     // ------------------------------------------------------ Protected Methods
 
 
+    /**
+     * @return the read lock of the tree this {@link Node} currently belongs
+     *  to. The node might be merged into another tree, unless the lock is
+     *  held.
+     */
+    protected ReentrantReadWriteLock.ReadLock readLock() {
+        return treeLock.readLock();
+    }
+
+    /**
+     * @return the write lock of the tree this {@link Node} currently belongs
+     *  to. The node might be merged into another tree, unless the lock is
+     *  held.
+     */
+    protected ReentrantReadWriteLock.WriteLock writeLock() {
+        return treeLock.writeLock();
+    }
+
     /**
      * Mark this {@link Node} as exclusive.  Any siblings will be migrated
      * to the children list.
      */
     protected void exclusive() {
-        writeLock.lock();
+        final ReentrantReadWriteLock.WriteLock writeLock = lockWrite();
         try {
             final Node p = parent;
             p.detach(id);
@@ -66,7 +115,7 @@ public abstract class Node {
      * Add a sibling to this {@link Node}.
      */
     protected void addSibling(final Node sibling) {
-        writeLock.lock();
+        final ReentrantReadWriteLock.WriteLock writeLock = lockWriteAndAdopt(sibling);
         try {
             sibling.next = this;
             this.prev = sibling;
@@ -90,7 +139,8 @@ public abstract class Node {
      * exclusive child.
      */
     protected void addChild(final Node nodeBeingAddedAsChild, final boolean exclusive) {
-        writeLock.lock();
+        final ReentrantReadWriteLock.WriteLock writeLock =
+                lockWriteAndAdopt(nodeBeingAddedAsChild);
         try {
             if (exclusive) {
                 nodeBeingAddedAsChild.exclusive = true;
@@ -147,7 +197,7 @@ public abstract class Node {
         if (this.id == id) {
             return this;
         }
-        readLock.lock();
+        final ReentrantReadWriteLock.ReadLock readLock = lockRead();
         try {
             if (firstChild != null) {
                 Node n = firstChild;
@@ -183,11 +233,116 @@ public abstract class Node {
         return (next != null || prev != null);
     }
 
-    private Node remove(final int id, final boolean retainChildren) {
-        final Node n = find(id);
-        if (n != null) {
+    /**
+     * Locks the read lock of the tree this node currently belongs to.
+     */
+    private ReentrantReadWriteLock.ReadLock lockRead() {
+        for (;;) {
+            final ReentrantReadWriteLock lock = treeLock;
+            final ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
+            readLock.lock();
+            if (treeLock == lock) {
+                return readLock;
+            }
+
+            // the node has been merged into another tree meanwhile
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Locks the write lock of the tree this node currently belongs to.
+     */
+    private ReentrantReadWriteLock.WriteLock lockWrite() {
+        for (;;) {
+            final ReentrantReadWriteLock lock = treeLock;
+            final ReentrantReadWriteLock.WriteLock writeLock = lock.writeLock();
             writeLock.lock();
+            if (treeLock == lock) {
+                return writeLock;
+            }
+
+            // the node has been merged into another tree meanwhile
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Locks the write lock of this tree, and if the node being added belongs
+     * to another tree, merges the node and its children (recursively) into
+     * this tree. Both tree write locks are acquired in a fixed order, so the
+     * concurrent merges of the same trees in opposite directions can't
+     * deadlock.
+     *
+     * @return the locked write lock of this tree
+     */
+    private ReentrantReadWriteLock.WriteLock lockWriteAndAdopt(final Node n) {
+        for (;;) {
+            final ReentrantReadWriteLock lock = treeLock;
+            final ReentrantReadWriteLock otherLock = n.treeLock;
+            if (lock == otherLock) {
+                final ReentrantReadWriteLock.WriteLock writeLock = lockWrite();
+                if (n.treeLock == treeLock) {
+                    return writeLock;
+                }
+
+                writeLock.unlock();
+                continue;
+            }
+
+            lockBoth(lock, otherLock);
+            if (treeLock == lock && n.treeLock == otherLock) {
+                adopt(n, lock);
+                otherLock.writeLock().unlock();
+                return lock.writeLock();
+            }
+
+            // one of the nodes has been merged into another tree meanwhile
+            otherLock.writeLock().unlock();
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void lockBoth(final ReentrantReadWriteLock lock1,
+            final ReentrantReadWriteLock lock2) {
+        final int hash1 = System.identityHashCode(lock1);
+        final int hash2 = System.identityHashCode(lock2);
+        if (hash1 < hash2) {
+            lock1.writeLock().lock();
+            lock2.writeLock().lock();
+        } else if (hash1 > hash2) {
+            lock2.writeLock().lock();
+            lock1.writeLock().lock();
+        } else {
+            TIE_LOCK.lock();
             try {
+                lock1.writeLock().lock();
+                lock2.writeLock().lock();
+            } finally {
+                TIE_LOCK.unlock();
+            }
+        }
+    }
+
+    /**
+     * Makes the node, and all its children (recursively), use the tree lock.
+     * Must be called, while holding both the old and the new tree write locks.
+     */
+    private static void adopt(final Node n,
+            final ReentrantReadWriteLock treeLock) {
+        n.treeLock = treeLock;
+        Node t = n.firstChild;
+        while (t != null) {
+            adopt(t, treeLock);
+            t = t.next;
+        }
+    }
+
+    private Node remove(final int id, final boolean retainChildren) {
+        final ReentrantReadWriteLock.WriteLock writeLock = lockWrite();
+        try {
+            final Node n = find(id);
+            if (n != null) {
                 // remove this node from sibling pointer chains
                 if (n.hasSiblings()) {
                     final Node left = n.prev;
@@ -202,6 +357,9 @@ public abstract class Node {
                         left.next = right;
                         right.prev = left;
                     }
+                } else if (n.parent != null && n.parent.firstChild == n) {
+                    // the only child
+                    n.parent.firstChild = null;
                 }
 
                 // re-parent the children to this node's parent and
@@ -221,7 +379,9 @@ public abstract class Node {
 
                         // 'push' the current child to the 'end' of children of the removed node
                         last.next = np.firstChild;
-                        np.firstChild.prev = last;
+                        if (np.firstChild != null) {
+                            np.firstChild.prev = last;
+                        }
 
                         // Set the new pointer to the new first child.
                         np.firstChild = n.firstChild;
@@ -236,10 +396,10 @@ public abstract class Node {
                     n.firstChild = null;
                 }
                 return n;
-            } finally {
-                writeLock.unlock();
             }
+            return null;
+        } finally {
+            writeLock.unlock();
         }
-        return null;
     }
 }
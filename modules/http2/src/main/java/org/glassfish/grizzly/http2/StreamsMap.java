@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Open-addressing (linear probing) map of the {@link Http2Session} streams
+ * keyed by the primitive stream id.
+ *
+ * The stream lookup is lock-free and allocation-free, so it could be
+ * performed by the reader thread without any synchronization. The map
+ * modifications are expected to be serialized by the caller (the
+ * {@link Http2Session} performs them under its session lock), but they
+ * never block the concurrent lookups.
+ *
+ * The stream and its id are stored in the immutable {@link Entry}, so they
+ * are always published atomically.
+ */
+final class StreamsMap implements Iterable<Http2Stream> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // the marker of the removed entry
+    private static final Entry TOMBSTONE = new Entry(0, null);
+
+    private static final Comparator<Entry> ID_COMPARATOR =
+            new Comparator<Entry>() {
+        @Override
+        public int compare(final Entry e1, final Entry e2) {
+            return e1.streamId < e2.streamId
+                    ? -1
+                    : (e1.streamId == e2.streamId ? 0 : 1);
+        }
+    };
+
+    private volatile AtomicReferenceArray<Entry> table =
+            new AtomicReferenceArray<>(DEFAULT_CAPACITY);
+
+    // the number of live entries (modified by the writer only)
+    private volatile int size;
+
+    // the number of TOMBSTONE entries (accessed by the writer only)
+    private int tombstones;
+
+    /**
+     * Returns the stream with the given id, or <tt>null</tt> if there is no
+     * such stream. The method is lock-free and could be called by any thread.
+     */
+    Http2Stream get(final int streamId) {
+        final AtomicReferenceArray<Entry> t = table;
+        final int mask = t.length() - 1;
+
+        for (int i = indexOf(streamId, mask); ; i = (i + 1) & mask) {
+            final Entry e = t.get(i);
+            if (e == null) {
+                return null;
+            }
+
+            if (e.streamId == streamId && e != TOMBSTONE) {
+                return e.stream;
+            }
+        }
+    }
+
+    /**
+     * Registers the stream with the given id.
+     * The previously registered stream with the same id, if any, is replaced.
+     * Must be called by one writer at a time.
+     */
+    void put(final int streamId, final Http2Stream stream) {
+        final AtomicReferenceArray<Entry> t = table;
+        final int mask = t.length() - 1;
+
+        int freeIdx = -1;
+        for (int i = indexOf(streamId, mask); ; i = (i + 1) & mask) {
+            final Entry e = t.get(i);
+            if (e == null) {
+                if (freeIdx == -1) {
+                    freeIdx = i;
+                }
+                break;
+            }
+
+            if (e == TOMBSTONE) {
+                if (freeIdx == -1) {
+                    freeIdx = i;
+                }
+            } else if (e.streamId == streamId) {
+                t.set(i, new Entry(streamId, stream));
+                return;
+            }
+        }
+
+        if (t.get(freeIdx) == TOMBSTONE) {
+            tombstones--;
+        }
+
+        t.set(freeIdx, new Entry(streamId, stream));
+        size++;
+
+        if ((size + tombstones) << 1 > t.length()) {
+            rehash(t, size << 1 > t.length() >> 1
+                    ? t.length() << 1
+                    : t.length());
+        }
+    }
+
+    /**
+     * Removes the stream with the given id, if it's registered.
+     * Must be called by one writer at a time.
+     *
+     * @return the removed stream, or <tt>null</tt> if there was no stream
+     *         registered with the given id
+     */
+    Http2Stream remove(final int streamId) {
+        final AtomicReferenceArray<Entry> t = table;
+        final int mask = t.length() - 1;
+
+        for (int i = indexOf(streamId, mask); ; i = (i + 1) & mask) {
+            final Entry e = t.get(i);
+            if (e == null) {
+                return null;
+            }
+
+            if (e.streamId == streamId && e != TOMBSTONE) {
+                t.set(i, TOMBSTONE);
+                size--;
+                tombstones++;
+                return e.stream;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the streams, whose id is greater than the given one, in the
+     * stream id ascending order.
+     */
+    List<Http2Stream> streamsAfter(final int streamId) {
+        final AtomicReferenceArray<Entry> t = table;
+        final List<Entry> entries = new ArrayList<>();
+
+        for (int i = 0; i < t.length(); i++) {
+            final Entry e = t.get(i);
+            if (e != null && e != TOMBSTONE && e.streamId > streamId) {
+                entries.add(e);
+            }
+        }
+
+        Collections.sort(entries, ID_COMPARATOR);
+
+        final List<Http2Stream> result = new ArrayList<>(entries.size());
+        for (Entry e : entries) {
+            result.add(e.stream);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the {@link Iterator} over the current snapshot of the map.
+     * The {@link Iterator#remove()} operation has to be called by the writer.
+     */
+    @Override
+    public Iterator<Http2Stream> iterator() {
+        return new StreamsIterator(table);
+    }
+
+    private void rehash(final AtomicReferenceArray<Entry> oldTable,
+            final int newCapacity) {
+        final AtomicReferenceArray<Entry> newTable =
+                new AtomicReferenceArray<>(newCapacity);
+        final int mask = newCapacity - 1;
+
+        for (int i = 0; i < oldTable.length(); i++) {
+            final Entry e = oldTable.get(i);
+            if (e == null || e == TOMBSTONE) {
+                continue;
+            }
+
+            int j = indexOf(e.streamId, mask);
+            while (newTable.get(j) != null) {
+                j = (j + 1) & mask;
+            }
+
+            newTable.lazySet(j, e);
+        }
+
+        tombstones = 0;
+        table = newTable;
+    }
+
+    private static int indexOf(final int streamId, final int mask) {
+        // Fibonacci hashing spreads sequential odd/even ids over the table
+        final int h = streamId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static final class Entry {
+        private final int streamId;
+        private final Http2Stream stream;
+
+        Entry(final int streamId, final Http2Stream stream) {
+            this.streamId = streamId;
+            this.stream = stream;
+        }
+    }
+
+    private final class StreamsIterator implements Iterator<Http2Stream> {
+        private final AtomicReferenceArray<Entry> t;
+        private int nextIdx = -1;
+        private Entry next;
+        private Entry last;
+
+        StreamsIterator(final AtomicReferenceArray<Entry> t) {
+            this.t = t;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Http2Stream next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+
+            last = next;
+            advance();
+            return last.stream;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+
+            StreamsMap.this.remove(last.streamId);
+            last = null;
+        }
+
+        private void advance() {
+            next = null;
+            while (++nextIdx < t.length()) {
+                final Entry e = t.get(nextIdx);
+                if (e != null && e != TOMBSTONE) {
+                    next = e;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -16,10 +16,15 @@
 
 package org.glassfish.grizzly.http2;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.junit.Test;
 
 import static junit.framework.Assert.assertNotNull;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -651,6 +656,139 @@ public class NaryTreeTest {
     }
 
 
+    @Test
+    public void removeOnlyChild() {
+        final Node root = new TestNode(0);
+        final Node n1 = new TestNode(1);
+        root.addChild(n1);
+        n1.addChild(new TestNode(3));
+        n1.firstChild.addChild(new TestNode(5));
+
+        // the only child with children
+        assertEquals(n1, root.remove(1));
+        assertEquals(3, root.firstChild.id);
+        assertNull(root.firstChild.next);
+        assertNull(root.firstChild.prev);
+        assertEquals(root, root.firstChild.parent);
+
+        // the only child without children
+        root.remove(5);
+        assertNull(root.firstChild.firstChild);
+        root.remove(3);
+        assertNull(root.firstChild);
+        assertNull(root.find(3));
+    }
+
+    @Test
+    public void adoptTreeLock() {
+        final Node root = new TestNode(0);
+        final Node childToAdd = new TestNode(1);
+        final Node grandChild = new TestNode(2);
+        childToAdd.addChild(grandChild);
+        root.addChild(childToAdd);
+
+        assertTrue(root.writeLock() == childToAdd.writeLock());
+        assertTrue(root.writeLock() == grandChild.writeLock());
+    }
+
+    @Test(timeout = 30000)
+    public void mergeWaitsForBothTrees() throws Exception {
+        final Node root = new TestNode(0);
+        final Node childToAdd = new TestNode(1);
+        childToAdd.addChild(new TestNode(2));
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ReentrantReadWriteLock.WriteLock childLock = childToAdd.writeLock();
+        childLock.lock();
+        try {
+            final Thread t = new Thread() {
+                @Override
+                public void run() {
+                    root.addChild(childToAdd);
+                    latch.countDown();
+                }
+            };
+            t.start();
+
+            // the subtree can't be merged, while its own tree is locked
+            // don't query the root tree here: the merging thread might hold
+            // its lock, while waiting for childLock
+            assertFalse(latch.await(500, TimeUnit.MILLISECONDS));
+            assertTrue(childToAdd.writeLock() == childLock);
+        } finally {
+            childLock.unlock();
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(root.writeLock() == childToAdd.writeLock());
+        assertTrue(root.writeLock() == root.find(2).writeLock());
+    }
+
+    @Test(timeout = 30000)
+    public void independentTreesDoNotContend() throws Exception {
+        final Node root1 = new TestNode(0);
+        root1.addChild(new TestNode(1));
+        final Node root2 = new TestNode(0);
+        root2.addChild(new TestNode(1));
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        root1.writeLock().lock();
+        try {
+            final Thread t = new Thread() {
+                @Override
+                public void run() {
+                    root2.addChild(new TestNode(3), true);
+                    root2.find(1).exclusive();
+                    root2.remove(3);
+                    latch.countDown();
+                }
+            };
+            t.start();
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            root1.writeLock().unlock();
+        }
+    }
+
+    @Test
+    public void concurrentTrees() throws Exception {
+        final int threadsCount = Runtime.getRuntime().availableProcessors() * 2;
+        final int iterations = 10000;
+        final CountDownLatch latch = new CountDownLatch(threadsCount);
+        final AtomicInteger failures = new AtomicInteger();
+
+        for (int i = 0; i < threadsCount; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        final Node root = new TestNode(0);
+                        for (int j = 1; j <= iterations; j++) {
+                            root.addChild(new TestNode(j), (j & 1) == 0);
+                            if (j > 1) {
+                                root.remove(j - 1);
+                            }
+                        }
+
+                        if (root.find(iterations) == null
+                                || root.find(iterations - 1) != null) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Throwable t) {
+                        failures.incrementAndGet();
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }.start();
+        }
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertEquals(0, failures.get());
+    }
+
+
     // --------------------------------------------------------- Nested Classes
 
 
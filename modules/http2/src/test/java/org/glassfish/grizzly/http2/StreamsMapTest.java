@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http2;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test {@link StreamsMap}
+ */
+public class StreamsMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        final StreamsMap map = new StreamsMap();
+        final Http2Stream[] streams = new Http2Stream[1000];
+
+        for (int i = 0; i < streams.length; i++) {
+            streams[i] = mock(Http2Stream.class);
+            map.put(i + 1, streams[i]);
+        }
+
+        assertEquals(streams.length, map.size());
+        for (int i = 0; i < streams.length; i++) {
+            assertSame(streams[i], map.get(i + 1));
+        }
+        assertNull(map.get(0));
+        assertNull(map.get(streams.length + 1));
+
+        for (int i = 0; i < streams.length; i += 2) {
+            assertSame(streams[i], map.remove(i + 1));
+        }
+        assertNull(map.remove(1));
+
+        assertEquals(streams.length / 2, map.size());
+        for (int i = 0; i < streams.length; i++) {
+            if ((i & 1) == 0) {
+                assertNull(map.get(i + 1));
+            } else {
+                assertSame(streams[i], map.get(i + 1));
+            }
+        }
+    }
+
+    @Test
+    public void testReplace() {
+        final StreamsMap map = new StreamsMap();
+        final Http2Stream stream1 = mock(Http2Stream.class);
+        final Http2Stream stream2 = mock(Http2Stream.class);
+
+        map.put(3, stream1);
+        map.put(3, stream2);
+
+        assertEquals(1, map.size());
+        assertSame(stream2, map.get(3));
+    }
+
+    @Test
+    public void testIterator() {
+        final StreamsMap map = new StreamsMap();
+        final Set<Http2Stream> streams = new HashSet<>();
+        for (int i = 1; i <= 100; i++) {
+            final Http2Stream stream = mock(Http2Stream.class);
+            streams.add(stream);
+            map.put(i, stream);
+        }
+
+        int count = 0;
+        for (Iterator<Http2Stream> it = map.iterator(); it.hasNext(); ) {
+            assertTrue(streams.contains(it.next()));
+            it.remove();
+            count++;
+        }
+
+        assertEquals(100, count);
+        assertTrue(map.isEmpty());
+        assertFalse(map.iterator().hasNext());
+    }
+
+    @Test
+    public void testStreamsAfter() {
+        final StreamsMap map = new StreamsMap();
+        final Http2Stream[] streams = new Http2Stream[50];
+        for (int i = streams.length - 1; i >= 0; i--) {
+            streams[i] = mock(Http2Stream.class);
+            map.put(i * 2 + 1, streams[i]);
+        }
+
+        final List<Http2Stream> after = map.streamsAfter(51);
+        assertEquals(24, after.size());
+        for (int i = 0; i < after.size(); i++) {
+            assertSame(streams[i + 26], after.get(i));
+        }
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        final StreamsMap map = new StreamsMap();
+        final Http2Stream stream = mock(Http2Stream.class);
+        map.put(1, stream);
+
+        final AtomicBoolean isRunning = new AtomicBoolean(true);
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        final Thread reader = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    while (isRunning.get()) {
+                        if (map.get(1) != stream) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            }
+        };
+        reader.start();
+
+        for (int i = 3; i < 100000; i += 2) {
+            map.put(i, mock(Http2Stream.class));
+            if (i > 101) {
+                map.remove(i - 100);
+            }
+        }
+
+        isRunning.set(false);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(0, failures.get());
+    }
+}
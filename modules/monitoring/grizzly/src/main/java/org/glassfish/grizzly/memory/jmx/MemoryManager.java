@@ -42,6 +42,11 @@ public class MemoryManager extends JmxObject {
     private final AtomicLong realAllocatedBytes = new AtomicLong();
     private final AtomicLong poolAllocatedBytes = new AtomicLong();
     private final AtomicLong poolReleasedBytes = new AtomicLong();
+    private final AtomicLong magazineAllocatedBytes = new AtomicLong();
+    private final AtomicLong magazineHits = new AtomicLong();
+    private final AtomicLong magazineMisses = new AtomicLong();
+    private final AtomicLong magazineRefilledBuffers = new AtomicLong();
+    private final AtomicLong magazineDrainedBuffers = new AtomicLong();
     
     public MemoryManager(org.glassfish.grizzly.memory.MemoryManager memoryManager) {
         this.memoryManager = memoryManager;
@@ -94,6 +99,44 @@ public class MemoryManager extends JmxObject {
         return poolReleasedBytes.get();
     }
 
+    @ManagedAttribute(id="magazine-allocated-bytes")
+    @Description("Total number of bytes allocated from thread-local magazines")
+    public long getMagazineAllocatedBytes() {
+        return magazineAllocatedBytes.get();
+    }
+
+    @ManagedAttribute(id="magazine-hits")
+    @Description("Number of allocations served by thread-local magazines")
+    public long getMagazineHits() {
+        return magazineHits.get();
+    }
+
+    @ManagedAttribute(id="magazine-misses")
+    @Description("Number of allocations, which found thread-local magazine empty")
+    public long getMagazineMisses() {
+        return magazineMisses.get();
+    }
+
+    @ManagedAttribute(id="magazine-hit-rate")
+    @Description("Percentage of allocations served by thread-local magazines")
+    public int getMagazineHitRate() {
+        final long hits = magazineHits.get();
+        final long total = hits + magazineMisses.get();
+        return total == 0 ? 0 : (int) (hits * 100 / total);
+    }
+
+    @ManagedAttribute(id="magazine-refilled-buffers")
+    @Description("Number of buffers moved in batches from memory pool to thread-local magazines")
+    public long getMagazineRefilledBuffers() {
+        return magazineRefilledBuffers.get();
+    }
+
+    @ManagedAttribute(id="magazine-drained-buffers")
+    @Description("Number of buffers moved in batches from thread-local magazines to memory pool")
+    public long getMagazineDrainedBuffers() {
+        return magazineDrainedBuffers.get();
+    }
+
     private class JmxMemoryProbe implements MemoryProbe {
 
         @Override
@@ -113,5 +156,26 @@ public class MemoryManager extends JmxObject {
             poolReleasedBytes.addAndGet(size);
         }
 
+        @Override
+        public void onBufferAllocateFromMagazineEvent(int size) {
+            magazineAllocatedBytes.addAndGet(size);
+            magazineHits.incrementAndGet();
+        }
+
+        @Override
+        public void onBufferReleaseToMagazineEvent(int size) {
+        }
+
+        @Override
+        public void onMagazineRefillEvent(int size, int count) {
+            magazineMisses.incrementAndGet();
+            magazineRefilledBuffers.addAndGet(count);
+        }
+
+        @Override
+        public void onMagazineDrainEvent(int size, int count) {
+            magazineDrainedBuffers.addAndGet(count);
+        }
+
     }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.memory.jmx;
+
+import org.glassfish.gmbal.Description;
+import org.glassfish.gmbal.ManagedAttribute;
+import org.glassfish.gmbal.ManagedObject;
+
+/**
+ * {@link org.glassfish.grizzly.memory.PooledMemoryManager} JMX object.
+ *
+ * @since 2.4.4
+ */
+@ManagedObject
+@Description("Grizzly Pooled Memory Manager")
+public class PooledMemoryManager extends MemoryManager {
+
+    public PooledMemoryManager(org.glassfish.grizzly.memory.PooledMemoryManager memoryManager) {
+        super(memoryManager);
+    }
+
+    @ManagedAttribute(id="is-elastic")
+    @Description("Do the pools grow and shrink according to the sizing policy")
+    public boolean isElastic() {
+        return pooledMemoryManager().isElastic();
+    }
+
+    @ManagedAttribute(id="pooled-bytes")
+    @Description("The number of bytes currently retained by the pools")
+    public long getPooledBytes() {
+        return pooledMemoryManager().getPooledBytes();
+    }
+
+    @ManagedAttribute(id="reserved-bytes")
+    @Description("The number of bytes the pools may retain at the moment")
+    public long getReservedBytes() {
+        return pooledMemoryManager().getReservedBytes();
+    }
+
+    @ManagedAttribute(id="max-pooled-bytes")
+    @Description("The max number of bytes the pools may retain")
+    public long getMaxPooledBytes() {
+        return pooledMemoryManager().getMaxPooledBytes();
+    }
+
+    @ManagedAttribute(id="trimmed-bytes")
+    @Description("The number of bytes released by the trimmed pools")
+    public long getTrimmedBytes() {
+        return pooledMemoryManager().getTrimmedBytes();
+    }
+
+    private org.glassfish.grizzly.memory.PooledMemoryManager pooledMemoryManager() {
+        return (org.glassfish.grizzly.memory.PooledMemoryManager) memoryManager;
+    }
+}
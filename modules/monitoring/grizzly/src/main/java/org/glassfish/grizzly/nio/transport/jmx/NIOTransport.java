@@ -53,6 +53,7 @@ public class NIOTransport extends JmxObject {
     private final JmxConnectionProbe connectionProbe;
 
     private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong readsCount = new AtomicLong();
     private final AtomicLong bytesWritten = new AtomicLong();
     
     private volatile EventDate stateEvent;
@@ -185,6 +186,17 @@ public class NIOTransport extends JmxObject {
         return bytesRead.get();
     }
 
+    @ManagedAttribute(id="reads-count")
+    public long getReadsCount() {
+        return readsCount.get();
+    }
+
+    @ManagedAttribute(id="average-read-size")
+    public long getAverageReadSize() {
+        final long reads = readsCount.get();
+        return reads > 0 ? bytesRead.get() / reads : 0;
+    }
+
     @ManagedAttribute(id="bytes-written")
     public long getBytesWritten() {
         return bytesWritten.get();
@@ -356,6 +368,7 @@ public class NIOTransport extends JmxObject {
         @Override
         public void onReadEvent(Connection connection, Buffer data, int size) {
             bytesRead.addAndGet(size);
+            readsCount.incrementAndGet();
         }
 
         @Override
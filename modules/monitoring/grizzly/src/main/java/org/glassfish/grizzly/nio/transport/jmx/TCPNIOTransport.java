@@ -62,6 +62,26 @@ public class TCPNIOTransport extends NIOTransport {
         return ((org.glassfish.grizzly.nio.transport.TCPNIOTransport) transport).isKeepAlive();
     }
 
+    @ManagedAttribute(id="adaptive-read-buffer-size")
+    public boolean getAdaptiveReadBufferSize() {
+        return ((org.glassfish.grizzly.nio.transport.TCPNIOTransport) transport).isAdaptiveReadBufferSize();
+    }
+
+    @ManagedAttribute(id="read-into-pooled-buffers")
+    public boolean getReadIntoPooledBuffers() {
+        return ((org.glassfish.grizzly.nio.transport.TCPNIOTransport) transport).isReadIntoPooledBuffers();
+    }
+
+    @ManagedAttribute(id="max-reads-per-event")
+    public int getMaxReadsPerEvent() {
+        return ((org.glassfish.grizzly.nio.transport.TCPNIOTransport) transport).getMaxReadsPerEvent();
+    }
+
+    @ManagedAttribute(id="max-read-bytes-per-event")
+    public int getMaxReadBytesPerEvent() {
+        return ((org.glassfish.grizzly.nio.transport.TCPNIOTransport) transport).getMaxReadBytesPerEvent();
+    }
+
     @ManagedAttribute(id="client-connect-timeout-millis")
     public int getConnectTimeout() {
         return transport.getConnectionTimeout();
@@ -58,6 +58,11 @@ public class FileCache extends JmxObject {
      */
     private final AtomicLong cacheMissCount = new AtomicLong();
 
+    /**
+     * The number of evicted entries.
+     */
+    private final AtomicLong cacheEvictionCount = new AtomicLong();
+
     /**
      * The number of cache errors.
      */
@@ -222,6 +227,16 @@ public class FileCache extends JmxObject {
         return cacheMissCount.get();
     }
 
+    /**
+     * @return the total number of entries evicted to make room for more
+     *  popular resources.
+     */
+    @ManagedAttribute(id="cache-eviction-count")
+    @Description("The total number of entries evicted to make room for more popular resources.")
+    public long getCacheEvictionCount() {
+        return cacheEvictionCount.get();
+    }
+
     /**
      * @return the total number of cache errors.
      */
@@ -274,6 +289,11 @@ public class FileCache extends JmxObject {
             }
         }
 
+        @Override
+        public void onEntryEvictedEvent(org.glassfish.grizzly.http.server.filecache.FileCache fileCache, FileCacheEntry entry) {
+            cacheEvictionCount.incrementAndGet();
+        }
+
         @Override
         public void onEntryHitEvent(org.glassfish.grizzly.http.server.filecache.FileCache fileCache, FileCacheEntry entry) {
             cacheHitCount.incrementAndGet();
@@ -46,6 +46,7 @@ public class HttpServerFilter extends JmxObject {
     private final AtomicInteger suspendCount = new AtomicInteger();
     private final AtomicLong timedOutCount = new AtomicLong();
     private final AtomicLong cancelledCount = new AtomicLong();
+    private final AtomicLong allocatedCount = new AtomicLong();
 
     private final HttpServerProbe probe = new JmxWebServerProbe();
 
@@ -132,6 +133,19 @@ public class HttpServerFilter extends JmxObject {
     }
 
 
+    /**
+     * @return the number of {@link Request} objects, which have been allocated
+     *  because there were no recycled ones to reuse.
+     *
+     * @since 2.4.4
+     */
+    @ManagedAttribute(id="requests-allocated-count")
+    @Description("The total number of request objects that have been allocated, because no recycled request object could be reused.")
+    public long getRequestsAllocatedCount() {
+        return allocatedCount.get();
+    }
+
+
     // ---------------------------------------------------------- Nested Classes
 
 
@@ -179,6 +193,11 @@ public class HttpServerFilter extends JmxObject {
             }
         }
 
+        @Override
+        public void onRequestAllocateEvent(org.glassfish.grizzly.http.server.HttpServerFilter filter, Connection connection, Request request) {
+            allocatedCount.incrementAndGet();
+        }
+
     } // END JmxWebServerProbe
     
 }
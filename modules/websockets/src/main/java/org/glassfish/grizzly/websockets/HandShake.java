@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Locale;
 import java.util.Set;
 import java.util.TreeSet;
@@ -52,6 +53,7 @@ public abstract class HandShake {
     //private final Map<String, String[]> queryParams = new TreeMap<String, String[]>();
     private List<String> subProtocol = new ArrayList<String>();
     private List<Extension> extensions = new ArrayList<Extension>(); // client extensions
+    private PerMessageDeflate perMessageDeflate;
 
     public HandShake(URI url) {
         builder = HttpRequestPacket.builder()
@@ -169,6 +171,16 @@ public abstract class HandShake {
         this.extensions = extensions;
     }
 
+    /**
+     * @return the negotiated <tt>permessage-deflate</tt> extension, or
+     *  <tt>null</tt>, if it hasn't been negotiated.
+     *
+     * @since 2.4.4
+     */
+    public PerMessageDeflate getPerMessageDeflate() {
+        return perMessageDeflate;
+    }
+
     protected final String joinExtensions(List<Extension> extensions) {
         StringBuilder sb = new StringBuilder();
         for (Extension e : extensions) {
@@ -229,6 +241,67 @@ public abstract class HandShake {
         }
     }
 
+    private void checkForExtensions(final HttpResponsePacket headers) {
+        final String value = headers.getHeader(Constants.SEC_WS_EXTENSIONS_HEADER);
+        if (value == null || value.trim().isEmpty()) {
+            return;
+        }
+
+        for (Extension e : parseExtensionsHeader(value)) {
+            if (PerMessageDeflate.NAME.equals(e.getName())) {
+                if (perMessageDeflate != null || !isOffered(e.getName())) {
+                    throw new HandshakeException(String.format(
+                            "Unexpected %s extension returned: '%s'",
+                            e.getName(), value));
+                }
+
+                perMessageDeflate = PerMessageDeflate.accept(e);
+            }
+        }
+    }
+
+    private boolean isOffered(final String extensionName) {
+        for (Extension e : getExtensions()) {
+            if (extensionName.equals(e.getName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Accepts the first acceptable <tt>permessage-deflate</tt> offer, replacing
+     * it with the negotiated parameters, and removes the other offers.
+     */
+    private void negotiatePerMessageDeflate(final List<Extension> extensions,
+            final List<Extension> supported) {
+        Extension supportedDeflate = null;
+        for (Extension s : supported) {
+            if (PerMessageDeflate.NAME.equals(s.getName())) {
+                supportedDeflate = s;
+                break;
+            }
+        }
+
+        for (ListIterator<Extension> it = extensions.listIterator(); it.hasNext();) {
+            final Extension e = it.next();
+            if (!PerMessageDeflate.NAME.equals(e.getName())) {
+                continue;
+            }
+
+            if (perMessageDeflate == null) {
+                perMessageDeflate = PerMessageDeflate.negotiate(e, supportedDeflate);
+                if (perMessageDeflate != null) {
+                    it.set(perMessageDeflate.toExtension());
+                    continue;
+                }
+            }
+
+            it.remove();
+        }
+    }
+
     private void validate(final String header,
             final String validValue, final String value) {
         boolean found = false;
@@ -301,6 +374,7 @@ public abstract class HandShake {
         checkForHeader(headers, Constants.UPGRADE, Constants.WEBSOCKET);
         checkForHeader(headers, Constants.CONNECTION, Constants.UPGRADE);
         checkForSubProtocol(headers);
+        checkForExtensions(headers);
     }
 
     public void respond(final FilterChainContext ctx,
@@ -322,8 +396,12 @@ public abstract class HandShake {
                                  application.getSupportedExtensions());
             if (!intersection.isEmpty()) {
                 application.onExtensionNegotiation(intersection);
-                response.setHeader(Constants.SEC_WS_EXTENSIONS_HEADER,
-                                   joinExtensions(intersection));
+                negotiatePerMessageDeflate(intersection,
+                        application.getSupportedExtensions());
+                if (!intersection.isEmpty()) {
+                    response.setHeader(Constants.SEC_WS_EXTENSIONS_HEADER,
+                                       joinExtensions(intersection));
+                }
             }
         }
 
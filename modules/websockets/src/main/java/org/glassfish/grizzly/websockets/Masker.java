@@ -16,11 +16,16 @@
 
 package org.glassfish.grizzly.websockets;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.security.SecureRandom;
 
 import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.ByteBufferArray;
 
 public class Masker {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     private Buffer buffer;
     private byte[] mask;
     private int index = 0;
@@ -51,17 +56,52 @@ public class Masker {
     public byte[] unmask(int count) {
         byte[] bytes = get(count);
         if (mask != null) {
-            for (int i = 0; i < bytes.length; i++) {
-                bytes[i] ^= mask[index++ % Constants.MASK_SIZE];
-            }
+            apply(ByteBuffer.wrap(bytes));
         }
 
         return bytes;
     }
 
+    /**
+     * Unmasks the {@link Buffer} content between the given positions in place.
+     * The {@link Buffer} position and limit are not changed.
+     *
+     * @param buffer the {@link Buffer}, could be heap, direct or composite
+     * @param position the position of the first byte to be unmasked
+     * @param limit the position after the last byte to be unmasked
+     */
+    public void unmask(final Buffer buffer, final int position, final int limit) {
+        apply(buffer, position, limit);
+    }
+
+    /**
+     * Masks the {@link Buffer} content between the given positions in place.
+     * The {@link Buffer} position and limit are not changed.
+     *
+     * @param buffer the {@link Buffer}, could be heap, direct or composite
+     * @param position the position of the first byte to be masked
+     * @param limit the position after the last byte to be masked
+     */
+    public void mask(final Buffer buffer, final int position, final int limit) {
+        apply(buffer, position, limit);
+    }
+
+    /**
+     * Masks the array region in place.
+     *
+     * @param bytes the array
+     * @param offset the offset of the first byte to be masked
+     * @param length the number of bytes to be masked
+     */
+    public void mask(final byte[] bytes, final int offset, final int length) {
+        if (mask != null && length > 0) {
+            apply(ByteBuffer.wrap(bytes, offset, length));
+        }
+    }
+
     public void generateMask() {
         mask = new byte[Constants.MASK_SIZE];
-        new SecureRandom().nextBytes(mask);
+        RANDOM.nextBytes(mask);
     }
 
     public void mask(byte[] bytes, int location, byte b) {
@@ -70,11 +110,8 @@ public class Masker {
 
     public void mask(byte[] target, int location, byte[] bytes) {
         if(bytes != null && target != null) {
-            for (int i = 0; i < bytes.length; i++) {
-                target[location + i] = mask == null
-                        ? bytes[i]
-                        : (byte) (bytes[i] ^ mask[index++ % Constants.MASK_SIZE]);
-            }
+            System.arraycopy(bytes, 0, target, location, bytes.length);
+            mask(target, location, bytes.length);
         }
     }
 
@@ -97,4 +134,79 @@ public class Masker {
     public void readMask() {
         mask = get(Constants.MASK_SIZE);
     }
+
+    // ---------------------------------------------------------- Private Methods
+
+
+    private void apply(final Buffer buffer, final int position, final int limit) {
+        if (mask == null || position >= limit) {
+            return;
+        }
+
+        if (!buffer.isComposite()) {
+            apply(buffer.toByteBuffer(position, limit));
+            return;
+        }
+
+        final ByteBufferArray array = buffer.toByteBufferArray(position, limit);
+        try {
+            final ByteBuffer[] byteBuffers = array.getArray();
+            final int size = array.size();
+            for (int i = 0; i < size; i++) {
+                apply(byteBuffers[i]);
+            }
+        } finally {
+            array.restore();
+            array.recycle();
+        }
+    }
+
+    /**
+     * XORs the {@link ByteBuffer} content between its position and limit
+     * with the mask, 8 bytes at a time. The mask phase is carried over
+     * from the previous call, so a payload could be (un)masked chunk by chunk.
+     */
+    private void apply(final ByteBuffer bb) {
+        int i = bb.position();
+        final int limit = bb.limit();
+
+        // 8 is a multiple of the mask size, so the mask phase doesn't change
+        // within the word-at-a-time loop
+        if (limit - i >= 8) {
+            final long word = maskWord(bb.order());
+            for (final int wordLimit = limit - 7; i < wordLimit; i += 8) {
+                bb.putLong(i, bb.getLong(i) ^ word);
+            }
+        }
+
+        int idx = index & (Constants.MASK_SIZE - 1);
+        for (; i < limit; i++) {
+            bb.put(i, (byte) (bb.get(i) ^ mask[idx]));
+            idx = (idx + 1) & (Constants.MASK_SIZE - 1);
+        }
+
+        index = idx;
+    }
+
+    /**
+     * Returns the mask, rotated according to the current phase and repeated
+     * twice, as a long in the given {@link ByteOrder}.
+     */
+    private long maskWord(final ByteOrder order) {
+        long word = 0;
+        final int idx = index & (Constants.MASK_SIZE - 1);
+        if (order == ByteOrder.BIG_ENDIAN) {
+            for (int j = 0; j < 8; j++) {
+                word = (word << 8)
+                        | (mask[(idx + j) & (Constants.MASK_SIZE - 1)] & 0xFF);
+            }
+        } else {
+            for (int j = 7; j >= 0; j--) {
+                word = (word << 8)
+                        | (mask[(idx + j) & (Constants.MASK_SIZE - 1)] & 0xFF);
+            }
+        }
+
+        return word;
+    }
 }
@@ -16,9 +16,16 @@
 
 package org.glassfish.grizzly.websockets;
 
+import org.glassfish.grizzly.GrizzlyFuture;
+
 /**
  * The default {@link Broadcaster} optimized to send the same text to a set of
  * clients.
+ * The message is framed once for all the recipients, which don't use
+ * <tt>permessage-deflate</tt>, and compressed and framed once for all the
+ * recipients, which use <tt>permessage-deflate</tt> without the outbound
+ * context takeover. The recipients, whose compression context is taken over
+ * from message to message, get the message compressed individually.
  * NOTE: works with {@link DefaultWebSocket}s and inherited classes.
  * 
  * @author Alexey Stashok
@@ -32,22 +39,17 @@ public class OptimizedBroadcaster implements Broadcaster {
     public void broadcast(final Iterable<? extends WebSocket> recipients,
             final String text) {
         
-        byte[] rawDataToSend = null;
-        
-        for (WebSocket websocket : recipients) {
-            final DefaultWebSocket defaultWebSocket = (DefaultWebSocket) websocket;
-            
-            if (websocket.isConnected()) {
-                if (rawDataToSend == null) {
-                    rawDataToSend = defaultWebSocket.toRawData(text);
-                }
-                
-                try {
-                    defaultWebSocket.sendRaw(rawDataToSend);
-                } catch (WebSocketException ignored) {
-                }
+        broadcast(recipients, new Message() {
+            @Override
+            byte[] toRawData(final DefaultWebSocket websocket) {
+                return websocket.toRawData(text);
             }
-        }
+
+            @Override
+            GrizzlyFuture<DataFrame> send(final DefaultWebSocket websocket) {
+                return websocket.send(text);
+            }
+        });
     }
     
     /**
@@ -57,62 +59,115 @@ public class OptimizedBroadcaster implements Broadcaster {
     public void broadcast(final Iterable<? extends WebSocket> recipients,
             final byte[] binary) {
         
-        byte[] rawDataToSend = null;
-        
-        for (WebSocket websocket : recipients) {
-            final DefaultWebSocket defaultWebSocket = (DefaultWebSocket) websocket;
-            
-            if (websocket.isConnected()) {
-                if (rawDataToSend == null) {
-                    rawDataToSend = defaultWebSocket.toRawData(binary);
-                }
-                
-                try {
-                    defaultWebSocket.sendRaw(rawDataToSend);
-                } catch (WebSocketException ignored) {
-                }
+        broadcast(recipients, new Message() {
+            @Override
+            byte[] toRawData(final DefaultWebSocket websocket) {
+                return websocket.toRawData(binary);
             }
-        }
+
+            @Override
+            GrizzlyFuture<DataFrame> send(final DefaultWebSocket websocket) {
+                return websocket.send(binary);
+            }
+        });
     }
 
     @Override
     public void broadcastFragment(Iterable<? extends WebSocket> recipients,
-            String text, boolean last) {
-        byte[] rawDataToSend = null;
+            final String text, final boolean last) {
         
-        for (WebSocket websocket : recipients) {
-            final DefaultWebSocket defaultWebSocket = (DefaultWebSocket) websocket;
-            
-            if (websocket.isConnected()) {
-                if (rawDataToSend == null) {
-                    rawDataToSend = defaultWebSocket.toRawData(text, last);
-                }
-                
-                try {
-                    defaultWebSocket.sendRaw(rawDataToSend);
-                } catch (WebSocketException ignored) {
-                }
+        broadcast(recipients, new Message() {
+            @Override
+            byte[] toRawData(final DefaultWebSocket websocket) {
+                return websocket.toRawData(text, last);
             }
-        }
+
+            @Override
+            GrizzlyFuture<DataFrame> send(final DefaultWebSocket websocket) {
+                return websocket.stream(last, text);
+            }
+        });
     }
 
     @Override
-    public void broadcastFragment(Iterable<? extends WebSocket> recipients, byte[] binary, boolean last) {
+    public void broadcastFragment(Iterable<? extends WebSocket> recipients,
+            final byte[] binary, final boolean last) {
+        
+        broadcast(recipients, new Message() {
+            @Override
+            byte[] toRawData(final DefaultWebSocket websocket) {
+                return websocket.toRawData(binary, last);
+            }
+
+            @Override
+            GrizzlyFuture<DataFrame> send(final DefaultWebSocket websocket) {
+                return websocket.stream(last, binary, 0, binary.length);
+            }
+        });
+    }
+
+    /**
+     * Sends the message to the recipients.
+     *
+     * @param recipients the recipients
+     * @param message the message to be sent
+     */
+    void broadcast(final Iterable<? extends WebSocket> recipients,
+            final Message message) {
+        
         byte[] rawDataToSend = null;
+        byte[] compressedRawDataToSend = null;
         
         for (WebSocket websocket : recipients) {
             final DefaultWebSocket defaultWebSocket = (DefaultWebSocket) websocket;
             
             if (websocket.isConnected()) {
-                if (rawDataToSend == null) {
-                    rawDataToSend = defaultWebSocket.toRawData(binary, last);
-                }
+                final PerMessageDeflate deflate =
+                        defaultWebSocket.protocolHandler.getPerMessageDeflate();
                 
+                if (deflate != null && !deflate.isOutboundContextReset()) {
+                    // the message depends on the recipient compression context
+                    try {
+                        message.send(defaultWebSocket);
+                    } catch (WebSocketException ignored) {
+                    }
+                    continue;
+                }
+
+                final byte[] rawData;
+                if (deflate == null) {
+                    if (rawDataToSend == null) {
+                        rawDataToSend = message.toRawData(defaultWebSocket);
+                    }
+                    rawData = rawDataToSend;
+                } else {
+                    if (compressedRawDataToSend == null) {
+                        compressedRawDataToSend =
+                                message.toRawData(defaultWebSocket);
+                    }
+                    rawData = compressedRawDataToSend;
+                }
+
                 try {
-                    defaultWebSocket.sendRaw(rawDataToSend);
+                    defaultWebSocket.sendRaw(rawData);
                 } catch (WebSocketException ignored) {
                 }
             }
         }
     }
+
+    /**
+     * The message to be broadcasted.
+     */
+    abstract static class Message {
+        /**
+         * @return the message framed for the given {@link DefaultWebSocket}
+         */
+        abstract byte[] toRawData(DefaultWebSocket websocket);
+
+        /**
+         * Sends the message to the given {@link DefaultWebSocket} individually.
+         */
+        abstract GrizzlyFuture<DataFrame> send(DefaultWebSocket websocket);
+    }
 }
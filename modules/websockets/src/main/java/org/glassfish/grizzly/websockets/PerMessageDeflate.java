@@ -0,0 +1,543 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.websockets;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The <tt>permessage-deflate</tt> WebSocket extension (RFC 7692) negotiated
+ * for a connection.
+ *
+ * The server enables the extension by adding {@link #createExtension()} to the
+ * {@link WebSocketApplication#getSupportedExtensions()}. The
+ * {@link #SERVER_NO_CONTEXT_TAKEOVER} and {@link #CLIENT_NO_CONTEXT_TAKEOVER}
+ * parameters of the supported extension, if present, are always applied to
+ * the negotiated extension. The client offers the extension by adding it to
+ * the {@link HandShake#getExtensions()} before the handshake is initiated.
+ *
+ * Every negotiated connection gets its own {@link Deflater} and
+ * {@link Inflater}, which are borrowed from the shared pools and returned back
+ * once the connection is closed.
+ *
+ * NOTE: the JDK {@link Deflater} always uses the 32K window, so the offers,
+ * which limit the window size of the compressor, are declined.
+ *
+ * @since 2.4.4
+ */
+public final class PerMessageDeflate {
+    public static final String NAME = "permessage-deflate";
+
+    public static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    public static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+    public static final String SERVER_MAX_WINDOW_BITS = "server_max_window_bits";
+    public static final String CLIENT_MAX_WINDOW_BITS = "client_max_window_bits";
+
+    private static final int MIN_WINDOW_BITS = 8;
+    private static final int MAX_WINDOW_BITS = 15;
+
+    // the sync flush marker, which is stripped from the end of the message
+    private static final byte[] TAIL = {0, 0, (byte) 0xFF, (byte) 0xFF};
+
+    private static final int POOL_SIZE = Integer.getInteger(
+            PerMessageDeflate.class.getName() + ".poolSize", 64);
+
+    /**
+     * The default max size of the decompressed inbound message.
+     */
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = Integer.getInteger(
+            PerMessageDeflate.class.getName() + ".maxMessageSize",
+            16 * 1024 * 1024);
+
+    private static final BlockingQueue<Deflater> DEFLATERS =
+            new ArrayBlockingQueue<Deflater>(Math.max(1, POOL_SIZE));
+    private static final BlockingQueue<Inflater> INFLATERS =
+            new ArrayBlockingQueue<Inflater>(Math.max(1, POOL_SIZE));
+
+    private final boolean serverNoContextTakeover;
+    private final boolean clientNoContextTakeover;
+    // the negotiated server_max_window_bits, or -1, if not negotiated
+    private final int serverMaxWindowBits;
+    private final boolean isClient;
+
+    private final Object deflaterSync = new Object();
+    private final Object inflaterSync = new Object();
+    private Deflater deflater;
+    private Inflater inflater;
+    private boolean isReleased;
+
+    private volatile int maxMessageSize = DEFAULT_MAX_MESSAGE_SIZE;
+    // the decompressed size of the inbound message fragments inflated so far
+    private long inboundMessageSize;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    private PerMessageDeflate(final boolean serverNoContextTakeover,
+            final boolean clientNoContextTakeover,
+            final int serverMaxWindowBits, final boolean isClient) {
+        this.serverNoContextTakeover = serverNoContextTakeover;
+        this.clientNoContextTakeover = clientNoContextTakeover;
+        this.serverMaxWindowBits = serverMaxWindowBits;
+        this.isClient = isClient;
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @return the new <tt>permessage-deflate</tt> {@link Extension} without
+     *  parameters.
+     */
+    public static Extension createExtension() {
+        return new Extension(NAME);
+    }
+
+    /**
+     * Server-side negotiation: checks the client offer and returns the
+     * negotiated <tt>PerMessageDeflate</tt>, or <tt>null</tt>, if the offer
+     * can't be accepted.
+     *
+     * @param offer the client offer
+     * @param supported the extension registered by the application, its
+     *  <tt>no_context_takeover</tt> parameters are applied to the result
+     *  (may be <tt>null</tt>)
+     */
+    public static PerMessageDeflate negotiate(final Extension offer,
+            final Extension supported) {
+        if (!NAME.equals(offer.getName())) {
+            return null;
+        }
+
+        boolean serverNoContextTakeover = false;
+        boolean clientNoContextTakeover = false;
+        int serverMaxWindowBits = -1;
+
+        final Set<String> names = new HashSet<String>();
+        for (Extension.Parameter p : offer.getParameters()) {
+            final String name = p.getName();
+            if (!names.add(name)) {
+                return null;
+            }
+
+            if (SERVER_NO_CONTEXT_TAKEOVER.equals(name)) {
+                if (p.getValue() != null) {
+                    return null;
+                }
+                serverNoContextTakeover = true;
+            } else if (CLIENT_NO_CONTEXT_TAKEOVER.equals(name)) {
+                if (p.getValue() != null) {
+                    return null;
+                }
+                clientNoContextTakeover = true;
+            } else if (SERVER_MAX_WINDOW_BITS.equals(name)) {
+                if (parseWindowBits(p.getValue()) != MAX_WINDOW_BITS) {
+                    return null;
+                }
+                // the accepted value has to be echoed in the response
+                serverMaxWindowBits = MAX_WINDOW_BITS;
+            } else if (CLIENT_MAX_WINDOW_BITS.equals(name)) {
+                // the inflater accepts any window size
+                if (p.getValue() != null && parseWindowBits(p.getValue()) == -1) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+
+        if (supported != null) {
+            for (Extension.Parameter p : supported.getParameters()) {
+                if (SERVER_NO_CONTEXT_TAKEOVER.equals(p.getName())) {
+                    serverNoContextTakeover = true;
+                } else if (CLIENT_NO_CONTEXT_TAKEOVER.equals(p.getName())) {
+                    clientNoContextTakeover = true;
+                }
+            }
+        }
+
+        return new PerMessageDeflate(serverNoContextTakeover,
+                clientNoContextTakeover, serverMaxWindowBits, false);
+    }
+
+    /**
+     * Client-side negotiation: checks the server response and returns the
+     * negotiated <tt>PerMessageDeflate</tt>.
+     *
+     * @param response the extension returned by the server
+     *
+     * @throws HandshakeException if the response can't be accepted
+     */
+    public static PerMessageDeflate accept(final Extension response) {
+        boolean serverNoContextTakeover = false;
+        boolean clientNoContextTakeover = false;
+        int serverMaxWindowBits = -1;
+
+        final Set<String> names = new HashSet<String>();
+        for (Extension.Parameter p : response.getParameters()) {
+            final String name = p.getName();
+            if (!names.add(name)) {
+                throw new HandshakeException("Duplicate " + NAME
+                        + " parameter: " + name);
+            }
+
+            if (SERVER_NO_CONTEXT_TAKEOVER.equals(name)
+                    && p.getValue() == null) {
+                serverNoContextTakeover = true;
+            } else if (CLIENT_NO_CONTEXT_TAKEOVER.equals(name)
+                    && p.getValue() == null) {
+                clientNoContextTakeover = true;
+            } else if (SERVER_MAX_WINDOW_BITS.equals(name)
+                    && parseWindowBits(p.getValue()) != -1) {
+                // the inflater accepts any window size
+                serverMaxWindowBits = parseWindowBits(p.getValue());
+            } else if (CLIENT_MAX_WINDOW_BITS.equals(name)
+                    && parseWindowBits(p.getValue()) == MAX_WINDOW_BITS) {
+                // the deflater window is always 32K
+            } else {
+                throw new HandshakeException("Unsupported " + NAME
+                        + " parameter: " + p);
+            }
+        }
+
+        return new PerMessageDeflate(serverNoContextTakeover,
+                clientNoContextTakeover, serverMaxWindowBits, true);
+    }
+
+    /**
+     * @return the {@link Extension}, which represents the negotiated
+     *  parameters.
+     */
+    public Extension toExtension() {
+        final Extension extension = createExtension();
+        if (serverNoContextTakeover) {
+            extension.getParameters().add(
+                    new Extension.Parameter(SERVER_NO_CONTEXT_TAKEOVER, null));
+        }
+        if (clientNoContextTakeover) {
+            extension.getParameters().add(
+                    new Extension.Parameter(CLIENT_NO_CONTEXT_TAKEOVER, null));
+        }
+        if (serverMaxWindowBits != -1) {
+            extension.getParameters().add(
+                    new Extension.Parameter(SERVER_MAX_WINDOW_BITS,
+                            String.valueOf(serverMaxWindowBits)));
+        }
+
+        return extension;
+    }
+
+    public boolean isServerNoContextTakeover() {
+        return serverNoContextTakeover;
+    }
+
+    public boolean isClientNoContextTakeover() {
+        return clientNoContextTakeover;
+    }
+
+    /**
+     * @return the negotiated <tt>server_max_window_bits</tt>, or <tt>-1</tt>,
+     *  if the parameter wasn't negotiated.
+     */
+    public int getServerMaxWindowBits() {
+        return serverMaxWindowBits;
+    }
+
+    /**
+     * @return <tt>true</tt>, if every outbound message is compressed with the
+     *  fresh compression context, so the compressed message doesn't depend on
+     *  the messages sent before and could be shared among connections.
+     */
+    public boolean isOutboundContextReset() {
+        return isClient ? clientNoContextTakeover : serverNoContextTakeover;
+    }
+
+    /**
+     * @return the max size of the decompressed inbound message, or <tt>-1</tt>
+     *  if the size is not limited.
+     */
+    public int getMaxMessageSize() {
+        return maxMessageSize;
+    }
+
+    /**
+     * Sets the max size of the decompressed inbound message. If the message
+     * inflates beyond the limit, the decompression fails with the
+     * {@link MessageTooBigError} and the connection is closed with the
+     * <tt>1009</tt> status code.
+     *
+     * @param maxMessageSize the max size in bytes, or <tt>-1</tt> to not limit
+     *  the size
+     */
+    public void setMaxMessageSize(final int maxMessageSize) {
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    /**
+     * Compresses the outbound message (fragment) payload.
+     *
+     * @param payload the payload
+     * @param last <tt>true</tt>, if it's the last fragment of the message
+     *
+     * @return the compressed payload
+     */
+    public byte[] compress(final byte[] payload, final boolean last) {
+        synchronized (deflaterSync) {
+            if (deflater == null) {
+                checkReleased();
+                deflater = obtainDeflater();
+            }
+
+            if (payload.length == 0) {
+                // the deflater flushes nothing for the empty input, so the
+                // empty stored block header is sent instead (RFC 7692,
+                // 7.2.3.6), it's completed by the receiver's tail
+                if (last && isOutboundContextReset()) {
+                    deflater.reset();
+                }
+
+                return last ? new byte[1] : payload;
+            }
+
+            deflater.setInput(payload);
+
+            byte[] out = new byte[Math.max(64, (payload.length >> 1) + 16)];
+            int len = 0;
+            for (;;) {
+                final int available = out.length - len;
+                len += deflater.deflate(out, len, available, Deflater.SYNC_FLUSH);
+                if (len < out.length) {
+                    break;
+                }
+                out = Arrays.copyOf(out, out.length << 1);
+            }
+
+            if (last) {
+                if (endsWithTail(out, len)) {
+                    len -= TAIL.length;
+                }
+
+                if (isOutboundContextReset()) {
+                    deflater.reset();
+                }
+            }
+
+            return len == out.length ? out : Arrays.copyOf(out, len);
+        }
+    }
+
+    /**
+     * Decompresses the inbound message (fragment) payload.
+     *
+     * @param payload the compressed payload
+     * @param last <tt>true</tt>, if it's the last fragment of the message
+     *
+     * @return the decompressed payload
+     *
+     * @throws ProtocolError if the payload is not a valid deflate data
+     * @throws MessageTooBigError if the decompressed message exceeds the
+     *  {@link #getMaxMessageSize()}
+     */
+    public byte[] decompress(final byte[] payload, final boolean last) {
+        synchronized (inflaterSync) {
+            if (inflater == null) {
+                checkReleased();
+                inflater = obtainInflater();
+            }
+
+            final int maxSize = maxMessageSize;
+            // the room left in the message, one extra byte detects the overflow
+            final long room = maxSize < 0
+                    ? Integer.MAX_VALUE
+                    : Math.min(Integer.MAX_VALUE,
+                            (long) maxSize - inboundMessageSize + 1);
+
+            byte[] out = new byte[(int) Math.min(room,
+                    Math.max(64, (long) payload.length << 1))];
+            int len = 0;
+            boolean isTailAdded = !last;
+            try {
+                inflater.setInput(payload);
+                for (;;) {
+                    if (len == out.length) {
+                        if (len >= room) {
+                            throw messageTooBig(maxSize);
+                        }
+                        out = Arrays.copyOf(out,
+                                (int) Math.min(room, (long) out.length << 1));
+                    }
+
+                    final int n = inflater.inflate(out, len, out.length - len);
+                    len += n;
+                    if (n != 0) {
+                        continue;
+                    }
+
+                    if (inflater.needsDictionary()) {
+                        throw new ProtocolError("Invalid compressed data");
+                    }
+
+                    if (inflater.finished()) {
+                        // the peer has closed the deflate stream with the
+                        // final block, so the context can't be taken over
+                        inflater.reset();
+                        break;
+                    }
+
+                    if (isTailAdded || !inflater.needsInput()) {
+                        break;
+                    }
+
+                    inflater.setInput(TAIL);
+                    isTailAdded = true;
+                }
+            } catch (DataFormatException e) {
+                throw new ProtocolError("Invalid compressed data: "
+                        + e.getMessage());
+            }
+
+            if (len >= room) {
+                throw messageTooBig(maxSize);
+            }
+
+            if (last) {
+                inboundMessageSize = 0;
+                if (isClient
+                        ? serverNoContextTakeover
+                        : clientNoContextTakeover) {
+                    inflater.reset();
+                }
+            } else {
+                inboundMessageSize += len;
+            }
+
+            return len == out.length ? out : Arrays.copyOf(out, len);
+        }
+    }
+
+    /**
+     * Returns the {@link Deflater} and {@link Inflater} back to the pools.
+     * The method is called once the connection is closed.
+     */
+    public void release() {
+        synchronized (deflaterSync) {
+            isReleased = true;
+            if (deflater != null) {
+                final Deflater d = deflater;
+                deflater = null;
+                d.reset();
+                if (!DEFLATERS.offer(d)) {
+                    d.end();
+                }
+            }
+        }
+
+        synchronized (inflaterSync) {
+            isReleased = true;
+            if (inflater != null) {
+                final Inflater i = inflater;
+                inflater = null;
+                i.reset();
+                if (!INFLATERS.offer(i)) {
+                    i.end();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toExtension().toString();
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private void checkReleased() {
+        if (isReleased) {
+            throw new WebSocketException(NAME + " has been released");
+        }
+    }
+
+    private MessageTooBigError messageTooBig(final int maxSize) {
+        // the rest of the message can't be inflated anymore
+        inboundMessageSize = 0;
+        inflater.reset();
+        return new MessageTooBigError("Decompressed message exceeds "
+                + maxSize + " bytes");
+    }
+
+    private static Deflater obtainDeflater() {
+        final Deflater d = DEFLATERS.poll();
+        return d != null
+                ? d
+                : new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+
+    private static Inflater obtainInflater() {
+        final Inflater i = INFLATERS.poll();
+        return i != null ? i : new Inflater(true);
+    }
+
+    private static boolean endsWithTail(final byte[] out, final int len) {
+        if (len < TAIL.length) {
+            return false;
+        }
+
+        for (int i = 0; i < TAIL.length; i++) {
+            if (out[len - TAIL.length + i] != TAIL[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the window bits value, or <tt>-1</tt>, if the value is invalid
+     */
+    private static int parseWindowBits(final String value) {
+        if (value == null) {
+            return -1;
+        }
+
+        try {
+            final int bits = Integer.parseInt(unquote(value));
+            return bits >= MIN_WINDOW_BITS && bits <= MAX_WINDOW_BITS
+                    ? bits
+                    : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String unquote(final String value) {
+        return value.length() > 1 && value.charAt(0) == '"'
+                && value.charAt(value.length() - 1) == '"'
+                ? value.substring(1, value.length() - 1)
+                : value;
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.glassfish.grizzly.websockets;
 
+import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
@@ -24,10 +25,13 @@ import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CoderResult;
 
 import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.CloseListener;
+import org.glassfish.grizzly.Closeable;
 import org.glassfish.grizzly.CompletionHandler;
 import org.glassfish.grizzly.Connection;
 import org.glassfish.grizzly.EmptyCompletionHandler;
 import org.glassfish.grizzly.GrizzlyFuture;
+import org.glassfish.grizzly.ICloseType;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
 import org.glassfish.grizzly.http.HttpContent;
 import org.glassfish.grizzly.http.HttpRequestPacket;
@@ -50,6 +54,7 @@ public abstract class ProtocolHandler {
     protected final CharsetDecoder currentDecoder = utf8.newDecoder();
     protected ByteBuffer remainder;
     protected WebSocketMappingData mappingData;
+    protected volatile PerMessageDeflate perMessageDeflate;
     
     public ProtocolHandler(boolean maskData) {
         this.maskData = maskData;
@@ -66,6 +71,7 @@ public abstract class ProtocolHandler {
                 ((HttpRequestPacket) request.getHttpHeader()).getResponse();
         
         handshake.respond(ctx, app, response);
+        setPerMessageDeflate(handshake.getPerMessageDeflate());
         return handshake;
     }
 
@@ -114,6 +120,37 @@ public abstract class ProtocolHandler {
         return maskData;
     }
 
+    /**
+     * @return the negotiated <tt>permessage-deflate</tt> extension, or
+     *  <tt>null</tt>, if the messages are not compressed.
+     *
+     * @since 2.4.4
+     */
+    public PerMessageDeflate getPerMessageDeflate() {
+        return perMessageDeflate;
+    }
+
+    /**
+     * Sets the negotiated <tt>permessage-deflate</tt> extension. The
+     * extension resources are released once the {@link Connection} is closed.
+     *
+     * @param perMessageDeflate the negotiated extension, may be <tt>null</tt>
+     *
+     * @since 2.4.4
+     */
+    public void setPerMessageDeflate(final PerMessageDeflate perMessageDeflate) {
+        this.perMessageDeflate = perMessageDeflate;
+        if (perMessageDeflate != null && connection != null) {
+            connection.addCloseListener(new CloseListener<Closeable, ICloseType>() {
+                @Override
+                public void onClosed(final Closeable closeable,
+                        final ICloseType type) throws IOException {
+                    perMessageDeflate.release();
+                }
+            });
+        }
+    }
+
     public abstract byte[] frame(DataFrame frame);
 /*
     public void readFrame() {
@@ -194,8 +231,7 @@ public abstract class ProtocolHandler {
         }
         
         final FutureImpl<DataFrame> localFuture = SafeFutureImpl.create();
-
-        localConnection.write(frame, new EmptyCompletionHandler() {
+        final EmptyCompletionHandler writeHandler = new EmptyCompletionHandler() {
             @Override
             public void completed(final Object result) {
                 if (completionHandler != null) {
@@ -213,7 +249,17 @@ public abstract class ProtocolHandler {
 
                 localFuture.failure(throwable);
             }
-        });
+        };
+
+        final PerMessageDeflate deflate = perMessageDeflate;
+        if (deflate != null && !deflate.isOutboundContextReset()) {
+            // the frames have to be written in the order they were compressed
+            synchronized (deflate) {
+                localConnection.write(frame, writeHandler);
+            }
+        } else {
+            localConnection.write(frame, writeHandler);
+        }
 
         return localFuture;
     }
@@ -0,0 +1,579 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.websockets;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.EmptyCompletionHandler;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.GrizzlyFuture;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.nio.NIOConnection;
+import org.glassfish.grizzly.nio.SelectorHandler;
+import org.glassfish.grizzly.nio.SelectorRunner;
+
+/**
+ * The {@link Broadcaster}, which frames the message once into a {@link Buffer}
+ * shared by all the recipients and writes it from the recipients' own
+ * selector threads.
+ *
+ * Every recipient gets a read-only view of the shared {@link Buffer}, so the
+ * frame is never copied. The shared {@link Buffer} is reference-counted and
+ * disposed once the last recipient write is completed. Recipients are grouped
+ * by their {@link SelectorRunner}, so each selector thread writes its own
+ * subset of the recipients with one task per broadcast, instead of every
+ * write being performed (and contended) by the broadcasting thread.
+ *
+ * The recipients, which use <tt>permessage-deflate</tt> with the outbound
+ * context takeover, get the message compressed and sent individually (see
+ * {@link OptimizedBroadcaster}).
+ *
+ * The broadcaster keeps the cumulative delivery and backpressure counters and
+ * reports {@link Statistics} of each broadcast to the
+ * {@link StatisticsListener}, if one is set, once all the writes initiated by
+ * the broadcast are completed.
+ *
+ * NOTE: works with {@link DefaultWebSocket}s and inherited classes.
+ *
+ * @since 2.4.4
+ */
+public class SharedBufferBroadcaster extends OptimizedBroadcaster {
+    private static final Logger LOGGER = Grizzly.logger(SharedBufferBroadcaster.class);
+
+    private final boolean dropOnBackpressure;
+    private volatile StatisticsListener statisticsListener;
+
+    private final AtomicLong broadcastsCount = new AtomicLong();
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong backpressuredCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    public SharedBufferBroadcaster() {
+        this(false);
+    }
+
+    /**
+     * @param dropOnBackpressure if <tt>true</tt>, the message is not sent to
+     *  the recipients, whose asynchronous write queue has exceeded its limit,
+     *  otherwise the message is sent, but the recipient is reported as
+     *  backpressured
+     */
+    public SharedBufferBroadcaster(final boolean dropOnBackpressure) {
+        this.dropOnBackpressure = dropOnBackpressure;
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    public boolean isDropOnBackpressure() {
+        return dropOnBackpressure;
+    }
+
+    public StatisticsListener getStatisticsListener() {
+        return statisticsListener;
+    }
+
+    /**
+     * Sets the {@link StatisticsListener} to be notified, once a broadcast is
+     * completed.
+     */
+    public void setStatisticsListener(final StatisticsListener statisticsListener) {
+        this.statisticsListener = statisticsListener;
+    }
+
+    /**
+     * @return the number of broadcasts initiated
+     */
+    public long getBroadcastsCount() {
+        return broadcastsCount.get();
+    }
+
+    /**
+     * @return the number of the messages successfully written
+     */
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    /**
+     * @return the number of the messages, whose write has failed
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * @return the number of the messages offered to the recipients, whose
+     *  asynchronous write queue has exceeded its limit
+     */
+    public long getBackpressuredCount() {
+        return backpressuredCount.get();
+    }
+
+    /**
+     * @return the number of the messages dropped due to backpressure
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+
+    // --------------------------------------- Methods from OptimizedBroadcaster
+
+
+    @Override
+    void broadcast(final Iterable<? extends WebSocket> recipients,
+            final Message message) {
+        broadcastsCount.incrementAndGet();
+        final Tracker tracker = new Tracker();
+
+        final Map<SelectorRunner, List<DefaultWebSocket>> plainGroups =
+                new IdentityHashMap<SelectorRunner, List<DefaultWebSocket>>();
+        final Map<SelectorRunner, List<DefaultWebSocket>> compressedGroups =
+                new IdentityHashMap<SelectorRunner, List<DefaultWebSocket>>();
+        SharedFrame plainFrame = null;
+        SharedFrame compressedFrame = null;
+
+        try {
+            for (WebSocket websocket : recipients) {
+                tracker.recipients++;
+                final DefaultWebSocket defaultWebSocket = (DefaultWebSocket) websocket;
+
+                if (!websocket.isConnected()) {
+                    tracker.skipped++;
+                    continue;
+                }
+
+                final PerMessageDeflate deflate =
+                        defaultWebSocket.protocolHandler.getPerMessageDeflate();
+                if (deflate != null && !deflate.isOutboundContextReset()) {
+                    // the message depends on the recipient compression context
+                    sendIndividually(defaultWebSocket, message, tracker);
+                    continue;
+                }
+
+                if (deflate == null) {
+                    if (plainFrame == null) {
+                        plainFrame = new SharedFrame(
+                                message.toRawData(defaultWebSocket), tracker);
+                    }
+                    addToGroup(plainGroups, defaultWebSocket);
+                } else {
+                    if (compressedFrame == null) {
+                        compressedFrame = new SharedFrame(
+                                message.toRawData(defaultWebSocket), tracker);
+                    }
+                    addToGroup(compressedGroups, defaultWebSocket);
+                }
+            }
+
+            tracker.groups = plainGroups.size() + compressedGroups.size();
+            if (plainFrame != null) {
+                tracker.sharedFrames++;
+                writeGroups(plainGroups, plainFrame, tracker);
+            }
+            if (compressedFrame != null) {
+                tracker.sharedFrames++;
+                writeGroups(compressedGroups, compressedFrame, tracker);
+            }
+        } finally {
+            if (plainFrame != null) {
+                plainFrame.release();
+            }
+            if (compressedFrame != null) {
+                compressedFrame.release();
+            }
+
+            tracker.done();
+        }
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private static void addToGroup(
+            final Map<SelectorRunner, List<DefaultWebSocket>> groups,
+            final DefaultWebSocket websocket) {
+        final Connection connection = websocket.protocolHandler.getConnection();
+        final SelectorRunner runner = connection instanceof NIOConnection
+                ? ((NIOConnection) connection).getSelectorRunner()
+                : null;
+
+        List<DefaultWebSocket> group = groups.get(runner);
+        if (group == null) {
+            group = new ArrayList<DefaultWebSocket>();
+            groups.put(runner, group);
+        }
+
+        group.add(websocket);
+    }
+
+    private void writeGroups(
+            final Map<SelectorRunner, List<DefaultWebSocket>> groups,
+            final SharedFrame frame, final Tracker tracker) {
+
+        for (Map.Entry<SelectorRunner, List<DefaultWebSocket>> entry : groups.entrySet()) {
+            final SelectorRunner runner = entry.getKey();
+            final List<DefaultWebSocket> group = entry.getValue();
+
+            if (runner == null) {
+                write(group, frame, tracker);
+                continue;
+            }
+
+            // keep the frame and the broadcast in progress until the group
+            // is processed by the selector thread
+            frame.retain();
+            tracker.begin();
+
+            final SelectorHandler selectorHandler =
+                    runner.getTransport().getSelectorHandler();
+            selectorHandler.execute(runner, new SelectorHandler.Task() {
+                @Override
+                public boolean run() {
+                    write(group, frame, tracker);
+                    return true;
+                }
+            }, new EmptyCompletionHandler<SelectorHandler.Task>() {
+                @Override
+                public void completed(final SelectorHandler.Task result) {
+                    frame.release();
+                    tracker.done();
+                }
+
+                @Override
+                public void failed(final Throwable throwable) {
+                    LOGGER.log(Level.FINE, "Broadcast task failed", throwable);
+                    frame.release();
+                    tracker.done();
+                }
+
+                @Override
+                public void cancelled() {
+                    tracker.failed.addAndGet(group.size());
+                    failedCount.addAndGet(group.size());
+                    frame.release();
+                    tracker.done();
+                }
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(final List<DefaultWebSocket> group,
+            final SharedFrame frame, final Tracker tracker) {
+
+        for (DefaultWebSocket websocket : group) {
+            final Connection connection = websocket.protocolHandler.getConnection();
+            if (!connection.canWrite()) {
+                tracker.backpressured.incrementAndGet();
+                backpressuredCount.incrementAndGet();
+                if (dropOnBackpressure) {
+                    tracker.dropped.incrementAndGet();
+                    droppedCount.incrementAndGet();
+                    continue;
+                }
+            }
+
+            frame.retain();
+            tracker.begin();
+            try {
+                connection.write(frame.view(), frame);
+            } catch (Exception e) {
+                frame.failed(e);
+            }
+        }
+    }
+
+    private void sendIndividually(final DefaultWebSocket websocket,
+            final Message message, final Tracker tracker) {
+        tracker.individual++;
+        tracker.begin();
+
+        final GrizzlyFuture<DataFrame> future;
+        try {
+            future = message.send(websocket);
+        } catch (RuntimeException e) {
+            onFailed(tracker, e);
+            return;
+        }
+
+        future.addCompletionHandler(new EmptyCompletionHandler<DataFrame>() {
+            @Override
+            public void completed(final DataFrame result) {
+                onDelivered(tracker);
+            }
+
+            @Override
+            public void failed(final Throwable throwable) {
+                onFailed(tracker, throwable);
+            }
+
+            @Override
+            public void cancelled() {
+                onFailed(tracker, null);
+            }
+        });
+    }
+
+    private void onDelivered(final Tracker tracker) {
+        tracker.delivered.incrementAndGet();
+        deliveredCount.incrementAndGet();
+        tracker.done();
+    }
+
+    private void onFailed(final Tracker tracker, final Throwable throwable) {
+        if (throwable != null && LOGGER.isLoggable(Level.FINEST)) {
+            LOGGER.log(Level.FINEST, "Broadcast write failed", throwable);
+        }
+
+        tracker.failed.incrementAndGet();
+        failedCount.incrementAndGet();
+        tracker.done();
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    /**
+     * The listener, which is notified once all the writes initiated by a
+     * broadcast are completed.
+     */
+    public interface StatisticsListener {
+        void onBroadcastCompleted(Statistics statistics);
+    }
+
+    /**
+     * The statistics of a single broadcast.
+     */
+    public static final class Statistics {
+        private final int recipients;
+        private final int skipped;
+        private final int individual;
+        private final int sharedFrames;
+        private final int groups;
+        private final int delivered;
+        private final int failed;
+        private final int backpressured;
+        private final int dropped;
+        private final long durationNanos;
+
+        private Statistics(final Tracker tracker) {
+            recipients = tracker.recipients;
+            skipped = tracker.skipped;
+            individual = tracker.individual;
+            sharedFrames = tracker.sharedFrames;
+            groups = tracker.groups;
+            delivered = tracker.delivered.get();
+            failed = tracker.failed.get();
+            backpressured = tracker.backpressured.get();
+            dropped = tracker.dropped.get();
+            durationNanos = System.nanoTime() - tracker.startNanos;
+        }
+
+        /**
+         * @return the number of the recipients passed to the broadcast
+         */
+        public int getRecipients() {
+            return recipients;
+        }
+
+        /**
+         * @return the number of the recipients, which were not connected
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * @return the number of the recipients, which got the message framed
+         *  individually
+         */
+        public int getIndividual() {
+            return individual;
+        }
+
+        /**
+         * @return the number of the shared frames built
+         */
+        public int getSharedFrames() {
+            return sharedFrames;
+        }
+
+        /**
+         * @return the number of the selector thread groups
+         */
+        public int getGroups() {
+            return groups;
+        }
+
+        /**
+         * @return the number of the messages successfully written
+         */
+        public int getDelivered() {
+            return delivered;
+        }
+
+        /**
+         * @return the number of the messages, whose write has failed
+         */
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return the number of the recipients, whose asynchronous write queue
+         *  has exceeded its limit
+         */
+        public int getBackpressured() {
+            return backpressured;
+        }
+
+        /**
+         * @return the number of the recipients the message was not sent to due
+         *  to backpressure
+         */
+        public int getDropped() {
+            return dropped;
+        }
+
+        /**
+         * @return the time between the broadcast start and the last write
+         *  completion in nanoseconds
+         */
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{"
+                    + "recipients=" + recipients
+                    + ", skipped=" + skipped
+                    + ", individual=" + individual
+                    + ", sharedFrames=" + sharedFrames
+                    + ", groups=" + groups
+                    + ", delivered=" + delivered
+                    + ", failed=" + failed
+                    + ", backpressured=" + backpressured
+                    + ", dropped=" + dropped
+                    + ", durationNanos=" + durationNanos
+                    + '}';
+        }
+    }
+
+    /**
+     * Tracks the writes of a single broadcast in progress.
+     */
+    private final class Tracker {
+        private final long startNanos = System.nanoTime();
+
+        // the number of operations in progress, 1 stands for the broadcast
+        // initiator itself
+        private final AtomicInteger pending = new AtomicInteger(1);
+
+        // the fields below are modified by the broadcasting thread only
+        private int recipients;
+        private int skipped;
+        private int individual;
+        private int sharedFrames;
+        private int groups;
+
+        private final AtomicInteger delivered = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger backpressured = new AtomicInteger();
+        private final AtomicInteger dropped = new AtomicInteger();
+
+        void begin() {
+            pending.incrementAndGet();
+        }
+
+        void done() {
+            if (pending.decrementAndGet() == 0) {
+                final StatisticsListener listener = statisticsListener;
+                if (listener != null) {
+                    listener.onBroadcastCompleted(new Statistics(this));
+                }
+            }
+        }
+    }
+
+    /**
+     * The frame shared by all the recipients, it serves as the completion
+     * handler of all the recipient writes as well.
+     */
+    private final class SharedFrame extends EmptyCompletionHandler {
+        private final Buffer buffer;
+        private final Tracker tracker;
+
+        SharedFrame(final byte[] rawData, final Tracker tracker) {
+            this.tracker = tracker;
+            // the buffer's own reference stands for the broadcast initiator
+            buffer = Buffers.wrap(null, rawData);
+            buffer.allowBufferDispose(true);
+        }
+
+        Buffer view() {
+            final Buffer view = buffer.asReadOnlyBuffer();
+            view.allowBufferDispose(false);
+            return view;
+        }
+
+        void retain() {
+            buffer.retain();
+        }
+
+        void release() {
+            buffer.release();
+        }
+
+        @Override
+        public void completed(final Object result) {
+            release();
+            onDelivered(tracker);
+        }
+
+        @Override
+        public void failed(final Throwable throwable) {
+            release();
+            onFailed(tracker, throwable);
+        }
+
+        @Override
+        public void cancelled() {
+            release();
+            onFailed(tracker, null);
+        }
+    }
+}
@@ -169,6 +169,9 @@ public abstract class WebSocketApplication extends WebSocketAdapter {
      * The {@link Extension}s added to this {@link List} should not include
      * any {@link Extension.Parameter}s as they will be ignored.  This is used
      * exclusively for matching the requested extensions.
+     * The only exception is {@link PerMessageDeflate#NAME}, whose
+     * <tt>no_context_takeover</tt> parameters, if present, are applied to
+     * every negotiated connection.
      * 
      * @return the websocket extensions supported by this
      *  <code>WebSocketApplication</code>.
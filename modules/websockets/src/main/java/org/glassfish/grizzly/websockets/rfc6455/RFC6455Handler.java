@@ -24,6 +24,7 @@ import org.glassfish.grizzly.websockets.DataFrame;
 import org.glassfish.grizzly.websockets.FrameType;
 import org.glassfish.grizzly.websockets.HandShake;
 import org.glassfish.grizzly.websockets.Masker;
+import org.glassfish.grizzly.websockets.PerMessageDeflate;
 import org.glassfish.grizzly.websockets.ProtocolError;
 import org.glassfish.grizzly.websockets.ProtocolHandler;
 import org.glassfish.grizzly.websockets.frametypes.BinaryFrameType;
@@ -40,6 +41,9 @@ public class RFC6455Handler extends ProtocolHandler {
 
     private final ParsingState state = new ParsingState();
 
+    // true, if the inbound message being parsed is compressed
+    private boolean inCompressedMessage;
+
     // ------------------------------------------------------------ Constructors
 
 
@@ -65,7 +69,16 @@ public class RFC6455Handler extends ProtocolHandler {
     @Override
     public byte[] frame(DataFrame frame) {
         byte opcode = checkForLastFrame(frame, getOpcode(frame.getType()));
-        final byte[] bytes = frame.getType().getBytes(frame);
+        byte[] bytes = frame.getType().getBytes(frame);
+
+        final PerMessageDeflate deflate = perMessageDeflate;
+        if (deflate != null && !isControlFrame(opcode)) {
+            bytes = deflate.compress(bytes, frame.isLast());
+            if ((opcode & 0x0F) != 0) {
+                // RSV1 marks the first frame of the compressed message
+                opcode |= 0x40;
+            }
+        }
         final byte[] lengthBytes = encodeLength(bytes.length);
 
         int length = 1 + lengthBytes.length + bytes.length + (maskData
@@ -76,15 +89,14 @@ public class RFC6455Handler extends ProtocolHandler {
         final byte[] packet = new byte[length];
         packet[0] = opcode;
         System.arraycopy(lengthBytes, 0, packet, 1, lengthBytes.length);
+        System.arraycopy(bytes, 0, packet, payloadStart, bytes.length);
         if (maskData) {
             Masker masker = new Masker();
             packet[1] |= 0x80;
-            masker.mask(packet, payloadStart, bytes);
+            masker.mask(packet, payloadStart, bytes.length);
             System.arraycopy(masker.getMask(), 0, packet,
                              payloadStart - Constants.MASK_SIZE,
                              Constants.MASK_SIZE);
-        } else {
-            System.arraycopy(bytes, 0, packet, payloadStart, bytes.length);
         }
         return packet;
     }
@@ -102,15 +114,20 @@ public class RFC6455Handler extends ProtocolHandler {
                     }
 
                     byte opcode = buffer.get();
-                    boolean rsvBitSet = isBitSet(opcode, 6)
-                            || isBitSet(opcode, 5)
+                    final boolean rsv1BitSet = isBitSet(opcode, 6);
+                    boolean rsvBitSet = isBitSet(opcode, 5)
                             || isBitSet(opcode, 4);
                     if (rsvBitSet) {
                         throw new ProtocolError("RSV bit(s) incorrectly set.");
                     }
                     state.finalFragment = isBitSet(opcode, 7);
                     state.controlFrame = isControlFrame(opcode);
-                    state.opcode = (byte) (opcode & 0x7f);
+                    state.opcode = (byte) (opcode & 0x0f);
+                    if (rsv1BitSet && (perMessageDeflate == null
+                            || state.controlFrame
+                            || isContinuationFrame(state.opcode))) {
+                        throw new ProtocolError("RSV bit(s) incorrectly set.");
+                    }
                     state.frameType = valueOf(inFragmentedType, state.opcode);
                     if (!state.finalFragment && state.controlFrame) {
                         throw new ProtocolError("Fragmented control frame");
@@ -136,6 +153,10 @@ public class RFC6455Handler extends ProtocolHandler {
                                 inFragmentedType = state.opcode;
                             }
                         }
+                        if (!isContinuationFrame(state.opcode)) {
+                            inCompressedMessage = rsv1BitSet;
+                        }
+                        state.compressed = inCompressedMessage;
                     }
                     byte lengthCode = buffer.get();
 
@@ -182,14 +203,22 @@ public class RFC6455Handler extends ProtocolHandler {
                         return null;
                     }
 
+                    // unmask the payload in place, then copy it out at once
+                    final int payloadStart = buffer.position();
+                    state.masker.unmask(buffer, payloadStart,
+                            payloadStart + (int) state.length);
                     state.masker.setBuffer(buffer);
-                    final byte[] data = state.masker.unmask((int) state.length);
+                    byte[] data = state.masker.get((int) state.length);
                     if (data.length != state.length) {
                         throw new ProtocolError(String.format(
                                 "Data read (%s) is not the expected" +
                                         " size (%s)", data.length,
                                 state.length));
                     }
+                    if (state.compressed) {
+                        data = perMessageDeflate.decompress(data,
+                                state.finalFragment);
+                    }
                     dataFrame =
                             state.frameType.create(state.finalFragment, data);
 
@@ -294,6 +323,7 @@ public class RFC6455Handler extends ProtocolHandler {
         Masker masker;
         boolean finalFragment;
         boolean controlFrame;
+        boolean compressed;
         private byte lengthCode = -1;
 
         void recycle() {
@@ -305,6 +335,7 @@ public class RFC6455Handler extends ProtocolHandler {
             masker = null;
             finalFragment = false;
             controlFrame = false;
+            compressed = false;
             frameType = null;
         }
     }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.websockets;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.BuffersBuffer;
+import org.glassfish.grizzly.memory.ByteBufferWrapper;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.websockets.frametypes.BinaryFrameType;
+import org.glassfish.grizzly.websockets.rfc6455.RFC6455Handler;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test word-at-a-time {@link Masker} operations.
+ */
+public class MaskerTest {
+    private static final byte[] MASK = {(byte) 0x8a, 0x13, (byte) 0xf0, 0x5c};
+
+    private final Random random = new Random(1234);
+
+    @Test
+    public void testHeapBuffer() {
+        for (int size = 0; size < 40; size++) {
+            final byte[] payload = payload(size);
+            final Buffer buffer = Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER,
+                    payload.clone());
+            check(payload, buffer, 0);
+        }
+    }
+
+    @Test
+    public void testDirectBuffer() {
+        for (final ByteOrder order : new ByteOrder[]{
+                ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            for (int size = 0; size < 40; size++) {
+                final byte[] payload = payload(size);
+                final ByteBuffer bb = ByteBuffer.allocateDirect(size + 3);
+                bb.order(order);
+                bb.position(3);
+                bb.put(payload);
+                bb.position(3);
+                check(payload, new ByteBufferWrapper(bb), 3);
+            }
+        }
+    }
+
+    @Test
+    public void testCompositeBuffer() {
+        final byte[] payload = payload(1000);
+        int offset = 0;
+        final BuffersBuffer composite = BuffersBuffer.create();
+        for (int chunk = 1; offset < payload.length; chunk += 3) {
+            final int len = Math.min(chunk, payload.length - offset);
+            composite.append(Buffers.wrap(null,
+                    Arrays.copyOfRange(payload, offset, offset + len)));
+            offset += len;
+        }
+
+        check(payload, composite, 0);
+    }
+
+    @Test
+    public void testChunkedUnmasking() {
+        final byte[] payload = payload(100);
+        final Buffer buffer = Buffers.wrap(null, payload.clone());
+        final Masker masker = masker();
+        for (int pos = 0; pos < payload.length; pos += 7) {
+            masker.unmask(buffer, pos, Math.min(pos + 7, payload.length));
+        }
+
+        final byte[] result = new byte[payload.length];
+        buffer.get(result);
+        assertArrayEquals(reference(payload), result);
+    }
+
+    @Test
+    public void testFrameRoundTrip() {
+        final byte[] payload = payload(70000);
+        final byte[] packet = new RFC6455Handler(true).frame(
+                new DataFrame(new BinaryFrameType(), payload));
+
+        final Buffer buffer = Buffers.wrap(null, packet);
+        final DataFrame frame = new RFC6455Handler(false).unframe(buffer);
+        assertArrayEquals(payload, frame.getBytes());
+        assertEquals(0, buffer.remaining());
+    }
+
+    private void check(final byte[] payload, final Buffer buffer,
+            final int position) {
+        masker().unmask(buffer, position, position + payload.length);
+
+        assertEquals(position, buffer.position());
+        final byte[] result = new byte[payload.length];
+        buffer.get(result);
+        assertArrayEquals(reference(payload), result);
+    }
+
+    private byte[] payload(final int size) {
+        final byte[] payload = new byte[size];
+        random.nextBytes(payload);
+        return payload;
+    }
+
+    private static Masker masker() {
+        final Masker masker = new Masker(Buffers.wrap(null, MASK));
+        masker.readMask();
+        return masker;
+    }
+
+    private static byte[] reference(final byte[] payload) {
+        final byte[] result = new byte[payload.length];
+        for (int i = 0; i < payload.length; i++) {
+            result[i] = (byte) (payload[i] ^ MASK[i % MASK.length]);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.websockets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.utils.Charsets;
+import org.glassfish.grizzly.websockets.frametypes.BinaryFrameType;
+import org.glassfish.grizzly.websockets.frametypes.TextFrameType;
+import org.glassfish.grizzly.websockets.rfc6455.RFC6455Handler;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test the <tt>permessage-deflate</tt> extension.
+ */
+public class PerMessageDeflateTest extends BaseWebSocketTestUtilities {
+    private static final byte[] HELLO = "Hello".getBytes(Charsets.ASCII_CHARSET);
+
+    @Test
+    public void testCompressExamples() {
+        // RFC 7692, 7.2.3.1 and 7.2.3.2
+        final PerMessageDeflate takeover = negotiate("permessage-deflate", null);
+        assertArrayEquals(bytes(0xf2, 0x48, 0xcd, 0xc9, 0xc9, 0x07, 0x00),
+                takeover.compress(HELLO, true));
+        assertArrayEquals(bytes(0xf2, 0x00, 0x11, 0x00, 0x00),
+                takeover.compress(HELLO, true));
+
+        final PerMessageDeflate noTakeover = negotiate(
+                "permessage-deflate; server_no_context_takeover", null);
+        assertArrayEquals(noTakeover.compress(HELLO, true),
+                noTakeover.compress(HELLO, true));
+    }
+
+    @Test
+    public void testDecompress() {
+        final PerMessageDeflate server = negotiate("permessage-deflate", null);
+        final PerMessageDeflate client = PerMessageDeflate.accept(
+                server.toExtension());
+
+        final byte[] large = new byte[100000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i % 31);
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(HELLO,
+                    client.decompress(server.compress(HELLO, true), true));
+            assertArrayEquals(large,
+                    client.decompress(server.compress(large, true), true));
+            assertArrayEquals(new byte[0],
+                    client.decompress(server.compress(new byte[0], true), true));
+        }
+
+        // fragmented message
+        final byte[] part1 = client.decompress(
+                server.compress(Arrays.copyOf(large, 1000), false), false);
+        final byte[] part2 = client.decompress(
+                server.compress(Arrays.copyOfRange(large, 1000, large.length), true),
+                true);
+        final byte[] joined = Arrays.copyOf(part1, part1.length + part2.length);
+        System.arraycopy(part2, 0, joined, part1.length, part2.length);
+        assertArrayEquals(large, joined);
+    }
+
+    @Test
+    public void testMaxMessageSize() {
+        final PerMessageDeflate server = negotiate("permessage-deflate", null);
+        final PerMessageDeflate client = PerMessageDeflate.accept(
+                server.toExtension());
+        client.setMaxMessageSize(1000);
+
+        // highly compressible payload, which inflates far beyond the limit
+        final byte[] bomb = server.compress(new byte[100000], true);
+        assertTrue(bomb.length < 1000);
+        try {
+            client.decompress(bomb, true);
+            fail("MessageTooBigError expected");
+        } catch (MessageTooBigError expected) {
+            assertEquals(1009, expected.getClosingCode());
+        }
+
+        // the limit applies to the whole fragmented message
+        final PerMessageDeflate server2 = negotiate(
+                "permessage-deflate; server_no_context_takeover", null);
+        final PerMessageDeflate client2 = PerMessageDeflate.accept(
+                server2.toExtension());
+        client2.setMaxMessageSize(1000);
+        assertEquals(1000, client2.decompress(
+                server2.compress(new byte[1000], true), true).length);
+        assertEquals(600, client2.decompress(
+                server2.compress(new byte[600], false), false).length);
+        try {
+            client2.decompress(server2.compress(new byte[600], true), true);
+            fail("MessageTooBigError expected");
+        } catch (MessageTooBigError expected) {
+        }
+    }
+
+    @Test
+    public void testNegotiation() {
+        assertNull(negotiate("permessage-deflate; server_max_window_bits=10", null));
+        assertNull(negotiate("permessage-deflate; unknown", null));
+        assertNull(negotiate("permessage-deflate; server_no_context_takeover=1", null));
+
+        // RFC 7692, 7.1.2.1: the accepted server_max_window_bits is echoed
+        final PerMessageDeflate windowBits = negotiate(
+                "permessage-deflate; server_max_window_bits=15", null);
+        assertEquals(15, windowBits.getServerMaxWindowBits());
+        assertEquals("permessage-deflate; server_max_window_bits=15",
+                windowBits.toExtension().toString());
+        assertEquals(15, PerMessageDeflate.accept(
+                windowBits.toExtension()).getServerMaxWindowBits());
+        assertEquals(-1, negotiate("permessage-deflate", null).getServerMaxWindowBits());
+
+        final PerMessageDeflate deflate = negotiate(
+                "permessage-deflate; client_max_window_bits",
+                "permessage-deflate; server_no_context_takeover");
+        assertTrue(deflate.isServerNoContextTakeover());
+        assertFalse(deflate.isClientNoContextTakeover());
+        assertTrue(deflate.isOutboundContextReset());
+        assertEquals("permessage-deflate; server_no_context_takeover",
+                deflate.toExtension().toString());
+
+        final PerMessageDeflate client = PerMessageDeflate.accept(
+                parse("permessage-deflate; client_no_context_takeover"));
+        assertTrue(client.isOutboundContextReset());
+
+        try {
+            PerMessageDeflate.accept(
+                    parse("permessage-deflate; client_max_window_bits=10"));
+            fail("HandshakeException expected");
+        } catch (HandshakeException expected) {
+        }
+    }
+
+    @Test
+    public void testFraming() {
+        final RFC6455Handler client = new RFC6455Handler(true);
+        final RFC6455Handler server = new RFC6455Handler(false);
+        final PerMessageDeflate serverDeflate = negotiate("permessage-deflate", null);
+        server.setPerMessageDeflate(serverDeflate);
+        client.setPerMessageDeflate(PerMessageDeflate.accept(serverDeflate.toExtension()));
+
+        final String text = "The quick brown fox jumps over the lazy dog";
+        for (int i = 0; i < 3; i++) {
+            final byte[] packet = client.frame(
+                    new DataFrame(new TextFrameType(), text));
+            assertEquals(0x40, packet[0] & 0x40);
+
+            final DataFrame frame = server.unframe(Buffers.wrap(null, packet));
+            assertEquals(text, frame.getTextPayload());
+        }
+
+        // control frames are never compressed
+        final byte[] close = client.frame(new ClosingFrame(1000, "bye"));
+        assertEquals(0, close[0] & 0x40);
+
+        // RSV1 is not allowed, if the extension hasn't been negotiated
+        final byte[] packet = client.frame(
+                new DataFrame(new BinaryFrameType(), HELLO));
+        try {
+            new RFC6455Handler(false).unframe(Buffers.wrap(null, packet));
+            fail("ProtocolError expected");
+        } catch (ProtocolError expected) {
+        }
+    }
+
+    @Test
+    public void testBroadcastWithContextTakeover() throws Exception {
+        broadcast(PerMessageDeflate.createExtension());
+    }
+
+    @Test
+    public void testBroadcastWithoutContextTakeover() throws Exception {
+        final Extension supported = PerMessageDeflate.createExtension();
+        supported.getParameters().add(new Extension.Parameter(
+                PerMessageDeflate.SERVER_NO_CONTEXT_TAKEOVER, null));
+        broadcast(supported);
+    }
+
+    private void broadcast(final Extension supported) throws Exception {
+        final int iterations = 50;
+        final int websocketsCount = 4;
+
+        final ServerSideBroadcastTest.BroadcastApplication app =
+                new ServerSideBroadcastTest.BroadcastApplication(
+                new OptimizedBroadcaster());
+        app.getSupportedExtensions().add(supported);
+
+        final WebSocketServer server = WebSocketServer.createServer(PORT);
+        server.register("", "/broadcast", app);
+        server.start();
+
+        final List<TrackingWebSocket> clients = new ArrayList<TrackingWebSocket>();
+        try {
+            final String address = String.format("ws://localhost:%s/broadcast", PORT);
+            for (int i = 0; i < websocketsCount; i++) {
+                final TrackingWebSocket socket = new TrackingWebSocket(
+                        address, i + "", Version.RFC6455,
+                        iterations * websocketsCount);
+                // every other client doesn't support the compression
+                if (i % 2 == 0) {
+                    socket.getExtensions().add(PerMessageDeflate.createExtension());
+                }
+
+                socket.connect();
+                assertEquals(i % 2 == 0,
+                        socket.protocolHandler.getPerMessageDeflate() != null);
+                clients.add(socket);
+            }
+            app.awaitWebSockets(websocketsCount);
+
+            for (int count = 0; count < iterations; count++) {
+                for (TrackingWebSocket socket : clients) {
+                    final String message = String.format(
+                            "%s: count %s: %s", socket.getName(), count,
+                            "some repeated text, some repeated text");
+                    for (TrackingWebSocket recipient : clients) {
+                        recipient.sent.add(message);
+                    }
+
+                    socket.send(message);
+                }
+            }
+
+            for (TrackingWebSocket socket : clients) {
+                assertTrue("All messages should come back: " + socket.getReceived(),
+                        socket.waitOnMessages());
+            }
+        } finally {
+            for (TrackingWebSocket socket : clients) {
+                socket.close();
+            }
+            server.stop();
+        }
+    }
+
+    private static PerMessageDeflate negotiate(final String offer,
+            final String supported) {
+        return PerMessageDeflate.negotiate(parse(offer),
+                supported != null ? parse(supported) : null);
+    }
+
+    private static Extension parse(final String value) {
+        final int idx = value.indexOf(';');
+        final Extension extension = new Extension(
+                (idx == -1 ? value : value.substring(0, idx)).trim());
+        if (idx != -1) {
+            for (String p : value.substring(idx + 1).split(";")) {
+                final String[] nameValue = p.trim().split("=");
+                extension.getParameters().add(new Extension.Parameter(
+                        nameValue[0], nameValue.length > 1 ? nameValue[1] : null));
+            }
+        }
+
+        return extension;
+    }
+
+    private static byte[] bytes(final int... values) {
+        final byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+
+        return bytes;
+    }
+}
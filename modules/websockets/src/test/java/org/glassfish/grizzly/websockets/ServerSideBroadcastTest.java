@@ -37,7 +37,8 @@ public class ServerSideBroadcastTest extends BaseWebSocketTestUtilities {
     
     @Parameterized.Parameters
     public static List<Object[]> parameters() {
-        final Broadcaster[] broadcasters = {new DummyBroadcaster(), new OptimizedBroadcaster()};
+        final Broadcaster[] broadcasters = {new DummyBroadcaster(),
+            new OptimizedBroadcaster(), new SharedBufferBroadcaster()};
         
         final List<Object[]> versions = BaseWebSocketTestUtilities.parameters();
         final List<Object[]> resultList = new ArrayList<Object[]>();
@@ -63,7 +64,8 @@ public class ServerSideBroadcastTest extends BaseWebSocketTestUtilities {
         final int websocketsCount = 5;
         
         WebSocketServer server = WebSocketServer.createServer(PORT);
-        server.register("", "/broadcast", new BroadcastApplication(broadcaster));
+        final BroadcastApplication app = new BroadcastApplication(broadcaster);
+        server.register("", "/broadcast", app);
         server.start();
         List<TrackingWebSocket> clients = new ArrayList<TrackingWebSocket>();
         try {
@@ -84,6 +86,7 @@ public class ServerSideBroadcastTest extends BaseWebSocketTestUtilities {
                 socket.connect();
                 clients.add(socket);
             }
+            app.awaitWebSockets(websocketsCount);
             
             for (int count = 0; count < ITERATIONS; count++) {
                 for (String message : messages) {
@@ -135,5 +138,17 @@ public class ServerSideBroadcastTest extends BaseWebSocketTestUtilities {
         public void onMessage(WebSocket socket, String data) {
             socket.broadcast(getWebSockets(), data);
         }
+
+        /**
+         * Waits until the server side of the connected clients is registered,
+         * which may happen after the client handshake is completed.
+         */
+        public void awaitWebSockets(final int count) throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + 10000;
+            while (getWebSockets().size() < count
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
     }
 }
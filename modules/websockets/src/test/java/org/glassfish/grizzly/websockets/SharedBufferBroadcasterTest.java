@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.websockets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test {@link SharedBufferBroadcaster} statistics.
+ */
+public class SharedBufferBroadcasterTest extends BaseWebSocketTestUtilities {
+
+    @Test
+    public void testStatistics() throws Exception {
+        final int websocketsCount = 6;
+        final BlockingQueue<SharedBufferBroadcaster.Statistics> statistics =
+                new LinkedBlockingQueue<SharedBufferBroadcaster.Statistics>();
+
+        final SharedBufferBroadcaster broadcaster = new SharedBufferBroadcaster();
+        broadcaster.setStatisticsListener(
+                new SharedBufferBroadcaster.StatisticsListener() {
+            @Override
+            public void onBroadcastCompleted(
+                    final SharedBufferBroadcaster.Statistics s) {
+                statistics.add(s);
+            }
+        });
+
+        final ServerSideBroadcastTest.BroadcastApplication app =
+                new ServerSideBroadcastTest.BroadcastApplication(broadcaster);
+        app.getSupportedExtensions().add(PerMessageDeflate.createExtension());
+
+        final WebSocketServer server = WebSocketServer.createServer(PORT);
+        server.register("", "/broadcast", app);
+        server.start();
+
+        final List<TrackingWebSocket> clients = new ArrayList<TrackingWebSocket>();
+        try {
+            final String address = String.format("ws://localhost:%s/broadcast", PORT);
+            for (int i = 0; i < websocketsCount; i++) {
+                final TrackingWebSocket socket = new TrackingWebSocket(
+                        address, i + "", Version.RFC6455, 1);
+                // a third of the clients uses the compression with
+                // the context takeover
+                if (i % 3 == 0) {
+                    socket.getExtensions().add(PerMessageDeflate.createExtension());
+                }
+                socket.connect();
+                clients.add(socket);
+            }
+            app.awaitWebSockets(websocketsCount);
+
+            final String message = "shared message";
+            for (TrackingWebSocket socket : clients) {
+                socket.sent.add(message);
+            }
+            clients.get(1).send(message);
+
+            for (TrackingWebSocket socket : clients) {
+                assertTrue(socket.waitOnMessages());
+            }
+
+            final SharedBufferBroadcaster.Statistics s =
+                    statistics.poll(10, TimeUnit.SECONDS);
+            assertNotNull(s);
+            assertEquals(websocketsCount, s.getRecipients());
+            assertEquals(websocketsCount, s.getDelivered());
+            assertEquals(2, s.getIndividual());
+            assertEquals(1, s.getSharedFrames());
+            assertEquals(0, s.getFailed());
+            assertEquals(0, s.getDropped());
+            assertEquals(1, broadcaster.getBroadcastsCount());
+            assertEquals(websocketsCount, broadcaster.getDeliveredCount());
+        } finally {
+            for (TrackingWebSocket socket : clients) {
+                socket.close();
+            }
+            server.stop();
+        }
+    }
+}
@@ -20,6 +20,8 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -45,6 +47,7 @@ public class WebSocketClient extends SimpleWebSocket {
     private final Version version;
     private final URI address;
     private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+    private final List<Extension> extensions = new ArrayList<Extension>();
     protected TCPNIOTransport transport;
 
     public WebSocketClient(String uri, WebSocketListener... listeners) {
@@ -62,6 +65,13 @@ public class WebSocketClient extends SimpleWebSocket {
         add(new WebSocketCloseAdapter());
     }
 
+    /**
+     * @return the extensions, which will be offered to the server
+     */
+    public List<Extension> getExtensions() {
+        return extensions;
+    }
+
     public URI getAddress() {
         return address;
     }
@@ -99,6 +109,7 @@ public class WebSocketClient extends SimpleWebSocket {
                     final WebSocketHolder holder = WebSocketHolder.set(conn, protocolHandler,
                             WebSocketClient.this);
                     holder.handshake = protocolHandler.createClientHandShake(address);
+                    holder.handshake.getExtensions().addAll(extensions);
                 }
             };
             final FutureImpl<Boolean> completeFuture = Futures.createSafeFuture();